@@ -14,6 +14,22 @@ public class Config {
 	private String webDir = "www";
 	//一个唯一的随机值，避免重复启动
 	private int key;
+	//处理连接的线程数量(不支持虚拟线程或未开启虚拟线程时使用)
+	private int threads = 32;
+	//在支持的Java版本中为每个连接使用虚拟线程
+	private boolean virtualThreads = true;
+	//keep-alive连接的空闲超时(毫秒),0为每次请求后关闭连接
+	private int keepAliveTimeout = 5000;
+	//单个keep-alive连接最多处理的请求数量
+	private int keepAliveRequests = 1000;
+	//内存文件缓存的最大字节数,0为不缓存
+	private long cacheSize = 32 * 1024 * 1024;
+	//可以放入内存缓存的单个文件最大字节数
+	private long cacheFileSize = 1024 * 1024;
+	//大于此字节数且未缓存的文件使用FileChannel.transferTo发送
+	private long transferSize = 64 * 1024;
+	//客户端支持gzip时,若存在同名的.gz文件则直接发送压缩后的文件
+	private boolean gzip = true;
 
 	public Config(String path) throws Exception {
 		file = new File(path);
@@ -34,12 +50,47 @@ public class Config {
 		
 		port = checkPort(properties.getProperty("port"));
 		webDir = properties.getProperty("dir", "www");
+		threads = getInt("threads", threads);
+		virtualThreads = getBoolean("thread.virtual", virtualThreads);
+		keepAliveTimeout = getInt("keepalive.timeout", keepAliveTimeout);
+		keepAliveRequests = getInt("keepalive.requests", keepAliveRequests);
+		cacheSize = getLong("cache.size", cacheSize);
+		cacheFileSize = getLong("cache.file.size", cacheFileSize);
+		transferSize = getLong("transfer.size", transferSize);
+		gzip = getBoolean("gzip", gzip);
 		Random random = new Random();
 		key = random.nextInt(Integer.MAX_VALUE);
 		properties.setProperty("key", key + "");
 	}
 	
 
+	private int getInt(String name, int def) {
+		String value = properties.getProperty(name);
+		if (value == null) {
+			properties.setProperty(name, def + "");
+			return def;
+		}
+		return Integer.parseInt(value.trim());
+	}
+
+	private long getLong(String name, long def) {
+		String value = properties.getProperty(name);
+		if (value == null) {
+			properties.setProperty(name, def + "");
+			return def;
+		}
+		return Long.parseLong(value.trim());
+	}
+
+	private boolean getBoolean(String name, boolean def) {
+		String value = properties.getProperty(name);
+		if (value == null) {
+			properties.setProperty(name, def + "");
+			return def;
+		}
+		return Boolean.parseBoolean(value.trim());
+	}
+
 	private void save() throws Exception {
 		properties.store(new FileWriter(file), "WebServer config file");
 	}
@@ -64,6 +115,38 @@ public class Config {
 		return key;
 	}
 
+	public int getThreads() {
+		return threads;
+	}
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public int getKeepAliveTimeout() {
+		return keepAliveTimeout;
+	}
+
+	public int getKeepAliveRequests() {
+		return keepAliveRequests;
+	}
+
+	public long getCacheSize() {
+		return cacheSize;
+	}
+
+	public long getCacheFileSize() {
+		return cacheFileSize;
+	}
+
+	public long getTransferSize() {
+		return transferSize;
+	}
+
+	public boolean isGzip() {
+		return gzip;
+	}
+
 	public String getWebDir() {
 		return webDir;
 	}
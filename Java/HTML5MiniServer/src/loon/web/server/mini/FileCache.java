@@ -0,0 +1,117 @@
+package loon.web.server.mini;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按最近最少使用淘汰的内存文件缓存,总字节数不超过给定上限,
+ * 每次读取时比较文件的修改时间与长度,文件变化后自动重新载入.
+ */
+public class FileCache {
+
+	public static class Entry {
+
+		private final byte[] data;
+		private final long lastModified;
+		private final long length;
+
+		Entry(byte[] data, long lastModified, long length) {
+			this.data = data;
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+
+		public byte[] getData() {
+			return data;
+		}
+
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		public long getLength() {
+			return length;
+		}
+	}
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(
+			64, 0.75f, true);
+
+	private final long maxSize;
+	private final long maxFileSize;
+	private long size;
+
+	public FileCache(long maxSize, long maxFileSize) {
+		this.maxSize = maxSize;
+		this.maxFileSize = Math.min(maxSize, maxFileSize);
+	}
+
+	/**
+	 * 文件是否适合放入缓存
+	 *
+	 * @param length
+	 * @return
+	 */
+	public boolean isCacheable(long length) {
+		return length <= maxFileSize && maxSize > 0;
+	}
+
+	/**
+	 * 获得文件内容,文件过大(不适合缓存)时返回null
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public Entry get(File file) throws IOException {
+		final long lastModified = file.lastModified();
+		final long length = file.length();
+		if (!isCacheable(length)) {
+			return null;
+		}
+		final String key = file.getAbsolutePath();
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry != null && entry.lastModified == lastModified
+					&& entry.length == length) {
+				return entry;
+			}
+		}
+		byte[] data = Files.readAllBytes(file.toPath());
+		Entry entry = new Entry(data, lastModified, data.length);
+		synchronized (this) {
+			Entry old = entries.put(key, entry);
+			if (old != null) {
+				size -= old.data.length;
+			}
+			size += data.length;
+			trim();
+		}
+		return entry;
+	}
+
+	private void trim() {
+		Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+		while (size > maxSize && it.hasNext()) {
+			size -= it.next().getValue().data.length;
+			it.remove();
+		}
+	}
+
+	public synchronized long size() {
+		return size;
+	}
+
+	public synchronized int count() {
+		return entries.size();
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		size = 0;
+	}
+}
@@ -2,26 +2,39 @@ package loon.web.server.mini;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Locale;
 
 public class Request {
 
 	private String header;
 	private String page;
+	private String version;
 	private HashMap<String, String> get;
 
 	private ArrayList<String> message;
 	private HashMap<String, String> post;
+	private HashMap<String, String> fields = new HashMap<String, String>();
 
 	public Request(ArrayList<String> message, String post) throws Exception {
 		this.message = message;
 		this.post = phrase(post);
 		this.header = message.get(0);
-		this.page = header.split(" ")[1];
+		String[] items = header.split(" ");
+		this.page = items[1];
+		this.version = items.length > 2 ? items[2] : "HTTP/1.0";
 		if (page.contains("?")) {
 			this.get = phrase(page.split("\\?")[1]);
 			this.page = page.split("\\?")[0];
 
 		}
+		for (int i = 1; i < message.size(); i++) {
+			String line = message.get(i);
+			int idx = line.indexOf(':');
+			if (idx > 0) {
+				fields.put(line.substring(0, idx).trim().toLowerCase(Locale.ROOT),
+						line.substring(idx + 1).trim());
+			}
+		}
 	}
 
 	private HashMap<String, String> phrase(String args) {
@@ -34,6 +47,35 @@ public class Request {
 		return map;
 	}
 
+	/**
+	 * 获得指定的请求头(名称不区分大小写),不存在时返回null
+	 *
+	 * @param name
+	 * @return
+	 */
+	public String getField(String name) {
+		return fields.get(name.toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * 客户端是否希望保持连接(HTTP/1.1默认保持,HTTP/1.0需要明确要求)
+	 *
+	 * @return
+	 */
+	public boolean isKeepAlive() {
+		String connection = getField("Connection");
+		if ("HTTP/1.1".equalsIgnoreCase(version)) {
+			return connection == null || !connection.equalsIgnoreCase("close");
+		}
+		return connection != null && connection.equalsIgnoreCase("keep-alive");
+	}
+
+	public boolean acceptGzip() {
+		String encoding = getField("Accept-Encoding");
+		return encoding != null
+				&& encoding.toLowerCase(Locale.ROOT).contains("gzip");
+	}
+
 	public HashMap<String, String> getPost() {
 		return post;
 	}
@@ -50,6 +92,10 @@ public class Request {
 		return page;
 	}
 
+	public String getVersion() {
+		return version;
+	}
+
 	public HashMap<String, String> getGet() {
 		return get;
 	}
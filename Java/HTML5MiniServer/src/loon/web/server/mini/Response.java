@@ -1,64 +1,221 @@
 package loon.web.server.mini;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintWriter;
 import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 
 public class Response {
 
+	private static final String CRLF = "\r\n";
+
 	private Socket socket;
+	private Request request;
+	private OutputStream output;
+	private boolean keepAlive;
+	private boolean sent;
 
 	private String response = "HTTP/1.1 200 OK";
 	private ArrayList<String> header = new ArrayList<String>();
-	private String body = "";
+	private StringBuilder body = new StringBuilder();
 	private String contentType = "text/html";
 	private String charset = "utf-8";
 
 	public Response(Socket socket) {
+		this(socket, null, false);
+	}
+
+	/**
+	 * @param socket
+	 * @param request
+	 *            当前请求,用于处理缓存验证与gzip
+	 * @param keepAlive
+	 *            发送完成后是否保持连接
+	 */
+	public Response(Socket socket, Request request, boolean keepAlive) {
 		this.socket = socket;
+		this.request = request;
+		this.keepAlive = keepAlive;
 	}
 
 	public void sendFile(File file) throws IOException {
 		contentType = getContentType(file.getName());
 		if (!file.exists()) throw new FileNotFoundException();
-		OutputStream outputStream = socket.getOutputStream();
-		PrintWriter out = new PrintWriter(outputStream);
-		out.println(response);
+		Server server = Server.getServer();
+		Config config = server == null ? null : server.getConfig();
+		File source = file;
+		boolean gzip = false;
+		// 存在压缩版本时,响应内容取决于Accept-Encoding,无论是否压缩都要告知缓存
+		boolean compressible = false;
+		if (config != null && config.isGzip()) {
+			File packed = new File(file.getPath() + ".gz");
+			if (packed.isFile() && packed.lastModified() >= file.lastModified()) {
+				compressible = true;
+				if (request != null && request.acceptGzip()) {
+					source = packed;
+					gzip = true;
+				}
+			}
+		}
+		FileCache cache = server == null ? null : server.getFileCache();
+		FileCache.Entry entry = cache == null ? null : cache.get(source);
+		long lastModified = entry != null ? entry.getLastModified() : source
+				.lastModified();
+		long length = entry != null ? entry.getLength() : source.length();
+		String etag = "\"" + Long.toHexString(length) + "-"
+				+ Long.toHexString(lastModified) + (gzip ? "-gz" : "") + "\"";
+		boolean ok = response.contains(" 200");
+
+		if (ok && isNotModified(etag, lastModified)) {
+			StringBuilder head = new StringBuilder();
+			head.append("HTTP/1.1 304 Not Modified").append(CRLF);
+			head.append("ETag: ").append(etag).append(CRLF);
+			head.append("Last-Modified: ").append(formatDate(lastModified))
+					.append(CRLF);
+			if (compressible) {
+				head.append("Vary: Accept-Encoding").append(CRLF);
+			}
+			appendConnection(head);
+			head.append(CRLF);
+			OutputStream out = output();
+			out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+			finish();
+			return;
+		}
+
+		StringBuilder head = new StringBuilder();
+		head.append(response).append(CRLF);
 		for (String line : header) {
-			out.println(line);
+			head.append(line).append(CRLF);
+		}
+		head.append("Content-Type: ").append(contentType).append(CRLF);
+		head.append("Content-Length: ").append(length).append(CRLF);
+		if (ok) {
+			head.append("ETag: ").append(etag).append(CRLF);
+			head.append("Last-Modified: ").append(formatDate(lastModified))
+					.append(CRLF);
+		}
+		if (gzip) {
+			head.append("Content-Encoding: gzip").append(CRLF);
 		}
-		out.println("Content-type: " + contentType);
-		out.println("Content-length: " + file.length());
-		out.println();
-		out.flush();
-		Files.copy(file.toPath(), outputStream);
-		outputStream.flush();
-		outputStream.close();
+		if (compressible) {
+			head.append("Vary: Accept-Encoding").append(CRLF);
+		}
+		appendConnection(head);
+		head.append(CRLF);
+		OutputStream out = output();
+		out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+
+		SocketChannel channel = socket.getChannel();
+		if (entry != null) {
+			out.write(entry.getData());
+		} else if (channel != null && config != null
+				&& length >= config.getTransferSize()) {
+			out.flush();
+			FileChannel fileChannel = FileChannel.open(source.toPath(),
+					StandardOpenOption.READ);
+			try {
+				long position = 0;
+				while (position < length) {
+					long count = fileChannel.transferTo(position, length
+							- position, channel);
+					if (count <= 0) {
+						break;
+					}
+					position += count;
+				}
+			} finally {
+				fileChannel.close();
+			}
+		} else {
+			Files.copy(source.toPath(), out);
+		}
+		finish();
 	}
 
 	public void send() throws IOException {
-		PrintWriter out = new PrintWriter(socket.getOutputStream());
-		out.println(response);
+		byte[] bytes = body.toString().getBytes(charset);
+		StringBuilder head = new StringBuilder();
+		head.append(response).append(CRLF);
 		for (String line : header) {
-			out.println(line);
+			head.append(line).append(CRLF);
+		}
+		head.append("Content-Type: ").append(contentType).append(";charset=")
+				.append(charset).append(CRLF);
+		head.append("Content-Length: ").append(bytes.length).append(CRLF);
+		appendConnection(head);
+		head.append(CRLF);
+		OutputStream out = output();
+		out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+		out.write(bytes);
+		finish();
+	}
+
+	private boolean isNotModified(String etag, long lastModified) {
+		if (request == null) {
+			return false;
+		}
+		String match = request.getField("If-None-Match");
+		if (match != null) {
+			return match.contains(etag) || match.trim().equals("*");
+		}
+		String since = request.getField("If-Modified-Since");
+		if (since != null) {
+			try {
+				long time = ZonedDateTime.parse(since,
+						DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+						.toEpochMilli();
+				return lastModified / 1000 <= time / 1000;
+			} catch (DateTimeParseException e) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	private static String formatDate(long time) {
+		return DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime
+				.ofInstant(Instant.ofEpochMilli(time), ZoneOffset.UTC));
+	}
+
+	private void appendConnection(StringBuilder head) {
+		head.append("Connection: ").append(keepAlive ? "keep-alive" : "close")
+				.append(CRLF);
+	}
+
+	private OutputStream output() throws IOException {
+		if (output == null) {
+			output = new BufferedOutputStream(socket.getOutputStream(), 8192);
+		}
+		return output;
+	}
+
+	private void finish() throws IOException {
+		sent = true;
+		output.flush();
+		if (!keepAlive) {
+			output.close();
 		}
-		out.println("Content-type: " + contentType + ";charset=" + charset);
-		out.println("Content-length: " + body.length());
-		out.println();
-		out.print(body);
-		out.flush();
-		out.close();
 	}
 
 	private String getContentType(String page) {
 		String extention = page;
-		if (page.contains(".")) {
-			extention = page.split("\\.")[1];
+		int idx = page.lastIndexOf('.');
+		if (idx != -1) {
+			extention = page.substring(idx + 1).toLowerCase();
 		}
 		switch (extention) {
 		case "jpg":
@@ -71,22 +228,38 @@ public class Response {
 			return "image/gif";
 		case "bmp":
 			return "image/bmp";
+		case "ico":
+			return "image/x-icon";
+		case "svg":
+			return "image/svg+xml";
 		case "mp4":
 			return "video/mp4";
 		case "mp3":
-			return "video/mp3";
+			return "audio/mpeg";
+		case "ogg":
+			return "audio/ogg";
 		case "wav":
-			return "video/wav";
+			return "audio/wav";
 		case "html":
 			return "text/html";
 		case "htm":
 			return "text/html";
+		case "css":
+			return "text/css";
+		case "js":
+			return "application/javascript";
 		case "txt":
 			return "text/plain";
 		case "xml":
 			return "text/xml";
 		case "json":
 			return "text/json";
+		case "woff":
+			return "font/woff";
+		case "ttf":
+			return "font/ttf";
+		case "wasm":
+			return "application/wasm";
 		default:
 			return "text/plain";
 		}
@@ -97,7 +270,7 @@ public class Response {
 	}
 
 	public void addToBody(String string) {
-		body = body + string;
+		body.append(string);
 	}
 
 	public void setContentType(String contentType) {
@@ -115,4 +288,21 @@ public class Response {
 	public Socket getSocket() {
 		return socket;
 	}
+
+	public Request getRequest() {
+		return request;
+	}
+
+	/**
+	 * 是否已经发送过完整的响应
+	 *
+	 * @return
+	 */
+	public boolean isSent() {
+		return sent;
+	}
+
+	public boolean isKeepAlive() {
+		return keepAlive;
+	}
 }
@@ -3,15 +3,36 @@ package loon.web.server.mini;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.net.ServerSocket;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Server implements Runnable {
 
 	public static String indexPage = "index";
 
+	private static class ClientThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "WebClient-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
 	private static Server self;
-	private ServerSocket socket;
+	private ServerSocketChannel socket;
+	private ExecutorService clients;
+	private FileCache fileCache;
 	private Thread run;
 
 	private Config config;
@@ -29,20 +50,43 @@ public class Server implements Runnable {
 	
 	public void open() throws IOException{
 		Page.loadPages();
-		socket = new ServerSocket(this.config.getPort());
+		socket = ServerSocketChannel.open();
+		socket.socket().setReuseAddress(true);
+		socket.socket().bind(new InetSocketAddress(this.config.getPort()), 256);
+		clients = newClientExecutor();
+		if (fileCache == null && config.getCacheSize() > 0) {
+			fileCache = new FileCache(config.getCacheSize(),
+					config.getCacheFileSize());
+		}
 		System.out.println("Started Server on port: " + this.config.getPort());
 		run = new Thread(this, "WebServer");
 		run.start();
 		running = true;
 	}
 
+	/**
+	 * 在支持虚拟线程的Java版本中(并且配置允许)每个连接使用一个虚拟线程,否则使用固定数量的线程池
+	 */
+	private ExecutorService newClientExecutor() {
+		if (config.isVirtualThreads()) {
+			try {
+				Method method = Executors.class
+						.getMethod("newVirtualThreadPerTaskExecutor");
+				return (ExecutorService) method.invoke(null);
+			} catch (Exception e) {
+			}
+		}
+		return Executors.newFixedThreadPool(Math.max(1, config.getThreads()),
+				new ClientThreadFactory());
+	}
+
 	public void run() {
 		while (running) {
 			try {
-				Socket clientSocket = socket.accept();
-				Thread client = new Thread(new WebClient(clientSocket),
-						"WebClient");
-				client.start();
+				SocketChannel channel = socket.accept();
+				Socket clientSocket = channel.socket();
+				clientSocket.setTcpNoDelay(true);
+				clients.execute(new WebClient(clientSocket));
 			} catch (Exception e) {
 				if (!running)
 					return;
@@ -53,8 +97,11 @@ public class Server implements Runnable {
 
 	public void process(Socket clientSocket, Request request)
 			throws IOException {
+		process(request, new Response(clientSocket, request, false));
+	}
 
-		Response response = new Response(clientSocket);
+	public void process(Request request, Response response)
+			throws IOException {
 
 		for (Page page : Page.pages) {
 			if (page.getName().equals(request.getPage())) {
@@ -119,12 +166,22 @@ public class Server implements Runnable {
 		running = false;
 		socket.close();
 		run.join();
+		clients.shutdownNow();
 	}
 
 	public static Server getServer() {
 		return self;
 	}
 
+	/**
+	 * 内存文件缓存,配置中cache.size为0时返回null
+	 *
+	 * @return
+	 */
+	public FileCache getFileCache() {
+		return fileCache;
+	}
+
 	public Config getConfig() {
 		return config;
 	}
@@ -3,73 +3,102 @@ package loon.web.server.mini;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 
+/**
+ * 处理一个客户端连接,支持HTTP/1.1 keep-alive,同一连接上可以连续处理多个请求
+ */
 public class WebClient implements Runnable {
 
 	private Socket clientSocket;
 	private BufferedReader in;
-	private PrintWriter out;
 
 	public WebClient(Socket clientSocket) throws IOException {
 		this.clientSocket = clientSocket;
+		// 请求头只包含ASCII字符,使用ISO-8859-1时字符数与字节数一致,便于按Content-Length读取
 		in = new BufferedReader(new InputStreamReader(
-				clientSocket.getInputStream()));
-		out = new PrintWriter(clientSocket.getOutputStream(), true);
+				clientSocket.getInputStream(), StandardCharsets.ISO_8859_1));
 	}
 
 	@Override
 	public void run() {
-		ArrayList<String> message = new ArrayList<String>();
-		String line;
-		String post = "";
+		Server server = Server.getServer();
+		int timeout = server.getConfig().getKeepAliveTimeout();
+		int maxRequests = server.getConfig().getKeepAliveRequests();
 		try {
-			while ((line = in.readLine()) != null) {
-				if (line.length() == 0) {
-					for (String current : message) {
-						if (current.startsWith("Content-Length")) {
-							if (current.split(": ").length >= 2) {
-								char[] buffer = new char[Integer
-										.parseInt(current.split(": ")[1])];
-								in.read(buffer, 0, Integer.parseInt(current
-										.split(": ")[1]));
-								post = new String(buffer);
-							}
-						}
-					}
+			if (timeout > 0) {
+				clientSocket.setSoTimeout(timeout);
+			}
+			for (int count = 1;; count++) {
+				ArrayList<String> message = new ArrayList<String>();
+				String post = readRequest(message);
+				if (message.size() == 0) {
+					break;
+				}
+				Request request;
+				try {
+					request = new Request(message, post);
+				} catch (Exception e) {
+					break;
+				}
+				boolean keepAlive = timeout > 0 && count < maxRequests
+						&& request.isKeepAlive();
+				Response response = new Response(clientSocket, request,
+						keepAlive);
+				server.process(request, response);
+				// 页面没有发送完整响应时无法确定连接状态,直接关闭
+				if (!keepAlive || !response.isSent()) {
 					break;
 				}
-				message.add(line);
 			}
+		} catch (SocketTimeoutException e) {
+			// keep-alive连接空闲超时
 		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		Request request;
-		try {
-			request = new Request(message, post);
-		} catch (Exception e1) {
-			return;
+		} finally {
+			try {
+				in.close();
+				clientSocket.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
 		}
-		if (message != null) {
-			if (message.size() > 0) {
-				try {
-					System.out.println(request==null);
-					Server.getServer().process(clientSocket, request);
-				} catch (IOException e) {
+	}
 
+	private String readRequest(ArrayList<String> message) throws IOException {
+		String line;
+		String post = "";
+		while ((line = in.readLine()) != null) {
+			if (line.length() == 0) {
+				if (message.size() == 0) {
+					// 忽略请求之间多余的空行
+					continue;
 				}
+				for (String current : message) {
+					if (current.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+						int length = Integer.parseInt(current.substring(15)
+								.trim());
+						char[] buffer = new char[length];
+						int read = 0;
+						while (read < length) {
+							int n = in.read(buffer, read, length - read);
+							if (n == -1) {
+								break;
+							}
+							read += n;
+						}
+						post = new String(new String(buffer, 0, read).getBytes(
+								StandardCharsets.ISO_8859_1),
+								StandardCharsets.UTF_8);
+					}
+				}
+				break;
 			}
+			message.add(line);
 		}
-
-		try {
-			out.close();
-			in.close();
-			clientSocket.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		return post;
 	}
 
 }
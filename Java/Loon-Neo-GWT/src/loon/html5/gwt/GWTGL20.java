@@ -698,6 +698,10 @@ public final class GWTGL20 extends GL20 implements GLExt {
 				boundElementArrayBuffer = requestedElementArrayBuffer;
 			}
 		}
+		if (data == null) {
+			glc.bufferData(target, byteSize, usage);
+			return;
+		}
 		glc.bufferData(target, getTypedArray(data, GL_BYTE, byteSize), usage);
 	}
 
@@ -707,8 +711,12 @@ public final class GWTGL20 extends GL20 implements GLExt {
 				&& requestedArrayBuffer != boundArrayBuffer) {
 			glc.bindBuffer(target, requestedArrayBuffer);
 			boundArrayBuffer = requestedArrayBuffer;
+		} else if (target == GL_ELEMENT_ARRAY_BUFFER
+				&& requestedElementArrayBuffer != boundElementArrayBuffer) {
+			glc.bindBuffer(target, requestedElementArrayBuffer);
+			boundElementArrayBuffer = requestedElementArrayBuffer;
 		}
-		throw new RuntimeException("NYI glBufferSubData");
+		glc.bufferSubData(target, offset, getTypedArray(data, GL_BYTE, size));
 	}
 
 	@Override
@@ -151,7 +151,7 @@ public class JavaSEGame extends LGame {
 	private final Asyn asyn = new JavaSEAsyn(pool, log, frame);
 
 	private final JavaSEAccelerometer accelerometer = new JavaSEAccelerometer();
-	private final JavaSESave save;
+	private final Save save;
 	private final JavaSEGraphics graphics;
 	private final JavaSEInputMake input;
 	private final JavaSEAssets assets = new JavaSEAssets(this);
@@ -210,7 +210,9 @@ public class JavaSEGame extends LGame {
 		this.preInit();
 		this.graphics = createGraphics();
 		this.input = createInput();
-		this.save = new JavaSESave(log, config.appName);
+		this.save = config.journalSave ? new JavaSEJournalSave(log,
+				config.appName) : new JavaSESave(log, config.appName);
+		JavaSEProfilerSampler.install(config, log);
 		if (config.activationKey != -1) {
 			input.keyboardEvents.connect(new Port<KeyMake.Event>() {
 				public void onEmit(KeyMake.Event event) {
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2008 - 2015 The Loon Game Engine Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.javase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import loon.LSetting;
+import loon.Log;
+import loon.utils.timer.FrameProfiler;
+
+/**
+ * 桌面环境的FrameProfiler数据来源,以System.nanoTime计时,以ThreadMXBean统计当前线程分配的内存
+ */
+final class JavaSEProfilerSampler implements FrameProfiler.Sampler {
+
+	/**
+	 * 退出时写入逐帧记录
+	 */
+	private static final class TraceWriter implements Runnable {
+
+		private final String path;
+
+		private final Log log;
+
+		TraceWriter(String path, Log log) {
+			this.path = path;
+			this.log = log;
+		}
+
+		@Override
+		public void run() {
+			try {
+				writeTrace(new File(path));
+			} catch (IOException e) {
+				log.warn("Couldn't write profiler trace " + path, e);
+			}
+		}
+	}
+
+	/**
+	 * 按设置启用FrameProfiler(isProfiler为true或指定了profilerTrace时)
+	 * 
+	 * @param setting
+	 * @param log
+	 */
+	static void install(LSetting setting, Log log) {
+		if (!setting.isProfiler && setting.profilerTrace == null) {
+			return;
+		}
+		try {
+			FrameProfiler.setSampler(new JavaSEProfilerSampler());
+		} catch (Throwable e) {
+			// 非HotSpot虚拟机可能没有com.sun.management,此时只统计时间
+			log.info("Allocation counters are not available: " + e);
+		}
+		FrameProfiler.setEnabled(true);
+		if (setting.profilerTrace != null) {
+			Runtime.getRuntime().addShutdownHook(
+					new Thread(new TraceWriter(setting.profilerTrace, log),
+							"ProfilerTraceWriter"));
+		}
+	}
+
+	/**
+	 * 把已记录的帧写入文件(以.csv结尾时为CSV,否则为JSON)
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	static void writeTrace(File file) throws IOException {
+		String data = file.getName().toLowerCase().endsWith(".csv") ? FrameProfiler
+				.toCSV() : FrameProfiler.toJSON();
+		Writer out = new OutputStreamWriter(new FileOutputStream(file),
+				"UTF-8");
+		try {
+			out.write(data);
+		} finally {
+			out.close();
+		}
+	}
+
+	private final com.sun.management.ThreadMXBean threads;
+
+	JavaSEProfilerSampler() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		com.sun.management.ThreadMXBean threads = null;
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			threads = (com.sun.management.ThreadMXBean) bean;
+			if (threads.isThreadAllocatedMemorySupported()) {
+				if (!threads.isThreadAllocatedMemoryEnabled()) {
+					threads.setThreadAllocatedMemoryEnabled(true);
+				}
+			} else {
+				threads = null;
+			}
+		}
+		this.threads = threads;
+	}
+
+	@Override
+	public long nanoTime() {
+		return System.nanoTime();
+	}
+
+	@Override
+	public long allocatedBytes() {
+		if (threads == null) {
+			return -1;
+		}
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+}
@@ -161,7 +161,7 @@ public class Lwjgl3Game extends LGame {
 	private final Asyn asyn = new Lwjgl3Asyn(pool, log, frame);
 
 	private final Lwjgl3Accelerometer accelerometer = new Lwjgl3Accelerometer();
-	private final Lwjgl3Save save;
+	private final Save save;
 	private final Lwjgl3ImplGraphics graphics;
 	private final Lwjgl3Input input;
 	private final Lwjgl3Assets assets = new Lwjgl3Assets(this);
@@ -281,7 +281,9 @@ public class Lwjgl3Game extends LGame {
 		}
 		GL.createCapabilities();
 
-		this.save = new Lwjgl3Save(log, config.appName);
+		this.save = config.journalSave ? new Lwjgl3JournalSave(log,
+				config.appName) : new Lwjgl3Save(log, config.appName);
+		Lwjgl3ProfilerSampler.install(config, log);
 
 		if (config.activationKey != -1) {
 			input.keyboardEvents.connect(new Port<KeyMake.Event>() {
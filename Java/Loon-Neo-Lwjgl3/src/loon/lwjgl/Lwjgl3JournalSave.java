@@ -0,0 +1,681 @@
+/**
+ * Copyright 2008 - 2015 The Loon Game Engine Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.lwjgl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.prefs.Preferences;
+import java.util.zip.CRC32;
+
+import loon.Log;
+import loon.Save;
+import loon.SaveBatchImpl;
+
+/**
+ * 以文件保存数据的Save实现.
+ *
+ * 数据常驻内存,setItem只修改内存并把改动交给后台写入线程.写入线程合并一段时间内的改动,
+ * 每次合并的结果作为一条带校验的记录追加到日志文件并同步到磁盘,日志过大时在后台把全部数据
+ * 写入快照文件后清空日志.启动时读取快照并重放日志,末尾不完整或校验失败的记录会被丢弃,
+ * 因此startBatch提交的改动要么全部生效,要么全部不生效.
+ *
+ * 首次使用时若没有存档文件,会导入旧版本保存在Preferences中的数据.需要在LSetting中设置journalSave为true才会使用,
+ * 否则仍使用以Preferences保存的Lwjgl3Save.
+ */
+class Lwjgl3JournalSave implements Save {
+
+	private static final int SNAPSHOT_MAGIC = 0x4C534156;
+
+	private static final int JOURNAL_MAGIC = 0x4C4A524E;
+
+	private static final int VERSION = 1;
+
+	private static final byte OP_SET = 1;
+
+	private static final byte OP_REMOVE = 2;
+
+	// 合并改动的等待时间(毫秒)
+	private static final long FLUSH_DELAY = 100;
+
+	// 写入失败后的重试间隔(毫秒)
+	private static final long RETRY_DELAY = 1000;
+
+	// 日志超过此大小,并且超过快照大小的两倍时压缩为快照
+	private static final long COMPACT_SIZE = 256 * 1024;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final Log log;
+
+	private final String storageName;
+
+	private final Object lock = new Object();
+
+	// 当前数据(包括尚未写入磁盘的改动)
+	private final Map<String, String> values = new HashMap<String, String>();
+
+	// 尚未写入的改动,值为null表示删除
+	private Map<String, String> pending = new LinkedHashMap<String, String>();
+
+	// 已经写入磁盘的数据,只由写入线程访问
+	private final Map<String, String> persisted = new HashMap<String, String>();
+
+	private File snapshotFile, journalFile;
+
+	private FileOutputStream journalStream;
+
+	private DataOutputStream journalOut;
+
+	private long journalSize, snapshotSize;
+
+	private Thread writer;
+
+	private boolean loaded, closed, flushing, flushRequested, isPersisted;
+
+	Lwjgl3JournalSave(Log log, String storage) {
+		this.log = log;
+		this.storageName = storage;
+	}
+
+	private void init() {
+		synchronized (lock) {
+			if (loaded) {
+				return;
+			}
+			loaded = true;
+			try {
+				open();
+			} catch (Exception e) {
+				log.warn("Couldn't open save files: " + e.getMessage());
+				closeJournal();
+				isPersisted = false;
+				return;
+			}
+			writer = new Thread(new Writer(), "JournalSave-" + storageName);
+			writer.setDaemon(true);
+			writer.start();
+			Runtime.getRuntime().addShutdownHook(
+					new Thread(new Closer(), "JournalSaveCloser"));
+		}
+	}
+
+	private static File storageDir(String storage) {
+		StringBuilder name = new StringBuilder(storage.length());
+		for (int i = 0; i < storage.length(); i++) {
+			char ch = storage.charAt(i);
+			boolean valid = (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z')
+					|| (ch >= '0' && ch <= '9') || ch == '.' || ch == '-'
+					|| ch == '_';
+			name.append(valid ? ch : '_');
+		}
+		if (name.length() == 0) {
+			name.append("loon");
+		}
+		return new File(new File(System.getProperty("user.home"), ".loon"),
+				name.toString());
+	}
+
+	private void open() throws IOException {
+		File dir = storageDir(storageName);
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("can not create " + dir);
+		}
+		snapshotFile = new File(dir, "save.snapshot");
+		journalFile = new File(dir, "save.journal");
+		boolean exists = snapshotFile.exists() || journalFile.exists();
+		if (snapshotFile.exists()) {
+			readSnapshot();
+		}
+		long validLength = 0;
+		if (journalFile.exists()) {
+			validLength = replayJournal();
+		}
+		persisted.putAll(values);
+		if (validLength > 0) {
+			// 丢弃末尾不完整的记录,之后的记录从有效位置继续追加
+			RandomAccessFile raf = new RandomAccessFile(journalFile, "rw");
+			try {
+				if (raf.length() != validLength) {
+					raf.setLength(validLength);
+				}
+			} finally {
+				raf.close();
+			}
+			journalStream = new FileOutputStream(journalFile, true);
+			journalOut = new DataOutputStream(journalStream);
+			journalSize = validLength;
+		} else {
+			newJournal();
+		}
+		if (!exists && importPreferences()) {
+			exists = true;
+		}
+		isPersisted = exists;
+	}
+
+	/**
+	 * 导入旧版本保存在Preferences中的数据
+	 */
+	private boolean importPreferences() {
+		try {
+			Preferences root = Preferences.userRoot();
+			if (!root.nodeExists(storageName)) {
+				return false;
+			}
+			Preferences prefs = root.node(storageName);
+			String[] keys = prefs.keys();
+			for (int i = 0; i < keys.length; i++) {
+				String value = prefs.get(keys[i], null);
+				if (value != null) {
+					values.put(keys[i], value);
+					pending.put(keys[i], value);
+				}
+			}
+			return keys.length > 0;
+		} catch (Exception e) {
+			log.info("Couldn't import Preferences: " + e.getMessage());
+			return false;
+		}
+	}
+
+	private void readSnapshot() throws IOException {
+		byte[] data = readFile(snapshotFile);
+		snapshotSize = data.length;
+		if (data.length < 20) {
+			log.warn("Save snapshot is damaged: " + snapshotFile);
+			return;
+		}
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length - 8);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				data));
+		if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != VERSION) {
+			log.warn("Unknown save snapshot format: " + snapshotFile);
+			return;
+		}
+		long check = ((data[data.length - 8] & 0xFFL) << 56)
+				| ((data[data.length - 7] & 0xFFL) << 48)
+				| ((data[data.length - 6] & 0xFFL) << 40)
+				| ((data[data.length - 5] & 0xFFL) << 32)
+				| ((data[data.length - 4] & 0xFFL) << 24)
+				| ((data[data.length - 3] & 0xFFL) << 16)
+				| ((data[data.length - 2] & 0xFFL) << 8)
+				| (data[data.length - 1] & 0xFFL);
+		if (check != crc.getValue()) {
+			log.warn("Save snapshot is damaged: " + snapshotFile);
+			return;
+		}
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			String key = readString(in);
+			values.put(key, readString(in));
+		}
+	}
+
+	/**
+	 * 按顺序重放日志中的记录,遇到不完整或校验失败的记录时停止,返回有效部分的长度(0表示需要重建日志)
+	 */
+	private long replayJournal() throws IOException {
+		byte[] data = readFile(journalFile);
+		if (data.length < 8) {
+			return 0;
+		}
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				data));
+		if (in.readInt() != JOURNAL_MAGIC || in.readInt() != VERSION) {
+			log.warn("Unknown save journal format: " + journalFile);
+			return 0;
+		}
+		long offset = 8;
+		CRC32 crc = new CRC32();
+		for (;;) {
+			if (data.length - offset < 12) {
+				break;
+			}
+			int length = in.readInt();
+			if (length < 0 || data.length - offset - 12 < length) {
+				break;
+			}
+			crc.reset();
+			crc.update(data, (int) offset + 4, length);
+			in.skipBytes(length);
+			if (in.readLong() != crc.getValue()) {
+				break;
+			}
+			applyRecord(data, (int) offset + 4, length);
+			offset += 12 + length;
+		}
+		if (offset != data.length) {
+			log.warn("Save journal has an incomplete record, "
+					+ (data.length - offset) + " bytes dropped");
+		}
+		return offset;
+	}
+
+	private void applyRecord(byte[] data, int offset, int length)
+			throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				data, offset, length));
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			byte op = in.readByte();
+			String key = readString(in);
+			if (op == OP_SET) {
+				values.put(key, readString(in));
+			} else {
+				values.remove(key);
+			}
+		}
+	}
+
+	private static byte[] readFile(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			long size = file.length();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("file too large: " + file);
+			}
+			byte[] data = new byte[(int) size];
+			int pos = 0;
+			while (pos < data.length) {
+				int n = in.read(data, pos, data.length - pos);
+				if (n < 0) {
+					throw new EOFException();
+				}
+				pos += n;
+			}
+			return data;
+		} finally {
+			in.close();
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			throw new IOException("bad string length " + length);
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	private static void writeString(DataOutputStream out, String s)
+			throws IOException {
+		byte[] bytes = s.getBytes(UTF8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private void newJournal() throws IOException {
+		closeJournal();
+		journalStream = new FileOutputStream(journalFile, false);
+		journalOut = new DataOutputStream(journalStream);
+		journalOut.writeInt(JOURNAL_MAGIC);
+		journalOut.writeInt(VERSION);
+		journalOut.flush();
+		journalStream.getFD().sync();
+		journalSize = 8;
+	}
+
+	private void closeJournal() {
+		if (journalOut != null) {
+			try {
+				journalOut.close();
+			} catch (IOException e) {
+			}
+			journalOut = null;
+			journalStream = null;
+		}
+	}
+
+	/**
+	 * 把一组改动作为一条记录追加到日志并同步到磁盘
+	 */
+	private void writeRecord(Map<String, String> ops) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(ops.size());
+		for (Map.Entry<String, String> e : ops.entrySet()) {
+			if (e.getValue() == null) {
+				out.writeByte(OP_REMOVE);
+				writeString(out, e.getKey());
+			} else {
+				out.writeByte(OP_SET);
+				writeString(out, e.getKey());
+				writeString(out, e.getValue());
+			}
+		}
+		out.flush();
+		byte[] payload = bytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(payload, 0, payload.length);
+		journalOut.writeInt(payload.length);
+		journalOut.write(payload);
+		journalOut.writeLong(crc.getValue());
+		journalOut.flush();
+		journalStream.getFD().sync();
+		journalSize += 12 + payload.length;
+		applyOps(persisted, ops);
+	}
+
+	private static void applyOps(Map<String, String> target,
+			Map<String, String> ops) {
+		for (Map.Entry<String, String> e : ops.entrySet()) {
+			if (e.getValue() == null) {
+				target.remove(e.getKey());
+			} else {
+				target.put(e.getKey(), e.getValue());
+			}
+		}
+	}
+
+	/**
+	 * 把已写入的全部数据写成新的快照(先写临时文件再替换),然后清空日志
+	 */
+	private void compact() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+				(int) Math.min(Integer.MAX_VALUE, snapshotSize + journalSize));
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(SNAPSHOT_MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(persisted.size());
+		for (Map.Entry<String, String> e : persisted.entrySet()) {
+			writeString(out, e.getKey());
+			writeString(out, e.getValue());
+		}
+		out.flush();
+		byte[] data = bytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length);
+		File tmp = new File(snapshotFile.getPath() + ".tmp");
+		FileOutputStream fos = new FileOutputStream(tmp);
+		try {
+			DataOutputStream fout = new DataOutputStream(fos);
+			fout.write(data);
+			fout.writeLong(crc.getValue());
+			fout.flush();
+			fos.getFD().sync();
+		} finally {
+			fos.close();
+		}
+		try {
+			Files.move(tmp.toPath(), snapshotFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmp.toPath(), snapshotFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+		}
+		// 替换快照的操作落盘之后才能清空日志,否则断电后可能出现旧快照加空日志
+		syncDir(snapshotFile.getParentFile());
+		snapshotSize = data.length + 8;
+		// 若在此之前中断,重放日志中的记录只会得到与快照相同的结果
+		newJournal();
+	}
+
+	/**
+	 * 同步目录,使其中文件的创建与改名落盘(部分平台不支持,此时忽略)
+	 */
+	private static void syncDir(File dir) {
+		FileChannel channel = null;
+		try {
+			channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ);
+			channel.force(true);
+		} catch (IOException e) {
+		} finally {
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+
+	private class Writer implements Runnable {
+
+		@Override
+		public void run() {
+			for (;;) {
+				Map<String, String> ops;
+				synchronized (lock) {
+					try {
+						while (pending.isEmpty() && !closed) {
+							lock.wait();
+						}
+						// 等待一小段时间,合并这期间的改动
+						long end = System.currentTimeMillis() + FLUSH_DELAY;
+						long wait;
+						while (!closed && !flushRequested
+								&& (wait = end - System.currentTimeMillis()) > 0) {
+							lock.wait(wait);
+						}
+					} catch (InterruptedException e) {
+						closed = true;
+					}
+					if (pending.isEmpty()) {
+						flushRequested = false;
+						lock.notifyAll();
+						if (closed) {
+							break;
+						}
+						continue;
+					}
+					ops = pending;
+					pending = new LinkedHashMap<String, String>();
+					flushing = true;
+				}
+				boolean ok = false;
+				try {
+					if (journalOut == null) {
+						// 上次写入失败后日志的内容无法确定(新建日志会清空其中已确认的记录),
+						// 因此把已写入的数据与本次改动一起写成快照,再开始新的日志
+						applyOps(persisted, ops);
+						compact();
+					} else {
+						writeRecord(ops);
+						if (journalSize > COMPACT_SIZE
+								&& journalSize > snapshotSize * 2) {
+							compact();
+						}
+					}
+					ok = true;
+				} catch (IOException e) {
+					log.info("Error persisting save data: " + e.getMessage());
+					closeJournal();
+				}
+				synchronized (lock) {
+					flushing = false;
+					isPersisted = ok;
+					if (!ok) {
+						// 写入失败时放回未写入的改动(保留之后产生的新改动)
+						for (Map.Entry<String, String> e : ops.entrySet()) {
+							if (!pending.containsKey(e.getKey())) {
+								pending.put(e.getKey(), e.getValue());
+							}
+						}
+						if (closed) {
+							lock.notifyAll();
+							break;
+						}
+						try {
+							lock.wait(RETRY_DELAY);
+						} catch (InterruptedException e) {
+							closed = true;
+						}
+					}
+					lock.notifyAll();
+				}
+			}
+			closeJournal();
+		}
+	}
+
+	private class Closer implements Runnable {
+
+		@Override
+		public void run() {
+			close();
+		}
+	}
+
+	private void change(String key, String value) {
+		boolean notify = pending.isEmpty();
+		if (value == null) {
+			values.remove(key);
+		} else {
+			values.put(key, value);
+		}
+		pending.put(key, value);
+		if (notify) {
+			lock.notifyAll();
+		}
+	}
+
+	@Override
+	public void setItem(String key, String value) {
+		init();
+		synchronized (lock) {
+			change(key, value);
+		}
+	}
+
+	@Override
+	public void removeItem(String key) {
+		init();
+		synchronized (lock) {
+			change(key, null);
+		}
+	}
+
+	@Override
+	public String getItem(String key) {
+		init();
+		synchronized (lock) {
+			return values.get(key);
+		}
+	}
+
+	@Override
+	public Batch startBatch() {
+		return new SaveBatchImpl(this) {
+
+			private final Map<String, String> changes = new LinkedHashMap<String, String>();
+
+			@Override
+			protected void setImpl(String key, String data) {
+				changes.put(key, data);
+			}
+
+			@Override
+			protected void removeImpl(String key) {
+				changes.put(key, null);
+			}
+
+			@Override
+			protected void onAfterCommit() {
+				init();
+				// 同一批改动在一次加锁中放入待写入列表,因此总是写入同一条日志记录
+				synchronized (lock) {
+					for (Map.Entry<String, String> e : changes.entrySet()) {
+						change(e.getKey(), e.getValue());
+					}
+				}
+			}
+		};
+	}
+
+	/**
+	 * 等待当前全部改动写入磁盘
+	 */
+	public void flush() {
+		init();
+		synchronized (lock) {
+			if (writer == null) {
+				return;
+			}
+			flushRequested = true;
+			lock.notifyAll();
+			while ((!pending.isEmpty() || flushing) && writer.isAlive()) {
+				try {
+					lock.wait(RETRY_DELAY);
+				} catch (InterruptedException e) {
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 写入全部改动后停止写入线程
+	 */
+	public void close() {
+		Thread thread;
+		synchronized (lock) {
+			if (writer == null || closed) {
+				return;
+			}
+			closed = true;
+			lock.notifyAll();
+			thread = writer;
+		}
+		try {
+			thread.join(RETRY_DELAY * 5);
+		} catch (InterruptedException e) {
+		}
+	}
+
+	@Override
+	public Iterable<String> keys() {
+		init();
+		synchronized (lock) {
+			return new ArrayList<String>(values.keySet());
+		}
+	}
+
+	@Override
+	public boolean isPersisted() {
+		init();
+		synchronized (lock) {
+			return isPersisted;
+		}
+	}
+
+}
@@ -11,6 +11,7 @@ import loon.live2d.model.PartsData.PartsDataContext;
 import loon.live2d.param.*;
 import loon.opengl.GLEx;
 import loon.utils.ListMap;
+import loon.utils.MathUtils;
 import loon.utils.TArray;
 
 public class ModelContext {
@@ -42,6 +43,12 @@ public class ModelContext {
 	float[] D;
 	static final boolean E = false;
 
+	// 以ID的序号为下标保存数据的位置+1(0表示不存在),查找时不再遍历全部数据
+	private int[] paramSlots = new int[0];
+	private int[] drawDataSlots = new int[0];
+	private int[] baseDataSlots = new int[0];
+	private int[] partsDataSlots = new int[0];
+
 	static {
 		ModelContext.a = true;
 	}
@@ -69,6 +76,9 @@ public class ModelContext {
 	}
 
 	public int getDrawDataIndex(final DrawDataID id) {
+		if (id != null && id.getIndex() >= 0) {
+			return findSlot(this.drawDataSlots, id);
+		}
 		for (int i = this.t.size - 1; i >= 0; --i) {
 			if (this.t.get(i) != null
 					&& ((IDrawData) this.t.get(i)).getDrawDataID() == id) {
@@ -79,6 +89,10 @@ public class ModelContext {
 	}
 
 	public IDrawData getDrawData(final DrawDataID id) {
+		if (id != null && id.getIndex() >= 0) {
+			final int index = findSlot(this.drawDataSlots, id);
+			return index >= 0 ? (IDrawData) this.t.get(index) : null;
+		}
 		if (this.drawDatas == null) {
 			this.drawDatas = new ListMap<DrawDataID, IDrawData>();
 			for (int size = this.t.size, i = 0; i < size; ++i) {
@@ -109,6 +123,9 @@ public class ModelContext {
 		this.w.clear();
 		this.x.clear();
 		this.y.clear();
+		clearSlots(this.drawDataSlots);
+		clearSlots(this.baseDataSlots);
+		clearSlots(this.partsDataSlots);
 	}
 
 	public void init() {
@@ -124,6 +141,8 @@ public class ModelContext {
 		for (int i = 0; i < size; ++i) {
 			final PartsData partsData = (PartsData) partsDataList.get(i);
 			this.v.add(partsData);
+			this.partsDataSlots = bindSlot(this.partsDataSlots,
+					partsData.getPartsDataID(), this.v.size - 1);
 			this.y.add(partsData.init(this));
 			final TArray baseData = partsData.getBaseData();
 			final int size2 = baseData.size;
@@ -141,6 +160,8 @@ public class ModelContext {
 				final IDrawContext a2 = drawData2.a(this);
 				a2.f = i;
 				this.t.add(drawData2);
+				this.drawDataSlots = bindSlot(this.drawDataSlots,
+						drawData2.getDrawDataID(), this.t.size - 1);
 				this.x.add(a2);
 			}
 		}
@@ -156,6 +177,8 @@ public class ModelContext {
 					if (d == null || d == dst_BASE_ID
 							|| this.getBaseDataIndex(d) >= 0) {
 						this.s.add(baseData2);
+						this.baseDataSlots = bindSlot(this.baseDataSlots,
+								baseData2.e(), this.s.size - 1);
 						this.w.add(list2.get(n));
 						list.set(n, null);
 						b = true;
@@ -297,6 +320,13 @@ public class ModelContext {
 	}
 
 	public int getParamIndex(final ParamID paramID) {
+		if (paramID != null && paramID.getIndex() >= 0) {
+			final int index = findSlot(this.paramSlots, paramID);
+			if (index >= 0) {
+				return index;
+			}
+			return this.addFloatParam(paramID, 0.0f, -1000000.0f, 1000000.0f);
+		}
 		for (int i = this.l.length - 1; i >= 0; --i) {
 			if (this.l[i] == paramID) {
 				return i;
@@ -310,6 +340,9 @@ public class ModelContext {
 	}
 
 	public int getBaseDataIndex(final BaseDataID baseID) {
+		if (baseID != null && baseID.getIndex() >= 0) {
+			return findSlot(this.baseDataSlots, baseID);
+		}
 		for (int i = this.s.size - 1; i >= 0; --i) {
 			if (this.s.get(i) != null
 					&& ((IBaseData) this.s.get(i)).e() == baseID) {
@@ -319,6 +352,36 @@ public class ModelContext {
 		return -1;
 	}
 
+	/**
+	 * 记录ID对应的位置,同一ID重复出现时以位置靠后的为准(与倒序查找的结果一致)
+	 */
+	private static int[] bindSlot(int[] slots, final ID id, final int index) {
+		if (id == null || id.getIndex() < 0) {
+			return slots;
+		}
+		final int n = id.getIndex();
+		if (n >= slots.length) {
+			final int[] tmp = new int[MathUtils.max(n + 1, slots.length * 2)];
+			System.arraycopy(slots, 0, tmp, 0, slots.length);
+			slots = tmp;
+		}
+		if (slots[n] <= index) {
+			slots[n] = index + 1;
+		}
+		return slots;
+	}
+
+	private static int findSlot(final int[] slots, final ID id) {
+		final int n = id.getIndex();
+		return n < slots.length ? slots[n] - 1 : -1;
+	}
+
+	private static void clearSlots(final int[] slots) {
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = 0;
+		}
+	}
+
 	float[] a(final float[] array, final int n) {
 		final float[] array2 = new float[n];
 		System.arraycopy(array, 0, array2, 0, array.length);
@@ -341,6 +404,7 @@ public class ModelContext {
 			this.r = r;
 		}
 		this.l[this.k] = id;
+		this.paramSlots = bindSlot(this.paramSlots, id, this.k);
 		this.m[this.k] = value;
 		this.n[this.k] = value;
 		this.o[this.k] = min;
@@ -351,6 +415,13 @@ public class ModelContext {
 
 	public void setBaseData(final int baseDataIndex, final IBaseData baseData) {
 		this.s.set(baseDataIndex, baseData);
+		clearSlots(this.baseDataSlots);
+		for (int i = 0; i < this.s.size; i++) {
+			final IBaseData data = (IBaseData) this.s.get(i);
+			if (data != null) {
+				this.baseDataSlots = bindSlot(this.baseDataSlots, data.e(), i);
+			}
+		}
 	}
 
 	public void setParamFloat(final int paramIndex, float value) {
@@ -427,6 +498,9 @@ public class ModelContext {
 	}
 
 	public int getPartsDataIndex(final PartsDataID partsID) {
+		if (partsID != null && partsID.getIndex() >= 0) {
+			return findSlot(this.partsDataSlots, partsID);
+		}
 		for (int i = this.v.size - 1; i >= 0; --i) {
 			if (this.v.get(i) != null
 					&& ((PartsData) this.v.get(i)).getPartsDataID() == partsID) {
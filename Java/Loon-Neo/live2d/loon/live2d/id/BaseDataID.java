@@ -2,16 +2,18 @@ package loon.live2d.id;
 
 import java.util.*;
 
-import loon.utils.ListMap;
+import loon.utils.ObjectMap;
 
 public class BaseDataID extends ID
 {
     static BaseDataID a;
-    static ListMap b;
+    static ObjectMap<String, BaseDataID> b;
+    
+    static int count;
     
     static {
         BaseDataID.a = null;
-        BaseDataID.b = new ListMap();
+        BaseDataID.b = new ObjectMap<String, BaseDataID>();
     }
     
     private BaseDataID() {
@@ -19,6 +21,7 @@ public class BaseDataID extends ID
     
     private BaseDataID(final String idstr) {
         this.c = idstr;
+        this.index = BaseDataID.count++;
     }
     
     public static BaseDataID DST_BASE_ID() {
@@ -38,7 +41,10 @@ public class BaseDataID extends ID
     }
     
     public static BaseDataID getID(final String tmp_idstr) {
-        BaseDataID baseDataID = (BaseDataID) BaseDataID.b.get(tmp_idstr);
+        if (tmp_idstr == null) {
+            return null;
+        }
+        BaseDataID baseDataID = BaseDataID.b.get(tmp_idstr);
         if (baseDataID == null) {
             baseDataID = new BaseDataID(tmp_idstr);
             BaseDataID.b.put(tmp_idstr, baseDataID);
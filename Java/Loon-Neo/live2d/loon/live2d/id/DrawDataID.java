@@ -1,14 +1,16 @@
 package loon.live2d.id;
 
 
-import loon.utils.ListMap;
+import loon.utils.ObjectMap;
 
 public class DrawDataID extends ID
 {
-    static ListMap ids;
+    static ObjectMap<String, DrawDataID> ids;
+    
+    static int count;
     
     static {
-        DrawDataID.ids = new ListMap();
+        DrawDataID.ids = new ObjectMap<String, DrawDataID>();
     }
     
     private DrawDataID() {
@@ -16,6 +18,7 @@ public class DrawDataID extends ID
     
     private DrawDataID(final String idstr) {
         this.c = idstr;
+        this.index = DrawDataID.count++;
     }
     
     public DrawDataID createIDForSerialize() {
@@ -27,7 +30,10 @@ public class DrawDataID extends ID
     }
     
     public static DrawDataID getID(final String tmp_idstr) {
-        DrawDataID drawDataID = (DrawDataID) DrawDataID.ids.get(tmp_idstr);
+        if (tmp_idstr == null) {
+            return null;
+        }
+        DrawDataID drawDataID = DrawDataID.ids.get(tmp_idstr);
         if (drawDataID == null) {
             drawDataID = new DrawDataID(tmp_idstr);
             DrawDataID.ids.put(tmp_idstr, drawDataID);
@@ -4,6 +4,24 @@ public class ID
 {
     protected String c;
     
+    // 同类ID中的连续序号,用于在ModelContext中直接定位下标(序列化时临时创建的ID为-1)
+    protected int index = -1;
+    
+    static int generation;
+    
+    public int getIndex() {
+        return this.index;
+    }
+    
+    /**
+     * ID表每次被清空后加一,持有ID的对象可以据此判断是否需要重新获取
+     * 
+     * @return
+     */
+    public static int getGeneration() {
+        return ID.generation;
+    }
+    
     @Override
     public String toString() {
         return this.c;
@@ -14,5 +32,6 @@ public class ID
         BaseDataID.clear();
         DrawDataID.clear();
         PartsDataID.clear();
+        ++ID.generation;
     }
 }
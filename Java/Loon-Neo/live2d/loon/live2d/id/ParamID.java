@@ -1,13 +1,15 @@
 package loon.live2d.id;
 
-import loon.utils.ListMap;
+import loon.utils.ObjectMap;
 
 public class ParamID extends ID
 {
-    static ListMap<String,ParamID> ids;
+    static ObjectMap<String, ParamID> ids;
+    
+    static int count;
     
     static {
-        ParamID.ids = new ListMap<String,ParamID>();
+        ParamID.ids = new ObjectMap<String, ParamID>();
     }
     
     private ParamID() {
@@ -15,6 +17,7 @@ public class ParamID extends ID
     
     private ParamID(final String id_str) {
         this.c = id_str;
+        this.index = ParamID.count++;
     }
     
     public ParamID createIDForSerialize() {
@@ -26,6 +29,9 @@ public class ParamID extends ID
     }
     
     public static ParamID getID(final String tmp_idstr) {
+        if (tmp_idstr == null) {
+            return null;
+        }
         ParamID paramID = ParamID.ids.get(tmp_idstr);
         if (paramID == null) {
             paramID = new ParamID(tmp_idstr);
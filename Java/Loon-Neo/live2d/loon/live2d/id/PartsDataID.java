@@ -1,13 +1,15 @@
 package loon.live2d.id;
 
-import loon.utils.ListMap;
+import loon.utils.ObjectMap;
 
 public class PartsDataID extends ID
 {
-    static ListMap<String,PartsDataID> ids;
+    static ObjectMap<String, PartsDataID> ids;
+    
+    static int count;
     
     static {
-        PartsDataID.ids = new ListMap<String,PartsDataID>();
+        PartsDataID.ids = new ObjectMap<String, PartsDataID>();
     }
     
     private PartsDataID() {
@@ -15,6 +17,7 @@ public class PartsDataID extends ID
     
     private PartsDataID(final String str) {
         this.c = str;
+        this.index = PartsDataID.count++;
     }
     
     public PartsDataID createIDForSerialize() {
@@ -26,6 +29,9 @@ public class PartsDataID extends ID
     }
     
     public static PartsDataID getID(final String tmp_idstr) {
+        if (tmp_idstr == null) {
+            return null;
+        }
         PartsDataID partsDataID = PartsDataID.ids.get(tmp_idstr);
         if (partsDataID == null) {
             partsDataID = new PartsDataID(tmp_idstr);
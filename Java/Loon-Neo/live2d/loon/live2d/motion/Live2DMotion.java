@@ -1,6 +1,8 @@
 package loon.live2d.motion;
 
 import loon.live2d.*;
+import loon.live2d.id.ID;
+import loon.live2d.id.ParamID;
 import loon.live2d.util.*;
 import loon.utils.ArrayByte;
 import loon.utils.ListMap;
@@ -255,11 +257,11 @@ public class Live2DMotion extends AMotion
             final int length = motion.l.length;
             final String k = motion.k;
             if (motion.m == 1) {
-                model.setParamFloat(k, motion.l[(n2 >= length) ? (length - 1) : n2]);
+                model.setParamFloat(model.getModelContext().getParamIndex(motion.getParamID()), motion.l[(n2 >= length) ? (length - 1) : n2]);
             }
             else if (100 > motion.m || motion.m > 105) {
-                final int paramIndex = model.getParamIndex(k);
                 final ModelContext modelContext = model.getModelContext();
+                final int paramIndex = modelContext.getParamIndex(motion.getParamID());
                 final float n6 = 0.4f * (modelContext.getParamMax(paramIndex) - modelContext.getParamMin(paramIndex));
                 final float paramFloat = modelContext.getParamFloat(paramIndex);
                 final float n7 = motion.l[(n2 >= length) ? (length - 1) : n2];
@@ -292,7 +294,7 @@ public class Live2DMotion extends AMotion
                     }
                     value = paramFloat + (n9 - paramFloat) * (this.c * n10 * n11);
                 }
-                model.setParamFloat(k, value);
+                model.setParamFloat(paramIndex, value);
             }
         }
         if (n2 >= this.i) {
@@ -410,11 +412,24 @@ public class Live2DMotion extends AMotion
         int m;
         int n;
         int o;
+        ParamID paramID;
+        int generation;
         
         public Motion() {
             this.k = null;
             this.n = -1;
             this.o = -1;
         }
+        
+        /**
+         * 参数名只在首次使用(或ID表被清空)时转换为ParamID,之后每帧直接按序号取得参数下标
+         */
+        ParamID getParamID() {
+            if (this.paramID == null || this.generation != ID.getGeneration()) {
+                this.paramID = ParamID.getID(this.k);
+                this.generation = ID.getGeneration();
+            }
+            return this.paramID;
+        }
     }
 }
@@ -3,33 +3,193 @@ package loon.opengl.d3d;
 import java.util.Comparator;
 
 import loon.action.camera.BaseCamera;
+import loon.geom.Matrix4;
 import loon.geom.Vector3f;
 import loon.opengl.d3d.materials.BlendingAttribute;
+import loon.utils.ObjectIntMap;
 import loon.utils.TArray;
 
+/**
+ * 默认的渲染排序:不透明对象在前,按着色器,材质,网格分组以减少状态切换,同组内由近到远;
+ * 半透明对象在后,由远到近绘制.
+ */
 public class DefaultRenderableSorter implements RenderableSorter, Comparator<Renderable> {
-	
+
+	private static final int DEPTH_BITS = 24;
+	private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+	private static final long SHADER_MASK = (1L << 11) - 1;
+	private static final long MATERIAL_MASK = (1L << 13) - 1;
+	private static final long MESH_MASK = (1L << 14) - 1;
+
 	private BaseCamera camera;
 	private final Vector3f tmpV1 = new Vector3f();
 	private final Vector3f tmpV2 = new Vector3f();
-	
+
+	// 着色器,材质与网格各自按本次排序中首次出现的顺序编号(每次sort时清空,不会持有旧对象)
+	private final ObjectIntMap<Object> shaderIds = new ObjectIntMap<Object>();
+	private final ObjectIntMap<Object> materialIds = new ObjectIntMap<Object>();
+	private final ObjectIntMap<Object> meshIds = new ObjectIntMap<Object>();
+
+	private Renderable[] items = new Renderable[64];
+	private Renderable[] tmpItems = new Renderable[64];
+	private long[] keys = new long[64];
+	private long[] tmpKeys = new long[64];
+	private float[] depths = new float[64];
+
 	@Override
 	public void sort (final BaseCamera camera, final TArray<Renderable> renderables) {
 		this.camera = camera;
-	//	renderables.sort(this);
+		reset();
+		final int size = renderables.size;
+		if (size < 2) {
+			return;
+		}
+		if (items.length < size) {
+			items = new Renderable[size];
+			tmpItems = new Renderable[size];
+			keys = new long[size];
+			tmpKeys = new long[size];
+			depths = new float[size];
+		}
+		float minDepth = Float.MAX_VALUE;
+		float maxDepth = -Float.MAX_VALUE;
+		for (int i = 0; i < size; i++) {
+			final Renderable r = renderables.get(i);
+			items[i] = r;
+			final float depth = depth(r, tmpV1);
+			depths[i] = depth;
+			minDepth = Math.min(minDepth, depth);
+			maxDepth = Math.max(maxDepth, depth);
+		}
+		final float range = maxDepth - minDepth;
+		final float scale = range > 0 ? DEPTH_MASK / range : 0;
+		for (int i = 0; i < size; i++) {
+			final Renderable r = items[i];
+			// float精度下最远的对象可能得到2^24,只能截断不能取模,否则会变成最近
+			final long depth = Math.min((long) ((depths[i] - minDepth) * scale), DEPTH_MASK);
+			// 超出位数的编号合并到最后一组,保持排序的单调性
+			final long shader = Math.min(id(shaderIds, r.shader), SHADER_MASK);
+			final long material = Math.min(id(materialIds, r.material), MATERIAL_MASK);
+			final long mesh = Math.min(id(meshIds, r.mesh), MESH_MASK);
+			if (isBlended(r)) {
+				keys[i] = (1L << 62) | ((DEPTH_MASK - depth) << 38)
+						| (shader << 27) | (material << 14) | mesh;
+			} else {
+				keys[i] = (shader << 51) | (material << 38) | (mesh << 24)
+						| depth;
+			}
+		}
+		mergeSort(size);
+		for (int i = 0; i < size; i++) {
+			renderables.set(i, items[i]);
+			items[i] = null;
+			tmpItems[i] = null;
+		}
+		reset();
 	}
-	
+
+	private static int id(final ObjectIntMap<Object> ids, final Object o) {
+		if (o == null) {
+			return 0;
+		}
+		int id = ids.get(o, -1);
+		if (id == -1) {
+			id = ids.size + 1;
+			ids.put(o, id);
+		}
+		return id;
+	}
+
+	private static boolean isBlended(final Renderable r) {
+		return r.material != null && r.material.has(BlendingAttribute.Type);
+	}
+
+	/**
+	 * 对象在视图空间中到摄像机的距离(摄像机朝向-z)
+	 */
+	private float depth(final Renderable r, final Vector3f tmp) {
+		if (camera == null) {
+			return 0f;
+		}
+		r.worldTransform.getTranslation(tmp);
+		final float[] v = camera.getView().val;
+		return -(v[Matrix4.M20] * tmp.x + v[Matrix4.M21] * tmp.y
+				+ v[Matrix4.M22] * tmp.z + v[Matrix4.M23]);
+	}
+
+	/**
+	 * 稳定的自底向上归并排序,键相同的对象保持提交顺序
+	 */
+	private void mergeSort(final int size) {
+		Renderable[] srcItems = items, dstItems = tmpItems;
+		long[] srcKeys = keys, dstKeys = tmpKeys;
+		for (int width = 1; width < size; width <<= 1) {
+			for (int lo = 0; lo < size; lo += width << 1) {
+				final int mid = Math.min(lo + width, size);
+				final int hi = Math.min(lo + (width << 1), size);
+				int i = lo, j = mid, k = lo;
+				while (i < mid && j < hi) {
+					if (srcKeys[j] < srcKeys[i]) {
+						dstKeys[k] = srcKeys[j];
+						dstItems[k++] = srcItems[j++];
+					} else {
+						dstKeys[k] = srcKeys[i];
+						dstItems[k++] = srcItems[i++];
+					}
+				}
+				while (i < mid) {
+					dstKeys[k] = srcKeys[i];
+					dstItems[k++] = srcItems[i++];
+				}
+				while (j < hi) {
+					dstKeys[k] = srcKeys[j];
+					dstItems[k++] = srcItems[j++];
+				}
+			}
+			Renderable[] t = srcItems;
+			srcItems = dstItems;
+			dstItems = t;
+			long[] tk = srcKeys;
+			srcKeys = dstKeys;
+			dstKeys = tk;
+		}
+		items = srcItems;
+		tmpItems = dstItems;
+		keys = srcKeys;
+		tmpKeys = dstKeys;
+	}
+
+	/**
+	 * 清除着色器,材质与网格的编号(每次sort开始与结束时自动调用)
+	 */
+	public void reset () {
+		shaderIds.clear();
+		materialIds.clear();
+		meshIds.clear();
+	}
+
 	@Override
 	public int compare (final Renderable o1, final Renderable o2) {
-		final boolean b1 = o1.material.has(BlendingAttribute.Type);
-		final boolean b2 = o2.material.has(BlendingAttribute.Type);
+		final boolean b1 = isBlended(o1);
+		final boolean b2 = isBlended(o2);
 		if (b1 != b2) {
 			return b1 ? 1 : -1;
 		}
-		o1.worldTransform.getTranslation(tmpV1);
-		o2.worldTransform.getTranslation(tmpV2);
-	//final float dst = camera.position.dst2(tmpV1) - camera.position.dst2(tmpV2);
-		//return dst < 0f ? -1 : (dst > 0f ? 1 : 0);
-		return 0;
+		final float d1 = depth(o1, tmpV1);
+		final float d2 = depth(o2, tmpV2);
+		if (b1) {
+			return d1 > d2 ? -1 : (d1 < d2 ? 1 : 0);
+		}
+		int c = id(shaderIds, o1.shader) - id(shaderIds, o2.shader);
+		if (c == 0) {
+			c = id(materialIds, o1.material) - id(materialIds, o2.material);
+		}
+		if (c == 0) {
+			c = id(meshIds, o1.mesh) - id(meshIds, o2.mesh);
+		}
+		if (c != 0) {
+			return c;
+		}
+		return d1 < d2 ? -1 : (d1 > d2 ? 1 : 0);
 	}
 }
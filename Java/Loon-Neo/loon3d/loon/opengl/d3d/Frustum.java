@@ -0,0 +1,62 @@
+package loon.opengl.d3d;
+
+import loon.geom.BoundingBox;
+import loon.geom.Matrix4;
+
+/**
+ * 由投影矩阵与视图矩阵的乘积提取出的视锥体(左,右,下,上,近,远六个平面),用于判断包围盒是否可见
+ */
+public class Frustum {
+
+	// 每个平面依次保存a,b,c,d,点(x,y,z)在平面内侧时a*x+b*y+c*z+d>=0
+	private final float[] planes = new float[24];
+
+	public Frustum set(final Matrix4 combined) {
+		final float[] m = combined.val;
+		for (int i = 0; i < 3; i++) {
+			setPlane(i * 2, m, i, 1f);
+			setPlane(i * 2 + 1, m, i, -1f);
+		}
+		return this;
+	}
+
+	private void setPlane(int index, float[] m, int row, float sign) {
+		final int off = index * 4;
+		planes[off] = m[Matrix4.M30] + sign * m[row];
+		planes[off + 1] = m[Matrix4.M31] + sign * m[4 + row];
+		planes[off + 2] = m[Matrix4.M32] + sign * m[8 + row];
+		planes[off + 3] = m[Matrix4.M33] + sign * m[12 + row];
+	}
+
+	/**
+	 * 包围盒是否与视锥体相交(保守判断,可能把少数实际不可见的包围盒判为可见)
+	 *
+	 * @param box
+	 * @return
+	 */
+	public boolean boundsInFrustum(final BoundingBox box) {
+		final float minX = box.min.x, minY = box.min.y, minZ = box.min.z;
+		final float maxX = box.max.x, maxY = box.max.y, maxZ = box.max.z;
+		for (int i = 0; i < 24; i += 4) {
+			final float a = planes[i], b = planes[i + 1], c = planes[i + 2];
+			// 取包围盒在平面法线方向上最远的顶点
+			final float x = a >= 0 ? maxX : minX;
+			final float y = b >= 0 ? maxY : minY;
+			final float z = c >= 0 ? maxZ : minZ;
+			if (a * x + b * y + c * z + planes[i + 3] < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public boolean pointInFrustum(final float x, final float y, final float z) {
+		for (int i = 0; i < 24; i += 4) {
+			if (planes[i] * x + planes[i + 1] * y + planes[i + 2] * z
+					+ planes[i + 3] < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
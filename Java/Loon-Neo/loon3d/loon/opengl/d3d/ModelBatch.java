@@ -2,12 +2,26 @@ package loon.opengl.d3d;
 
 import loon.LRelease;
 import loon.action.camera.BaseCamera;
+import loon.geom.BoundingBox;
+import loon.geom.Matrix4;
+import loon.opengl.Mesh;
 import loon.opengl.light.Lights;
 import loon.utils.Array;
+import loon.utils.ObjectMap;
 import loon.utils.Pool;
 import loon.utils.TArray;
 
 public class ModelBatch implements LRelease{
+
+	/**
+	 * 网格中一段图元(offset, size)在模型空间中的包围盒,无法计算时box为null(永不剔除)
+	 */
+	private static class PartBounds {
+		int offset;
+		int size;
+		BoundingBox box;
+	}
+
 	protected BaseCamera camera;
 	protected final Pool<Renderable> renderablesPool = new Pool<Renderable>() {
 		@Override
@@ -35,6 +49,18 @@ public class ModelBatch implements LRelease{
 	protected final ShaderProvider shaderProvider;
 
 	protected final RenderableSorter sorter;
+
+	protected final Frustum frustum = new Frustum();
+
+	private final Matrix4 tmpCombine = new Matrix4();
+
+	private final BoundingBox tmpBounds = new BoundingBox();
+
+	private final ObjectMap<Mesh, TArray<PartBounds>> partBounds = new ObjectMap<Mesh, TArray<PartBounds>>();
+
+	private boolean culling = true;
+
+	private int culledCount, drawCalls, batchCount, shaderSwitches, materialSwitches, meshSwitches;
 	
 	public ModelBatch(RenderContext context, ShaderProvider shaderProvider, RenderableSorter sorter) {
 		this.context = context;
@@ -63,9 +89,15 @@ public class ModelBatch implements LRelease{
 	}
 
 	public void end () {
+		culledCount = drawCalls = batchCount = 0;
+		shaderSwitches = materialSwitches = meshSwitches = 0;
+		if (culling && camera != null) {
+			cull();
+		}
 		sorter.sort(camera, renderables);
 		context.begin();
 		Shader currentShader = null;
+		Renderable last = null;
 		for (int i = 0; i < renderables.size; i++) {
 			final Renderable renderable = renderables.get(i);
 			if (currentShader != renderable.shader) {
@@ -73,8 +105,23 @@ public class ModelBatch implements LRelease{
 					currentShader.end();
 				currentShader = renderable.shader;
 				currentShader.begin(camera, context);
+				shaderSwitches++;
+			}
+			// 着色器,材质与网格都相同的连续对象只需更新变换矩阵即可绘制,视为同一批次
+			if (last == null || last.shader != renderable.shader || last.material != renderable.material
+					|| last.mesh != renderable.mesh || last.meshPartOffset != renderable.meshPartOffset
+					|| last.meshPartSize != renderable.meshPartSize) {
+				batchCount++;
+			}
+			if (last == null || last.material != renderable.material) {
+				materialSwitches++;
+			}
+			if (last == null || last.mesh != renderable.mesh) {
+				meshSwitches++;
 			}
 			currentShader.render(renderable);
+			drawCalls++;
+			last = renderable;
 		}
 		if (currentShader != null)
 			currentShader.end();
@@ -85,6 +132,123 @@ public class ModelBatch implements LRelease{
 		camera = null;
 	}
 
+	/**
+	 * 移除包围盒完全位于视锥体外的对象(带骨骼的对象顶点位置由着色器决定,不做剔除)
+	 */
+	protected void cull() {
+		// BaseCamera.getCombine在部分实现中会改写投影矩阵,因此在副本上计算
+		tmpCombine.set(camera.getProjection()).mul(camera.getView());
+		frustum.set(tmpCombine);
+		final Renderable[] items = renderables.items;
+		final int size = renderables.size;
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			final Renderable renderable = items[i];
+			if (isVisible(renderable)) {
+				items[count++] = renderable;
+			} else {
+				culledCount++;
+			}
+		}
+		for (int i = count; i < size; i++) {
+			items[i] = null;
+		}
+		renderables.size = count;
+	}
+
+	protected boolean isVisible(final Renderable renderable) {
+		if (renderable.mesh == null || renderable.bones != null) {
+			return true;
+		}
+		final BoundingBox local = getLocalBounds(renderable);
+		if (local == null) {
+			return true;
+		}
+		return frustum.boundsInFrustum(tmpBounds.set(local).mulSelf(renderable.worldTransform));
+	}
+
+	private BoundingBox getLocalBounds(final Renderable renderable) {
+		final Mesh mesh = renderable.mesh;
+		TArray<PartBounds> parts = partBounds.get(mesh);
+		if (parts == null) {
+			parts = new TArray<PartBounds>(4);
+			partBounds.put(mesh, parts);
+		}
+		for (int i = 0; i < parts.size; i++) {
+			final PartBounds part = parts.get(i);
+			if (part.offset == renderable.meshPartOffset && part.size == renderable.meshPartSize) {
+				return part.box;
+			}
+		}
+		final PartBounds part = new PartBounds();
+		part.offset = renderable.meshPartOffset;
+		part.size = renderable.meshPartSize;
+		try {
+			final BoundingBox box = new BoundingBox();
+			if (mesh.getNumIndices() > 0) {
+				mesh.calculateBoundingBox(box, part.offset, part.size);
+			} else {
+				mesh.calculateBoundingBox(box);
+			}
+			part.box = box.isValid() ? box : null;
+		} catch (RuntimeException ex) {
+			part.box = null;
+		}
+		parts.add(part);
+		return part.box;
+	}
+
+	/**
+	 * 网格顶点被修改后需要调用,以便重新计算剔除用的包围盒
+	 *
+	 * @param mesh 为null时清除全部
+	 */
+	public void invalidateBounds(final Mesh mesh) {
+		if (mesh == null) {
+			partBounds.clear();
+		} else {
+			partBounds.remove(mesh);
+		}
+	}
+
+	public void setCulling(boolean culling) {
+		this.culling = culling;
+	}
+
+	public boolean isCulling() {
+		return culling;
+	}
+
+	/**
+	 * 上一次end()中被视锥体剔除的对象数
+	 */
+	public int getCulledCount() {
+		return culledCount;
+	}
+
+	public int getDrawCalls() {
+		return drawCalls;
+	}
+
+	/**
+	 * 上一次end()中着色器,材质,网格都相同的连续对象组的数量
+	 */
+	public int getBatchCount() {
+		return batchCount;
+	}
+
+	public int getShaderSwitches() {
+		return shaderSwitches;
+	}
+
+	public int getMaterialSwitches() {
+		return materialSwitches;
+	}
+
+	public int getMeshSwitches() {
+		return meshSwitches;
+	}
+
 	public void render(final Renderable renderable) {
 		renderable.shader = shaderProvider.getShader(renderable);
 		renderable.mesh.setAutoBind(false);
@@ -135,6 +299,7 @@ public class ModelBatch implements LRelease{
 
 	@Override
 	public void close () {
+		partBounds.clear();
 		shaderProvider.close();
 	}
 }
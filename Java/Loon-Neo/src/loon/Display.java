@@ -32,6 +32,7 @@ import loon.utils.MathUtils;
 import loon.utils.StringUtils;
 import loon.utils.processes.RealtimeProcessManager;
 import loon.utils.reply.Port;
+import loon.utils.timer.FrameProfiler;
 import loon.utils.timer.LTimerContext;
 
 public class Display extends LSystemView {
@@ -62,8 +63,12 @@ public class Display extends LSystemView {
 
 		@Override
 		public void onEmit(LTimerContext clock) {
+			FrameProfiler.begin(FrameProfiler.PROCESSES);
 			manager.tick(clock);
+			FrameProfiler.end(FrameProfiler.PROCESSES);
+			FrameProfiler.begin(FrameProfiler.ACTIONS);
 			ActionControl.update(clock.timeSinceLastUpdate);
+			FrameProfiler.end(FrameProfiler.ACTIONS);
 		}
 
 	}
@@ -144,7 +149,13 @@ public class Display extends LSystemView {
 
 	private final LProcess process;
 
-	private final String pFontString = " MEORYFPSBITED0123456789:.of";
+	private final String pFontString = " MEORYFPSBITED0123456789:.ofALCKWUNH/-";
+
+	private String profilerText, profilerSections;
+
+	private long profilerTick;
+
+	private int profilerX;
 
 	private LSetting setting;
 
@@ -153,6 +164,9 @@ public class Display extends LSystemView {
 	private Logo logoTex;
 
 	private void newDefView(boolean show) {
+		if (setting.isProfiler) {
+			FrameProfiler.setEnabled(true);
+		}
 		if (show && fpsFont == null) {
 			this.fpsFont = new LSTRFont(LFont.getFont(LSystem.isHTML5() ? 20
 					: 15), pFontString, true);
@@ -223,7 +237,8 @@ public class Display extends LSystemView {
 		// fix渲染时机，避免调用渲染在纹理构造前
 		if (!initDrawConfig) {
 			newDefView(setting.isFPS || setting.isLogo || setting.isMemory
-					|| setting.isSprites || setting.isDebug);
+					|| setting.isSprites || setting.isDebug
+					|| setting.isProfiler);
 			initDrawConfig = true;
 		}
 
@@ -257,13 +272,18 @@ public class Display extends LSystemView {
 			return;
 		}
 		try {
+			glEx.batch().nextFrameStats();
 			glEx.saveTx();
 			glEx.begin();
 			glEx.reset(cred, cgreen, cblue, calpha);
 
+			FrameProfiler.begin(FrameProfiler.UPDATE);
 			process.load();
 			process.calls();
 			process.runTimer(clock);
+			FrameProfiler.end(FrameProfiler.UPDATE);
+
+			FrameProfiler.begin(FrameProfiler.PAINT);
 			process.draw(glEx);
 
 			final boolean debug = setting.isDebug;
@@ -292,19 +312,70 @@ public class Display extends LSystemView {
 						+ "," + " DESKTOP:" + Desktop.allDesktopCount(), 5, 45,
 						0, LColor.white);
 			}
+			// 显示各子系统耗时与内存分配
+			if (setting.isProfiler && FrameProfiler.isEnabled()) {
+				drawProfiler();
+			}
 			// 若打印日志到界面,很可能挡住游戏界面内容,所以isDisplayLog为true并且debug才显示
 			if (debug && setting.isDisplayLog) {
 				process.paintLog(glEx, 5, 65);
 			}
 			process.drawEmulator(glEx);
+			FrameProfiler.end(FrameProfiler.PAINT);
 			process.unload();
 
 		} finally {
 			glEx.end();
 			glEx.restoreTx();
 			process.resetTouch();
+			// 一帧绘制结束,纹理显存超出预算时在此释放
+			LTextures.update();
+			FrameProfiler.frame();
+		}
+
+	}
+
+	/**
+	 * 在FPS右侧显示平均帧耗时,内存分配与draw call,在画面底部显示上一帧各子系统的数据(每半秒刷新一次文字,避免显示本身产生大量分配)
+	 */
+	private void drawProfiler() {
+		long time = System.currentTimeMillis();
+		if (profilerText == null || time - profilerTick > 500L) {
+			profilerTick = time;
+			long bytes = FrameProfiler.getAverageFrameBytes();
+			profilerText = "FRAME:"
+					+ toMillis(FrameProfiler.getAverageFrameTime())
+					+ " ALLOC:" + (bytes < 0 ? "N/A" : toKB(bytes) + "KB")
+					+ " DRAW:" + FrameProfiler.getLastFrameDrawCalls();
+			StringBuilder sbr = new StringBuilder(128);
+			for (int i = 0; i < FrameProfiler.SECTIONS; i++) {
+				if (i > 0) {
+					sbr.append(' ');
+				}
+				sbr.append(FrameProfiler.getSectionName(i).toUpperCase());
+				sbr.append(':');
+				sbr.append(toMillis(FrameProfiler.getLastSectionTime(i)));
+				long b = FrameProfiler.getLastSectionBytes(i);
+				if (b >= 0) {
+					sbr.append('/').append(toKB(b)).append("KB");
+				}
+			}
+			profilerSections = sbr.toString();
+		}
+		if (profilerX == 0) {
+			profilerX = fpsFont.getWidth("FPS:" + setting.fps) + 15;
 		}
+		fpsFont.drawString(glEx, profilerText, profilerX, 5, 0, LColor.white);
+		fpsFont.drawString(glEx, profilerSections, 5,
+				LSystem.viewSize.height - 20, 0, LColor.white);
+	}
+
+	private static String toMillis(long nanos) {
+		return String.valueOf((nanos / 100000) / 10f);
+	}
 
+	private static String toKB(long bytes) {
+		return String.valueOf(((bytes * 10) >> 10) / 10f);
 	}
 
 	public Display resize(int viewWidth, int viewHeight) {
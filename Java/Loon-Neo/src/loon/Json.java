@@ -20,8 +20,10 @@
  */
 package loon;
 
+import java.io.InputStream;
 import java.util.Iterator;
 
+import loon.utils.ArrayByte;
 import loon.utils.TArray;
 import loon.utils.json.JsonParserException;
 import loon.utils.json.JsonSink;
@@ -217,4 +219,12 @@ public interface Json {
   Object parse(String json) throws JsonParserException;
 
   Array parseArray(String json) throws JsonParserException;
+
+  Object parse(ArrayByte json) throws JsonParserException;
+
+  Array parseArray(ArrayByte json) throws JsonParserException;
+
+  Object parse(InputStream json) throws JsonParserException;
+
+  Array parseArray(InputStream json) throws JsonParserException;
 }
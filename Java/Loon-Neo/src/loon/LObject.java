@@ -234,6 +234,17 @@ public abstract class LObject<T> extends BlendMode implements XY, ZIndex {
 
 	protected Vector2f _location = new Vector2f(0, 0);
 
+	/**
+	 * 对象位置经由LObject的函数改变时的通知(直接修改getLocation返回的Vector2f时不会通知)
+	 */
+	public static interface LocationListener {
+
+		public void onLocationChanged(LObject<?> o);
+
+	}
+
+	private LocationListener _locationListener;
+
 	protected int _layer;
 
 	protected float _rotation;
@@ -402,6 +413,7 @@ public abstract class LObject<T> extends BlendMode implements XY, ZIndex {
 
 	public void move_45D_up(int multiples) {
 		_location.move_multiples(Field2D.UP, multiples);
+		locationChanged();
 	}
 
 	public void move_45D_left() {
@@ -410,6 +422,7 @@ public abstract class LObject<T> extends BlendMode implements XY, ZIndex {
 
 	public void move_45D_left(int multiples) {
 		_location.move_multiples(Field2D.LEFT, multiples);
+		locationChanged();
 	}
 
 	public void move_45D_right() {
@@ -418,6 +431,7 @@ public abstract class LObject<T> extends BlendMode implements XY, ZIndex {
 
 	public void move_45D_right(int multiples) {
 		_location.move_multiples(Field2D.RIGHT, multiples);
+		locationChanged();
 	}
 
 	public void move_45D_down() {
@@ -426,6 +440,7 @@ public abstract class LObject<T> extends BlendMode implements XY, ZIndex {
 
 	public void move_45D_down(int multiples) {
 		_location.move_multiples(Field2D.DOWN, multiples);
+		locationChanged();
 	}
 
 	public void move_up() {
@@ -434,6 +449,7 @@ public abstract class LObject<T> extends BlendMode implements XY, ZIndex {
 
 	public void move_up(int multiples) {
 		_location.move_multiples(Field2D.TUP, multiples);
+		locationChanged();
 	}
 
 	public void move_left() {
@@ -442,6 +458,7 @@ public abstract class LObject<T> extends BlendMode implements XY, ZIndex {
 
 	public void move_left(int multiples) {
 		_location.move_multiples(Field2D.TLEFT, multiples);
+		locationChanged();
 	}
 
 	public void move_right() {
@@ -450,6 +467,7 @@ public abstract class LObject<T> extends BlendMode implements XY, ZIndex {
 
 	public void move_right(int multiples) {
 		_location.move_multiples(Field2D.TRIGHT, multiples);
+		locationChanged();
 	}
 
 	public void move_down() {
@@ -458,6 +476,7 @@ public abstract class LObject<T> extends BlendMode implements XY, ZIndex {
 
 	public void move_down(int multiples) {
 		_location.move_multiples(Field2D.TDOWN, multiples);
+		locationChanged();
 	}
 
 	public void move(Vector2f v) {
@@ -466,6 +485,7 @@ public abstract class LObject<T> extends BlendMode implements XY, ZIndex {
 
 	public void move(float x, float y) {
 		_location.move(x, y);
+		locationChanged();
 	}
 
 	public void setLocation(XY local) {
@@ -486,6 +506,7 @@ public abstract class LObject<T> extends BlendMode implements XY, ZIndex {
 	
 	public void setLocation(float x, float y) {
 		_location.setLocation(x, y);
+		locationChanged();
 	}
 
 	public int x() {
@@ -510,6 +531,7 @@ public abstract class LObject<T> extends BlendMode implements XY, ZIndex {
 
 	public void setX(float x) {
 		_location.setX(x);
+		locationChanged();
 	}
 
 	public void setY(Integer y) {
@@ -518,12 +540,27 @@ public abstract class LObject<T> extends BlendMode implements XY, ZIndex {
 
 	public void setY(float y) {
 		_location.setY(y);
+		locationChanged();
 	}
 
 	public Vector2f getLocation() {
 		return _location;
 	}
 
+	public void setLocationListener(LocationListener listener) {
+		this._locationListener = listener;
+	}
+
+	public LocationListener getLocationListener() {
+		return _locationListener;
+	}
+
+	protected void locationChanged() {
+		if (_locationListener != null) {
+			_locationListener.onLocationChanged(this);
+		}
+	}
+
 	public static void centerOn(final LObject<?> object, float w, float h) {
 		object.setLocation(w / 2 - object.getWidth() / 2,
 				h / 2 - object.getHeight() / 2);
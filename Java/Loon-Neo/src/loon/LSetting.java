@@ -20,6 +20,7 @@
  */
 package loon;
 
+import loon.opengl.BatchType;
 import loon.utils.NumberUtils;
 
 public class LSetting {
@@ -39,6 +40,12 @@ public class LSetting {
 	// 是否显示精灵与桌面组件数量
 	public boolean isSprites = false;
 
+	// 是否记录并显示每帧各子系统的耗时,draw call与内存分配
+	public boolean isProfiler = false;
+
+	// 桌面环境下,退出时把逐帧记录写入此文件(以.csv结尾时为CSV,否则为JSON,为null时不写入)
+	public String profilerTrace = null;
+
 	// 是否显示logo（替换logo使用logoPath指定地址）
 	public boolean isLogo = false;
 
@@ -76,12 +83,23 @@ public class LSetting {
 
 	public boolean saveTexturePixels = true;
 
+	// 桌面环境下,是否以日志文件保存存档(写入用户目录下的.loon/appName,首次使用时导入Preferences中的旧存档),默认使用Preferences
+	public boolean journalSave = false;
+
 	// 当前游戏类型，默认为"未知"
 	public GameType gameType = GameType.UNKOWN;
 
+	// 默认渲染器类型(Compact模式在cpu中变换顶点,适合大量精灵同屏)
+	public BatchType batchType = BatchType.Auto;
+
+	// 是否让默认渲染器使用环形缓冲区流式提交顶点(仅对Trilateral与Compact模式有效)
+	public boolean batchStreaming = false;
+
 	public void copy(LSetting setting) {
 		this.isFPS = setting.isFPS;
 		this.isLogo = setting.isLogo;
+		this.isProfiler = setting.isProfiler;
+		this.profilerTrace = setting.profilerTrace;
 		this.fps = setting.fps;
 		this.width = setting.width;
 		this.height = setting.height;
@@ -94,6 +112,9 @@ public class LSetting {
 		this.appName = setting.appName;
 		this.logoPath = setting.logoPath;
 		this.fontName = setting.fontName;
+		this.batchType = setting.batchType;
+		this.batchStreaming = setting.batchStreaming;
+		this.journalSave = setting.journalSave;
 	}
 
 	public boolean landscape() {
@@ -92,6 +92,18 @@ public class LTexture extends Painter implements LRelease {
 
 	int refCount;
 
+	// 以下由LTextures维护:在纹理列表中的位置,来源索引的键,最后使用的帧,最近使用链表的前后节点
+	int _listIndex = -1;
+
+	String _sourceKey;
+
+	int _lastFrame;
+
+	LTexture _lruPrev, _lruNext;
+
+	// 显存已被LTextures释放,再次载入时计为一次重新载入
+	private boolean _evicted;
+
 	public final static class Format {
 
 		public static Format NEAREST = new Format(true, false, false, GL_NEAREST, GL_NEAREST, false);
@@ -336,11 +348,18 @@ public class LTexture extends Painter implements LRelease {
 				gfx.gl.glGenerateMipmap(GL_TEXTURE_2D);
 			}
 		}
+		final int oldMemorySize = _memorySize;
 		if (config.mipmaps) {
 			_memorySize = imageWidth * imageHeight * 4 * (1 + 1 / 3);
 		} else {
 			_memorySize = imageWidth * imageHeight * 4;
 		}
+		LTextures.changeMemSize(_memorySize - oldMemorySize);
+		LTextures.putSource(this);
+		if (_evicted) {
+			_evicted = false;
+			LTextures.reloaded();
+		}
 		LTextureBatch.isBatchCacheDitry = true;
 		_isLoaded = true;
 		if (closed) {
@@ -357,6 +376,7 @@ public class LTexture extends Painter implements LRelease {
 	}
 
 	public void bind() {
+		LTextures.touch(this);
 		GLUtils.bindTexture(LSystem.base().graphics().gl, id);
 	}
 
@@ -429,6 +449,7 @@ public class LTexture extends Painter implements LRelease {
 		if (isClose()) {
 			return;
 		}
+		LTextures.touch(this);
 		batch.addQuad(this, tint, tx, x, y, width, height);
 	}
 
@@ -438,6 +459,7 @@ public class LTexture extends Painter implements LRelease {
 		if (isClose()) {
 			return;
 		}
+		LTextures.touch(this);
 		batch.addQuad(this, tint, tx, dx, dy, dw, dh, sx, sy, sw, sh);
 	}
 
@@ -962,7 +984,8 @@ public class LTexture extends Painter implements LRelease {
 		if (_disabledTexture) {
 			return;
 		}
-		if (!_isLoaded) {
+		// 显存已被释放的纹理仍然持有纹理ID,同样需要删除
+		if (!_isLoaded && !_evicted) {
 			return;
 		}
 		if (parent != null) {
@@ -996,6 +1019,7 @@ public class LTexture extends Painter implements LRelease {
 							_cachePixels = null;
 							_isLoaded = false;
 							_closed = true;
+							LTextures.changeMemSize(-_memorySize);
 							_memorySize = 0;
 							if (batch != null) {
 								batch.close();
@@ -1068,6 +1092,45 @@ public class LTexture extends Painter implements LRelease {
 		return _memorySize;
 	}
 
+	private boolean isReloadable() {
+		if (_image != null && !_image.isClosed() && !_image.toClose()) {
+			return true;
+		}
+		return _cachePixels != null || (!StringUtils.isEmpty(source) && source.indexOf('<') == -1
+				&& source.indexOf('>') == -1);
+	}
+
+	/**
+	 * 是否可以释放显存(没有额外引用,已经载入,并且可以从图像,像素缓存或文件重新载入)
+	 */
+	boolean canEvict() {
+		return parent == null && _isLoaded && !_closed && !_disposed && !_drawing && !_disabledTexture
+				&& refCount <= 0 && isReloadable();
+	}
+
+	/**
+	 * 释放纹理占用的显存,但保留纹理ID,再次使用时由loadTexture重新载入
+	 */
+	void evict() {
+		GL20 gl = gfx.gl;
+		GLUtils.bindTexture(gl, id);
+		gl.glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, 1, 1, 0, GL_RGBA, GL_UNSIGNED_BYTE, null);
+		// 上传时已销毁的图像无法再次使用,改为从文件或像素缓存载入
+		if (_image != null && (_image.isClosed() || _image.toClose())) {
+			_image = null;
+		}
+		_isLoaded = false;
+		if (childs != null) {
+			for (LTexture tex : childs.values()) {
+				tex._isLoaded = false;
+			}
+		}
+		LTextures.changeMemSize(-_memorySize);
+		_memorySize = 0;
+		_evicted = true;
+		LTextureBatch.isBatchCacheDitry = true;
+	}
+
 	@Override
 	public void close() {
 		close(false);
@@ -135,9 +135,25 @@ public class LTextureBatch implements LRelease {
 		public Cache(LTextureBatch batch) {
 			count = batch.count;
 			vertexIdx = batch.vertexIdx;
-			vertices = new float[batch.vertices.length];
-			System.arraycopy(batch.vertices, 0, vertices, 0,
-					batch.vertices.length);
+			vertices = new float[vertexIdx];
+			System.arraycopy(batch.vertices, 0, vertices, 0, vertexIdx);
+		}
+
+		/**
+		 * 直接以顶点数据(每个顶点为x,y,color,u,v)构建缓存,不经过begin与end,因此构建时不会产生绘制
+		 * 
+		 * @param vertices
+		 * @param vertexIdx
+		 */
+		public Cache(float[] vertices, int vertexIdx) {
+			this.vertexIdx = vertexIdx;
+			this.count = (vertexIdx / LSystem.SPRITE_SIZE) * 6;
+			this.vertices = new float[vertexIdx];
+			System.arraycopy(vertices, 0, this.vertices, 0, vertexIdx);
+		}
+
+		public int getSpriteCount() {
+			return vertexIdx / LSystem.SPRITE_SIZE;
 		}
 
 		public void close() {
@@ -444,7 +460,7 @@ public class LTextureBatch implements LRelease {
 			this.count = spritesInBatch * 6;
 		}
 		GL20 gl = LSystem.base().graphics().gl;
-		GLUtils.bindTexture(gl, texture.getID());
+		GLUtils.bindTexture(gl, texture);
 		int old = GLUtils.getBlendMode();
 		switch (lastBlendState) {
 		case Additive:
@@ -521,6 +537,16 @@ public class LTextureBatch implements LRelease {
 		return drawing;
 	}
 
+	/**
+	 * 顶点数组中已经没有空间再写入一个精灵
+	 * 
+	 * @return
+	 */
+	public boolean isFull() {
+		return vertices != null
+				&& vertexIdx + LSystem.SPRITE_SIZE > vertices.length;
+	}
+
 	public void lock() {
 		this.isCacheLocked = true;
 	}
@@ -531,7 +557,8 @@ public class LTextureBatch implements LRelease {
 
 	private void commit(Matrix4 view, Cache cache, LColor color,
 			BlendState state) {
-		if (!isLoaded) {
+		// 缓存可以不经过begin直接构建,所以这里只要求渲染器未被关闭
+		if (isClosed) {
 			return;
 		}
 		if (drawing) {
@@ -563,7 +590,7 @@ public class LTextureBatch implements LRelease {
 		}
 		if (cache.vertexIdx > 0) {
 			GL20 gl = LSystem.base().graphics().gl;
-			GLUtils.bindTexture(gl, texture.getID());
+			GLUtils.bindTexture(gl, texture);
 			int old = GLUtils.getBlendMode();
 			switch (lastBlendState) {
 			case Additive:
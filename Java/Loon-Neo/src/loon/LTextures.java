@@ -21,67 +21,289 @@
 package loon;
 
 import loon.LTexture.Format;
+import loon.utils.IntMap;
+import loon.utils.MathUtils;
 import loon.utils.ObjectMap;
+import loon.utils.StringUtils;
 import loon.utils.TArray;
 
+/**
+ * 纹理管理.
+ *
+ * 纹理同时以纹理ID与来源(小写路径)建立索引,查找与删除不需要遍历全部纹理.可以设置显存预算,
+ * 每帧结束时若已上传的纹理超出预算,按最近最少使用的顺序释放未被引用且可重新载入的纹理的显存,
+ * 之后再次使用时经由LTexture.reload的流程自动重新载入.已载入的纹理按使用顺序串成链表(由touch维护),
+ * 释放时从链表头部依次取出,不需要每次遍历全部纹理.
+ */
 public class LTextures {
 
 	private final static TArray<LTexture> textureList = new TArray<LTexture>(
 			100);
 
+	private final static IntMap<LTexture> textureIds = new IntMap<LTexture>(
+			100);
+
+	private final static ObjectMap<String, LTexture> textureSources = new ObjectMap<String, LTexture>(
+			100);
+
 	private final static ObjectMap<String, LTexture> lazyTextures = new ObjectMap<String, LTexture>(
 			100);
 
+	// 显存预算(字节),为0时不限制
+	private static int memoryBudget = 0;
+
+	// 已上传到显存的纹理大小合计
+	private static int residentSize = 0;
+
+	private static int frame = 0;
+
+	// 最近使用链表,头部为最久未使用的纹理
+	private static LTexture lruHead, lruTail;
+
+	private static int hitCount, missCount, evictionCount, reloadCount;
+
 	public static boolean contains(int id) {
 		synchronized (textureList) {
-			for (LTexture tex : LTextures.textureList) {
-				if (tex.getID() == id) {
-					return true;
-				}
-			}
-			return false;
+			return textureIds.containsKey(id);
 		}
 	}
 
 	static boolean delTexture(int id) {
 		synchronized (textureList) {
-			for (LTexture tex : LTextures.textureList) {
-				if (tex.getID() == id) {
-					return textureList.remove(tex);
+			LTexture tex = textureIds.remove(id);
+			if (tex == null) {
+				return false;
+			}
+			removeSource(tex);
+			final int index = tex._listIndex;
+			if (index >= 0 && index < textureList.size
+					&& textureList.get(index) == tex) {
+				// 与最后一个元素交换后删除,列表顺序没有意义
+				LTexture last = textureList.pop();
+				if (last != tex) {
+					textureList.set(index, last);
+					last._listIndex = index;
 				}
 			}
+			tex._listIndex = -1;
+			unlink(tex);
+			return true;
 		}
-		return false;
 	}
 
 	static void putTexture(LTexture tex2d) {
-		if (tex2d != null && !tex2d.isClose() && !tex2d.isChild()
-				&& !textureList.contains(tex2d)) {
+		if (tex2d != null && !tex2d.isClose() && !tex2d.isChild()) {
 			synchronized (textureList) {
+				LTexture old = textureIds.get(tex2d.getID());
+				if (old == tex2d) {
+					return;
+				}
+				if (old != null) {
+					delTexture(old.getID());
+				}
+				tex2d._listIndex = textureList.size;
 				textureList.add(tex2d);
+				textureIds.put(tex2d.getID(), tex2d);
+				tex2d._lastFrame = frame;
+				link(tex2d);
+			}
+		}
+	}
+
+	private static String toSourceKey(String source) {
+		return StringUtils.isEmpty(source) ? null : source.trim().toLowerCase();
+	}
+
+	/**
+	 * 纹理的来源确定后建立来源索引
+	 *
+	 * @param tex2d
+	 */
+	static void putSource(LTexture tex2d) {
+		final String key = toSourceKey(tex2d.getSource());
+		if (key == null || tex2d.isChild()) {
+			return;
+		}
+		synchronized (textureList) {
+			if (textureIds.get(tex2d.getID()) != tex2d) {
+				return;
+			}
+			if (key.equals(tex2d._sourceKey)) {
+				return;
+			}
+			removeSource(tex2d);
+			tex2d._sourceKey = key;
+			if (!textureSources.containsKey(key)) {
+				textureSources.put(key, tex2d);
+			}
+		}
+	}
+
+	private static void removeSource(LTexture tex2d) {
+		if (tex2d._sourceKey != null) {
+			if (textureSources.get(tex2d._sourceKey) == tex2d) {
+				textureSources.remove(tex2d._sourceKey);
+			}
+			tex2d._sourceKey = null;
+		}
+	}
+
+	/**
+	 * 标记纹理在当前帧被使用
+	 *
+	 * @param tex2d
+	 */
+	public static void touch(LTexture tex2d) {
+		if (tex2d.parent != null) {
+			tex2d = tex2d.parent;
+		}
+		// 每帧只需移动一次
+		if (tex2d._lastFrame == frame && isLinked(tex2d)) {
+			return;
+		}
+		synchronized (textureList) {
+			tex2d._lastFrame = frame;
+			if (tex2d._listIndex >= 0) {
+				unlink(tex2d);
+				link(tex2d);
+			}
+		}
+	}
+
+	private static boolean isLinked(LTexture tex2d) {
+		return tex2d._lruPrev != null || lruHead == tex2d;
+	}
+
+	/**
+	 * 加入最近使用链表的尾部
+	 *
+	 * @param tex2d
+	 */
+	private static void link(LTexture tex2d) {
+		tex2d._lruPrev = lruTail;
+		tex2d._lruNext = null;
+		if (lruTail == null) {
+			lruHead = tex2d;
+		} else {
+			lruTail._lruNext = tex2d;
+		}
+		lruTail = tex2d;
+	}
+
+	private static void unlink(LTexture tex2d) {
+		if (!isLinked(tex2d)) {
+			return;
+		}
+		if (tex2d._lruPrev == null) {
+			lruHead = tex2d._lruNext;
+		} else {
+			tex2d._lruPrev._lruNext = tex2d._lruNext;
+		}
+		if (tex2d._lruNext == null) {
+			lruTail = tex2d._lruPrev;
+		} else {
+			tex2d._lruNext._lruPrev = tex2d._lruPrev;
+		}
+		tex2d._lruPrev = tex2d._lruNext = null;
+	}
+
+	static void changeMemSize(int size) {
+		residentSize += size;
+	}
+
+	static void reloaded() {
+		reloadCount++;
+		missCount++;
+	}
+
+	/**
+	 * 设置纹理显存预算(字节),为0时不限制
+	 *
+	 * @param budget
+	 */
+	public static void setMemoryBudget(int budget) {
+		memoryBudget = MathUtils.max(0, budget);
+	}
+
+	public static int getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	/**
+	 * 当前已上传到显存的纹理大小合计
+	 *
+	 * @return
+	 */
+	public static int getResidentSize() {
+		return residentSize;
+	}
+
+	public static int getHitCount() {
+		return hitCount;
+	}
+
+	public static int getMissCount() {
+		return missCount;
+	}
+
+	public static int getEvictionCount() {
+		return evictionCount;
+	}
+
+	public static int getReloadCount() {
+		return reloadCount;
+	}
+
+	public static void resetStatistics() {
+		hitCount = missCount = evictionCount = reloadCount = 0;
+	}
+
+	/**
+	 * 每帧绘制结束后调用,显存超出预算时释放最久未使用的纹理(当前帧使用过的纹理不会被释放)
+	 */
+	public final static void update() {
+		if (memoryBudget > 0 && residentSize > memoryBudget) {
+			synchronized (textureList) {
+				// 链表按使用顺序排列,遇到当前帧使用过的纹理即可停止
+				LTexture tex = lruHead;
+				while (residentSize > memoryBudget && tex != null
+						&& tex._lastFrame != frame) {
+					LTexture next = tex._lruNext;
+					if (!tex.isLoaded()) {
+						// 未载入的纹理不占显存,再次touch时重新加入链表
+						unlink(tex);
+					} else if (tex.canEvict()) {
+						tex.evict();
+						unlink(tex);
+						evictionCount++;
+					}
+					tex = next;
+				}
 			}
 		}
+		frame++;
 	}
 
 	public final static void reload() {
 		TArray<LTexture> texs = null;
 		synchronized (textureList) {
 			texs = new TArray<LTexture>(textureList);
-			textureList.clear();
 		}
 		for (LTexture tex : texs) {
 			if (tex != null && !tex.isLoaded() && !tex.isClose()) {
 				tex.reload();
 			}
 		}
-		textureList.addAll(texs);
 	}
 
 	public final static int getMemSize() {
 		int memTotal = 0;
-		for (LTexture tex : textureList) {
-			if (tex != null && !tex.isChild() && !tex.isClose()) {
-				memTotal += tex.getMemSize();
+		synchronized (textureList) {
+			for (int i = 0; i < textureList.size; i++) {
+				LTexture tex = textureList.get(i);
+				if (tex != null && !tex.isChild() && !tex.isClose()) {
+					memTotal += tex.getMemSize();
+				}
 			}
 		}
 		return memTotal;
@@ -96,7 +318,17 @@ public class LTextures {
 				}
 			}
 		}
-		textureList.clear();
+		synchronized (textureList) {
+			textureList.clear();
+			textureIds.clear();
+			textureSources.clear();
+			for (LTexture tex = lruHead; tex != null;) {
+				LTexture next = tex._lruNext;
+				tex._lruPrev = tex._lruNext = null;
+				tex = next;
+			}
+			lruHead = lruTail = null;
+		}
 	}
 
 	public static LTexture createTexture(int width, int height, Format config) {
@@ -128,7 +360,10 @@ public class LTextures {
 	}
 
 	public static boolean containsValue(LTexture texture) {
-		return textureList.contains(texture);
+		synchronized (textureList) {
+			return texture != null
+					&& textureIds.get(texture.getID()) == texture;
+		}
 	}
 
 	public static int getRefCount(LTexture texture) {
@@ -141,16 +376,10 @@ public class LTextures {
 		if (texture != null) {
 			return texture.refCount;
 		}
-		for (int i = 0, size = textureList.size; i < size; i++) {
-			LTexture tex2d = textureList.get(i);
-			if (tex2d != null) {
-				if (key.equals(tex2d.getSource())
-						|| key.equals(tex2d.getSource().toLowerCase())) {
-					return tex2d.refCount;
-				}
-			}
+		synchronized (textureList) {
+			texture = textureSources.get(key);
 		}
-		return 0;
+		return texture == null ? 0 : texture.refCount;
 	}
 
 	public static LTexture loadTexture(String fileName, Format config) {
@@ -162,8 +391,10 @@ public class LTextures {
 			LTexture texture = lazyTextures.get(key);
 			if (texture != null && !texture.isClose()) {
 				texture.refCount++;
+				hitCount++;
 				return texture;
 			}
+			missCount++;
 			texture = BaseIO.loadImage(fileName).onHaveToClose(true)
 					.createTexture(config);
 			texture.tmpLazy = fileName;
@@ -189,19 +420,19 @@ public class LTextures {
 		final LTexture texture = lazyTextures.get(name);
 		if (texture != null) {
 			return texture.refCount--;
-		} else {
-			for (int i = 0; i < textureList.size; i++) {
-				LTexture tex = textureList.get(i);
-				if (tex != null && tex.tmpLazy.equals(name)) {
-					return tex.refCount--;
-				}
-			}
 		}
 		return -1;
 	}
 
 	static int removeTextureRef(LTexture texture, final boolean remove) {
-		return removeTextureRef(texture.tmpLazy, remove);
+		final LTexture lazy = lazyTextures.get(texture.tmpLazy);
+		if (lazy != null) {
+			return lazy.refCount--;
+		}
+		if (containsValue(texture)) {
+			return texture.refCount--;
+		}
+		return -1;
 	}
 
 	public static void destroySourceAllCache() {
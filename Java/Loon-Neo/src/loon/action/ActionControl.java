@@ -10,6 +10,8 @@ public class ActionControl {
 
 	private Actions actions;
 
+	private ActionTweenBatch tweens;
+
 	private boolean pause;
 
 	public static ActionControl get() {
@@ -25,10 +27,13 @@ public class ActionControl {
 	}
 
 	private final void call(long elapsedTime) {
-		if (pause || actions.getCount() == 0) {
+		if (pause) {
 			return;
 		}
-		actions.update(elapsedTime);
+		if (actions.getCount() > 0) {
+			actions.update(elapsedTime);
+		}
+		tweens.update(elapsedTime);
 	}
 
 	public static final void update(long elapsedTime) {
@@ -39,6 +44,16 @@ public class ActionControl {
 
 	private ActionControl() {
 		actions = new Actions();
+		tweens = new ActionTweenBatch();
+	}
+
+	/**
+	 * 批量缓动处理器(常用的移动,缩放,旋转,透明度与颜色缓动可以直接交给它,不必创建ActionEvent)
+	 * 
+	 * @return
+	 */
+	public ActionTweenBatch getTweens() {
+		return tweens;
 	}
 
 	public void addAction(ActionEvent action, ActionBind obj, boolean paused) {
@@ -51,14 +66,15 @@ public class ActionControl {
 
 	public void removeAllActions(ActionBind actObject) {
 		actions.removeAllActions(actObject);
+		tweens.killAll(actObject);
 	}
 
 	public boolean containsKey(ActionBind actObject) {
-		return actions.containsKey(actObject);
+		return actions.containsKey(actObject) || tweens.contains(actObject);
 	}
 
 	public boolean isCompleted(ActionBind actObject) {
-		return actions.isCompleted(actObject);
+		return actions.isCompleted(actObject) && !tweens.contains(actObject);
 	}
 	
 	public int getCount() {
@@ -87,14 +103,17 @@ public class ActionControl {
 
 	public void stop(ActionBind actObject) {
 		actions.stop(actObject);
+		tweens.paused(true, actObject);
 	}
 
 	public void start(ActionBind actObject) {
 		actions.start(actObject);
+		tweens.paused(false, actObject);
 	}
 
 	public void paused(boolean pause, ActionBind actObject) {
 		actions.paused(pause, actObject);
+		tweens.paused(pause, actObject);
 	}
 
 	public boolean isPause() {
@@ -107,6 +126,7 @@ public class ActionControl {
 
 	public void clear() {
 		actions.clear();
+		tweens.clear();
 	}
 
 	public void stop() {
@@ -1182,6 +1182,48 @@ public class ActionTween extends ActionTweenBase<ActionTween> {
 		ActionType.setValues(_target, type, targetValues);
 	}
 
+	/**
+	 * 交给ActionControl的批量缓动处理器执行,返回缓动编号.
+	 *
+	 * 仅支持没有注入事件,路径点,重复与回调的移动,缩放,旋转与透明度缓动,其它情况按start()执行并返回-1.
+	 * 交给批量处理器后此对象会被回收,不可再使用.
+	 *
+	 * @return
+	 */
+	public int startBatch() {
+		int channel;
+		switch (type) {
+		case ActionType.POSITION:
+			channel = ActionTweenBatch.MOVE;
+			break;
+		case ActionType.SCALE:
+			channel = ActionTweenBatch.SCALE;
+			break;
+		case ActionType.ROTATION:
+			channel = ActionTweenBatch.ROTATE;
+			break;
+		case ActionType.ALPHA:
+			channel = ActionTweenBatch.FADE;
+			break;
+		default:
+			channel = -1;
+			break;
+		}
+		if (channel == -1 || _target == null || actionEvents != null
+				|| _funPointsSize > 0 || repeatSize != 0 || hasCallback()
+				|| isStarted()) {
+			start();
+			return -1;
+		}
+		int id = ActionControl
+				.get()
+				.getTweens()
+				.add(_target, channel, targetValues[0], targetValues[1], 0, 0,
+						duration, delay, equation, isRelative, isFrom, null);
+		pool.free(this);
+		return id;
+	}
+
 	@Override
 	public ActionTween build() {
 		if (_target == null) {
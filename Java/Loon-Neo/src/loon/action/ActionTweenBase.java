@@ -97,6 +97,10 @@ public abstract class ActionTweenBase<T> {
 		return (T) this;
 	}
 
+	boolean hasCallback() {
+		return callback != null;
+	}
+
 	public T setCallbackTriggers(int flags) {
 		this.callbackTriggers = flags;
 		return (T) this;
@@ -0,0 +1,575 @@
+/**
+ * Copyright 2008 - 2015 The Loon Game Engine Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.action;
+
+import loon.canvas.LColor;
+import loon.utils.Easing;
+import loon.utils.IntIntMap;
+import loon.utils.ObjectIntMap;
+
+/**
+ * 批量缓动处理器.
+ *
+ * 常用的移动,缩放,旋转,透明度与颜色缓动不再各自创建ActionEvent对象,而是保存在按缓动下标排列的基本类型数组中,
+ * 每帧在一个循环里统一计算,完成的缓动与末尾元素交换后删除.同一对象的同一种缓动只保留最后添加的一个.
+ *
+ * 时间单位与ActionControl.update传入的elapsedTime相同(和ActionTween一致).
+ */
+public class ActionTweenBatch {
+
+	public static final int MOVE = 0;
+
+	public static final int SCALE = 1;
+
+	public static final int ROTATE = 2;
+
+	public static final int FADE = 3;
+
+	public static final int COLOR = 4;
+
+	private static final int CHANNELS = 5;
+
+	private static final int STRIDE = 4;
+
+	private static final int FLAG_STARTED = 1;
+
+	private static final int FLAG_RELATIVE = 2;
+
+	private static final int FLAG_FROM = 4;
+
+	private static final int FLAG_KILLED = 8;
+
+	// 对象数据,以对象下标访问
+	private final ObjectIntMap<ActionBind> targetSlots = new ObjectIntMap<ActionBind>();
+	private ActionBind[] targets = new ActionBind[16];
+	private LColor[] targetColors = new LColor[16];
+	private boolean[] targetPaused = new boolean[16];
+	private int[] targetRefs = new int[16];
+	// 对象每种缓动对应的缓动下标+1(0表示没有)
+	private int[] targetChannels = new int[16 * CHANNELS];
+	private int[] freeSlots = new int[16];
+	private int freeSize, targetSize;
+
+	// 缓动数据,以缓动下标访问,删除时与末尾交换
+	private int[] tweenTarget = new int[64];
+	private int[] tweenChannel = new int[64];
+	private int[] tweenFlags = new int[64];
+	private int[] tweenIds = new int[64];
+	private float[] tweenElapsed = new float[64];
+	private float[] tweenDelay = new float[64];
+	private float[] tweenDuration = new float[64];
+	private float[] tweenStart = new float[64 * STRIDE];
+	private float[] tweenEnd = new float[64 * STRIDE];
+	private Easing[] tweenEasing = new Easing[64];
+	private ActionListener[] tweenListeners = new ActionListener[64];
+	private int size;
+
+	// 缓动编号到缓动下标
+	private final IntIntMap idToIndex = new IntIntMap();
+	private int nextId;
+
+	private boolean updating;
+
+	private final float[] tmpValues = new float[STRIDE];
+
+	public int moveTo(ActionBind target, float x, float y, float duration,
+			Easing easing) {
+		return add(target, MOVE, x, y, 0, 0, duration, 0, easing, false,
+				false, null);
+	}
+
+	public int moveBy(ActionBind target, float x, float y, float duration,
+			Easing easing) {
+		return add(target, MOVE, x, y, 0, 0, duration, 0, easing, true,
+				false, null);
+	}
+
+	public int scaleTo(ActionBind target, float sx, float sy, float duration,
+			Easing easing) {
+		return add(target, SCALE, sx, sy, 0, 0, duration, 0, easing, false,
+				false, null);
+	}
+
+	public int rotateTo(ActionBind target, float rotation, float duration,
+			Easing easing) {
+		return add(target, ROTATE, rotation, 0, 0, 0, duration, 0, easing,
+				false, false, null);
+	}
+
+	public int fadeTo(ActionBind target, float alpha, float duration,
+			Easing easing) {
+		return add(target, FADE, alpha, 0, 0, 0, duration, 0, easing, false,
+				false, null);
+	}
+
+	public int colorTo(ActionBind target, LColor color, float duration,
+			Easing easing) {
+		return add(target, COLOR, color.r, color.g, color.b, color.a,
+				duration, 0, easing, false, false, null);
+	}
+
+	/**
+	 * 添加一个缓动,返回缓动编号(对象为空时返回-1)
+	 *
+	 * @param target
+	 *            操作对象
+	 * @param channel
+	 *            缓动种类(MOVE,SCALE,ROTATE,FADE,COLOR)
+	 * @param v0
+	 * @param v1
+	 * @param v2
+	 * @param v3
+	 *            目标数值(按种类使用前1,2或4个)
+	 * @param duration
+	 *            持续时间
+	 * @param delay
+	 *            延迟时间
+	 * @param easing
+	 *            缓动函数(为null时匀速)
+	 * @param relative
+	 *            目标数值是否为相对开始时的偏移
+	 * @param from
+	 *            是否从目标数值演变到当前值
+	 * @param listener
+	 * @return
+	 */
+	public int add(ActionBind target, int channel, float v0, float v1,
+			float v2, float v3, float duration, float delay, Easing easing,
+			boolean relative, boolean from, ActionListener listener) {
+		if (target == null) {
+			return -1;
+		}
+		if (channel < 0 || channel >= CHANNELS) {
+			throw new IllegalArgumentException("Unknown tween channel "
+					+ channel);
+		}
+		final int slot = targetSlot(target);
+		// 先增加引用,避免删除旧缓动时释放对象下标
+		targetRefs[slot]++;
+		final int old = targetChannels[slot * CHANNELS + channel] - 1;
+		if (old != -1) {
+			// 同一对象的同种缓动以新添加的为准
+			if (updating) {
+				tweenFlags[old] |= FLAG_KILLED;
+				targetChannels[slot * CHANNELS + channel] = 0;
+			} else {
+				removeTween(old);
+			}
+		}
+		if (size == tweenTarget.length) {
+			growTweens(size * 2);
+		}
+		final int index = size++;
+		final int id = nextId++;
+		if (nextId == Integer.MAX_VALUE) {
+			nextId = 0;
+		}
+		tweenTarget[index] = slot;
+		tweenChannel[index] = channel;
+		tweenFlags[index] = (relative ? FLAG_RELATIVE : 0)
+				| (from ? FLAG_FROM : 0);
+		tweenIds[index] = id;
+		tweenElapsed[index] = 0;
+		tweenDelay[index] = delay < 0 ? 0 : delay;
+		tweenDuration[index] = duration < 0 ? 0 : duration;
+		final int off = index * STRIDE;
+		tweenEnd[off] = v0;
+		tweenEnd[off + 1] = v1;
+		tweenEnd[off + 2] = v2;
+		tweenEnd[off + 3] = v3;
+		tweenEasing[index] = easing;
+		tweenListeners[index] = listener;
+		targetChannels[slot * CHANNELS + channel] = index + 1;
+		idToIndex.put(id, index);
+		return id;
+	}
+
+	private int targetSlot(ActionBind target) {
+		int slot = targetSlots.get(target, -1);
+		if (slot != -1) {
+			return slot;
+		}
+		if (freeSize > 0) {
+			slot = freeSlots[--freeSize];
+		} else {
+			if (targetSize == targets.length) {
+				growTargets(targetSize * 2);
+			}
+			slot = targetSize++;
+		}
+		targets[slot] = target;
+		targetColors[slot] = null;
+		targetPaused[slot] = false;
+		targetRefs[slot] = 0;
+		targetSlots.put(target, slot);
+		return slot;
+	}
+
+	private void releaseTarget(int slot) {
+		targetSlots.remove(targets[slot], -1);
+		targets[slot] = null;
+		targetColors[slot] = null;
+		if (freeSize == freeSlots.length) {
+			int[] tmp = new int[freeSize * 2];
+			System.arraycopy(freeSlots, 0, tmp, 0, freeSize);
+			freeSlots = tmp;
+		}
+		freeSlots[freeSize++] = slot;
+	}
+
+	private void growTargets(int capacity) {
+		ActionBind[] t = new ActionBind[capacity];
+		System.arraycopy(targets, 0, t, 0, targetSize);
+		targets = t;
+		LColor[] c = new LColor[capacity];
+		System.arraycopy(targetColors, 0, c, 0, targetSize);
+		targetColors = c;
+		boolean[] p = new boolean[capacity];
+		System.arraycopy(targetPaused, 0, p, 0, targetSize);
+		targetPaused = p;
+		int[] r = new int[capacity];
+		System.arraycopy(targetRefs, 0, r, 0, targetSize);
+		targetRefs = r;
+		int[] ch = new int[capacity * CHANNELS];
+		System.arraycopy(targetChannels, 0, ch, 0, targetSize * CHANNELS);
+		targetChannels = ch;
+	}
+
+	private void growTweens(int capacity) {
+		tweenTarget = grow(tweenTarget, capacity);
+		tweenChannel = grow(tweenChannel, capacity);
+		tweenFlags = grow(tweenFlags, capacity);
+		tweenIds = grow(tweenIds, capacity);
+		tweenElapsed = grow(tweenElapsed, capacity);
+		tweenDelay = grow(tweenDelay, capacity);
+		tweenDuration = grow(tweenDuration, capacity);
+		tweenStart = grow(tweenStart, capacity * STRIDE);
+		tweenEnd = grow(tweenEnd, capacity * STRIDE);
+		Easing[] e = new Easing[capacity];
+		System.arraycopy(tweenEasing, 0, e, 0, size);
+		tweenEasing = e;
+		ActionListener[] l = new ActionListener[capacity];
+		System.arraycopy(tweenListeners, 0, l, 0, size);
+		tweenListeners = l;
+	}
+
+	private static int[] grow(int[] src, int capacity) {
+		int[] dst = new int[capacity];
+		System.arraycopy(src, 0, dst, 0, src.length);
+		return dst;
+	}
+
+	private static float[] grow(float[] src, int capacity) {
+		float[] dst = new float[capacity];
+		System.arraycopy(src, 0, dst, 0, src.length);
+		return dst;
+	}
+
+	/**
+	 * 删除指定下标的缓动,末尾的缓动移动到此位置
+	 */
+	private void removeTween(int index) {
+		final int slot = tweenTarget[index];
+		final int channelKey = slot * CHANNELS + tweenChannel[index];
+		if (targetChannels[channelKey] == index + 1) {
+			targetChannels[channelKey] = 0;
+		}
+		idToIndex.remove(tweenIds[index], -1);
+		final int last = --size;
+		if (index != last) {
+			tweenTarget[index] = tweenTarget[last];
+			tweenChannel[index] = tweenChannel[last];
+			tweenFlags[index] = tweenFlags[last];
+			tweenIds[index] = tweenIds[last];
+			tweenElapsed[index] = tweenElapsed[last];
+			tweenDelay[index] = tweenDelay[last];
+			tweenDuration[index] = tweenDuration[last];
+			System.arraycopy(tweenStart, last * STRIDE, tweenStart, index
+					* STRIDE, STRIDE);
+			System.arraycopy(tweenEnd, last * STRIDE, tweenEnd, index
+					* STRIDE, STRIDE);
+			tweenEasing[index] = tweenEasing[last];
+			tweenListeners[index] = tweenListeners[last];
+			idToIndex.put(tweenIds[index], index);
+			final int movedKey = tweenTarget[index] * CHANNELS
+					+ tweenChannel[index];
+			if (targetChannels[movedKey] == last + 1) {
+				targetChannels[movedKey] = index + 1;
+			}
+		}
+		tweenEasing[last] = null;
+		tweenListeners[last] = null;
+		if (--targetRefs[slot] == 0) {
+			releaseTarget(slot);
+		}
+	}
+
+	private void killIndex(int index) {
+		if (updating) {
+			tweenFlags[index] |= FLAG_KILLED;
+		} else {
+			removeTween(index);
+		}
+	}
+
+	/**
+	 * 读取对象当前的数值作为缓动起点
+	 */
+	private void begin(int index, ActionBind target) {
+		final int off = index * STRIDE;
+		final float[] start = tweenStart;
+		switch (tweenChannel[index]) {
+		case MOVE:
+			start[off] = target.getX();
+			start[off + 1] = target.getY();
+			break;
+		case SCALE:
+			start[off] = target.getScaleX();
+			start[off + 1] = target.getScaleY();
+			break;
+		case ROTATE:
+			start[off] = target.getRotation();
+			break;
+		case FADE:
+			start[off] = target.getAlpha();
+			break;
+		case COLOR:
+			LColor c = target.getColor();
+			if (c == null) {
+				c = LColor.white;
+			}
+			start[off] = c.r;
+			start[off + 1] = c.g;
+			start[off + 2] = c.b;
+			start[off + 3] = c.a;
+			break;
+		}
+		final int flags = tweenFlags[index];
+		for (int i = 0; i < STRIDE; i++) {
+			if ((flags & FLAG_RELATIVE) != 0) {
+				tweenEnd[off + i] += start[off + i];
+			}
+			if ((flags & FLAG_FROM) != 0) {
+				float tmp = start[off + i];
+				start[off + i] = tweenEnd[off + i];
+				tweenEnd[off + i] = tmp;
+			}
+		}
+		tweenFlags[index] = flags | FLAG_STARTED;
+	}
+
+	private void apply(int slot, int channel, float[] v) {
+		final ActionBind target = targets[slot];
+		switch (channel) {
+		case MOVE:
+			target.setLocation(v[0], v[1]);
+			break;
+		case SCALE:
+			target.setScale(v[0], v[1]);
+			break;
+		case ROTATE:
+			target.setRotation(v[0]);
+			break;
+		case FADE:
+			target.setAlpha(v[0]);
+			break;
+		case COLOR:
+			// 每个对象使用自己的颜色对象,避免对象保存引用后被其它缓动修改
+			LColor color = targetColors[slot];
+			if (color == null) {
+				color = targetColors[slot] = new LColor();
+			}
+			color.setColor(v[0], v[1], v[2], v[3]);
+			target.setColor(color);
+			break;
+		}
+	}
+
+	public void update(long elapsedTime) {
+		if (size == 0) {
+			return;
+		}
+		final float delta = elapsedTime;
+		updating = true;
+		try {
+			for (int i = size - 1; i >= 0; i--) {
+				if ((tweenFlags[i] & FLAG_KILLED) != 0) {
+					removeTween(i);
+					continue;
+				}
+				final int slot = tweenTarget[i];
+				if (targetPaused[slot]) {
+					continue;
+				}
+				final float elapsed = (tweenElapsed[i] += delta);
+				final float delay = tweenDelay[i];
+				if (elapsed < delay) {
+					continue;
+				}
+				final ActionListener listener = tweenListeners[i];
+				if ((tweenFlags[i] & FLAG_STARTED) == 0) {
+					begin(i, targets[slot]);
+					if (listener != null) {
+						listener.start(targets[slot]);
+					}
+				}
+				final float duration = tweenDuration[i];
+				final float time = elapsed - delay;
+				final boolean done = time >= duration;
+				float t = 1f;
+				if (!done) {
+					final Easing easing = tweenEasing[i];
+					t = easing == null ? time / duration : easing.apply(time,
+							duration, false);
+				}
+				final int off = i * STRIDE;
+				final float[] v = tmpValues;
+				v[0] = tweenStart[off] + t * (tweenEnd[off] - tweenStart[off]);
+				v[1] = tweenStart[off + 1] + t
+						* (tweenEnd[off + 1] - tweenStart[off + 1]);
+				v[2] = tweenStart[off + 2] + t
+						* (tweenEnd[off + 2] - tweenStart[off + 2]);
+				v[3] = tweenStart[off + 3] + t
+						* (tweenEnd[off + 3] - tweenStart[off + 3]);
+				apply(slot, tweenChannel[i], v);
+				if (listener != null) {
+					listener.process(targets[slot]);
+				}
+				if (done) {
+					final ActionBind target = targets[slot];
+					removeTween(i);
+					if (listener != null) {
+						listener.stop(target);
+					}
+				}
+			}
+		} finally {
+			updating = false;
+		}
+	}
+
+	/**
+	 * 停止指定编号的缓动(数值停留在当前状态)
+	 *
+	 * @param id
+	 */
+	public void kill(int id) {
+		int index = idToIndex.get(id, -1);
+		if (index != -1) {
+			killIndex(index);
+		}
+	}
+
+	/**
+	 * 停止对象的某种缓动
+	 *
+	 * @param target
+	 * @param channel
+	 */
+	public void kill(ActionBind target, int channel) {
+		int slot = targetSlots.get(target, -1);
+		if (slot == -1 || channel < 0 || channel >= CHANNELS) {
+			return;
+		}
+		int index = targetChannels[slot * CHANNELS + channel] - 1;
+		if (index != -1) {
+			killIndex(index);
+		}
+	}
+
+	/**
+	 * 停止对象的全部缓动
+	 *
+	 * @param target
+	 */
+	public void killAll(ActionBind target) {
+		int slot = targetSlots.get(target, -1);
+		if (slot == -1) {
+			return;
+		}
+		for (int c = 0; c < CHANNELS; c++) {
+			int index = targetChannels[slot * CHANNELS + c] - 1;
+			if (index != -1) {
+				killIndex(index);
+				if (targetSlots.get(target, -1) != slot) {
+					return;
+				}
+			}
+		}
+	}
+
+	public boolean isRunning(int id) {
+		int index = idToIndex.get(id, -1);
+		return index != -1 && (tweenFlags[index] & FLAG_KILLED) == 0;
+	}
+
+	public boolean contains(ActionBind target) {
+		int slot = targetSlots.get(target, -1);
+		if (slot == -1) {
+			return false;
+		}
+		for (int c = 0; c < CHANNELS; c++) {
+			if (targetChannels[slot * CHANNELS + c] != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void paused(boolean pause, ActionBind target) {
+		int slot = targetSlots.get(target, -1);
+		if (slot != -1) {
+			targetPaused[slot] = pause;
+		}
+	}
+
+	public int getCount() {
+		return size;
+	}
+
+	public int getTargetCount() {
+		return targetSlots.size;
+	}
+
+	public void clear() {
+		if (updating) {
+			for (int i = 0; i < size; i++) {
+				tweenFlags[i] |= FLAG_KILLED;
+			}
+			return;
+		}
+		for (int i = 0; i < size; i++) {
+			tweenEasing[i] = null;
+			tweenListeners[i] = null;
+		}
+		for (int i = 0; i < targetSize; i++) {
+			targets[i] = null;
+			targetColors[i] = null;
+			targetRefs[i] = 0;
+		}
+		for (int i = 0, n = targetSize * CHANNELS; i < n; i++) {
+			targetChannels[i] = 0;
+		}
+		targetSlots.clear();
+		idToIndex.clear();
+		size = targetSize = freeSize = 0;
+	}
+}
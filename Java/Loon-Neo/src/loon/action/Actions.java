@@ -213,7 +213,15 @@ public class Actions {
 						currentTarget.currentAction.step(elapsedTime);
 						if (currentTarget.currentAction.isComplete()) {
 							currentTarget.currentAction.stop();
-							removeAction(currentTarget.currentAction);
+							// 动作列表未被改动时直接按当前下标删除,不必再查找动作位置
+							if (currentTarget.actionIndex < currentTarget.actions.size
+									&& currentTarget.actions
+											.get(currentTarget.actionIndex) == currentTarget.currentAction) {
+								removeAction(currentTarget.actionIndex,
+										currentTarget);
+							} else {
+								removeAction(currentTarget.currentAction);
+							}
 						}
 						currentTarget.currentAction = null;
 					}
@@ -38,6 +38,8 @@ public interface AStarFindHeuristic {
 
 	public final static int CLOSEST_SQUARED = 7;
 
+	public final static int JUMP_POINT = 8;
+
 	public float getScore(float sx, float sy, float tx, float ty);
 
 	public int getType();
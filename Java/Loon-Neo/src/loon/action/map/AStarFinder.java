@@ -20,8 +20,6 @@
  */
 package loon.action.map;
 
-import java.util.HashSet;
-
 import loon.LRelease;
 import loon.LSystem;
 import loon.action.map.heuristics.Closest;
@@ -30,6 +28,7 @@ import loon.action.map.heuristics.Diagonal;
 import loon.action.map.heuristics.DiagonalShort;
 import loon.action.map.heuristics.Euclidean;
 import loon.action.map.heuristics.EuclideanNoSQR;
+import loon.action.map.heuristics.JumpPoint;
 import loon.action.map.heuristics.Manhattan;
 import loon.action.map.heuristics.Mixing;
 import loon.event.Updateable;
@@ -55,6 +54,11 @@ public class AStarFinder implements Updateable, LRelease {
 
 	public final static AStarFindHeuristic ASTAR_DIAGONAL_SHORT = new DiagonalShort();
 
+	/**
+	 * 使用跳点搜索(JumpPointFinder)代替普通A*,只在允许8方向移动时生效
+	 */
+	public final static AStarFindHeuristic ASTAR_JUMP_POINT = new JumpPoint();
+
 	private final static IntMap<TArray<Vector2f>> finderLazy = new IntMap<TArray<Vector2f>>(
 			100);
 
@@ -87,34 +91,33 @@ public class AStarFinder implements Updateable, LRelease {
 			int[][] maps, int[] limits, int x1, int y1, int x2, int y2,
 			boolean flag) {
 		heuristic = (heuristic == null ? ASTAR_MANHATTAN : heuristic);
+		int key = makeLazyKey(heuristic, maps, limits, x1, y1, x2, y2, flag);
+		TArray<Vector2f> result;
 		synchronized (finderLazy) {
-			if (finderLazy.size >= LSystem.DEFAULT_MAX_CACHE_SIZE * 10) {
-				finderLazy.clear();
+			result = finderLazy.get(key);
+		}
+		// 寻路本身不持有缓存的锁,不同地图与线程的寻路可以同时进行
+		if (result == null) {
+			AStarFinder astar = new AStarFinder(heuristic);
+			Field2D fieldMap = new Field2D(maps);
+			if (limits != null) {
+				fieldMap.setLimit(limits);
 			}
-			int key = makeLazyKey(heuristic, maps, limits, x1, y1, x2, y2, flag);
-			TArray<Vector2f> result = finderLazy.get(key);
-			if (result == null) {
-				AStarFinder astar = new AStarFinder(heuristic);
-				Field2D fieldMap = new Field2D(maps);
-				if (limits != null) {
-					fieldMap.setLimit(limits);
+			Vector2f start = new Vector2f(x1, y1);
+			Vector2f over = new Vector2f(x2, y2);
+			result = astar.calc(fieldMap, start, over, flag);
+			astar.close();
+			synchronized (finderLazy) {
+				if (finderLazy.size >= LSystem.DEFAULT_MAX_CACHE_SIZE * 10) {
+					finderLazy.clear();
 				}
-				Vector2f start = new Vector2f(x1, y1);
-				Vector2f over = new Vector2f(x2, y2);
-				result = astar.calc(fieldMap, start, over, flag);
 				finderLazy.put(key, result);
-				astar.close();
-			}
-			if (result != null) {
-				TArray<Vector2f> newResult = new TArray<Vector2f>();
-				newResult.addAll(result);
-				result = newResult;
 			}
-			if (result == null) {
-				return new TArray<Vector2f>();
-			}
-			return new TArray<Vector2f>(result);
 		}
+		if (result == null) {
+			return new TArray<Vector2f>();
+		}
+		return new TArray<Vector2f>(result);
 	}
 
 	public static TArray<Vector2f> find(AStarFindHeuristic heuristic,
@@ -140,16 +143,6 @@ public class AStarFinder implements Updateable, LRelease {
 				flag);
 	}
 
-	private Vector2f goal;
-
-	private TArray<ScoredPath> pathes;
-
-	private TArray<Vector2f> path;
-
-	private HashSet<Vector2f> visitedCache;
-
-	private ScoredPath spath;
-
 	private boolean flying, flag;
 
 	private Field2D field;
@@ -160,6 +153,34 @@ public class AStarFinder implements Updateable, LRelease {
 
 	private AStarFindHeuristic findHeuristic;
 
+	// 空闲的寻路器(节点数组可以复用),每次寻路取出一个独占使用,结束后放回
+	private final static TArray<AStarGridFinder> gridFinders = new TArray<AStarGridFinder>();
+
+	private final static TArray<AStarGridFinder> jumpFinders = new TArray<AStarGridFinder>();
+
+	private final static int MAX_IDLE_FINDERS = 4;
+
+	private static AStarGridFinder obtainFinder(boolean jump) {
+		TArray<AStarGridFinder> finders = jump ? jumpFinders : gridFinders;
+		synchronized (finders) {
+			if (finders.size > 0) {
+				return finders.pop();
+			}
+		}
+		return jump ? new JumpPointFinder() : new AStarGridFinder();
+	}
+
+	private static void freeFinder(AStarGridFinder finder, boolean jump) {
+		TArray<AStarGridFinder> finders = jump ? jumpFinders : gridFinders;
+		synchronized (finders) {
+			if (finders.size < MAX_IDLE_FINDERS) {
+				finders.add(finder);
+				return;
+			}
+		}
+		finder.close();
+	}
+
 	public AStarFinder(AStarFindHeuristic heuristic) {
 		this(heuristic, false);
 	}
@@ -223,35 +244,22 @@ public class AStarFinder implements Updateable, LRelease {
 			v.add(start);
 			return v;
 		}
-		this.goal = goal;
-		if (visitedCache == null) {
-			visitedCache = new HashSet<Vector2f>();
-		} else {
-			visitedCache.clear();
-		}
-		if (pathes == null) {
-			pathes = new TArray<ScoredPath>();
-		} else {
-			pathes.clear();
-		}
-		visitedCache.add(start);
-		if (path == null) {
-			path = new TArray<Vector2f>();
-		} else {
-			path.clear();
-		}
-		path.add(start);
-		if (spath == null) {
-			spath = new ScoredPath(0, path);
-		} else {
-			spath.score = 0;
-			spath.path = path;
+		AStarFindHeuristic heuristic = (findHeuristic == null ? ASTAR_MANHATTAN
+				: findHeuristic);
+		final boolean jump = heuristic.getType() == AStarFindHeuristic.JUMP_POINT;
+		AStarGridFinder finder = obtainFinder(jump);
+		try {
+			finder.setOverflow(overflow);
+			return finder.findPath(heuristic, field.getMap(),
+					field.getLimit(), start.x(), start.y(), goal.x(), goal.y(),
+					flying, flag, null);
+		} finally {
+			freeFinder(finder, jump);
 		}
-		pathes.add(spath);
-		return astar(field, flag);
 	}
 
-	private int overflow = 4096;
+	// 最大展开节点数量,小于等于0时不做限制(最多展开整张地图)
+	private int overflow = 0;
 
 	public void setOverflow(int over) {
 		this.overflow = over;
@@ -261,51 +269,6 @@ public class AStarFinder implements Updateable, LRelease {
 		return this.overflow;
 	}
 
-	private TArray<Vector2f> astar(Field2D field, boolean flag) {
-		for (int j = 0; pathes.size > 0; j++) {
-			if (j > overflow) {
-				pathes.clear();
-				continue;
-			}
-			ScoredPath spath = pathes.removeIndex(0);
-			Vector2f current = spath.path.get(spath.path.size - 1);
-			if (current.equals(goal)) {
-				return new TArray<Vector2f>(spath.path);
-			}
-			TArray<Vector2f> list = field.neighbors(current, flag);
-			int size = list.size;
-			for (int i = 0; i < size; i++) {
-				Vector2f next = list.get(i);
-				if (visitedCache.contains(next)) {
-					continue;
-				}
-				visitedCache.add(next);
-				if (!field.isHit(next) && !flying) {
-					continue;
-				}
-				TArray<Vector2f> path = new TArray<Vector2f>(spath.path);
-				path.add(next);
-				float score = spath.score
-						+ findHeuristic
-								.getScore(goal.x, goal.y, next.x, next.y);
-				insert(score, path);
-			}
-		}
-		return null;
-	}
-
-	private void insert(float score, TArray<Vector2f> path) {
-		int size = pathes.size;
-		for (int i = 0; i < size; i++) {
-			ScoredPath spath = pathes.get(i);
-			if (spath.score >= score) {
-				pathes.add(new ScoredPath(score, path));
-				return;
-			}
-		}
-		pathes.add(new ScoredPath(score, path));
-	}
-
 	public int getStartX() {
 		return startX;
 	}
@@ -333,36 +296,7 @@ public class AStarFinder implements Updateable, LRelease {
 		}
 	}
 
-	private class ScoredPath {
-
-		private float score;
-
-		private TArray<Vector2f> path;
-
-		ScoredPath(float score, TArray<Vector2f> path) {
-			this.score = score;
-			this.path = path;
-		}
-
-	}
-
 	public void close() {
-		try {
-			if (path == null) {
-				path.clear();
-				path = null;
-			}
-			if (pathes != null) {
-				pathes.clear();
-				pathes = null;
-			}
-			if (visitedCache != null) {
-				visitedCache.clear();
-				visitedCache = null;
-			}
-			spath = null;
-			goal = null;
-		} catch (Throwable e) {
-		}
+		// 节点数据由共用的空闲AStarGridFinder持有,此处无需释放
 	}
 }
@@ -51,7 +51,7 @@ public class AStarFinderPool {
 			public void run(LTimerContext time) {
 				if (running) {
 					emptyPathQueue();
-					kill();
+					sleep(1000000);
 				}
 			}
 		};
@@ -71,7 +71,7 @@ public class AStarFinderPool {
 	}
 
 	public void stop() {
-		running = true;
+		running = false;
 		pathfinderProcess.kill();
 	}
 
@@ -86,7 +86,8 @@ public class AStarFinderPool {
 		} else {
 			pathQueue.add(pathfinderTask);
 		}
-		pathfinderProcess.kill();
+		// 唤醒寻路进程,在下一帧处理队列
+		pathfinderProcess.setDelay(0);
 	}
 
 	public void search(AStarFindHeuristic heuristic, int startx, int starty,
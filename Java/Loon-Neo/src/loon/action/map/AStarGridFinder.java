@@ -0,0 +1,368 @@
+/**
+ * Copyright 2008 - 2015 The Loon Game Engine Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.action.map;
+
+import loon.LRelease;
+import loon.geom.Vector2f;
+import loon.utils.TArray;
+
+/**
+ * 直接在Field2D的int[][]数据上工作的A*寻路引擎.
+ *
+ * 所有节点数据都保存在以(y * width + x)为下标的平铺数组中(g值,f值,父节点),
+ * open表为带位置索引的二叉堆,每次寻路只递增一个generation计数来代替清空数组,
+ * 因此同一个实例反复寻路时(地图尺寸不变)不会产生任何节点对象.
+ */
+public class AStarGridFinder implements LRelease {
+
+	protected static final float DIAGONAL_COST = 1.4142135f;
+
+	// 上,右,下,左,之后为四个斜角(与Field2D.neighbors顺序一致)
+	private static final int[] DIR_X = { 0, 1, 0, -1, 1, 1, -1, -1 };
+
+	private static final int[] DIR_Y = { -1, 0, 1, 0, -1, 1, 1, -1 };
+
+	protected int width, height;
+
+	protected float[] gCost;
+
+	protected float[] fCost;
+
+	protected int[] parent;
+
+	// 节点在本次寻路中被访问时的generation
+	protected int[] visited;
+
+	// 节点在本次寻路中被关闭时的generation
+	protected int[] closed;
+
+	private int[] heap;
+
+	protected int[] heapIndex;
+
+	protected int heapSize;
+
+	private int generation;
+
+	protected int overflow;
+
+	protected int expanded;
+
+	public AStarGridFinder() {
+		this(0, 0);
+	}
+
+	public AStarGridFinder(int width, int height) {
+		ensureCapacity(width, height);
+	}
+
+	protected void ensureCapacity(int w, int h) {
+		int size = w * h;
+		if (gCost == null || gCost.length < size) {
+			gCost = new float[size];
+			fCost = new float[size];
+			parent = new int[size];
+			visited = new int[size];
+			closed = new int[size];
+			heap = new int[size];
+			heapIndex = new int[size];
+			generation = 0;
+		}
+		this.width = w;
+		this.height = h;
+	}
+
+	/**
+	 * 最大展开节点数量,小于等于0时不做限制
+	 *
+	 * @param over
+	 */
+	public void setOverflow(int over) {
+		this.overflow = over;
+	}
+
+	public int getOverflow() {
+		return overflow;
+	}
+
+	/**
+	 * 上一次寻路展开(关闭)的节点数量
+	 *
+	 * @return
+	 */
+	public int getExpanded() {
+		return expanded;
+	}
+
+	public TArray<Vector2f> findPath(AStarFindHeuristic heuristic,
+			Field2D field, int startX, int startY, int endX, int endY,
+			boolean flying, boolean flag) {
+		return findPath(heuristic, field.getMap(), field.getLimit(), startX,
+				startY, endX, endY, flying, flag, null);
+	}
+
+	/**
+	 * 查询路径,返回包含起点与终点的路径,无法到达时返回null.
+	 *
+	 * 若传入result,则结果写入result并复用其中已有的Vector2f对象.
+	 *
+	 * @param heuristic
+	 * @param map
+	 * @param limits
+	 * @param startX
+	 * @param startY
+	 * @param endX
+	 * @param endY
+	 * @param flying
+	 * @param flag
+	 * @param result
+	 * @return
+	 */
+	public TArray<Vector2f> findPath(AStarFindHeuristic heuristic,
+			int[][] map, int[] limits, int startX, int startY, int endX,
+			int endY, boolean flying, boolean flag, TArray<Vector2f> result) {
+		expanded = 0;
+		final int h = map.length;
+		final int w = h == 0 ? 0 : map[0].length;
+		if (startX < 0 || startY < 0 || startX >= w || startY >= h || endX < 0
+				|| endY < 0 || endX >= w || endY >= h) {
+			return null;
+		}
+		if (startX == endX && startY == endY) {
+			return fill(result, startY * w + startX, 1, w);
+		}
+		if (!flying && !walkable(map, limits, endX, endY)) {
+			return null;
+		}
+		ensureCapacity(w, h);
+		final int gen = nextGeneration();
+		final int goal = endY * w + endX;
+		final int dirs = flag ? 8 : 4;
+		final int start = startY * w + startX;
+		visited[start] = gen;
+		gCost[start] = 0;
+		parent[start] = -1;
+		fCost[start] = heuristic.getScore(endX, endY, startX, startY);
+		push(start);
+		for (; heapSize > 0;) {
+			int current = pop();
+			if (current == goal) {
+				return fill(result, goal, pathLength(goal), w);
+			}
+			closed[current] = gen;
+			if (++expanded > overflow && overflow > 0) {
+				break;
+			}
+			int cx = current % w;
+			int cy = current / w;
+			float g = gCost[current];
+			for (int i = 0; i < dirs; i++) {
+				int nx = cx + DIR_X[i];
+				int ny = cy + DIR_Y[i];
+				if (nx < 0 || ny < 0 || nx >= w || ny >= h) {
+					continue;
+				}
+				int next = ny * w + nx;
+				if (closed[next] == gen) {
+					continue;
+				}
+				if (!flying && !walkable(map, limits, nx, ny)) {
+					continue;
+				}
+				float cost = g + (i < 4 ? 1f : DIAGONAL_COST);
+				if (visited[next] != gen) {
+					visited[next] = gen;
+					gCost[next] = cost;
+					parent[next] = current;
+					fCost[next] = cost
+							+ heuristic.getScore(endX, endY, nx, ny);
+					push(next);
+				} else if (cost < gCost[next]) {
+					fCost[next] -= gCost[next] - cost;
+					gCost[next] = cost;
+					parent[next] = current;
+					siftUp(heapIndex[next]);
+				}
+			}
+		}
+		return null;
+	}
+
+	protected static boolean walkable(int[][] map, int[] limits, int x, int y) {
+		int type = map[y][x];
+		if (type == -1) {
+			return false;
+		}
+		if (limits != null) {
+			for (int i = 0; i < limits.length; i++) {
+				if (limits[i] == type) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 开始一次新的寻路,返回本次寻路使用的generation(计数溢出时才真正清空数组)
+	 *
+	 * @return
+	 */
+	protected int nextGeneration() {
+		if (++generation == 0) {
+			for (int i = 0; i < visited.length; i++) {
+				visited[i] = 0;
+				closed[i] = 0;
+			}
+			generation = 1;
+		}
+		heapSize = 0;
+		return generation;
+	}
+
+	protected int pathLength(int node) {
+		int len = 0;
+		for (; node != -1; node = parent[node]) {
+			len++;
+		}
+		return len;
+	}
+
+	protected TArray<Vector2f> fill(TArray<Vector2f> result, int node,
+			int length, int w) {
+		result = prepare(result, length);
+		for (int i = length - 1; i >= 0; i--) {
+			setPoint(result, i, node % w, node / w);
+			node = length > 1 ? parent[node] : node;
+		}
+		return result;
+	}
+
+	/**
+	 * 把结果数组调整为指定长度,已存在的Vector2f会被保留以便复用
+	 *
+	 * @param result
+	 * @param length
+	 * @return
+	 */
+	protected static TArray<Vector2f> prepare(TArray<Vector2f> result,
+			int length) {
+		if (result == null) {
+			result = new TArray<Vector2f>(length);
+		}
+		for (; result.size < length;) {
+			result.add(null);
+		}
+		if (result.size > length) {
+			result.truncate(length);
+		}
+		return result;
+	}
+
+	protected static void setPoint(TArray<Vector2f> result, int index, int x,
+			int y) {
+		Vector2f pos = result.get(index);
+		if (pos == null) {
+			result.set(index, new Vector2f(x, y));
+		} else {
+			pos.set(x, y);
+		}
+	}
+
+	protected void push(int node) {
+		int pos = heapSize++;
+		heap[pos] = node;
+		heapIndex[node] = pos;
+		siftUp(pos);
+	}
+
+	protected int pop() {
+		int top = heap[0];
+		int last = heap[--heapSize];
+		if (heapSize > 0) {
+			heap[0] = last;
+			heapIndex[last] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	protected void siftUp(int pos) {
+		int node = heap[pos];
+		float f = fCost[node];
+		while (pos > 0) {
+			int up = (pos - 1) >> 1;
+			int other = heap[up];
+			if (fCost[other] <= f) {
+				break;
+			}
+			heap[pos] = other;
+			heapIndex[other] = pos;
+			pos = up;
+		}
+		heap[pos] = node;
+		heapIndex[node] = pos;
+	}
+
+	private void siftDown(int pos) {
+		int node = heap[pos];
+		float f = fCost[node];
+		int half = heapSize >> 1;
+		while (pos < half) {
+			int child = (pos << 1) + 1;
+			int right = child + 1;
+			if (right < heapSize && fCost[heap[right]] < fCost[heap[child]]) {
+				child = right;
+			}
+			int other = heap[child];
+			if (f <= fCost[other]) {
+				break;
+			}
+			heap[pos] = other;
+			heapIndex[other] = pos;
+			pos = child;
+		}
+		heap[pos] = node;
+		heapIndex[node] = pos;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public void close() {
+		gCost = null;
+		fCost = null;
+		parent = null;
+		visited = null;
+		closed = null;
+		heap = null;
+		heapIndex = null;
+		heapSize = 0;
+		generation = 0;
+	}
+
+}
@@ -0,0 +1,302 @@
+/**
+ * Copyright 2008 - 2015 The Loon Game Engine Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.action.map;
+
+import loon.geom.Vector2f;
+import loon.utils.MathUtils;
+import loon.utils.TArray;
+
+/**
+ * 跳点搜索(Jump Point Search),适用于各格子移动代价相同的8方向地图.
+ *
+ * 沿直线与斜线"跳跃"到必须做出选择的格子(跳点)后才放入open表,空旷地图上展开的节点数远少于普通A*.
+ * 与Field2D.neighbors的8方向移动一致,允许斜向穿过两个障碍之间的缝隙. 返回的路径已展开为逐格路径.
+ *
+ * 当不允许斜向移动(flag为false)时,退化为普通的网格A*.
+ */
+public class JumpPointFinder extends AStarGridFinder {
+
+	private final int[] neighborX = new int[8];
+
+	private final int[] neighborY = new int[8];
+
+	private int[][] map;
+
+	private int[] limits;
+
+	private boolean flying;
+
+	private int endX, endY;
+
+	public JumpPointFinder() {
+		super();
+	}
+
+	public JumpPointFinder(int width, int height) {
+		super(width, height);
+	}
+
+	@Override
+	public TArray<Vector2f> findPath(AStarFindHeuristic heuristic,
+			int[][] map, int[] limits, int startX, int startY, int endX,
+			int endY, boolean flying, boolean flag, TArray<Vector2f> result) {
+		if (!flag) {
+			return super.findPath(heuristic, map, limits, startX, startY,
+					endX, endY, flying, flag, result);
+		}
+		expanded = 0;
+		final int h = map.length;
+		final int w = h == 0 ? 0 : map[0].length;
+		if (startX < 0 || startY < 0 || startX >= w || startY >= h || endX < 0
+				|| endY < 0 || endX >= w || endY >= h) {
+			return null;
+		}
+		if (startX == endX && startY == endY) {
+			return fill(result, startY * w + startX, 1, w);
+		}
+		if (!flying && !walkable(map, limits, endX, endY)) {
+			return null;
+		}
+		ensureCapacity(w, h);
+		this.map = map;
+		this.limits = limits;
+		this.flying = flying;
+		this.endX = endX;
+		this.endY = endY;
+		try {
+			return search(heuristic, startY * w + startX, endY * w + endX,
+					result);
+		} finally {
+			this.map = null;
+			this.limits = null;
+		}
+	}
+
+	private TArray<Vector2f> search(AStarFindHeuristic heuristic, int start,
+			int goal, TArray<Vector2f> result) {
+		final int w = width;
+		final int gen = nextGeneration();
+		visited[start] = gen;
+		gCost[start] = 0;
+		parent[start] = -1;
+		fCost[start] = heuristic.getScore(endX, endY, start % w, start / w);
+		push(start);
+		for (; heapSize > 0;) {
+			int current = pop();
+			if (current == goal) {
+				return expand(result, goal);
+			}
+			closed[current] = gen;
+			if (++expanded > overflow && overflow > 0) {
+				break;
+			}
+			int cx = current % w;
+			int cy = current / w;
+			int count = prune(current, cx, cy);
+			for (int i = 0; i < count; i++) {
+				int nx = neighborX[i];
+				int ny = neighborY[i];
+				int jump = jump(nx, ny, nx - cx, ny - cy);
+				if (jump == -1 || closed[jump] == gen) {
+					continue;
+				}
+				int jx = jump % w;
+				int jy = jump / w;
+				int dx = MathUtils.abs(jx - cx);
+				int dy = MathUtils.abs(jy - cy);
+				float cost = gCost[current]
+						+ (dx != 0 && dy != 0 ? dx * DIAGONAL_COST : dx + dy);
+				if (visited[jump] != gen) {
+					visited[jump] = gen;
+					gCost[jump] = cost;
+					parent[jump] = current;
+					fCost[jump] = cost
+							+ heuristic.getScore(endX, endY, jx, jy);
+					push(jump);
+				} else if (cost < gCost[jump]) {
+					fCost[jump] -= gCost[jump] - cost;
+					gCost[jump] = cost;
+					parent[jump] = current;
+					siftUp(heapIndex[jump]);
+				}
+			}
+		}
+		return null;
+	}
+
+	private boolean isWalkable(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			return false;
+		}
+		return flying || walkable(map, limits, x, y);
+	}
+
+	/**
+	 * 按照来时的方向裁剪出需要继续跳跃的方向(自然邻居与强制邻居)
+	 */
+	private int prune(int node, int x, int y) {
+		int count = 0;
+		int from = parent[node];
+		if (from == -1) {
+			for (int dy = -1; dy <= 1; dy++) {
+				for (int dx = -1; dx <= 1; dx++) {
+					if ((dx != 0 || dy != 0) && isWalkable(x + dx, y + dy)) {
+						neighborX[count] = x + dx;
+						neighborY[count++] = y + dy;
+					}
+				}
+			}
+			return count;
+		}
+		int dx = MathUtils.clamp(x - from % width, -1, 1);
+		int dy = MathUtils.clamp(y - from / width, -1, 1);
+		if (dx != 0 && dy != 0) {
+			if (isWalkable(x, y + dy)) {
+				neighborX[count] = x;
+				neighborY[count++] = y + dy;
+			}
+			if (isWalkable(x + dx, y)) {
+				neighborX[count] = x + dx;
+				neighborY[count++] = y;
+			}
+			if (isWalkable(x + dx, y + dy)) {
+				neighborX[count] = x + dx;
+				neighborY[count++] = y + dy;
+			}
+			if (!isWalkable(x - dx, y)) {
+				neighborX[count] = x - dx;
+				neighborY[count++] = y + dy;
+			}
+			if (!isWalkable(x, y - dy)) {
+				neighborX[count] = x + dx;
+				neighborY[count++] = y - dy;
+			}
+		} else if (dx == 0) {
+			if (isWalkable(x, y + dy)) {
+				neighborX[count] = x;
+				neighborY[count++] = y + dy;
+			}
+			if (!isWalkable(x + 1, y)) {
+				neighborX[count] = x + 1;
+				neighborY[count++] = y + dy;
+			}
+			if (!isWalkable(x - 1, y)) {
+				neighborX[count] = x - 1;
+				neighborY[count++] = y + dy;
+			}
+		} else {
+			if (isWalkable(x + dx, y)) {
+				neighborX[count] = x + dx;
+				neighborY[count++] = y;
+			}
+			if (!isWalkable(x, y + 1)) {
+				neighborX[count] = x + dx;
+				neighborY[count++] = y + 1;
+			}
+			if (!isWalkable(x, y - 1)) {
+				neighborX[count] = x + dx;
+				neighborY[count++] = y - 1;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 从(x,y)开始沿(dx,dy)方向跳跃,返回找到的跳点,没有则返回-1
+	 */
+	private int jump(int x, int y, int dx, int dy) {
+		if (dx == 0 || dy == 0) {
+			return jumpStraight(x, y, dx, dy);
+		}
+		for (;;) {
+			if (!isWalkable(x, y)) {
+				return -1;
+			}
+			if (x == endX && y == endY) {
+				return y * width + x;
+			}
+			if ((isWalkable(x - dx, y + dy) && !isWalkable(x - dx, y))
+					|| (isWalkable(x + dx, y - dy) && !isWalkable(x, y - dy))) {
+				return y * width + x;
+			}
+			if (jumpStraight(x + dx, y, dx, 0) != -1
+					|| jumpStraight(x, y + dy, 0, dy) != -1) {
+				return y * width + x;
+			}
+			x += dx;
+			y += dy;
+		}
+	}
+
+	private int jumpStraight(int x, int y, int dx, int dy) {
+		for (;;) {
+			if (!isWalkable(x, y)) {
+				return -1;
+			}
+			if (x == endX && y == endY) {
+				return y * width + x;
+			}
+			if (dx != 0) {
+				if ((isWalkable(x + dx, y + 1) && !isWalkable(x, y + 1))
+						|| (isWalkable(x + dx, y - 1) && !isWalkable(x, y - 1))) {
+					return y * width + x;
+				}
+			} else if ((isWalkable(x + 1, y + dy) && !isWalkable(x + 1, y))
+					|| (isWalkable(x - 1, y + dy) && !isWalkable(x - 1, y))) {
+				return y * width + x;
+			}
+			x += dx;
+			y += dy;
+		}
+	}
+
+	/**
+	 * 跳点之间只会是直线或45度斜线,逐格展开为完整路径
+	 */
+	private TArray<Vector2f> expand(TArray<Vector2f> result, int goal) {
+		final int w = width;
+		int length = 1;
+		for (int node = goal; parent[node] != -1; node = parent[node]) {
+			int from = parent[node];
+			length += MathUtils.max(MathUtils.abs(node % w - from % w),
+					MathUtils.abs(node / w - from / w));
+		}
+		result = prepare(result, length);
+		int index = length - 1;
+		int node = goal;
+		setPoint(result, index--, node % w, node / w);
+		for (; parent[node] != -1;) {
+			int from = parent[node];
+			int x = node % w;
+			int y = node / w;
+			int sx = MathUtils.clamp(from % w - x, -1, 1);
+			int sy = MathUtils.clamp(from / w - y, -1, 1);
+			int steps = MathUtils.max(MathUtils.abs(from % w - x),
+					MathUtils.abs(from / w - y));
+			for (int i = 1; i <= steps; i++) {
+				setPoint(result, index--, x + sx * i, y + sy * i);
+			}
+			node = from;
+		}
+		return result;
+	}
+
+}
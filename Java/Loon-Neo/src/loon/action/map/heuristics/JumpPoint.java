@@ -0,0 +1,43 @@
+/**
+ * Copyright 2008 - 2012
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.3.3
+ */
+package loon.action.map.heuristics;
+
+import loon.action.map.AStarFindHeuristic;
+import loon.utils.MathUtils;
+
+/**
+ * 跳点搜索(JumpPointFinder)使用的估值,返回8方向移动时的最短距离(octile distance).
+ */
+public class JumpPoint implements AStarFindHeuristic {
+
+	private static final float DIAGONAL_EXTRA = 1.4142135f - 1f;
+
+	public float getScore(float sx, float sy, float tx, float ty) {
+		float dx = MathUtils.abs(tx - sx);
+		float dy = MathUtils.abs(ty - sy);
+		return MathUtils.max(dx, dy) + DIAGONAL_EXTRA * MathUtils.min(dx, dy);
+	}
+
+	public int getType() {
+		return JUMP_POINT;
+	}
+
+}
@@ -10,6 +10,7 @@ import loon.action.map.Field2D;
 import loon.action.map.TileMapConfig;
 import loon.action.map.tmx.tiles.TMXMapTile;
 import loon.utils.Base64Coder;
+import loon.utils.IntArray;
 import loon.utils.MathUtils;
 import loon.utils.TArray;
 import loon.utils.xml.XMLElement;
@@ -24,8 +25,15 @@ public class TMXTileLayer extends TMXMapLayer {
 		NONE, GZIP, ZLIB
 	}
 
+	// 修改记录超过此数量时不再逐个记录,改为标记全部格子已变化
+	private static final int MAX_DIRTY_TILES = 1024;
+
 	private TMXMapTile[] tileMap;
 
+	private final IntArray dirtyTiles = new IntArray();
+
+	private boolean allTilesDirty;
+
 	private Encoding encoding;
 	private Compression compression;
 
@@ -199,6 +207,46 @@ public class TMXTileLayer extends TMXMapLayer {
 		} else {
 			tileMap[y * width + x] = new TMXMapTile(gid, 0, -1);
 		}
+		markDirtyTile(y * width + x);
+	}
+
+	private void markDirtyTile(int index) {
+		if (allTilesDirty) {
+			return;
+		}
+		if (dirtyTiles.length >= MAX_DIRTY_TILES) {
+			dirtyTiles.clear();
+			allTilesDirty = true;
+		} else {
+			dirtyTiles.add(index);
+		}
+	}
+
+	/**
+	 * 自上次clearDirtyTiles后被setTileGID修改过的格子数量(格子下标为y * width + x)
+	 * 
+	 * @return
+	 */
+	public int getDirtyTileCount() {
+		return dirtyTiles.length;
+	}
+
+	public int getDirtyTile(int index) {
+		return dirtyTiles.get(index);
+	}
+
+	/**
+	 * 修改的格子过多时不再逐个记录,此时应视为全部格子都已变化
+	 * 
+	 * @return
+	 */
+	public boolean isAllTilesDirty() {
+		return allTilesDirty;
+	}
+
+	public void clearDirtyTiles() {
+		dirtyTiles.clear();
+		allTilesDirty = false;
 	}
 
 	public int getTileID(int x, int y) {
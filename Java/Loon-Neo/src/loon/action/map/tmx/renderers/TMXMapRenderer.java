@@ -37,7 +37,13 @@ public abstract class TMXMapRenderer extends LObject<ISprite> implements
 			currentFrameIndex = 0;
 		}
 
-		public void update(long delta) {
+		/**
+		 * 更新动画,切换到下一帧时返回true
+		 * 
+		 * @param delta
+		 * @return
+		 */
+		public boolean update(long delta) {
 			elapsedDuration += TimeUtils.convert(delta,
 					TimeUtils.getDefaultTimeUnit(), TimeUtils.Unit.MILLIS);
 
@@ -46,7 +52,9 @@ public abstract class TMXMapRenderer extends LObject<ISprite> implements
 				currentFrameIndex = (currentFrameIndex + 1)
 						% tile.getFrames().size;
 				elapsedDuration = 0;
+				return true;
 			}
+			return false;
 		}
 
 		public TMXAnimationFrame getCurrentFrame() {
@@ -62,6 +70,9 @@ public abstract class TMXMapRenderer extends LObject<ISprite> implements
 	protected ObjectMap<String, LTexture> textureMap;
 	protected ObjectMap<TMXTile, TileAnimator> tileAnimators;
 
+	// 任意动画图块换帧时递增,用于判断含动画图块的缓存是否需要重建
+	protected int animationVersion;
+
 	protected boolean visible;
 	protected float scaleX = 1f;
 	protected float scaleY = 1f;
@@ -110,8 +121,12 @@ public abstract class TMXMapRenderer extends LObject<ISprite> implements
 	}
 
 	public void update(long delta) {
+		boolean changed = false;
 		for (TileAnimator animator : tileAnimators.values()) {
-			animator.update(delta);
+			changed |= animator.update(delta);
+		}
+		if (changed) {
+			animationVersion++;
 		}
 	}
 
@@ -9,12 +9,100 @@ import loon.action.map.tmx.TMXTileLayer;
 import loon.action.map.tmx.TMXTileSet;
 import loon.action.map.tmx.tiles.TMXMapTile;
 import loon.action.map.tmx.tiles.TMXTile;
+import loon.canvas.LColor;
 import loon.opengl.BlendState;
 import loon.opengl.GLEx;
 import loon.utils.MathUtils;
-
+import loon.utils.ObjectMap;
+
+/**
+ * 正交TMX地图渲染器.
+ *
+ * 图块层被切分为CHUNK_SIZE * CHUNK_SIZE的区块,每个区块按纹理烘焙为静态的LTextureBatch.Cache,
+ * 每帧只提交与屏幕相交的区块,只有含动画图块的区块(动画换帧时)与被setTileGID修改过的区块才会重建.
+ */
 public class TMXOrthogonalMapRenderer extends TMXMapRenderer {
 
+	protected static final int CHUNK_SIZE = 16;
+
+	private static final float WHITE = LColor.white.toFloatBits();
+
+	/**
+	 * 一个区块的缓存,使用几个图块集纹理便有几份Cache
+	 */
+	private static class Chunk {
+
+		LTexture[] textures = new LTexture[1];
+
+		LTextureBatch.Cache[] caches = new LTextureBatch.Cache[1];
+
+		int parts;
+
+		boolean built;
+
+		boolean animated;
+
+		int animationVersion;
+
+		void clear() {
+			for (int i = 0; i < parts; i++) {
+				caches[i].close();
+				caches[i] = null;
+				textures[i] = null;
+			}
+			parts = 0;
+			built = false;
+		}
+	}
+
+	private static class LayerChunks {
+
+		final int cols, rows;
+
+		final Chunk[] chunks;
+
+		LayerChunks(int width, int height) {
+			cols = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			rows = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			chunks = new Chunk[cols * rows];
+		}
+
+		void invalidate(int chunkX, int chunkY) {
+			Chunk chunk = chunks[chunkY * cols + chunkX];
+			if (chunk != null) {
+				chunk.built = false;
+			}
+		}
+
+		void invalidateAll() {
+			for (int i = 0; i < chunks.length; i++) {
+				if (chunks[i] != null) {
+					chunks[i].built = false;
+				}
+			}
+		}
+
+		void close() {
+			for (int i = 0; i < chunks.length; i++) {
+				if (chunks[i] != null) {
+					chunks[i].clear();
+					chunks[i] = null;
+				}
+			}
+		}
+	}
+
+	private final ObjectMap<TMXTileLayer, LayerChunks> layerChunks = new ObjectMap<TMXTileLayer, LayerChunks>();
+
+	private final float[] chunkVertices = new float[CHUNK_SIZE * CHUNK_SIZE
+			* LSystem.SPRITE_SIZE];
+
+	// xOff,yOff,widthRatio,heightRatio(已含uv修正)
+	private final float[] uvs = new float[4];
+
+	// 可见的图块范围[startX,endX),[startY,endY)
+	private int startX, startY, endX, endY;
+
 	public TMXOrthogonalMapRenderer(TMXMap map) {
 		super(map);
 	}
@@ -52,291 +140,400 @@ public class TMXOrthogonalMapRenderer extends TMXMapRenderer {
 			if (opacity > 1f) {
 				opacity = 1f;
 			}
+			if (!computeVisibleTiles(tileLayer)) {
+				return;
+			}
+			float tmpAlpha = baseColor.a;
+			baseColor.a *= opacity;
+			try {
+				if (_rotation != 0f) {
+					renderVisibleTiles(tileLayer);
+				} else {
+					renderChunks(tileLayer);
+				}
+			} finally {
+				baseColor.a = tmpAlpha;
+			}
+		}
+	}
+
+	/**
+	 * 计算与屏幕相交的图块范围,没有可见图块时返回false
+	 */
+	private boolean computeVisibleTiles(TMXTileLayer tileLayer) {
+		if (scaleX <= 0f || scaleY <= 0f) {
+			return false;
+		}
+		final float tileWidth = map.getTileWidth();
+		final float tileHeight = map.getTileHeight();
+		final float viewWidth = LSystem.viewSize.getWidth() / scaleX;
+		final float viewHeight = LSystem.viewSize.getHeight() / scaleY;
+		// 旋转时每个图块绕自身中心旋转,多保留一格以免边缘图块被裁掉
+		final int border = _rotation != 0f ? 1 : 0;
+		startX = MathUtils.max(0,
+				MathUtils.floor(-_location.x / tileWidth) - border);
+		startY = MathUtils.max(0,
+				MathUtils.floor(-_location.y / tileHeight) - border);
+		endX = MathUtils.min(tileLayer.getWidth(),
+				MathUtils.ceil((viewWidth - _location.x) / tileWidth) + border);
+		endY = MathUtils.min(tileLayer.getHeight(),
+				MathUtils.ceil((viewHeight - _location.y) / tileHeight)
+						+ border);
+		return startX < endX && startY < endY;
+	}
+
+	private void renderChunks(TMXTileLayer tileLayer) {
+		LayerChunks layer = layerChunks.get(tileLayer);
+		if (layer == null) {
+			layer = new LayerChunks(tileLayer.getWidth(),
+					tileLayer.getHeight());
+			layerChunks.put(tileLayer, layer);
+		}
+		if (tileLayer.isAllTilesDirty()) {
+			layer.invalidateAll();
+		} else {
+			final int width = tileLayer.getWidth();
+			for (int i = 0, size = tileLayer.getDirtyTileCount(); i < size; i++) {
+				int index = tileLayer.getDirtyTile(i);
+				layer.invalidate((index % width) / CHUNK_SIZE,
+						(index / width) / CHUNK_SIZE);
+			}
+		}
+		tileLayer.clearDirtyTiles();
+
+		final float offsetX = _location.x * scaleX;
+		final float offsetY = _location.y * scaleY;
+		final int chunkEndX = (endX - 1) / CHUNK_SIZE;
+		final int chunkEndY = (endY - 1) / CHUNK_SIZE;
+		for (int cy = startY / CHUNK_SIZE; cy <= chunkEndY; cy++) {
+			for (int cx = startX / CHUNK_SIZE; cx <= chunkEndX; cx++) {
+				Chunk chunk = layer.chunks[cy * layer.cols + cx];
+				if (chunk == null) {
+					chunk = new Chunk();
+					layer.chunks[cy * layer.cols + cx] = chunk;
+				}
+				if (!chunk.built
+						|| (chunk.animated && chunk.animationVersion != animationVersion)) {
+					buildChunk(tileLayer, chunk, cx, cy);
+				}
+				for (int i = 0; i < chunk.parts; i++) {
+					LTextureBatch batch = chunk.textures[i].getTextureBatch();
+					batch.setBlendState(BlendState.AlphaBlend);
+					batch.postCache(chunk.caches[i], baseColor, offsetX,
+							offsetY, scaleX, scaleY, 0, 0, 0);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 以图层坐标烘焙区块内的图块,每种纹理生成一份Cache
+	 */
+	private void buildChunk(TMXTileLayer tileLayer, Chunk chunk, int chunkX,
+			int chunkY) {
+		chunk.clear();
+		chunk.animated = false;
+		chunk.animationVersion = animationVersion;
+
+		final int x0 = chunkX * CHUNK_SIZE;
+		final int y0 = chunkY * CHUNK_SIZE;
+		final int x1 = MathUtils.min(x0 + CHUNK_SIZE, tileLayer.getWidth());
+		final int y1 = MathUtils.min(y0 + CHUNK_SIZE, tileLayer.getHeight());
+		final float tileWidth = map.getTileWidth();
+		final float tileHeight = map.getTileHeight();
+
+		int done = 0;
+		for (;;) {
+			// 每轮只处理一种纹理,直到区块内的图块全部写入
+			LTexture current = null;
+			int idx = 0;
+			int next = 0;
+			for (int y = y0; y < y1; y++) {
+				for (int x = x0; x < x1; x++) {
+					TMXMapTile mapTile = tileLayer.getTile(x, y);
+					if (mapTile.getTileSetID() == -1) {
+						continue;
+					}
+					TMXTileSet tileSet = map.getTileset(mapTile.getTileSetID());
+					LTexture texture = textureMap.get(tileSet.getImage()
+							.getSource());
+					if (done > 0 && contains(chunk, texture)) {
+						continue;
+					}
+					if (current == null) {
+						current = texture;
+					} else if (current.getID() != texture.getID()) {
+						next++;
+						continue;
+					}
+					if (tileUVs(tileSet, mapTile, current.getTextureBatch(),
+							current)) {
+						chunk.animated = true;
+					}
+					idx = putTile(chunkVertices, idx, x * tileWidth, y
+							* tileHeight, tileWidth, tileHeight,
+							mapTile.isFlippedDiagonally());
+				}
+			}
+			if (current == null) {
+				break;
+			}
+			addPart(chunk, current, new LTextureBatch.Cache(chunkVertices, idx));
+			done++;
+			if (next == 0) {
+				break;
+			}
+		}
+		chunk.built = true;
+	}
+
+	private static boolean contains(Chunk chunk, LTexture texture) {
+		for (int i = 0; i < chunk.parts; i++) {
+			if (chunk.textures[i].getID() == texture.getID()) {
+				return true;
+			}
+		}
+		return false;
+	}
 
-			int tx = _location.x() / map.getTileWidth();
-			int ty = _location.y() / map.getTileHeight();
-			int windowWidth = (int) (LSystem.viewSize.getWidth()
-					/ map.getTileWidth() / scaleX);
-			int windowHeight = (int) (LSystem.viewSize.getHeight()
-					/ map.getTileHeight() / scaleY);
+	private static void addPart(Chunk chunk, LTexture texture,
+			LTextureBatch.Cache cache) {
+		if (chunk.parts == chunk.caches.length) {
+			LTexture[] textures = new LTexture[chunk.parts + 1];
+			LTextureBatch.Cache[] caches = new LTextureBatch.Cache[chunk.parts + 1];
+			System.arraycopy(chunk.textures, 0, textures, 0, chunk.parts);
+			System.arraycopy(chunk.caches, 0, caches, 0, chunk.parts);
+			chunk.textures = textures;
+			chunk.caches = caches;
+		}
+		chunk.textures[chunk.parts] = texture;
+		chunk.caches[chunk.parts++] = cache;
+	}
 
-			boolean onlyTexture = textureMap.size == 1;
+	private int putTile(float[] vertices, int idx, float posX, float posY,
+			float tileWidth, float tileHeight, boolean flipZ) {
+		final float xOff = uvs[0];
+		final float yOff = uvs[1];
+		final float widthRatio = uvs[2];
+		final float heightRatio = uvs[3];
+
+		vertices[idx++] = posX;
+		vertices[idx++] = posY;
+		vertices[idx++] = WHITE;
+		vertices[idx++] = xOff;
+		vertices[idx++] = yOff;
+
+		vertices[idx++] = flipZ ? posX + tileWidth : posX;
+		vertices[idx++] = flipZ ? posY : posY + tileHeight;
+		vertices[idx++] = WHITE;
+		vertices[idx++] = xOff;
+		vertices[idx++] = heightRatio;
+
+		vertices[idx++] = posX + tileWidth;
+		vertices[idx++] = posY + tileHeight;
+		vertices[idx++] = WHITE;
+		vertices[idx++] = widthRatio;
+		vertices[idx++] = heightRatio;
+
+		vertices[idx++] = flipZ ? posX : posX + tileWidth;
+		vertices[idx++] = flipZ ? posY + tileHeight : posY;
+		vertices[idx++] = WHITE;
+		vertices[idx++] = widthRatio;
+		vertices[idx++] = yOff;
+		return idx;
+	}
 
-			LTexture current = textureMap.get(map.getTileset(0).getImage()
-					.getSource());
-			LTextureBatch batch = current.getTextureBatch();
+	/**
+	 * 计算图块的纹理坐标并写入uvs,图块为动画图块时返回true
+	 */
+	private boolean tileUVs(TMXTileSet tileSet, TMXMapTile mapTile,
+			LTextureBatch batch, LTexture texture) {
+		TMXTile tile = tileSet.getTile(mapTile.getGID()
+				- tileSet.getFirstGID());
 
-			float tmpAlpha = baseColor.a;
-			boolean cache = false;
-			baseColor.a *= opacity;
+		int tileID = mapTile.getGID() - tileSet.getFirstGID();
 
-			try {
+		boolean animated = tile != null && tile.isAnimated();
+		if (animated) {
+			tileID = tileAnimators.get(tile).getCurrentFrame().getTileID();
+		}
 
-				if (onlyTexture) {
-					int hashCode = 1;
-					hashCode = LSystem.unite(hashCode, tx);
-					hashCode = LSystem.unite(hashCode, ty);
-					hashCode = LSystem.unite(hashCode, windowWidth);
-					hashCode = LSystem.unite(hashCode, windowHeight);
-					hashCode = LSystem.unite(hashCode, scaleX);
-					hashCode = LSystem.unite(hashCode, scaleY);
-					hashCode = LSystem.unite(hashCode, _rotation);
-
-					if (hashCode != lastHashCode) {
-						lastHashCode = hashCode;
-						batch.disposeLastCache();
-						batch.begin();
-					} else {
-						if (batch.existCache()) {
-							batch.setBlendState(BlendState.AlphaBlend);
-							batch.postCache(baseColor, 0);
-							cache = true;
-							return;
-						} else {
-							batch.begin();
-						}
+		int numColsPerRow = tileSet.getImage().getWidth()
+				/ tileSet.getTileWidth();
+
+		int tileSetCol = tileID % numColsPerRow;
+		int tileSetRow = tileID / numColsPerRow;
+
+		float tileWidth = map.getTileWidth();
+		float tileHeight = map.getTileHeight();
+
+		float srcX = (tileSet.getMargin() + (tileSet.getTileWidth() + tileSet
+				.getSpacing()) * tileSetCol);
+		float srcY = (tileSet.getMargin() + (tileSet.getTileHeight() + tileSet
+				.getSpacing()) * tileSetRow);
+		float srcWidth = srcX + tileWidth;
+		float srcHeight = srcY + tileHeight;
+
+		float xOff = srcX * batch.getInvTexWidth() + texture.xOff;
+		float widthRatio = srcWidth * batch.getInvTexWidth();
+		float yOff = srcY * batch.getInvTexHeight() + texture.yOff;
+		float heightRatio = srcHeight * batch.getInvTexHeight();
+
+		boolean flipX = mapTile.isFlippedHorizontally();
+		boolean flipY = mapTile.isFlippedVertically();
+
+		if (mapTile.isFlippedDiagonally()) {
+			flipX = !flipX;
+			flipY = !flipY;
+		}
+
+		if (flipX) {
+			float temp = xOff;
+			xOff = widthRatio;
+			widthRatio = temp;
+		}
+
+		if (flipY) {
+			float temp = yOff;
+			yOff = heightRatio;
+			heightRatio = temp;
+		}
+
+		float uvCorrectionX = (0.2f / tileSet.getImage().getWidth());
+		float uvCorrectionY = (0.2f / tileSet.getImage().getHeight());
+
+		uvs[0] = xOff + uvCorrectionX;
+		uvs[1] = yOff + uvCorrectionY;
+		uvs[2] = widthRatio - uvCorrectionX;
+		uvs[3] = heightRatio - uvCorrectionY;
+		return animated;
+	}
+
+	/**
+	 * 旋转时每个图块绕自身中心旋转,无法使用区块缓存,只逐个提交可见的图块
+	 */
+	private void renderVisibleTiles(TMXTileLayer tileLayer) {
+		LTexture current = textureMap.get(map.getTileset(0).getImage()
+				.getSource());
+		LTextureBatch batch = current.getTextureBatch();
+		batch.begin();
+		try {
+			batch.setBlendState(BlendState.AlphaBlend);
+			batch.setColor(baseColor);
+			batch.checkTexture(current);
+
+			final float tileWidth = map.getTileWidth();
+			final float tileHeight = map.getTileHeight();
+			final float cos = MathUtils.cosDeg(_rotation);
+			final float sin = MathUtils.sinDeg(_rotation);
+
+			for (int y = startY; y < endY; y++) {
+				for (int x = startX; x < endX; x++) {
+					TMXMapTile mapTile = tileLayer.getTile(x, y);
+
+					if (mapTile.getTileSetID() == -1) {
+						continue;
 					}
 
-				} else {
-					batch.begin();
-				}
-				batch.setBlendState(BlendState.AlphaBlend);
-				batch.setColor(baseColor);
-				for (int x = 0; x < tileLayer.getWidth(); x++) {
-					for (int y = 0; y < tileLayer.getHeight(); y++) {
-						if ((tx + x < 0) || (ty + y < 0)) {
-							continue;
-						}
-						if ((tx + x >= tileLayer.getWidth())
-								|| (ty + y >= tileLayer.getHeight())) {
-							continue;
-						}
-						if ((x >= windowWidth) || (y >= windowHeight)) {
-
-							continue;
-						}
-						TMXMapTile mapTile = tileLayer.getTile(x, y);
-
-						if (mapTile.getTileSetID() == -1) {
-							continue;
-						}
-
-						TMXTileSet tileSet = map.getTileset(mapTile
-								.getTileSetID());
-						TMXTile tile = tileSet.getTile(mapTile.getGID()
-								- tileSet.getFirstGID());
-
-						LTexture texture = textureMap.get(tileSet.getImage()
-								.getSource());
-
-						if (texture.getID() != current.getID()) {
-							batch.end();
-							current = texture;
-							batch = current.getTextureBatch();
-							batch.begin();
-							batch.setBlendState(BlendState.AlphaBlend);
-							batch.checkTexture(current);
-						}
-
-						int tileID = mapTile.getGID() - tileSet.getFirstGID();
-
-						if (tile != null && tile.isAnimated()) {
-							tileID = tileAnimators.get(tile).getCurrentFrame()
-									.getTileID();
-						}
-
-						int numColsPerRow = tileSet.getImage().getWidth()
-								/ tileSet.getTileWidth();
-
-						int tileSetCol = tileID % numColsPerRow;
-						int tileSetRow = tileID / numColsPerRow;
-
-						float tileWidth = map.getTileWidth();
-						float tileHeight = map.getTileHeight();
-
-						float posX = (x * tileWidth + _location.x) * scaleX;
-						float posY = (y * tileHeight + _location.y) * scaleY;
-
-						float srcX = (tileSet.getMargin() + (tileSet
-								.getTileWidth() + tileSet.getSpacing())
-								* tileSetCol);
-						float srcY = (tileSet.getMargin() + (tileSet
-								.getTileHeight() + tileSet.getSpacing())
-								* tileSetRow);
-						float srcWidth = srcX + tileWidth;
-						float srcHeight = srcY + tileHeight;
-
-						float xOff = srcX * batch.getInvTexWidth()
-								+ texture.xOff;
-						float widthRatio = srcWidth * batch.getInvTexWidth();
-						float yOff = srcY * batch.getInvTexHeight()
-								+ texture.yOff;
-						float heightRatio = srcHeight * batch.getInvTexHeight();
-
-						boolean flipX = mapTile.isFlippedHorizontally();
-						boolean flipY = mapTile.isFlippedVertically();
-						boolean flipZ = mapTile.isFlippedDiagonally();
-
-						if (flipZ) {
-							flipX = !flipX;
-							flipY = !flipY;
-						}
-
-						if (flipX) {
-							float temp = xOff;
-							xOff = widthRatio;
-							widthRatio = temp;
-						}
-
-						if (flipY) {
-							float temp = yOff;
-							yOff = heightRatio;
-							heightRatio = temp;
-						}
-
-						float uvCorrectionX = (0.2f / tileSet.getImage()
-								.getWidth());
-						float uvCorrectionY = (0.2f / tileSet.getImage()
-								.getHeight());
-
-						if (_rotation != 0f || scaleX != 1f || scaleY != 1f) {
-
-							float originX = tileWidth / 2;
-							float originY = tileHeight / 2;
-							final float worldOriginX = posX + tileWidth / 2;
-							final float worldOriginY = posY + tileHeight / 2;
-							float fx = -originX;
-							float fy = -originY;
-							float fx2 = tileWidth - originX;
-							float fy2 = tileHeight - originY;
-
-							if (scaleX != 1 || scaleY != 1) {
-								fx *= scaleX;
-								fy *= scaleY;
-								fx2 *= scaleX;
-								fy2 *= scaleY;
-							}
-
-							final float p1x = fx;
-							final float p1y = fy;
-							final float p2x = fx;
-							final float p2y = fy2;
-							final float p3x = fx2;
-							final float p3y = fy2;
-							final float p4x = fx2;
-							final float p4y = fy;
-
-							float x1;
-							float y1;
-							float x2;
-							float y2;
-							float x3;
-							float y3;
-							float x4;
-							float y4;
-
-							if (_rotation != 0) {
-								final float cos = MathUtils.cosDeg(_rotation);
-								final float sin = MathUtils.sinDeg(_rotation);
-
-								x1 = cos * p1x - sin * p1y;
-								y1 = sin * p1x + cos * p1y;
-
-								x2 = cos * p2x - sin * p2y;
-								y2 = sin * p2x + cos * p2y;
-
-								x3 = cos * p3x - sin * p3y;
-								y3 = sin * p3x + cos * p3y;
-
-								x4 = x1 + (x3 - x2);
-								y4 = y3 - (y2 - y1);
-							} else {
-								x1 = p1x;
-								y1 = p1y;
-
-								x2 = p2x;
-								y2 = p2y;
-
-								x3 = p3x;
-								y3 = p3y;
-
-								x4 = p4x;
-								y4 = p4y;
-							}
-
-							x1 += worldOriginX;
-							y1 += worldOriginY;
-							x2 += worldOriginX;
-							y2 += worldOriginY;
-							x3 += worldOriginX;
-							y3 += worldOriginY;
-							x4 += worldOriginX;
-							y4 += worldOriginY;
-
-							if (flipZ) {
-								x2 += tileWidth;
-								y2 += tileHeight;
-								x4 += tileWidth;
-								y4 += tileHeight;
-							}
-
-							batch.glVertex2f(x1, y1);
-							batch.glColor4f();
-							batch.glTexCoord2f(xOff + uvCorrectionX, yOff
-									+ uvCorrectionY);
-
-							batch.glVertex2f(x2, y2);
-							batch.glColor4f();
-							batch.glTexCoord2f(xOff + uvCorrectionX,
-									heightRatio - uvCorrectionY);
-
-							batch.glVertex2f(x3, y3);
-							batch.glColor4f();
-							batch.glTexCoord2f(widthRatio - uvCorrectionX,
-									heightRatio - uvCorrectionY);
-
-							batch.glVertex2f(x4, y4);
-							batch.glColor4f();
-							batch.glTexCoord2f(widthRatio - uvCorrectionX, yOff
-									+ uvCorrectionY);
-						} else {
-							batch.glVertex2f(posX, posY);
-							batch.glColor4f();
-							batch.glTexCoord2f(xOff + uvCorrectionX, yOff
-									+ uvCorrectionY);
-
-							batch.glVertex2f(flipZ ? posX + tileWidth : posX,
-									flipZ ? posY : posY + tileHeight);
-							batch.glColor4f();
-							batch.glTexCoord2f(xOff + uvCorrectionX,
-									heightRatio - uvCorrectionY);
-
-							batch.glVertex2f(posX + tileWidth, posY
-									+ tileHeight);
-							batch.glColor4f();
-							batch.glTexCoord2f(widthRatio - uvCorrectionX,
-									heightRatio - uvCorrectionY);
-
-							batch.glVertex2f(flipZ ? posX : posX + tileWidth,
-									flipZ ? posY + tileHeight : posY);
-							batch.glColor4f();
-							batch.glTexCoord2f(widthRatio - uvCorrectionX, yOff
-									+ uvCorrectionY);
-						}
+					TMXTileSet tileSet = map.getTileset(mapTile.getTileSetID());
 
+					LTexture texture = textureMap.get(tileSet.getImage()
+							.getSource());
+
+					if (texture.getID() != current.getID()) {
+						batch.end();
+						current = texture;
+						batch = current.getTextureBatch();
+						batch.begin();
+						batch.setBlendState(BlendState.AlphaBlend);
+						batch.setColor(baseColor);
+						batch.checkTexture(current);
 					}
-				}
-			} finally {
-				if (!cache) {
-					batch.end();
-					if (onlyTexture) {
-						batch.newCache();
+
+					tileUVs(tileSet, mapTile, batch, texture);
+
+					final float xOff = uvs[0];
+					final float yOff = uvs[1];
+					final float widthRatio = uvs[2];
+					final float heightRatio = uvs[3];
+
+					float posX = (x * tileWidth + _location.x) * scaleX;
+					float posY = (y * tileHeight + _location.y) * scaleY;
+
+					final float worldOriginX = posX + tileWidth / 2;
+					final float worldOriginY = posY + tileHeight / 2;
+					final float fx = -tileWidth / 2 * scaleX;
+					final float fy = -tileHeight / 2 * scaleY;
+					final float fx2 = tileWidth / 2 * scaleX;
+					final float fy2 = tileHeight / 2 * scaleY;
+
+					float x1 = cos * fx - sin * fy;
+					float y1 = sin * fx + cos * fy;
+
+					float x2 = cos * fx - sin * fy2;
+					float y2 = sin * fx + cos * fy2;
+
+					float x3 = cos * fx2 - sin * fy2;
+					float y3 = sin * fx2 + cos * fy2;
+
+					float x4 = x1 + (x3 - x2);
+					float y4 = y3 - (y2 - y1);
+
+					x1 += worldOriginX;
+					y1 += worldOriginY;
+					x2 += worldOriginX;
+					y2 += worldOriginY;
+					x3 += worldOriginX;
+					y3 += worldOriginY;
+					x4 += worldOriginX;
+					y4 += worldOriginY;
+
+					if (mapTile.isFlippedDiagonally()) {
+						x2 += tileWidth;
+						y2 += tileHeight;
+						x4 += tileWidth;
+						y4 += tileHeight;
+					}
+
+					batch.glVertex2f(x1, y1);
+					batch.glColor4f();
+					batch.glTexCoord2f(xOff, yOff);
+
+					batch.glVertex2f(x2, y2);
+					batch.glColor4f();
+					batch.glTexCoord2f(xOff, heightRatio);
+
+					batch.glVertex2f(x3, y3);
+					batch.glColor4f();
+					batch.glTexCoord2f(widthRatio, heightRatio);
+
+					batch.glVertex2f(x4, y4);
+					batch.glColor4f();
+					batch.glTexCoord2f(widthRatio, yOff);
+
+					if (batch.isFull()) {
+						batch.end();
+						batch.begin();
+						batch.setBlendState(BlendState.AlphaBlend);
+						batch.setColor(baseColor);
+						batch.checkTexture(current);
 					}
 				}
-				baseColor.a = tmpAlpha;
 			}
+		} finally {
+			batch.end();
 		}
+	}
 
+	@Override
+	public void close() {
+		synchronized (this) {
+			for (LayerChunks layer : layerChunks.values()) {
+				layer.close();
+			}
+			layerChunks.clear();
+		}
+		super.close();
 	}
 
 }
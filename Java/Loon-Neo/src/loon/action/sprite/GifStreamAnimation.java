@@ -0,0 +1,126 @@
+/**
+ * Copyright 2008 - 2015 The Loon Game Engine Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.action.sprite;
+
+import loon.LTexture;
+import loon.utils.GifStream;
+
+/**
+ * 以GifStream逐帧解码播放的动画,所有帧共用一张纹理,可以直接替代GifDecoder.getAnimation返回的Animation
+ */
+public class GifStreamAnimation extends Animation {
+
+	private GifStream stream;
+
+	public GifStreamAnimation(String path) {
+		this(new GifStream(path));
+	}
+
+	public GifStreamAnimation(GifStream stream) {
+		super();
+		this.stream = stream;
+		this.size = stream.getFrameCount();
+		this.totalDuration = stream.getTotalDuration();
+	}
+
+	public GifStream getStream() {
+		return stream;
+	}
+
+	@Override
+	public GifStreamAnimation cpy() {
+		GifStreamAnimation a = new GifStreamAnimation(stream.cpy());
+		a.stream.setLookAhead(stream.getLookAhead());
+		a.isRunning = isRunning;
+		a.loopCount = loopCount;
+		return a;
+	}
+
+	@Override
+	public synchronized void play(int idx) {
+		super.play(idx);
+		// 父类构造时会调用start,此时stream尚未设置
+		if (stream != null) {
+			stream.setFrameIndex(idx);
+		}
+	}
+
+	@Override
+	public synchronized void update(long timer) {
+		if (loopCount != -1 && loopPlay > loopCount) {
+			return;
+		}
+		if (isRunning && size > 0) {
+			int last = stream.getFrameIndex();
+			stream.update(timer);
+			int index = stream.getFrameIndex();
+			if (index < last) {
+				if (Listener != null) {
+					Listener.onComplete(this);
+				}
+				loopPlay++;
+			}
+			currentFrameIndex = index;
+		}
+	}
+
+	@Override
+	public LTexture getSpriteImage() {
+		return stream.getTexture();
+	}
+
+	/**
+	 * 流式播放只保留当前帧,因此只有当前帧的索引可以返回图像
+	 */
+	@Override
+	public LTexture getSpriteImage(int index) {
+		return index == stream.getFrameIndex() ? stream.getTexture() : null;
+	}
+
+	@Override
+	public int getCurrentFrameIndex() {
+		return stream.getFrameIndex();
+	}
+
+	@Override
+	public void setCurrentFrameIndex(int index) {
+		stream.setFrameIndex(index);
+		currentFrameIndex = stream.getFrameIndex();
+	}
+
+	@Override
+	public int getTotalFrames() {
+		return stream.getFrameCount();
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		stream.reset();
+	}
+
+	@Override
+	public void close() {
+		stream.close();
+		this.size = 0;
+	}
+
+}
@@ -0,0 +1,338 @@
+/**
+ * Copyright 2008 - 2015 The Loon Game Engine Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.action.sprite;
+
+import loon.utils.IntArray;
+import loon.utils.MathUtils;
+
+/**
+ * 精灵位置的松散四叉树(loose quadtree).
+ *
+ * 每个精灵按自身中心与尺寸放入唯一的节点:节点边长不小于精灵的最大边长,且精灵中心位于节点格子之内,
+ * 因此精灵不会超出节点向外扩展半个边长后的松散范围.移动的精灵只有在中心离开所在格子时才需要重新放置.
+ * 根节点会随精灵所在的范围自动扩大,查询的开销约为O(log n + k).
+ */
+public class SpriteQuadTree {
+
+	private static final float MIN_SIZE = 32f;
+
+	/**
+	 * 精灵在树中的记录
+	 */
+	public static final class Entry {
+
+		final ISprite sprite;
+
+		// 在Sprites数组中的位置(即绘制顺序)
+		int order;
+
+		float x, y, width, height;
+
+		Node node;
+
+		Entry prev, next;
+
+		Entry(ISprite sprite) {
+			this.sprite = sprite;
+		}
+
+		public ISprite getSprite() {
+			return sprite;
+		}
+
+	}
+
+	static final class Node {
+
+		final float x, y, size;
+
+		Node parent;
+
+		Node[] kids;
+
+		Entry head;
+
+		// 子树中(包括自身)的精灵数量
+		int count;
+
+		Node(float x, float y, float size) {
+			this.x = x;
+			this.y = y;
+			this.size = size;
+		}
+
+	}
+
+	private Node root;
+
+	private int size;
+
+	public SpriteQuadTree() {
+		this(512f);
+	}
+
+	public SpriteQuadTree(float initSize) {
+		float s = MIN_SIZE;
+		while (s < initSize) {
+			s *= 2f;
+		}
+		this.root = new Node(0, 0, s);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 添加精灵,位置取自精灵当前的图层范围
+	 *
+	 * @param sprite
+	 * @return
+	 */
+	public Entry add(ISprite sprite) {
+		Entry e = new Entry(sprite);
+		readBounds(e);
+		insert(e);
+		size++;
+		return e;
+	}
+
+	public void remove(Entry e) {
+		if (e.node != null) {
+			unlink(e);
+			size--;
+		}
+	}
+
+	/**
+	 * 重新读取精灵的位置与大小,必要时移动到新的节点
+	 *
+	 * @param e
+	 */
+	public void refresh(Entry e) {
+		final ISprite spr = e.sprite;
+		final float x = spr.x();
+		final float y = spr.y();
+		final float w = spr.getWidth() + 1;
+		final float h = spr.getHeight() + 1;
+		if (x == e.x && y == e.y && w == e.width && h == e.height) {
+			return;
+		}
+		e.x = x;
+		e.y = y;
+		e.width = w;
+		e.height = h;
+		if (e.node != null && !fits(e, e.node)) {
+			unlink(e);
+			insert(e);
+		}
+	}
+
+	public void clear() {
+		root = new Node(root.x, root.y, root.size);
+		size = 0;
+	}
+
+	private static void readBounds(Entry e) {
+		final ISprite spr = e.sprite;
+		e.x = spr.x();
+		e.y = spr.y();
+		e.width = spr.getWidth() + 1;
+		e.height = spr.getHeight() + 1;
+	}
+
+	private static float extent(Entry e) {
+		return e.width > e.height ? e.width : e.height;
+	}
+
+	private boolean fits(Entry e, Node node) {
+		final float cx = e.x + e.width / 2;
+		final float cy = e.y + e.height / 2;
+		if (cx < node.x || cy < node.y || cx >= node.x + node.size
+				|| cy >= node.y + node.size) {
+			return false;
+		}
+		final float ext = extent(e);
+		if (ext > node.size) {
+			return false;
+		}
+		// 能放入更小节点的精灵应该下移,以保持查询的精度
+		final float half = node.size / 2;
+		return ext > half || half < MIN_SIZE;
+	}
+
+	private void insert(Entry e) {
+		final float cx = e.x + e.width / 2;
+		final float cy = e.y + e.height / 2;
+		final float ext = extent(e);
+		grow(cx, cy, ext);
+		Node node = root;
+		for (;;) {
+			final float half = node.size / 2;
+			if (ext > half || half < MIN_SIZE) {
+				break;
+			}
+			int index = 0;
+			float nx = node.x, ny = node.y;
+			if (cx >= node.x + half) {
+				index |= 1;
+				nx += half;
+			}
+			if (cy >= node.y + half) {
+				index |= 2;
+				ny += half;
+			}
+			if (node.kids == null) {
+				node.kids = new Node[4];
+			}
+			Node kid = node.kids[index];
+			if (kid == null) {
+				kid = new Node(nx, ny, half);
+				kid.parent = node;
+				node.kids[index] = kid;
+			}
+			node = kid;
+		}
+		e.node = node;
+		e.prev = null;
+		e.next = node.head;
+		if (node.head != null) {
+			node.head.prev = e;
+		}
+		node.head = e;
+		for (Node n = node; n != null; n = n.parent) {
+			n.count++;
+		}
+	}
+
+	private void unlink(Entry e) {
+		final Node node = e.node;
+		if (e.prev != null) {
+			e.prev.next = e.next;
+		} else {
+			node.head = e.next;
+		}
+		if (e.next != null) {
+			e.next.prev = e.prev;
+		}
+		e.prev = e.next = null;
+		e.node = null;
+		for (Node n = node; n != null; n = n.parent) {
+			n.count--;
+		}
+		// 删除已经空了的节点
+		Node n = node;
+		while (n.count == 0 && n.parent != null) {
+			Node p = n.parent;
+			for (int i = 0; i < 4; i++) {
+				if (p.kids[i] == n) {
+					p.kids[i] = null;
+					break;
+				}
+			}
+			n.parent = null;
+			n = p;
+		}
+	}
+
+	/**
+	 * 扩大根节点,直到能容纳指定位置与尺寸的精灵
+	 */
+	private void grow(float cx, float cy, float ext) {
+		if (root.count == 0) {
+			// 空树直接以精灵所在位置重建根节点
+			float s = root.size;
+			while (s < ext) {
+				s *= 2f;
+			}
+			if (cx < root.x || cy < root.y || cx >= root.x + s
+					|| cy >= root.y + s || s != root.size) {
+				root = new Node(MathUtils.floor(cx / s) * s,
+						MathUtils.floor(cy / s) * s, s);
+			}
+			return;
+		}
+		while (cx < root.x || cy < root.y || cx >= root.x + root.size
+				|| cy >= root.y + root.size || ext > root.size) {
+			final float s = root.size;
+			int index = 0;
+			float nx = root.x, ny = root.y;
+			if (cx < root.x) {
+				nx -= s;
+				index |= 1;
+			}
+			if (cy < root.y) {
+				ny -= s;
+				index |= 2;
+			}
+			Node top = new Node(nx, ny, s * 2f);
+			top.kids = new Node[4];
+			top.kids[index] = root;
+			top.count = root.count;
+			root.parent = top;
+			root = top;
+		}
+	}
+
+	/**
+	 * 把与指定范围相交(包含边界)的精灵在Sprites数组中的位置放入orders
+	 *
+	 * @param minX
+	 * @param minY
+	 * @param maxX
+	 * @param maxY
+	 * @param orders
+	 */
+	public void query(float minX, float minY, float maxX, float maxY,
+			IntArray orders) {
+		if (root.count > 0) {
+			query(root, minX, minY, maxX, maxY, orders);
+		}
+	}
+
+	private void query(Node node, float minX, float minY, float maxX,
+			float maxY, IntArray orders) {
+		final float half = node.size / 2;
+		if (node != root
+				&& (node.x - half > maxX || node.y - half > maxY
+						|| node.x + node.size + half < minX || node.y
+						+ node.size + half < minY)) {
+			return;
+		}
+		for (Entry e = node.head; e != null; e = e.next) {
+			if (e.x + e.width < minX || e.x > maxX || e.y + e.height < minY
+					|| e.y > maxY) {
+				continue;
+			}
+			orders.add(e.order);
+		}
+		final Node[] kids = node.kids;
+		if (kids != null) {
+			for (int i = 0; i < 4; i++) {
+				Node kid = kids[i];
+				if (kid != null && kid.count > 0) {
+					query(kid, minX, minY, maxX, maxY, orders);
+				}
+			}
+		}
+	}
+
+}
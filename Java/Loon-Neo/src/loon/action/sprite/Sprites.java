@@ -20,10 +20,12 @@
  */
 package loon.action.sprite;
 
+import loon.LObject;
 import loon.LObject.State;
 import loon.LRelease;
 import loon.LSystem;
 import loon.Screen;
+import loon.ZIndex;
 import loon.action.ActionBind;
 import loon.action.ActionControl;
 import loon.geom.PointI;
@@ -31,8 +33,10 @@ import loon.geom.RectBox;
 import loon.opengl.GLEx;
 import loon.utils.CollectionUtils;
 import loon.utils.IArray;
+import loon.utils.IntArray;
 import loon.utils.LayerSorter;
 import loon.utils.MathUtils;
+import loon.utils.ObjectMap;
 import loon.utils.TArray;
 
 /**
@@ -78,6 +82,41 @@ public class Sprites implements IArray, LRelease {
 
 	private Screen _screen;
 
+	// 精灵位置的空间索引,用于裁剪与点选
+	private final SpriteQuadTree _spatial = new SpriteQuadTree();
+
+	private final ObjectMap<ISprite, SpriteQuadTree.Entry> _entries = new ObjectMap<ISprite, SpriteQuadTree.Entry>();
+
+	// 与_sprites顺序一致的索引记录
+	private SpriteQuadTree.Entry[] _entryOrder = new SpriteQuadTree.Entry[0];
+
+	private final IntArray _visibleOrders = new IntArray();
+
+	// 查询时向外扩展的范围,用来容纳在update之后(比如缓动动画中)才移动的精灵
+	private float _cullMargin = 32f;
+
+	// 延迟到下次使用时再执行的排序,以及需要重建的顺序记录
+	private boolean _sortDirty, _orderDirty;
+
+	// update执行中移动的精灵在结束时统一写入空间索引
+	private boolean _updating;
+
+	private final SpriteMoved _spriteMoved = new SpriteMoved();
+
+	/**
+	 * 精灵在update之外(比如触屏或拖拽事件中)移动时,立即更新其在空间索引中的位置
+	 */
+	private class SpriteMoved implements LObject.LocationListener {
+
+		@Override
+		public void onLocationChanged(LObject<?> o) {
+			if (!_updating) {
+				refresh((ISprite) o);
+			}
+		}
+
+	}
+
 	public Sprites(Screen screen, float width, float height) {
 		this(screen, (int) width, (int) height);
 	}
@@ -146,7 +185,96 @@ public class Sprites implements IArray, LRelease {
 	 * 
 	 */
 	public void sortSprites() {
-		spriteSorter.sort(this._sprites);
+		spriteSorter.sort(this._sprites, 0, this._size);
+		this._sortDirty = false;
+		this._orderDirty = true;
+	}
+
+	/**
+	 * 执行延迟的排序,并使索引记录与精灵数组的顺序一致
+	 */
+	private void validate() {
+		if (_sortDirty) {
+			sortSprites();
+		}
+		if (_orderDirty) {
+			if (_entryOrder.length < _size) {
+				_entryOrder = new SpriteQuadTree.Entry[_sprites.length];
+			}
+			for (int i = 0; i < _size; i++) {
+				SpriteQuadTree.Entry e = _entries.get(_sprites[i]);
+				if (e != null) {
+					e.order = i;
+				}
+				_entryOrder[i] = e;
+			}
+			for (int i = _size; i < _entryOrder.length && _entryOrder[i] != null; i++) {
+				_entryOrder[i] = null;
+			}
+			_orderDirty = false;
+		}
+	}
+
+	private void track(ISprite sprite) {
+		if (sprite != null && _entries.get(sprite) == null) {
+			_entries.put(sprite, _spatial.add(sprite));
+			if (sprite instanceof LObject) {
+				((LObject<?>) sprite).setLocationListener(_spriteMoved);
+			}
+		}
+		_orderDirty = true;
+	}
+
+	private void untrack(ISprite sprite) {
+		if (sprite != null) {
+			SpriteQuadTree.Entry e = _entries.remove(sprite);
+			if (e != null) {
+				_spatial.remove(e);
+			}
+			unhook(sprite);
+		}
+		_orderDirty = true;
+	}
+
+	private void unhook(ISprite sprite) {
+		if (sprite instanceof LObject) {
+			LObject<?> o = (LObject<?>) sprite;
+			if (o.getLocationListener() == _spriteMoved) {
+				o.setLocationListener(null);
+			}
+		}
+	}
+
+	private void untrackAll() {
+		_entries.clear();
+		_spatial.clear();
+		_orderDirty = true;
+	}
+
+	/**
+	 * 设定裁剪与点选时查询范围向外扩展的距离.空间索引在update中更新,在update之外经由LObject的函数移动的精灵会立即更新,
+	 * 其他方式(比如直接修改getLocation返回的坐标)单帧移动距离超过此值的精灵,进入视野时会晚一帧显示
+	 * 
+	 * @param margin
+	 */
+	public void setCullMargin(float margin) {
+		this._cullMargin = MathUtils.max(0, margin);
+	}
+
+	public float getCullMargin() {
+		return _cullMargin;
+	}
+
+	/**
+	 * 立即更新指定精灵在空间索引中的位置(默认在update中统一更新,经由LObject的函数移动时自动调用,直接修改坐标后需要马上查询时使用)
+	 * 
+	 * @param sprite
+	 */
+	public void refresh(ISprite sprite) {
+		SpriteQuadTree.Entry e = _entries.get(sprite);
+		if (e != null) {
+			_spatial.refresh(e);
+		}
 	}
 
 	/**
@@ -176,16 +304,21 @@ public class Sprites implements IArray, LRelease {
 	}
 
 	/**
-	 * 查找指定位置的精灵对象
+	 * 查找指定位置的精灵对象(只查询空间索引中此位置附近的精灵,不遍历全部精灵)
 	 * 
 	 * @param x
 	 * @param y
 	 * @return
 	 */
 	public ISprite find(int x, int y) {
-		ISprite[] snapshot = _sprites;
-		for (int i = snapshot.length - 1; i >= 0; i--) {
-			ISprite child = snapshot[i];
+		validate();
+		final IntArray orders = _visibleOrders;
+		orders.clear();
+		final float m = _cullMargin + 1;
+		_spatial.query(x - m, y - m, x + m, y + m, orders);
+		orders.sort();
+		for (int i = orders.length - 1; i >= 0; i--) {
+			ISprite child = _sprites[orders.get(i)];
 			RectBox rect = child.getCollisionBox();
 			if (rect != null && rect.contains(x, y)) {
 				return child;
@@ -201,8 +334,9 @@ public class Sprites implements IArray, LRelease {
 	 * @return
 	 */
 	public ISprite find(String name) {
+		validate();
 		ISprite[] snapshot = _sprites;
-		for (int i = snapshot.length - 1; i >= 0; i--) {
+		for (int i = _size - 1; i >= 0; i--) {
 			ISprite child = snapshot[i];
 			String childName = child.getName();
 			if (name.equals(childName)) {
@@ -234,7 +368,8 @@ public class Sprites implements IArray, LRelease {
 			if (++this._size >= this._sprites.length) {
 				expandCapacity((_size + 1) * 2);
 			}
-			sortSprites();
+			track(sprite);
+			_sortDirty = true;
 			sprite.setState(State.ADDED);
 		}
 		boolean result = _sprites[index] != null;
@@ -249,6 +384,7 @@ public class Sprites implements IArray, LRelease {
 	}
 
 	public ISprite getSprite(int index) {
+		validate();
 		if (index < 0 || index > _size || index >= _sprites.length) {
 			return null;
 		}
@@ -261,6 +397,7 @@ public class Sprites implements IArray, LRelease {
 	 * @return
 	 */
 	public ISprite getTopSprite() {
+		validate();
 		if (_size > 0) {
 			return _sprites[0];
 		}
@@ -273,6 +410,7 @@ public class Sprites implements IArray, LRelease {
 	 * @return
 	 */
 	public ISprite getBottomSprite() {
+		validate();
 		if (_size > 0) {
 			return _sprites[_size - 1];
 		}
@@ -294,7 +432,15 @@ public class Sprites implements IArray, LRelease {
 			expandCapacity((_size + 1) * 2);
 		}
 		boolean result = (_sprites[_size++] = sprite) != null;
-		sortSprites();
+		track(sprite);
+		// 只有破坏了图层顺序时才需要排序(在下次使用前统一执行一次)
+		if (_size > 1) {
+			ISprite prev = _sprites[_size - 2];
+			if (prev instanceof ZIndex && sprite instanceof ZIndex
+					&& ((ZIndex) prev).getLayer() < ((ZIndex) sprite).getLayer()) {
+				_sortDirty = true;
+			}
+		}
 		sprite.setState(State.ADDED);
 		return result;
 	}
@@ -316,6 +462,7 @@ public class Sprites implements IArray, LRelease {
 	 * @return
 	 */
 	public TArray<ISprite> findTags(Object... tags) {
+		validate();
 		TArray<ISprite> list = new TArray<ISprite>();
 		final int size = this._size;
 		for (Object tag : tags) {
@@ -338,6 +485,7 @@ public class Sprites implements IArray, LRelease {
 	 * @return
 	 */
 	public TArray<ISprite> findNotTags(Object... tags) {
+		validate();
 		TArray<ISprite> list = new TArray<ISprite>();
 		final int size = this._size;
 		for (Object tag : tags) {
@@ -360,6 +508,7 @@ public class Sprites implements IArray, LRelease {
 	 * @return
 	 */
 	public TArray<ISprite> findNames(String... names) {
+		validate();
 		TArray<ISprite> list = new TArray<ISprite>();
 		final int size = this._size;
 		for (String name : names) {
@@ -382,6 +531,7 @@ public class Sprites implements IArray, LRelease {
 	 * @return
 	 */
 	public TArray<ISprite> findNotNames(String... names) {
+		validate();
 		TArray<ISprite> list = new TArray<ISprite>();
 		final int size = this._size;
 		for (String name : names) {
@@ -410,12 +560,7 @@ public class Sprites implements IArray, LRelease {
 		if (_sprites == null) {
 			return false;
 		}
-		for (int i = 0; i < _size; i++) {
-			if (_sprites[i] != null && sprite.equals(_sprites[i])) {
-				return true;
-			}
-		}
-		return false;
+		return _entries.get(sprite) != null;
 	}
 
 	/**
@@ -425,8 +570,10 @@ public class Sprites implements IArray, LRelease {
 	 * @return
 	 */
 	public ISprite remove(int index) {
+		validate();
 		ISprite removed = this._sprites[index];
 		if (removed != null) {
+			untrack(removed);
 			removed.setState(State.REMOVED);
 			// 删除精灵同时，删除缓动动画
 			if (removed instanceof ActionBind) {
@@ -476,9 +623,12 @@ public class Sprites implements IArray, LRelease {
 					ActionControl.get().removeAllActions((ActionBind) spr);
 				}
 				removed = true;
+				untrack(spr);
 				_size--;
 				_sprites[i - 1] = _sprites[_size];
 				_sprites[_size] = null;
+				// 末尾的精灵被移到了删除的位置,需要重新排序
+				_sortDirty = true;
 				if (_size == 0) {
 					_sprites = new ISprite[0];
 				} else {
@@ -513,9 +663,12 @@ public class Sprites implements IArray, LRelease {
 					ActionControl.get().removeAllActions((ActionBind) spr);
 				}
 				removed = true;
+				untrack(spr);
 				_size--;
 				_sprites[i - 1] = _sprites[_size];
 				_sprites[_size] = null;
+				// 末尾的精灵被移到了删除的位置,需要重新排序
+				_sortDirty = true;
 				if (_size == 0) {
 					_sprites = new ISprite[0];
 				} else {
@@ -534,10 +687,12 @@ public class Sprites implements IArray, LRelease {
 	 * @param endIndex
 	 */
 	public void remove(int startIndex, int endIndex) {
+		validate();
 		if (endIndex - startIndex > 0) {
 			for (int i = startIndex; i < endIndex && i < _sprites.length; i++) {
 				ISprite spr = _sprites[i];
 				if (spr != null) {
+					untrack(spr);
 					spr.setState(State.REMOVED);
 					// 删除精灵同时，删除缓动动画
 					if (spr instanceof ActionBind) {
@@ -585,6 +740,7 @@ public class Sprites implements IArray, LRelease {
 		for (int i = 0; i < _sprites.length; i++) {
 			ISprite removed = _sprites[i];
 			if (removed != null) {
+				unhook(removed);
 				removed.setState(State.REMOVED);
 				// 删除精灵同时，删除缓动动画
 				if (removed instanceof ActionBind) {
@@ -594,6 +750,8 @@ public class Sprites implements IArray, LRelease {
 			_sprites[i] = null;
 		}
 		_size = 0;
+		_sortDirty = false;
+		untrackAll();
 	}
 
 	/**
@@ -602,20 +760,55 @@ public class Sprites implements IArray, LRelease {
 	 * @param elapsedTime
 	 */
 	public void update(long elapsedTime) {
-
+		validate();
 		boolean listerner = (sprListerner != null);
-		for (int i = _size - 1; i >= 0; i--) {
-
-			ISprite child = _sprites[i];
-			if (child.isVisible()) {
-				child.update(elapsedTime);
-				if (listerner) {
-					sprListerner.update(child);
+		_updating = true;
+		try {
+			for (int i = _size - 1; i >= 0; i--) {
+				if (i >= _size) {
+					continue;
 				}
+				ISprite child = _sprites[i];
+				if (child.isVisible()) {
+					child.update(elapsedTime);
+					if (listerner) {
+						sprListerner.update(child);
+					}
+				}
+			}
+		} finally {
+			_updating = false;
+		}
+		// 更新后的位置写入空间索引
+		refreshAll();
+	}
+
+	/**
+	 * 把全部精灵的当前位置写入空间索引(只有离开所在节点的精灵才会被移动)
+	 */
+	private void refreshAll() {
+		validate();
+		for (int i = 0; i < _size; i++) {
+			SpriteQuadTree.Entry e = _entryOrder[i];
+			if (e != null) {
+				_spatial.refresh(e);
 			}
 		}
 	}
 
+	/**
+	 * 查询与指定范围相交的精灵,结果为按绘制顺序排列的数组位置
+	 */
+	private IntArray queryOrders(float minX, float minY, float maxX, float maxY) {
+		validate();
+		final IntArray orders = _visibleOrders;
+		orders.clear();
+		final float m = _cullMargin + 1;
+		_spatial.query(minX - m, minY - m, maxX + m, maxY + m, orders);
+		orders.sort();
+		return orders;
+	}
+
 	/**
 	 * 单纯渲染精灵
 	 * 
@@ -626,8 +819,9 @@ public class Sprites implements IArray, LRelease {
 		float spriteY;
 		float spriteWidth;
 		float spriteHeight;
-		for (int i = 0; i < this._size; i++) {
-			ISprite spr = this._sprites[i];
+		final IntArray orders = queryOrders(0, 0, maxX - minX, maxY - minY);
+		for (int i = 0, n = orders.length; i < n; i++) {
+			ISprite spr = this._sprites[orders.get(i)];
 			if (spr != null && spr.isVisible()) {
 				spriteX = minX + spr.getX();
 				spriteY = minY + spr.getY();
@@ -673,8 +867,9 @@ public class Sprites implements IArray, LRelease {
 			maxY = y + this._height;
 		}
 		g.translate(x - this.viewX, y - this.viewY);
-		for (int i = 0; i < this._size; i++) {
-			ISprite spr = this._sprites[i];
+		final IntArray orders = queryOrders(minX, minY, maxX, maxY);
+		for (int i = 0, n = orders.length; i < n; i++) {
+			ISprite spr = this._sprites[orders.get(i)];
 			if (spr != null && spr.isVisible()) {
 				int layerX = spr.x();
 				int layerY = spr.y();
@@ -725,6 +920,7 @@ public class Sprites implements IArray, LRelease {
 	}
 
 	public SpriteControls createSpriteControls() {
+		validate();
 		SpriteControls controls = null;
 		if (_sprites != null) {
 			controls = new SpriteControls(_sprites);
@@ -779,6 +975,7 @@ public class Sprites implements IArray, LRelease {
 	}
 
 	public ISprite[] getSprites() {
+		validate();
 		return CollectionUtils.copyOf(this._sprites, this._size);
 	}
 
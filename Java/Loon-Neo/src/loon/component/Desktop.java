@@ -311,6 +311,7 @@ public class Desktop implements LRelease {
 			if (component != null && component.intersects(x, y)) {
 				component.update(0);
 				component.processTouchPressed();
+				component.invalidate();
 			}
 		}
 		isClicked = true;
@@ -327,6 +328,7 @@ public class Desktop implements LRelease {
 				component.update(0);
 				component.processTouchReleased();
 				component.processTouchClicked();
+				component.invalidate();
 			}
 		}
 		isClicked = true;
@@ -381,6 +383,7 @@ public class Desktop implements LRelease {
 			if (this.input.getTouchDX() != 0 || this.input.getTouchDY() != 0 || SysTouch.getDX() != 0
 					|| SysTouch.getDY() != 0) {
 				this.hoverComponent.processTouchDragged();
+				this.hoverComponent.invalidate();
 				if (LSystem.isMobile() || LSystem.base().setting.emulateTouch) {
 					if (tooltip != null) {
 						this.tooltip.setToolTipComponent(hoverComponent);
@@ -413,12 +416,15 @@ public class Desktop implements LRelease {
 						this.tooltip.setToolTipComponent(comp);
 					}
 					comp.processTouchEntered();
+					comp.invalidate();
 				} else if (comp != this.hoverComponent && !this.hoverComponent._touchLocked) {
 					if (tooltip != null) {
 						this.tooltip.setToolTipComponent(comp);
 					}
 					this.hoverComponent.processTouchExited();
+					this.hoverComponent.invalidate();
 					comp.processTouchEntered();
+					comp.invalidate();
 				}
 
 			} else {
@@ -428,6 +434,7 @@ public class Desktop implements LRelease {
 				}
 				if (this.hoverComponent != null && !this.hoverComponent._touchLocked) {
 					this.hoverComponent.processTouchExited();
+					this.hoverComponent.invalidate();
 				}
 			}
 			this.hoverComponent = comp;
@@ -466,6 +473,7 @@ public class Desktop implements LRelease {
 			}
 			if (!isClicked && this.hoverComponent != null && !this.hoverComponent._touchLocked) {
 				this.hoverComponent.processTouchPressed();
+				this.hoverComponent.invalidate();
 			}
 			this.clickComponent[0] = this.hoverComponent;
 			if (this.hoverComponent != null && !this.hoverComponent._touchLocked && this.hoverComponent.isFocusable()) {
@@ -478,10 +486,12 @@ public class Desktop implements LRelease {
 		if (released > SysInput.NO_BUTTON) {
 			if (!isClicked && this.hoverComponent != null && !this.hoverComponent._touchLocked) {
 				this.hoverComponent.processTouchReleased();
+				this.hoverComponent.invalidate();
 				// 当释放鼠标时，点击事件生效
 				if (this.clickComponent[0] == this.hoverComponent && this.hoverComponent != null
 						&& !this.hoverComponent._touchLocked) {
 					this.hoverComponent.processTouchClicked();
+					this.hoverComponent.invalidate();
 				}
 			}
 		}
@@ -496,10 +506,12 @@ public class Desktop implements LRelease {
 		if (this.selectedComponent != null && !this.selectedComponent._keyLocked
 				&& this.input.getKeyPressed() != SysInput.NO_KEY) {
 			this.selectedComponent.keyPressed();
+			this.selectedComponent.invalidate();
 		}
 		if (this.selectedComponent != null && !this.selectedComponent._keyLocked
 				&& this.input.getKeyReleased() != SysInput.NO_KEY && this.selectedComponent != null) {
 			this.selectedComponent.processKeyReleased();
+			this.selectedComponent.invalidate();
 		}
 	}
 
@@ -195,6 +195,7 @@ public class LButton extends LComponent implements FontSet<LButton> {
 
 	public void setText(String st) {
 		this.text = st;
+		invalidate();
 	}
 
 	public void checked() {
@@ -277,6 +278,7 @@ public class LButton extends LComponent implements FontSet<LButton> {
 	@Override
 	public LButton setFont(IFont font) {
 		this.font = font;
+		invalidate();
 		return this;
 	}
 
@@ -294,6 +296,7 @@ public class LButton extends LComponent implements FontSet<LButton> {
 
 	public void setFontColor(LColor fontColor) {
 		this.fontColor = fontColor;
+		invalidate();
 	}
 
 	public int getOffsetLeft() {
@@ -285,6 +285,7 @@ public class LCheckBox extends LComponent implements FontSet<LCheckBox> {
 
 	public void setFontColor(LColor fontColor) {
 		this.fontColor = fontColor;
+		invalidate();
 	}
 
 	@Override
@@ -292,6 +293,7 @@ public class LCheckBox extends LComponent implements FontSet<LCheckBox> {
 		this.font = font;
 		this.setSize((int) (this.font.stringWidth(text) + boxsize),
 				(int) MathUtils.max(font.getHeight(), boxsize));
+		invalidate();
 		return this;
 	}
 
@@ -354,6 +354,7 @@ public class LClickButton extends LComponent implements FontSet<LClickButton> {
 
 	public void setText(String text) {
 		this.text = text;
+		invalidate();
 	}
 
 	public int getOffsetLeft() {
@@ -380,6 +381,7 @@ public class LClickButton extends LComponent implements FontSet<LClickButton> {
 	@Override
 	public LClickButton setFont(IFont font) {
 		this.font = font;
+		invalidate();
 		return this;
 	}
 
@@ -393,6 +395,7 @@ public class LClickButton extends LComponent implements FontSet<LClickButton> {
 
 	public void setFontColor(LColor fontColor) {
 		this.fontColor = fontColor;
+		invalidate();
 	}
 
 	public LTexture getIdleClick() {
@@ -423,6 +426,7 @@ public class LClickButton extends LComponent implements FontSet<LClickButton> {
 		this.clickedClick = clickedClick;
 		this.idleClick = clickedClick;
 		this.hoverClick = clickedClick;
+		invalidate();
 	}
 
 	public void setTexture(String path) {
@@ -546,6 +546,7 @@ public abstract class LComponent extends LObject<LContainer> implements
 		if (desktop != null) {
 			this.desktop.setComponentStat(this, this.visible);
 		}
+		invalidateContainers();
 	}
 
 	public boolean isEnabled() {
@@ -559,6 +560,7 @@ public abstract class LComponent extends LObject<LContainer> implements
 		}
 		this.enabled = b;
 		this.desktop.setComponentStat(this, this.enabled);
+		invalidate();
 	}
 
 	public boolean isSelected() {
@@ -566,7 +568,10 @@ public abstract class LComponent extends LObject<LContainer> implements
 	}
 
 	final void setSelected(boolean b) {
-		this.selected = b;
+		if (this.selected != b) {
+			this.selected = b;
+			invalidate();
+		}
 	}
 
 	public boolean requestFocus() {
@@ -597,6 +602,22 @@ public abstract class LComponent extends LObject<LContainer> implements
 		return this._super;
 	}
 
+	/**
+	 * 组件的外观发生了改变,通知所在的缓存容器重新渲染(自定义组件在改变文字,图像等外观时应调用此函数)
+	 */
+	public void invalidate() {
+		invalidateContainers();
+	}
+
+	/**
+	 * 只通知上层的容器(比如位置改变时,组件自身渲染出的内容并未改变)
+	 */
+	final void invalidateContainers() {
+		for (LContainer c = _super; c != null; c = c.getContainer()) {
+			c.cacheDirty = true;
+		}
+	}
+
 	final void setContainer(LContainer container) {
 		this._super = container;
 
@@ -624,6 +645,7 @@ public abstract class LComponent extends LObject<LContainer> implements
 				_height = 1;
 			}
 			this.validateSize();
+			invalidate();
 		}
 	}
 
@@ -632,6 +654,7 @@ public abstract class LComponent extends LObject<LContainer> implements
 		if (this.getX() != x || x == 0) {
 			super.setX(x);
 			this.validatePosition();
+			invalidateContainers();
 		}
 	}
 
@@ -640,6 +663,7 @@ public abstract class LComponent extends LObject<LContainer> implements
 		if (this.getX() != x || x == 0) {
 			super.setX(x);
 			this.validatePosition();
+			invalidateContainers();
 		}
 	}
 
@@ -648,6 +672,7 @@ public abstract class LComponent extends LObject<LContainer> implements
 		if (this.getY() != y || y == 0) {
 			super.setY(y);
 			this.validatePosition();
+			invalidateContainers();
 		}
 	}
 
@@ -656,6 +681,7 @@ public abstract class LComponent extends LObject<LContainer> implements
 		if (this.getY() != y || y == 0) {
 			super.setY(y);
 			this.validatePosition();
+			invalidateContainers();
 		}
 	}
 
@@ -669,6 +695,7 @@ public abstract class LComponent extends LObject<LContainer> implements
 		if (this.getX() != dx || this.getY() != dy || dx == 0 || dy == 0) {
 			super.setLocation(dx, dy);
 			this.validatePosition();
+			invalidateContainers();
 		}
 	}
 
@@ -678,6 +705,7 @@ public abstract class LComponent extends LObject<LContainer> implements
 			if (dx > -100 && dx < 100 && dy > -100 && dy < 100) {
 				super.move(dx, dy);
 				this.validatePosition();
+				invalidateContainers();
 			}
 		}
 	}
@@ -702,6 +730,7 @@ public abstract class LComponent extends LObject<LContainer> implements
 				this._height = 1;
 			}
 			this.validateSize();
+			invalidate();
 		}
 	}
 
@@ -884,6 +913,7 @@ public abstract class LComponent extends LObject<LContainer> implements
 		}
 
 		this._imageUI = imageUI;
+		invalidate();
 	}
 
 	public void setImageUI(int index, LTexture imageUI) {
@@ -892,6 +922,7 @@ public abstract class LComponent extends LObject<LContainer> implements
 			this._height = (int) imageUI.height();
 		}
 		this._imageUI[index] = imageUI;
+		invalidate();
 	}
 
 	public abstract String getUIName();
@@ -935,6 +966,7 @@ public abstract class LComponent extends LObject<LContainer> implements
 				this._height = 1;
 			}
 		}
+		invalidate();
 	}
 
 	public int getCamX() {
@@ -971,6 +1003,7 @@ public abstract class LComponent extends LObject<LContainer> implements
 
 	public void setDrawSelect(boolean select) {
 		this.isSelectDraw = select;
+		invalidate();
 	}
 
 	public void setScale(final float s) {
@@ -984,6 +1017,7 @@ public abstract class LComponent extends LObject<LContainer> implements
 		}
 		this._scaleX = sx;
 		this._scaleY = sy;
+		invalidateContainers();
 	}
 
 	@Override
@@ -1183,6 +1217,23 @@ public abstract class LComponent extends LObject<LContainer> implements
 	@Override
 	public void setColor(LColor c) {
 		this.baseColor = c;
+		invalidate();
+	}
+
+	@Override
+	public void setAlpha(float a) {
+		if (_alpha != a) {
+			super.setAlpha(a);
+			invalidate();
+		}
+	}
+
+	@Override
+	public void setRotation(float r) {
+		if (_rotation != r) {
+			super.setRotation(r);
+			invalidateContainers();
+		}
 	}
 
 	@Override
@@ -1201,12 +1252,14 @@ public abstract class LComponent extends LObject<LContainer> implements
 	@Override
 	public LComponent setFlipX(boolean x) {
 		this._flipX = x;
+		invalidateContainers();
 		return this;
 	}
 
 	@Override
 	public LComponent setFlipY(boolean y) {
 		this._flipY = y;
+		invalidateContainers();
 		return this;
 	}
 
@@ -21,13 +21,17 @@
  */
 package loon.component;
 
+import loon.LSystem;
 import loon.action.ActionBind;
 import loon.component.layout.LayoutManager;
 import loon.component.layout.LayoutPort;
 import loon.event.GameKey;
 import loon.geom.RectBox;
+import loon.opengl.GL20;
 import loon.opengl.GLEx;
+import loon.opengl.LTextureImage;
 import loon.utils.CollectionUtils;
+import loon.utils.GLUtils;
 import loon.utils.IArray;
 import loon.utils.LayerSorter;
 import loon.utils.MathUtils;
@@ -44,6 +48,19 @@ public abstract class LContainer extends LComponent implements IArray {
 
 	private LComponent latestInserted = null;
 
+	// 是否把自身与全部子组件渲染到纹理中,没有改变时只绘制此纹理
+	private boolean cached = false;
+
+	boolean cacheDirty = true;
+
+	private LTextureImage cacheImage;
+
+	private float cacheScreenAlpha = -1f;
+
+	private int cacheHits, cacheRenders;
+
+	private int[] cacheScissor;
+
 	public LContainer(int x, int y, int w, int h) {
 		super(x, y, w, h);
 		this.setFocusable(false);
@@ -340,6 +357,7 @@ public abstract class LContainer extends LComponent implements IArray {
 		}
 		this._childs = CollectionUtils.cut(this._childs, index);
 		this.childCount--;
+		invalidate();
 		return comp;
 	}
 
@@ -358,6 +376,7 @@ public abstract class LContainer extends LComponent implements IArray {
 		}
 		this._childs = new LComponent[0];
 		this.childCount = 0;
+		invalidate();
 	}
 
 	public void replace(LComponent oldComp, LComponent newComp) {
@@ -425,15 +444,168 @@ public abstract class LContainer extends LComponent implements IArray {
 			return;
 		}
 		synchronized (_childs) {
-			super.createUI(g);
-			if (this.elastic) {
-				g.setClip(this.getScreenX(), this.getScreenY(),
-						this.getWidth(), this.getHeight());
+			if (cached && canUseCache()) {
+				drawCache(g);
+			} else {
+				paintContainer(g);
 			}
-			this.renderComponents(g);
-			if (this.elastic) {
-				g.clearClip();
+		}
+	}
+
+	private void paintContainer(GLEx g) {
+		super.createUI(g);
+		if (this.elastic) {
+			g.setClip(this.getScreenX(), this.getScreenY(), this.getWidth(),
+					this.getHeight());
+		}
+		this.renderComponents(g);
+		if (this.elastic) {
+			g.clearClip();
+		}
+	}
+
+	/**
+	 * 设定是否缓存渲染结果.缓存后,此容器与全部子组件被渲染到一张纹理中,之后每帧只绘制这张纹理,
+	 * 直到子组件的位置,大小,图像,文字或状态改变(子组件调用invalidate)时才重新渲染.
+	 * 适合静态的面板,菜单与对话框,内容持续变化的组件(比如逐字显示的文字)需要自行调用invalidate.
+	 * 
+	 * @param c
+	 */
+	public void setCached(boolean c) {
+		if (this.cached == c) {
+			return;
+		}
+		this.cached = c;
+		this.cacheDirty = true;
+		if (!c) {
+			freeCache();
+		}
+	}
+
+	public boolean isCached() {
+		return cached;
+	}
+
+	/**
+	 * 直接使用缓存绘制的次数
+	 * 
+	 * @return
+	 */
+	public int getCacheHits() {
+		return cacheHits;
+	}
+
+	/**
+	 * 重新渲染缓存的次数
+	 * 
+	 * @return
+	 */
+	public int getCacheRenders() {
+		return cacheRenders;
+	}
+
+	public void resetCacheStats() {
+		cacheHits = cacheRenders = 0;
+	}
+
+	@Override
+	public void invalidate() {
+		this.cacheDirty = true;
+		super.invalidate();
+	}
+
+	private boolean canUseCache() {
+		// 旋转,缩放与翻转的容器仍然直接渲染
+		return _rotation == 0 && _scaleX == 1f && _scaleY == 1f && !_flipX
+				&& !_flipY && getWidth() >= 1 && getHeight() >= 1
+				&& LSystem.base() != null;
+	}
+
+	private void freeCache() {
+		if (cacheImage != null) {
+			cacheImage.texture.close();
+			cacheImage.close();
+			cacheImage = null;
+		}
+	}
+
+	private void drawCache(GLEx g) {
+		final int width = (int) getWidth();
+		final int height = (int) getHeight();
+		if (cacheImage == null || cacheImage.texture.width() != width
+				|| cacheImage.texture.height() != height) {
+			freeCache();
+			cacheImage = new LTextureImage(LSystem.base().graphics(),
+					g.batch(), width, height, false);
+			cacheDirty = true;
+		}
+		final float screenAlpha = getScreen() == null ? 1f : getScreen()
+				.getAlpha();
+		if (cacheDirty || screenAlpha != cacheScreenAlpha) {
+			renderCache(g);
+			cacheScreenAlpha = screenAlpha;
+			cacheDirty = false;
+			cacheRenders++;
+		} else {
+			cacheHits++;
+		}
+		final int blend = g.getBlendMode();
+		g.saveBrush();
+		g.resetColor();
+		g.setAlpha(1f);
+		// 缓存纹理中的颜色已经预乘了alpha
+		g.setBlendMode(LSystem.MODE_NORMAL);
+		g.draw(cacheImage.texture, _screenX, _screenY, width, height);
+		g.setBlendMode(blend);
+		g.restoreBrush();
+	}
+
+	/**
+	 * 把容器按屏幕坐标渲染到缓存纹理中(纹理原点对应容器左上角)
+	 */
+	private void renderCache(GLEx g) {
+		final GL20 gl = LSystem.base().graphics().gl;
+		final LTextureImage img = cacheImage;
+		// 外层的裁剪状态必须经由GLUtils切换(GLEx依据其中的标记开关裁剪),并在渲染后恢复裁剪区域
+		final boolean scissor = GLUtils.isScissorTest();
+		final boolean writeAlpha = GLUtils.isWriteAlpha();
+		final int blend = GLUtils.getBlendMode();
+		g.end();
+		if (scissor) {
+			if (cacheScissor == null) {
+				cacheScissor = new int[4];
+			}
+			gl.glGetIntegerv(GL20.GL_SCISSOR_BOX, cacheScissor, 0);
+			GLUtils.disablecissorTest(gl);
+		}
+		GLUtils.setWriteAlpha(true);
+		try {
+			img.begin();
+			GLUtils.setClearColor(gl, 0f, 0f, 0f, 0f);
+			GLUtils.setBlendMode(gl, LSystem.MODE_NORMAL);
+			img.saveTx();
+			img.translate(-_screenX, -_screenY);
+			img.setClipOffset(_screenX, _screenY);
+			try {
+				paintContainer(img);
+			} finally {
+				img.setClipOffset(0, 0);
+				img.restoreTx();
+				img.end();
+			}
+		} finally {
+			GLUtils.setWriteAlpha(writeAlpha);
+			if (blend != -1) {
+				GLUtils.setBlendMode(gl, blend);
+			}
+			if (scissor) {
+				gl.glScissor(cacheScissor[0], cacheScissor[1], cacheScissor[2],
+						cacheScissor[3]);
+				GLUtils.enablecissorTest(gl);
+			} else {
+				GLUtils.disablecissorTest(gl);
 			}
+			g.begin();
 		}
 	}
 
@@ -481,6 +653,7 @@ public abstract class LContainer extends LComponent implements IArray {
 
 	public void sortComponents() {
 		compSorter.sort(this._childs);
+		invalidate();
 	}
 
 	protected void transferFocus(LComponent component) {
@@ -726,6 +899,7 @@ public abstract class LContainer extends LComponent implements IArray {
 	@Override
 	public void close() {
 		super.close();
+		freeCache();
 		if (autoDestroy) {
 			if (_childs != null) {
 				for (LComponent c : _childs) {
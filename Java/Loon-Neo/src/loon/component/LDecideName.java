@@ -313,6 +313,7 @@ public class LDecideName extends LComponent implements FontSet<LDecideName> {
 
 	public void setFontColor(LColor fontColor) {
 		this.fontColor = fontColor;
+		invalidate();
 	}
 
 	public String getLabelName() {
@@ -425,6 +426,7 @@ public class LDecideName extends LComponent implements FontSet<LDecideName> {
 	@Override
 	public LDecideName setFont(IFont font) {
 		this._font = font;
+		invalidate();
 		return this;
 	}
 	
@@ -131,6 +131,7 @@ public class LLabels extends LComponent implements FontSet<LLabels> {
 	@Override
 	public LLabels setFont(IFont font) {
 		this.font = font;
+		invalidate();
 		return this;
 	}
 
@@ -890,6 +890,7 @@ public class LMenu extends LComponent implements FontSet<LMenu> {
 	@Override
 	public LMenu setFont(IFont font) {
 		this.font = font;
+		invalidate();
 		return this;
 	}
 
@@ -904,6 +905,7 @@ public class LMenu extends LComponent implements FontSet<LMenu> {
 
 	public void setFontColor(LColor fontColor) {
 		this.fontColor = fontColor;
+		invalidate();
 	}
 
 	@Override
@@ -299,6 +299,7 @@ public class LMessage extends LContainer implements FontSet<LMessage> {
 
 	public void setFontColor(LColor fontColor) {
 		this.fontColor = fontColor;
+		invalidate();
 	}
 
 	@Override
@@ -322,6 +323,7 @@ public class LMessage extends LContainer implements FontSet<LMessage> {
 	 */
 	public LMessage setMessageFont(IFont messageFont) {
 		this.messageFont = messageFont;
+		invalidate();
 		return this;
 	}
 
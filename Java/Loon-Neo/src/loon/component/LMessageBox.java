@@ -494,6 +494,7 @@ public class LMessageBox extends LComponent implements FontSet<LMessageBox> {
 
 	public LMessageBox setFont(IFont font) {
 		this._font = font;
+		invalidate();
 		return this;
 	}
 
@@ -501,6 +502,7 @@ public class LMessageBox extends LComponent implements FontSet<LMessageBox> {
 		if (_box != null) {
 			_box.setFontColor(color);
 		}
+		invalidate();
 		return this;
 	}
 
@@ -187,6 +187,7 @@ public class LProgress extends LComponent {
 				this.percentage = 0f;
 			}
 		}
+		invalidate();
 	}
 
 	public boolean isVertical() {
@@ -195,6 +196,7 @@ public class LProgress extends LComponent {
 
 	public void setVertical(boolean vertical) {
 		this.vertical = vertical;
+		invalidate();
 	}
 
 	public float getPercentage() {
@@ -114,6 +114,7 @@ public class LScrollContainer extends LContainer {
 		} else {
 			scrollX = newScrollX;
 		}
+		invalidate();
 	}
 
 	public void moveScrollY(int newScrollY) {
@@ -122,6 +123,7 @@ public class LScrollContainer extends LContainer {
 		} else {
 			scrollY = newScrollY;
 		}
+		invalidate();
 	}
 
 	public int getScrollX() {
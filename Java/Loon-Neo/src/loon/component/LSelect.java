@@ -304,6 +304,7 @@ public class LSelect extends LContainer implements FontSet<LSelect> {
 
 	public void setFontColor(LColor fontColor) {
 		this.fontColor = fontColor;
+		invalidate();
 	}
 
 	public IFont getMessageFont() {
@@ -312,6 +313,7 @@ public class LSelect extends LContainer implements FontSet<LSelect> {
 
 	public LSelect setMessageFont(IFont messageFont) {
 		this.messageFont = messageFont;
+		invalidate();
 		return this;
 	}
 
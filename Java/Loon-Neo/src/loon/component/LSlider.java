@@ -109,6 +109,7 @@ public class LSlider extends LComponent {
 
 	public void setValue(float v) {
 		this._value = v;
+		invalidate();
 	}
 
 	public float getSliderWidth() {
@@ -117,6 +118,7 @@ public class LSlider extends LComponent {
 
 	public void setSliderWidth(float s) {
 		this._sliderWidth = s;
+		invalidate();
 	}
 
 	public float getSliderHeight() {
@@ -125,6 +127,7 @@ public class LSlider extends LComponent {
 
 	public void setSliderHeight(float s) {
 		this._sliderHeight = s;
+		invalidate();
 	}
 
 	public LTexture getSliderImage() {
@@ -133,16 +136,19 @@ public class LSlider extends LComponent {
 
 	public void setSliderImage(LTexture s) {
 		this.sliderImage = s;
+		invalidate();
 	}
 
 	public void setSliderImage(LTexture s, float width, float height) {
 		this.sliderImage = s;
 		setSliderWidth(width);
 		setSliderHeight(height);
+		invalidate();
 	}
 
 	public void setBarImage(LTexture b) {
 		this.barImage = b;
+		invalidate();
 	}
 
 	public ValueListener getListener() {
@@ -155,10 +161,12 @@ public class LSlider extends LComponent {
 
 	public void setPadding(float p) {
 		this._padding = p;
+		invalidate();
 	}
 
 	public void setBarImageHeight(float b) {
 		this._barImageHeight = b;
+		invalidate();
 	}
 
 	@Override
@@ -195,6 +195,7 @@ public class LTextArea extends LComponent implements FontSet<LTextArea> {
 	@Override
 	public LTextArea setFont(IFont changeFont) {
 		this.font = changeFont;
+		invalidate();
 		return this;
 	}
 
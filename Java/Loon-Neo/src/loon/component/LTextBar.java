@@ -222,6 +222,7 @@ public class LTextBar extends LComponent {
 
 	public void setFontColor(LColor fontColor) {
 		this._fontColor = fontColor;
+		invalidate();
 	}
 
 	public IFont getFont() {
@@ -230,6 +231,7 @@ public class LTextBar extends LComponent {
 
 	public void setFont(IFont font) {
 		this._font = font;
+		invalidate();
 	}
 
 	public String getText() {
@@ -241,6 +243,7 @@ public class LTextBar extends LComponent {
 		if (!mes.equals(_lastText)) {
 			this._text = mes;
 			this._messages = Print.formatMessage(mes, _font, _maxWidth);
+			invalidate();
 		}
 	}
 
@@ -196,6 +196,7 @@ public class LTextList extends LComponent implements FontSet<LTextList> {
 	@Override
 	public LTextList setFont(IFont newFont) {
 		this._font = newFont;
+		invalidate();
 		return this;
 	}
 
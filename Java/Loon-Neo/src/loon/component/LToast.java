@@ -284,6 +284,7 @@ public class LToast extends LComponent implements FontSet<LToast> {
 	@Override
 	public LToast setFont(IFont f) {
 		this.font = f;
+		invalidate();
 		return this;
 	}
 
@@ -568,6 +568,7 @@ public class LWindow extends LContainer implements FontSet<LWindow> {
 
 	public LWindow setFont(IFont font) {
 		this._font = font;
+		invalidate();
 		return this;
 	}
 
@@ -577,6 +578,7 @@ public class LWindow extends LContainer implements FontSet<LWindow> {
 
 	public void setFontColor(LColor fontColor) {
 		this._fontColor = fontColor;
+		invalidate();
 	}
 
 	@Override
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2014
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.component.table;
+
+import loon.utils.TArray;
+
+/**
+ * 实现了监听管理的表格数据,子类修改数据后调用对应的fire方法即可
+ */
+public abstract class AbstractTableModel implements ITableModel {
+
+	private final TArray<TableModelListener> listeners = new TArray<TableModelListener>(
+			2);
+
+	@Override
+	public void addTableModelListener(TableModelListener listener) {
+		if (listener != null && !listeners.contains(listener, true)) {
+			listeners.add(listener);
+		}
+	}
+
+	@Override
+	public void removeTableModelListener(TableModelListener listener) {
+		listeners.remove(listener, true);
+	}
+
+	public void fireRowsInserted(int firstRow, int lastRow) {
+		for (int i = listeners.size - 1; i >= 0; i--) {
+			listeners.get(i).rowsInserted(this, firstRow, lastRow);
+		}
+	}
+
+	public void fireRowsRemoved(int firstRow, int lastRow) {
+		for (int i = listeners.size - 1; i >= 0; i--) {
+			listeners.get(i).rowsRemoved(this, firstRow, lastRow);
+		}
+	}
+
+	public void fireRowsUpdated(int firstRow, int lastRow) {
+		for (int i = listeners.size - 1; i >= 0; i--) {
+			listeners.get(i).rowsUpdated(this, firstRow, lastRow);
+		}
+	}
+
+	public void fireTableChanged() {
+		for (int i = listeners.size - 1; i >= 0; i--) {
+			listeners.get(i).tableChanged(this);
+		}
+	}
+
+}
@@ -30,4 +30,11 @@ public interface ITableModel {
 
 	public int getRowCount();
 
+	/**
+	 * 监听数据变化,表格据此只重新计算受影响的行
+	 */
+	public void addTableModelListener(TableModelListener listener);
+
+	public void removeTableModelListener(TableModelListener listener);
+
 }
\ No newline at end of file
@@ -30,10 +30,12 @@ import loon.component.skin.SkinManager;
 import loon.component.skin.TableSkin;
 import loon.font.FontSet;
 import loon.font.IFont;
+import loon.geom.Affine2f;
 import loon.geom.Dimension;
 import loon.opengl.GLEx;
 import loon.utils.TArray;
 import loon.utils.ArrayMap;
+import loon.utils.IntArray;
 import loon.utils.MathUtils;
 
 /*
@@ -101,6 +103,91 @@ public class LTable extends LContainer implements FontSet<LTable> {
 
 	private int cellHeight = 20;
 
+	// 单独设定过高度的行(为null时所有行等高,行高为0时使用cellHeight)
+	private IntArray rowHeights = null;
+
+	// 各行顶部位置的前缀和,只在行高不一致时使用
+	private int[] rowOffsets = null;
+
+	// rowOffsets中从此行之后的位置需要重新计算
+	private int layoutFrom = 0;
+
+	// 只绘制可见范围内的行
+	private boolean virtualized = true;
+
+	// 当前帧可见的纵向范围(相对于首行顶部)
+	private float visibleTop, visibleBottom;
+
+	private final ModelListener modelListener = new ModelListener();
+
+	private class ModelListener implements TableModelListener {
+
+		@Override
+		public void rowsInserted(ITableModel m, int firstRow, int lastRow) {
+			int count = lastRow - firstRow + 1;
+			if (firstRow <= selected.length) {
+				boolean[] newSelected = new boolean[selected.length + count];
+				System.arraycopy(selected, 0, newSelected, 0, firstRow);
+				System.arraycopy(selected, firstRow, newSelected,
+						lastRow + 1, selected.length - firstRow);
+				selected = newSelected;
+			}
+			if (rowHeights != null && firstRow <= rowHeights.length) {
+				for (int i = 0; i < count; i++) {
+					rowHeights.insert(firstRow, 0);
+				}
+			}
+			relayout(firstRow);
+		}
+
+		@Override
+		public void rowsRemoved(ITableModel m, int firstRow, int lastRow) {
+			int end = MathUtils.min(lastRow, selected.length - 1);
+			if (firstRow <= end) {
+				for (int i = firstRow; i <= end; i++) {
+					if (selected[i]) {
+						selectionCount--;
+					}
+				}
+				boolean[] newSelected = new boolean[selected.length
+						- (end - firstRow + 1)];
+				System.arraycopy(selected, 0, newSelected, 0, firstRow);
+				System.arraycopy(selected, end + 1, newSelected, firstRow,
+						selected.length - end - 1);
+				selected = newSelected;
+			}
+			if (rowHeights != null && firstRow < rowHeights.length) {
+				rowHeights.removeRange(firstRow,
+						MathUtils.min(lastRow, rowHeights.length - 1));
+			}
+			relayout(firstRow);
+		}
+
+		@Override
+		public void rowsUpdated(ITableModel m, int firstRow, int lastRow) {
+			invalidate();
+		}
+
+		@Override
+		public void tableChanged(ITableModel m) {
+			int count = m.getColumnCount();
+			if (columns.length != count) {
+				TableColumn[] newColumns = new TableColumn[count];
+				int width = columns.length > 0 ? columns[columns.length - 1]
+						.getWidth() : 100;
+				for (int i = 0; i < count; i++) {
+					newColumns[i] = i < columns.length ? columns[i]
+							: new TableColumn(m.getColumnName(i), width);
+				}
+				columns = newColumns;
+			}
+			selected = new boolean[m.getRowCount()];
+			selectionCount = 0;
+			rowHeights = null;
+			relayout(0);
+		}
+	}
+
 	private static final int OFFSET = 5;
 
 	private int cellSpacing = 0;
@@ -275,17 +362,7 @@ public class LTable extends LContainer implements FontSet<LTable> {
 		assertSelectionArraySize();
 
 		int mouseY = (int) y;
-		if (!isTableHeadVisible()) {
-			mouseY -= getCellHeight();
-		}
-
-		mouseY += getCellSpacing();
-
-		int row = (mouseY / (getCellHeight() + getCellSpacing()));
-
-		if (isTableHeadVisible()) {
-			row--;
-		}
+		int row = getRowAt(mouseY - cellHeight);
 
 		if (row < 0 || row >= selected.length) {
 			return;
@@ -334,10 +411,7 @@ public class LTable extends LContainer implements FontSet<LTable> {
 		if (model == null) {
 			return super.getHeight();
 		}
-		int height = 0;
-		for (int i = 0; i < model.getRowCount(); i++) {
-			height += (cellHeight + cellSpacing);
-		}
+		int height = getRowsHeight();
 		if (isTableHeadVisible()) {
 			height += (cellHeight + cellSpacing);
 		}
@@ -372,30 +446,45 @@ public class LTable extends LContainer implements FontSet<LTable> {
 			int x = displayX;
 			int y = displayY;
 			y += cellHeight;
-			int size = (int) (getHeight() / (cellHeight + cellSpacing));
 			int wid = 0;
 			for (int i = 0; i < model.getColumnCount(); i++) {
 				wid += getColumnWidth(i);
 			}
-			int hei = 0;
-			for (int i = 0; i < model.getRowCount(); i++) {
-				hei += (cellHeight + cellSpacing);
-			}
-			if (wid != getWidth()
-					|| hei + (cellHeight + cellSpacing) != getHeight()) {
+			final int rowCount = model.getRowCount();
+			int hei = getRowsHeight();
+			if (wid != super.getWidth()
+					|| hei + (cellHeight + cellSpacing) != super.getHeight()) {
 				setSize(wid, hei + (cellHeight + cellSpacing));
 			}
+			int firstRow = 0;
+			int lastRow = rowCount - 1;
+			if (virtualized && rowCount > 0 && visibleWindow(g, y)) {
+				if (visibleBottom < 0 || visibleTop >= hei) {
+					lastRow = -1;
+				} else {
+					firstRow = getRowAt(MathUtils.max(0, visibleTop));
+					lastRow = getRowAt(MathUtils.min(hei - 1, visibleBottom));
+					if (lastRow == -1) {
+						lastRow = rowCount - 1;
+					}
+				}
+			}
 			if (gridVisible) {
 				g.setLineWidth(2f);
 			}
+			// 背景覆盖全部行,需要在跳到首个可见行之前绘制
 			if (backgroundTexture != null) {
 				g.draw(backgroundTexture, x, y, wid, hei, LColor.white);
 			}
-			for (int row = 0; row < size && row < model.getRowCount(); row++) {
+			if (firstRow > 0) {
+				y += getRowY(firstRow);
+			}
+			for (int row = firstRow; row <= lastRow; row++) {
 				x = displayX;
+				final int rowHeight = getRowHeight(row);
 				if (isSelected(row)) {
 					g.setColor(selectionColor);
-					g.fillRect(x, y, wid, cellHeight);
+					g.fillRect(x, y, wid, rowHeight);
 					g.setColor(LColor.white);
 				}
 				for (int columnIndex = 0; columnIndex < model.getColumnCount(); columnIndex++) {
@@ -410,7 +499,7 @@ public class LTable extends LContainer implements FontSet<LTable> {
 								.getCellContentSize(value);
 						if (contentDimension == null) {
 							contentDimension = new Dimension(
-									getColumnWidth(columnIndex), cellHeight);
+									getColumnWidth(columnIndex), rowHeight);
 						}
 						int alignedX = x
 								+ getColumn(columnIndex).getEntryAlignment()
@@ -418,12 +507,12 @@ public class LTable extends LContainer implements FontSet<LTable> {
 												contentDimension.getWidth());
 						int alignedY = y
 								+ getColumn(columnIndex).getEntryAlignment()
-										.alignY(cellHeight,
+										.alignY(rowHeight,
 												contentDimension.getHeight());
 
 						if (bindIcons.size() == 0) {
 							cellRenderer.paint(g, value, alignedX, alignedY,
-									getColumnWidth(columnIndex), cellHeight);
+									getColumnWidth(columnIndex), rowHeight);
 						} else {
 							if (value instanceof String) {
 								String v = (String) value;
@@ -432,17 +521,17 @@ public class LTable extends LContainer implements FontSet<LTable> {
 									cellRenderer.paint(g, icon, alignedX,
 											alignedY,
 											getColumnWidth(columnIndex),
-											cellHeight);
+											rowHeight);
 								} else {
 									cellRenderer.paint(g, value, alignedX,
 											alignedY,
 											getColumnWidth(columnIndex),
-											cellHeight);
+											rowHeight);
 								}
 							} else {
 								cellRenderer.paint(g, value, alignedX,
 										alignedY, getColumnWidth(columnIndex),
-										cellHeight);
+										rowHeight);
 							}
 						}
 					}
@@ -450,13 +539,13 @@ public class LTable extends LContainer implements FontSet<LTable> {
 					if (gridVisible) {
 						g.setColor(gridColor);
 						g.drawRect(x, y, getColumnWidth(columnIndex),
-								cellHeight);
+								rowHeight);
 						g.setColor(LColor.white);
 					}
 
 					x += getColumnWidth(columnIndex) + cellSpacing;
 				}
-				y += (cellHeight + cellSpacing);
+				y += (rowHeight + cellSpacing);
 			}
 			if (tableHeaderVisible) {
 				header.headerY = displayY;
@@ -506,6 +595,8 @@ public class LTable extends LContainer implements FontSet<LTable> {
 	public LTable setFont(IFont font) {
 		this.font = font;
 		this.cellHeight = font.getHeight();
+		relayout(0);
+		invalidate();
 		return this;
 	}
 
@@ -544,6 +635,7 @@ public class LTable extends LContainer implements FontSet<LTable> {
 
 	public void setCellHeight(int cellHeight) {
 		this.cellHeight = cellHeight;
+		relayout(0);
 	}
 
 	public void setGridVisible(boolean gridVisible) {
@@ -568,6 +660,7 @@ public class LTable extends LContainer implements FontSet<LTable> {
 
 	public void setCellSpacing(int cellSpacing) {
 		this.cellSpacing = cellSpacing;
+		relayout(0);
 	}
 
 	public LColor getHeaderBackgroundColor() {
@@ -607,18 +700,235 @@ public class LTable extends LContainer implements FontSet<LTable> {
 	}
 
 	public void setModel(ITableModel m, int width) {
+		if (model != null) {
+			model.removeTableModelListener(modelListener);
+		}
 		model = m;
 		columns = new TableColumn[m.getColumnCount()];
 		selected = new boolean[m.getRowCount()];
+		selectionCount = 0;
 		for (int i = 0; i < columns.length; i++) {
 			columns[i] = new TableColumn(m.getColumnName(i), width);
 		}
+		rowHeights = null;
+		m.addTableModelListener(modelListener);
+		relayout(0);
 	}
 
 	public ITableModel getModel() {
 		return model;
 	}
 
+	/**
+	 * 是否只绘制可见范围(画布与外层裁剪区域)内的行
+	 * 
+	 * @param v
+	 */
+	public void setVirtualized(boolean v) {
+		this.virtualized = v;
+	}
+
+	public boolean isVirtualized() {
+		return virtualized;
+	}
+
+	/**
+	 * 单独设定某行的高度(小于等于0时恢复为cellHeight),设定后按前缀和计算各行位置
+	 * 
+	 * @param row
+	 * @param height
+	 */
+	public void setRowHeight(int row, int height) {
+		assertModel();
+		if (rowHeights == null) {
+			if (height <= 0) {
+				return;
+			}
+			rowHeights = new IntArray(model.getRowCount());
+		}
+		syncRowHeights();
+		if (row < 0 || row >= rowHeights.length) {
+			return;
+		}
+		rowHeights.set(row, MathUtils.max(0, height));
+		relayout(row);
+	}
+
+	/**
+	 * 恢复所有行为等高
+	 */
+	public void resetRowHeights() {
+		rowHeights = null;
+		rowOffsets = null;
+		relayout(0);
+	}
+
+	public int getRowHeight(int row) {
+		if (rowHeights == null || row < 0 || row >= rowHeights.length) {
+			return cellHeight;
+		}
+		int h = rowHeights.get(row);
+		return h > 0 ? h : cellHeight;
+	}
+
+	/**
+	 * 指定行相对于首行顶部的位置
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public int getRowY(int row) {
+		if (model == null || row <= 0) {
+			return 0;
+		}
+		if (rowHeights == null) {
+			return row * (cellHeight + cellSpacing);
+		}
+		layoutRows();
+		return rowOffsets[MathUtils.min(row, rowHeights.length)];
+	}
+
+	/**
+	 * 全部行(不含表头)的高度
+	 * 
+	 * @return
+	 */
+	public int getRowsHeight() {
+		if (model == null) {
+			return 0;
+		}
+		if (rowHeights == null) {
+			return model.getRowCount() * (cellHeight + cellSpacing);
+		}
+		layoutRows();
+		return rowOffsets[rowHeights.length];
+	}
+
+	/**
+	 * 相对于首行顶部的位置所在的行,不在任何行上时返回-1
+	 * 
+	 * @param y
+	 * @return
+	 */
+	public int getRowAt(float y) {
+		if (model == null || y < 0) {
+			return -1;
+		}
+		if (rowHeights == null) {
+			int row = (int) (y / (cellHeight + cellSpacing));
+			return row < model.getRowCount() ? row : -1;
+		}
+		layoutRows();
+		final int[] offsets = rowOffsets;
+		final int count = rowHeights.length;
+		if (count == 0 || y >= offsets[count]) {
+			return -1;
+		}
+		int low = 0, high = count - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (offsets[mid] <= y) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * 从指定行开始重新计算行的位置
+	 * 
+	 * @param row
+	 */
+	private void relayout(int row) {
+		if (row < layoutFrom) {
+			layoutFrom = MathUtils.max(0, row);
+		}
+		invalidate();
+	}
+
+	/**
+	 * 行数在没有通知的情况下改变时,补齐或截断行高
+	 */
+	private void syncRowHeights() {
+		final int count = model.getRowCount();
+		final int size = rowHeights.length;
+		if (size < count) {
+			for (int i = size; i < count; i++) {
+				rowHeights.add(0);
+			}
+		} else if (size > count) {
+			rowHeights.truncate(count);
+		} else {
+			return;
+		}
+		if (layoutFrom > size) {
+			layoutFrom = MathUtils.min(size, count);
+		}
+	}
+
+	private void layoutRows() {
+		syncRowHeights();
+		final int count = rowHeights.length;
+		if (rowOffsets == null || rowOffsets.length < count + 1) {
+			int[] offsets = new int[MathUtils.max(16, count + 1 + (count >> 2))];
+			if (rowOffsets != null) {
+				int valid = MathUtils.min(layoutFrom + 1, rowOffsets.length);
+				System.arraycopy(rowOffsets, 0, offsets, 0, valid);
+				layoutFrom = valid - 1;
+			} else {
+				layoutFrom = 0;
+			}
+			rowOffsets = offsets;
+		}
+		if (layoutFrom >= count) {
+			return;
+		}
+		final int[] offsets = rowOffsets;
+		final int[] heights = rowHeights.items;
+		int y = offsets[layoutFrom];
+		for (int i = layoutFrom; i < count; i++) {
+			int h = heights[i];
+			y += (h > 0 ? h : cellHeight) + cellSpacing;
+			offsets[i + 1] = y;
+		}
+		layoutFrom = count;
+	}
+
+	/**
+	 * 计算当前画布中首行顶部为top时,表格可见的纵向范围.画布有旋转时返回false,此时绘制全部行
+	 * 
+	 * @param g
+	 * @param top
+	 * @return
+	 */
+	private boolean visibleWindow(GLEx g, float top) {
+		final Affine2f tx = g.tx();
+		if (tx.m01 != 0 || tx.m10 != 0 || tx.m11 <= 0) {
+			return false;
+		}
+		final float offsetY = g.getClipOffsetY();
+		float minY = 0;
+		float maxY = g.getHeight();
+		for (LContainer c = getContainer(); c != null; c = c.getContainer()) {
+			if (c.isElastic()) {
+				float cy = c.getScreenY() - offsetY;
+				minY = MathUtils.max(minY, cy);
+				maxY = MathUtils.min(maxY, cy + c.getHeight());
+			}
+			// 缓存的容器只渲染到自身的纹理中,外层的裁剪与之无关
+			if (c.isCached()) {
+				break;
+			}
+		}
+		// 画布的变换包含渲染目标自身的缩放,先把可见范围换算到同样的单位
+		final float scaleY = g.getScaleY();
+		visibleTop = (minY * scaleY - tx.ty) / tx.m11 - top;
+		visibleBottom = (maxY * scaleY - tx.ty) / tx.m11 - top;
+		return true;
+	}
+
 	public boolean isSelected(int row) {
 		assertModel();
 		return row >= 0 && row < selected.length ? selected[row] : false;
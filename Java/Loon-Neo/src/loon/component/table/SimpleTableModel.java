@@ -22,7 +22,7 @@ package loon.component.table;
 
 import loon.utils.TArray;
 
-public class SimpleTableModel implements ITableModel {
+public class SimpleTableModel extends AbstractTableModel {
 	
 	private TArray<ListItem> _list;
 
@@ -57,6 +57,36 @@ public class SimpleTableModel implements ITableModel {
 
 	public void clear() {
 		_list.clear();
+		fireTableChanged();
+	}
+
+	public void setValue(int row, int column, Object value) {
+		_list.get(column).list.set(row, value);
+		fireRowsUpdated(row, row);
+	}
+
+	/**
+	 * 在末尾添加一行,values按列的顺序排列
+	 * 
+	 * @param values
+	 */
+	public void addRow(Object... values) {
+		insertRow(getRowCount(), values);
+	}
+
+	public void insertRow(int row, Object... values) {
+		for (int i = 0; i < _list.size; i++) {
+			_list.get(i).list.insert(row, i < values.length ? values[i]
+					: null);
+		}
+		fireRowsInserted(row, row);
+	}
+
+	public void removeRow(int row) {
+		for (int i = 0; i < _list.size; i++) {
+			_list.get(i).list.removeIndex(row);
+		}
+		fireRowsRemoved(row, row);
 	}
 
 	public Object getValue(int row) {
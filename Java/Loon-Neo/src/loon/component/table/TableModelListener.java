@@ -0,0 +1,48 @@
+/**
+ * Copyright 2014
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.component.table;
+
+/**
+ * 表格数据变化的通知,行号范围均包含首尾两端
+ */
+public interface TableModelListener {
+
+	/**
+	 * 插入了[firstRow, lastRow]行
+	 */
+	public void rowsInserted(ITableModel model, int firstRow, int lastRow);
+
+	/**
+	 * 删除了[firstRow, lastRow]行(行号为删除前的位置)
+	 */
+	public void rowsRemoved(ITableModel model, int firstRow, int lastRow);
+
+	/**
+	 * [firstRow, lastRow]行的内容改变,行数不变
+	 */
+	public void rowsUpdated(ITableModel model, int firstRow, int lastRow);
+
+	/**
+	 * 列或全部数据改变
+	 */
+	public void tableChanged(ITableModel model);
+
+}
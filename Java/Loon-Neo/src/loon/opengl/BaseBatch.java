@@ -23,8 +23,115 @@ package loon.opengl;
 import loon.LTexture;
 import loon.geom.Affine2f;
 
+import static loon.opengl.GL20.*;
+
 public abstract class BaseBatch extends LTextureBind {
 
+	// 四边形索引的顶点最大值受限于short类型
+	protected static final int MAX_STREAM_QUADS = 16383;
+
+	protected boolean streaming;
+
+	protected StreamBuffer vertexStream, elementStream;
+
+	protected int quadElementsId, quadElementsCount;
+
+	/**
+	 * 是否使用流式提交(预分配的环形顶点缓冲区以及静态的四边形索引缓冲区),需在begin之前设置
+	 * 
+	 * @param streaming
+	 * @return
+	 */
+	public BaseBatch setStreaming(boolean streaming) {
+		if (begun) {
+			throw new IllegalStateException(getClass().getSimpleName()
+					+ " setStreaming() inside begin()");
+		}
+		this.streaming = streaming && supportsStreaming();
+		return this;
+	}
+
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	/**
+	 * 子类如果支持流式提交则返回true
+	 * 
+	 * @return
+	 */
+	protected boolean supportsStreaming() {
+		return false;
+	}
+
+	protected StreamBuffer vertexStream() {
+		if (vertexStream == null) {
+			vertexStream = new StreamBuffer(gl, GL_ARRAY_BUFFER);
+		}
+		return vertexStream;
+	}
+
+	protected StreamBuffer elementStream() {
+		if (elementStream == null) {
+			elementStream = new StreamBuffer(gl, GL_ELEMENT_ARRAY_BUFFER,
+					StreamBuffer.DEFAULT_CAPACITY / 4);
+		}
+		return elementStream;
+	}
+
+	/**
+	 * 绑定预先填充好的静态四边形索引缓冲区(索引顺序同TrilateralBatch.QUAD_INDICES),容量不足时扩展
+	 * 
+	 * @param quads
+	 */
+	protected void bindQuadElements(int quads) {
+		if (quadElementsId == 0) {
+			quadElementsId = gl.glGenBuffer();
+		}
+		gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, quadElementsId);
+		if (quads > quadElementsCount) {
+			int count = quadElementsCount == 0 ? 256 : quadElementsCount;
+			while (count < quads) {
+				count *= 2;
+			}
+			if (count > MAX_STREAM_QUADS) {
+				count = MAX_STREAM_QUADS;
+			}
+			short[] elems = new short[count * 6];
+			for (int ii = 0, ee = 0; ii < count; ii++) {
+				short base = (short) (ii * 4);
+				elems[ee++] = base;
+				elems[ee++] = (short) (base + 1);
+				elems[ee++] = (short) (base + 2);
+				elems[ee++] = (short) (base + 1);
+				elems[ee++] = (short) (base + 3);
+				elems[ee++] = (short) (base + 2);
+			}
+			gl.bufs.setShortBuffer(elems, 0, elems.length);
+			gl.glBufferData(GL_ELEMENT_ARRAY_BUFFER, elems.length * 2,
+					gl.bufs.shortBuffer, GL_STATIC_DRAW);
+			quadElementsCount = count;
+		}
+	}
+
+	@Override
+	public void close() {
+		super.close();
+		if (vertexStream != null) {
+			vertexStream.close();
+			vertexStream = null;
+		}
+		if (elementStream != null) {
+			elementStream.close();
+			elementStream = null;
+		}
+		if (quadElementsId != 0) {
+			gl.glDeleteBuffer(quadElementsId);
+			quadElementsId = 0;
+			quadElementsCount = 0;
+		}
+	}
+
 
 	public void addQuad(LTexture tex, int tint, Affine2f xf, float x, float y,
 			float w, float h) {
@@ -0,0 +1,34 @@
+/**
+ * Copyright 2008 - 2015 The Loon Game Engine Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.opengl;
+
+/**
+ * GLEx默认渲染器的选择方式
+ *
+ * Auto:自动判定(非html5环境下优先使用UniformBatch,否则使用TrilateralBatch)
+ * Uniform:UniformBatch,顶点数据以uniform数组方式提交
+ * Trilateral:TrilateralBatch,每个顶点携带完整矩阵与色彩
+ * Compact:CompactBatch,在cpu中完成顶点变换,每个顶点只有坐标,纹理与压缩色彩(5个float)
+ * MultiTexture:MultiTextureBatch,同时绑定多个纹理单元,切换纹理时不必提交
+ */
+public enum BatchType {
+	Auto, Uniform, Trilateral, Compact, MultiTexture;
+}
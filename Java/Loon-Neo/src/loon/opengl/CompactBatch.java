@@ -0,0 +1,426 @@
+/**
+ * Copyright 2008 - 2015 The Loon Game Engine Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.opengl;
+
+import loon.LTexture;
+import loon.geom.Affine2f;
+import loon.opengl.ShaderProgram.Mini;
+import loon.utils.NumberUtils;
+import loon.utils.timer.FrameProfiler;
+import static loon.opengl.GL20.*;
+
+/**
+ * 紧凑顶点格式的渲染器,和TrilateralBatch不同,此渲染器在cpu中完成矩阵变换,每个顶点只保存变换后坐标,
+ * 纹理坐标以及压缩为4字节的色彩(x,y,u,v,color共5个float),一个四边形仅需20个float(TrilateralBatch为48个),
+ * 适合大量精灵同屏,数据上传带宽成为瓶颈的场合.
+ */
+public class CompactBatch extends BaseBatch {
+
+	protected static final int[] QUAD_INDICES = { 0, 1, 2, 1, 3, 2 };
+
+	public static class Source extends LTextureBind.Source {
+
+		public static final String VERT_UNIFS = "uniform vec2 u_HScreenSize;\n"
+				+ "uniform float u_Flip;\n";
+
+		public static final String VERT_ATTRS = "attribute vec2 a_Position;\n"
+				+ "attribute vec2 a_TexCoord;\n"
+				+ "attribute vec4 a_Color;\n";
+
+		public static final String VERT_VARS = "varying vec2 v_TexCoord;\n"
+				+ "varying vec4 v_Color;\n";
+
+		public static final String VERT_SETPOS = "gl_Position = vec4(a_Position, 0, 1);\n"
+				+ "gl_Position.xy /= u_HScreenSize.xy;\n"
+				+ "gl_Position.xy -= 1.0;\n" + "gl_Position.y *= u_Flip;\n";
+
+		public static final String VERT_SETTEX = "v_TexCoord = a_TexCoord;\n";
+
+		public static final String VERT_SETCOLOR = "v_Color = a_Color;\n";
+
+		public String vertex() {
+			return (VERT_UNIFS + VERT_ATTRS + VERT_VARS + "void main(void) {\n"
+					+ VERT_SETPOS + VERT_SETTEX + VERT_SETCOLOR + "}");
+		}
+	}
+
+	// x,y,u,v,color
+	public static final int VERTEX_SIZE = 5;
+
+	private static final int START_VERTS = 16 * 4;
+	private static final int EXPAND_VERTS = 16 * 4;
+	private static final int START_ELEMS = 6 * START_VERTS / 4;
+	private static final int EXPAND_ELEMS = 6 * EXPAND_VERTS / 4;
+	private static final int FLOAT_SIZE_BYTES = 4;
+
+	private boolean delayedBinding;
+
+	protected Mini program;
+	protected int uTexture;
+	protected int uHScreenSize;
+	protected int uFlip;
+	protected int aPosition, aTexCoord, aColor;
+
+	protected int verticesId, elementsId;
+	protected float[] vertices;
+	protected short[] elements;
+	protected int vertPos, elemPos;
+	protected boolean quadOnly = true;
+
+	protected float m00 = 1, m01, m10, m11 = 1, tx, ty;
+	protected float color;
+	private int lastTint;
+
+	protected Source source;
+
+	public CompactBatch(GL20 gl) {
+		this(gl, new Source());
+	}
+
+	public CompactBatch(GL20 gl, Source source) {
+		super(gl);
+		this.source = source;
+		this.init();
+	}
+
+	public void init() {
+		delayedBinding = "Intel".equals(gl.glGetString(GL20.GL_VENDOR));
+
+		program = new ShaderProgram.Mini(gl, source.vertex(), source.fragment());
+		uTexture = program.getUniformLocation("u_Texture");
+		uHScreenSize = program.getUniformLocation("u_HScreenSize");
+		uFlip = program.getUniformLocation("u_Flip");
+		aPosition = program.getAttribLocation("a_Position");
+		aTexCoord = program.getAttribLocation("a_TexCoord");
+		aColor = program.getAttribLocation("a_Color");
+
+		vertices = new float[START_VERTS * vertexSize()];
+		elements = new short[START_ELEMS];
+		color = packColor(lastTint);
+
+		int[] ids = new int[2];
+		gl.glGenBuffers(2, ids, 0);
+		verticesId = ids[0];
+		elementsId = ids[1];
+	}
+
+	/**
+	 * 将ARGB格式的tint转化为GL_UNSIGNED_BYTE顺序(ABGR)的float色彩
+	 *
+	 * @param tint
+	 * @return
+	 */
+	public static float packColor(int tint) {
+		int a = (tint >>> 24) & 0xFF;
+		int r = (tint >> 16) & 0xFF;
+		int g = (tint >> 8) & 0xFF;
+		int b = tint & 0xFF;
+		return NumberUtils.intToFloatColor((a << 24) | (b << 16) | (g << 8)
+				| r);
+	}
+
+	public void prepare(int tint, Affine2f xf) {
+		prepare(tint, xf.m00, xf.m01, xf.m10, xf.m11, xf.tx, xf.ty);
+	}
+
+	public void prepare(int tint, float m00, float m01, float m10, float m11,
+			float tx, float ty) {
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m10 = m10;
+		this.m11 = m11;
+		this.tx = tx;
+		this.ty = ty;
+		if (tint != lastTint) {
+			color = packColor(tint);
+			lastTint = tint;
+		}
+	}
+
+	public void addTris(LTexture tex, int tint, Affine2f xf, float[] xys,
+			int xysOffset, int xysLen, float tw, float th, int[] indices,
+			int indicesOffset, int indicesLen, int indexBase) {
+		setTexture(tex);
+		prepare(tint, xf);
+		addTris(xys, xysOffset, xysLen, tw, th, indices, indicesOffset,
+				indicesLen, indexBase);
+	}
+
+	public void addTris(LTexture tex, int tint, Affine2f xf, float[] xys,
+			float[] sxys, int xysOffset, int xysLen, int[] indices,
+			int indicesOffset, int indicesLen, int indexBase) {
+		setTexture(tex);
+		prepare(tint, xf);
+		addTris(xys, sxys, xysOffset, xysLen, indices, indicesOffset,
+				indicesLen, indexBase);
+	}
+
+	public void addTris(LTexture tex, int tint, Affine2f xf, float[] xys,
+			float[] sxys, int xysOffset, int xysLen, short[] indices,
+			int indicesOffset, int indicesLen, int indexBase) {
+		setTexture(tex);
+		prepare(tint, xf);
+		addTris(xys, sxys, xysOffset, xysLen, indices, indicesOffset,
+				indicesLen, indexBase);
+	}
+
+	public void addTris(float[] xys, int xysOffset, int xysLen, float tw,
+			float th, int[] indices, int indicesOffset, int indicesLen,
+			int indexBase) {
+		int vertIdx = beginPrimitive(xysLen / 2, indicesLen), offset = vertPos;
+		float[] verts = vertices;
+		for (int ii = xysOffset, ll = ii + xysLen; ii < ll; ii += 2) {
+			float x = xys[ii], y = xys[ii + 1];
+			offset = add(verts, offset, x, y, x / tw, y / th);
+		}
+		vertPos = offset;
+		quadOnly = false;
+
+		addElems(vertIdx, indices, indicesOffset, indicesLen, indexBase);
+	}
+
+	public void addTris(float[] xys, float[] sxys, int xysOffset, int xysLen,
+			short[] indices, int indicesOffset, int indicesLen, int indexBase) {
+		int vertIdx = beginPrimitive(xysLen / 2, indicesLen), offset = vertPos;
+		float[] verts = vertices;
+		for (int ii = xysOffset, ll = ii + xysLen; ii < ll; ii += 2) {
+			offset = add(verts, offset, xys[ii], xys[ii + 1], sxys[ii],
+					sxys[ii + 1]);
+		}
+		vertPos = offset;
+		quadOnly = false;
+
+		addElems(vertIdx, indices, indicesOffset, indicesLen, indexBase);
+	}
+
+	public void addTris(float[] xys, float[] sxys, int xysOffset, int xysLen,
+			int[] indices, int indicesOffset, int indicesLen, int indexBase) {
+		int vertIdx = beginPrimitive(xysLen / 2, indicesLen), offset = vertPos;
+		float[] verts = vertices;
+		for (int ii = xysOffset, ll = ii + xysLen; ii < ll; ii += 2) {
+			offset = add(verts, offset, xys[ii], xys[ii + 1], sxys[ii],
+					sxys[ii + 1]);
+		}
+		vertPos = offset;
+		quadOnly = false;
+
+		addElems(vertIdx, indices, indicesOffset, indicesLen, indexBase);
+	}
+
+	@Override
+	public void addQuad(int tint, float m00, float m01, float m10, float m11,
+			float tx, float ty, float x1, float y1, float sx1, float sy1,
+			float x2, float y2, float sx2, float sy2, float x3, float y3,
+			float sx3, float sy3, float x4, float y4, float sx4, float sy4) {
+		prepare(tint, m00, m01, m10, m11, tx, ty);
+
+		int vertIdx = beginPrimitive(4, 6);
+		int offset = vertPos;
+		float[] verts = vertices;
+		offset = add(verts, offset, x1, y1, sx1, sy1);
+		offset = add(verts, offset, x2, y2, sx2, sy2);
+		offset = add(verts, offset, x3, y3, sx3, sy3);
+		offset = add(verts, offset, x4, y4, sx4, sy4);
+		vertPos = offset;
+
+		addElems(vertIdx, QUAD_INDICES, 0, QUAD_INDICES.length, 0);
+	}
+
+	@Override
+	public void begin(float fbufWidth, float fbufHeight, boolean flip) {
+		super.begin(fbufWidth, fbufHeight, flip);
+		program.activate();
+		gl.glUniform2f(uHScreenSize, fbufWidth / 2f, fbufHeight / 2f);
+		gl.glUniform1f(uFlip, flip ? -1 : 1);
+		if (!delayedBinding) {
+			bindAttribsBufs();
+		}
+	}
+
+	private void bindAttribsBufs() {
+		gl.glBindBuffer(GL_ARRAY_BUFFER, verticesId);
+		bindVertAttribs(0);
+		gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, elementsId);
+		gl.glActiveTexture(GL_TEXTURE0);
+		gl.glUniform1i(uTexture, 0);
+	}
+
+	protected void bindVertAttribs(int base) {
+		int stride = vertexSize() * FLOAT_SIZE_BYTES;
+		glBindVertAttrib(aPosition, 2, GL_FLOAT, false, stride, base);
+		glBindVertAttrib(aTexCoord, 2, GL_FLOAT, false, stride, base + 8);
+		glBindVertAttrib(aColor, 4, GL_UNSIGNED_BYTE, true, stride, base + 16);
+	}
+
+	@Override
+	public void flush() {
+		super.flush();
+		if (vertPos > 0) {
+			FrameProfiler.begin(FrameProfiler.BATCH_FLUSH);
+			submit();
+			FrameProfiler.end(FrameProfiler.BATCH_FLUSH);
+		}
+	}
+
+	private void submit() {
+		bindTexture();
+		if (delayedBinding) {
+			bindAttribsBufs();
+		}
+		if (streaming) {
+			flushStream();
+			return;
+		}
+		gl.bufs.setFloatBuffer(vertices, 0, vertPos);
+		gl.glBufferData(GL_ARRAY_BUFFER, vertPos * 4, gl.bufs.floatBuffer,
+				GL_STREAM_DRAW);
+		gl.bufs.setShortBuffer(elements, 0, elemPos);
+		gl.glBufferData(GL_ELEMENT_ARRAY_BUFFER, elemPos * 2,
+				gl.bufs.shortBuffer, GL_STREAM_DRAW);
+		gl.glDrawElements(GL_TRIANGLES, elemPos, GL_UNSIGNED_SHORT, 0);
+		countDrawCall();
+		vertPos = 0;
+		elemPos = 0;
+		quadOnly = true;
+	}
+
+	private void flushStream() {
+		int base = vertexStream().put(vertices, vertPos);
+		bindVertAttribs(base);
+		if (quadOnly) {
+			bindQuadElements(elemPos / QUAD_INDICES.length);
+			gl.glDrawElements(GL_TRIANGLES, elemPos, GL_UNSIGNED_SHORT, 0);
+		} else {
+			int offset = elementStream().put(elements, elemPos);
+			gl.glDrawElements(GL_TRIANGLES, elemPos, GL_UNSIGNED_SHORT,
+					offset);
+		}
+		countDrawCall();
+		vertPos = 0;
+		elemPos = 0;
+		quadOnly = true;
+	}
+
+	@Override
+	protected boolean supportsStreaming() {
+		return true;
+	}
+
+	@Override
+	public void end() {
+		super.end();
+		gl.glDisableVertexAttribArray(aPosition);
+		gl.glDisableVertexAttribArray(aTexCoord);
+		gl.glDisableVertexAttribArray(aColor);
+	}
+
+	@Override
+	public void freeBuffer() {
+		gl.glBindBuffer(GL_ARRAY_BUFFER, 0);
+		gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+	}
+
+	@Override
+	public void close() {
+		super.close();
+		program.close();
+		gl.glDeleteBuffers(2, new int[] { verticesId, elementsId }, 0);
+	}
+
+	@Override
+	public String toString() {
+		return "compact/" + (elements.length / QUAD_INDICES.length);
+	}
+
+	protected int vertexSize() {
+		return VERTEX_SIZE;
+	}
+
+	protected int beginPrimitive(int vertexCount, int elemCount) {
+		int vertIdx = vertPos / vertexSize();
+		int verts = vertIdx + vertexCount, elems = elemPos + elemCount;
+		int availVerts = vertices.length / vertexSize(), availElems = elements.length;
+		if (verts <= availVerts && elems <= availElems) {
+			return vertIdx;
+		}
+		flush(FLUSH_OVERFLOW);
+		if (verts > availVerts) {
+			expandVerts(verts);
+		}
+		if (elems > availElems) {
+			expandElems(elems);
+		}
+		return 0;
+	}
+
+	protected final void glBindVertAttrib(int loc, int size, int type,
+			boolean normalized, int stride, int offset) {
+		gl.glEnableVertexAttribArray(loc);
+		gl.glVertexAttribPointer(loc, size, type, normalized, stride, offset);
+	}
+
+	protected final void addElems(int vertIdx, int[] indices,
+			int indicesOffset, int indicesLen, int indexBase) {
+		short[] data = elements;
+		int offset = elemPos;
+		for (int ii = indicesOffset, ll = ii + indicesLen; ii < ll; ii++) {
+			data[offset++] = (short) (vertIdx + indices[ii] - indexBase);
+		}
+		elemPos = offset;
+	}
+
+	protected final void addElems(int vertIdx, short[] indices,
+			int indicesOffset, int indicesLen, int indexBase) {
+		short[] data = elements;
+		int offset = elemPos;
+		for (int ii = indicesOffset, ll = ii + indicesLen; ii < ll; ii++) {
+			data[offset++] = (short) (vertIdx + indices[ii] - indexBase);
+		}
+		elemPos = offset;
+	}
+
+	private final void expandVerts(int vertCount) {
+		int newVerts = vertices.length / vertexSize();
+		while (newVerts < vertCount) {
+			newVerts += EXPAND_VERTS;
+		}
+		vertices = new float[newVerts * vertexSize()];
+	}
+
+	private final void expandElems(int elemCount) {
+		int newElems = elements.length;
+		while (newElems < elemCount) {
+			newElems += EXPAND_ELEMS;
+		}
+		elements = new short[newElems];
+	}
+
+	protected int add(float[] into, int offset, float x, float y,
+			float sx, float sy) {
+		into[offset++] = m00 * x + m10 * y + tx;
+		into[offset++] = m01 * x + m11 * y + ty;
+		into[offset++] = sx;
+		into[offset++] = sy;
+		into[offset++] = color;
+		return offset;
+	}
+
+}
@@ -21,6 +21,7 @@
 package loon.opengl;
 
 import loon.Graphics;
+import loon.LGame;
 import loon.LRelease;
 import loon.LSystem;
 import loon.LTexture;
@@ -105,6 +106,7 @@ public class GLEx extends PixmapFImpl implements LRelease {
 	private BrushSave lastBrush;
 	private float scaleX = 1f, scaleY = 1f;
 	private float offsetStringX = 0, offsetStringY = 0;
+	private float clipOffsetX = 0, clipOffsetY = 0;
 
 	/**
 	 * 创建一个默认的GL渲染封装，将其作为默认的渲染器来使用。与0.5以前版本不同的是,此GLEX将不再唯一，允许复数构建.
@@ -235,6 +237,7 @@ public class GLEx extends PixmapFImpl implements LRelease {
 		}
 		BaseBatch oldBatch = batch;
 		save();
+		batch.flush(BaseBatch.FLUSH_SHADER);
 		batch.end();
 		batch = beginBatch(b);
 		return oldBatch;
@@ -245,6 +248,7 @@ public class GLEx extends PixmapFImpl implements LRelease {
 			return null;
 		}
 		if (oldBatch != null) {
+			batch.flush(BaseBatch.FLUSH_SHADER);
 			batch.end();
 			batch = beginBatch(oldBatch);
 			restore();
@@ -279,8 +283,34 @@ public class GLEx extends PixmapFImpl implements LRelease {
 	}
 
 	public static BaseBatch createDefaultBatch(GL20 gl) {
+		LGame game = LSystem.base();
+		if (game != null && game.setting != null) {
+			BaseBatch batch = createDefaultBatch(gl, game.setting.batchType);
+			batch.setStreaming(game.setting.batchStreaming);
+			return batch;
+		}
+		return createDefaultBatch(gl, BatchType.Auto);
+	}
+
+	/**
+	 * 以指定的渲染器类型构建默认渲染器
+	 * 
+	 * @param gl
+	 * @param type
+	 * @return
+	 */
+	public static BaseBatch createDefaultBatch(GL20 gl, BatchType type) {
+		if (type == BatchType.MultiTexture) {
+			return new MultiTextureBatch(gl);
+		}
+		if (type == BatchType.Compact) {
+			return new CompactBatch(gl);
+		}
+		if (type == BatchType.Trilateral) {
+			return new TrilateralBatch(gl);
+		}
 		// 实践证明,Uniform模式在html5中就是悲剧,太多浏览器中卡成狗,还是交给cpu慢慢算三角踏实……
-		if (!LSystem.isHTML5()) {
+		if (type == BatchType.Uniform || !LSystem.isHTML5()) {
 			try {
 				if (UniformBatch.isLikelyToPerform(gl)) {
 					return new UniformBatch(gl);
@@ -300,6 +330,9 @@ public class GLEx extends PixmapFImpl implements LRelease {
 		if (isClosed) {
 			return this;
 		}
+		if (mode != GLUtils.getBlendMode() && batch.running()) {
+			batch.flush(BaseBatch.FLUSH_BLEND);
+		}
 		GLUtils.setBlendMode(batch.gl, mode);
 		return this;
 	}
@@ -412,14 +445,41 @@ public class GLEx extends PixmapFImpl implements LRelease {
 		return startClipped(x, y, width, height);
 	}
 
+	/**
+	 * 设定裁剪区域的原点(渲染到纹理时,按屏幕坐标设定的裁剪区域需要减去纹理在屏幕中的位置)
+	 * 
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public GLEx setClipOffset(float x, float y) {
+		this.clipOffsetX = x;
+		this.clipOffsetY = y;
+		return this;
+	}
+
+	public float getClipOffsetX() {
+		return clipOffsetX;
+	}
+
+	public float getClipOffsetY() {
+		return clipOffsetY;
+	}
+
 	public boolean startClipped(float x1, float y1, float w1, float h1) {
 		if (isClosed) {
 			return false;
 		}
-		int x = (int) (x1 * LSystem.getScaleWidth());
-		int y = (int) (y1 * LSystem.getScaleHeight());
-		int width = (int) (w1 * LSystem.getScaleWidth());
-		int height = (int) (h1 * LSystem.getScaleHeight());
+		x1 -= clipOffsetX;
+		y1 -= clipOffsetY;
+		// 默认画布按屏幕缩放,渲染到纹理时按纹理自身的比例
+		final boolean screen = target == gfx.defaultRenderTarget;
+		final float sx = screen ? LSystem.getScaleWidth() : target.xscale();
+		final float sy = screen ? LSystem.getScaleHeight() : target.yscale();
+		int x = (int) (x1 * sx);
+		int y = (int) (y1 * sy);
+		int width = (int) (w1 * sx);
+		int height = (int) (h1 * sy);
 		batch.flush();
 		RectBox r = pushScissorState(x, target.flip() ? target.height() - y
 				- height : y, width, height);
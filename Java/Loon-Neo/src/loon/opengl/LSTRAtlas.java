@@ -0,0 +1,473 @@
+/**
+ * Copyright 2008 - 2015 The Loon Game Engine Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.opengl;
+
+import java.nio.ByteBuffer;
+
+import loon.LRelease;
+import loon.LSystem;
+import loon.LTexture;
+import loon.LTextureBatch;
+import loon.canvas.Canvas;
+import loon.canvas.LColor;
+import loon.font.LFont;
+import loon.font.TextLayout;
+import loon.utils.GLUtils;
+import loon.utils.IntArray;
+import loon.utils.IntMap;
+import loon.utils.MathUtils;
+import loon.utils.StringUtils;
+import loon.utils.TArray;
+
+/**
+ * LSTRFont使用的文字纹理集.
+ *
+ * 文字按行(shelf)方式装入固定大小的纹理页,只绘制尚未存在的文字,并以glTexSubImage2D上传对应的区域,
+ * 已有文字的纹理坐标不会因此改变.纹理页数量达到上限且全部装满时,清空最久未使用的一页重新利用(正在使用中的纹理页不会被清空,必要时超出上限).
+ * 同一字体(名称,样式,大小相同)的多个LSTRFont可共用一个纹理集.
+ */
+public class LSTRAtlas implements LRelease {
+
+	// 文字之间保留的间隔(像素),避免线性过滤时取到相邻文字
+	private static final int PADDING = 1;
+
+	private static final int MAX_PAGES = 4;
+
+	public static class Glyph {
+
+		public final char ch;
+
+		public final int width;
+
+		public final int height;
+
+		int page;
+
+		int x, y;
+
+		Glyph(char ch, int width, int height) {
+			this.ch = ch;
+			this.width = width;
+			this.height = height;
+		}
+
+		public int getPage() {
+			return page;
+		}
+
+		public int getX() {
+			return x;
+		}
+
+		public int getY() {
+			return y;
+		}
+	}
+
+	static class Page {
+
+		final int size;
+
+		Canvas canvas;
+
+		LTexture texture;
+
+		LTextureBatch batch;
+
+		// 每一行依次保存y,高度,下一个可用的x
+		final IntArray shelves = new IntArray();
+
+		int nextY;
+
+		int lastUsed;
+
+		final IntArray chars = new IntArray();
+
+		Page(int size) {
+			this.size = size;
+		}
+
+		/**
+		 * 在已有的行中寻找高度合适(不浪费过多空间)且剩余宽度足够的位置,没有则新开一行,纹理页已满时返回false
+		 */
+		boolean alloc(Glyph glyph) {
+			final int w = glyph.width + PADDING;
+			final int h = glyph.height + PADDING;
+			if (w > size || h > size) {
+				return false;
+			}
+			final int[] list = shelves.items;
+			int best = -1;
+			for (int i = 0; i < shelves.length; i += 3) {
+				final int shelfHeight = list[i + 1];
+				if (shelfHeight >= h && shelfHeight <= h + (h >> 1)
+						&& list[i + 2] + w <= size) {
+					if (best == -1 || shelfHeight < list[best + 1]) {
+						best = i;
+					}
+				}
+			}
+			if (best == -1) {
+				if (nextY + h > size) {
+					return false;
+				}
+				best = shelves.length;
+				shelves.add(nextY);
+				shelves.add(h);
+				shelves.add(0);
+				nextY += h;
+			}
+			glyph.x = shelves.items[best + 2];
+			glyph.y = shelves.items[best];
+			shelves.items[best + 2] += w;
+			return true;
+		}
+
+		void reset() {
+			shelves.clear();
+			chars.clear();
+			nextY = 0;
+			if (canvas != null) {
+				canvas.clear();
+			}
+		}
+
+		void close() {
+			if (batch != null) {
+				batch.close();
+				batch = null;
+			}
+			if (texture != null) {
+				texture.close(true);
+				texture = null;
+			}
+			if (canvas != null) {
+				canvas.close();
+				canvas = null;
+			}
+		}
+	}
+
+	private final LFont font;
+
+	private final int pageSize;
+
+	private final TArray<Page> pages = new TArray<Page>(MAX_PAGES);
+
+	private final IntMap<Glyph> glyphs = new IntMap<Glyph>();
+
+	private final Glyph[] asciiGlyphs = new Glyph[128];
+
+	private ByteBuffer uploadBuffer;
+
+	private int stamp;
+
+	private int version;
+
+	private int maxHeight;
+
+	private int refCount;
+
+	private boolean closed;
+
+	public LSTRAtlas(LFont font) {
+		this.font = font;
+		int size = 512;
+		while (size < 2048 && size < font.getHeight() * 16) {
+			size *= 2;
+		}
+		this.pageSize = size;
+		this.maxHeight = font.getHeight();
+	}
+
+	public LFont getFont() {
+		return font;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	public int getPageCount() {
+		return pages.size;
+	}
+
+	public LTexture getTexture(int page) {
+		return page < pages.size ? pages.get(page).texture : null;
+	}
+
+	public LTextureBatch getBatch(int page) {
+		return page < pages.size ? pages.get(page).batch : null;
+	}
+
+	/**
+	 * 每当有纹理页被清空时增加,已缓存的文字顶点需要在版本变化后重建
+	 *
+	 * @return
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	public int getMaxHeight() {
+		return maxHeight;
+	}
+
+	/**
+	 * 开始一次新的使用(例如绘制一个字符串),此后用到的纹理页在本次使用中不会被清空
+	 */
+	public void use() {
+		stamp++;
+	}
+
+	/**
+	 * 标记指定纹理页在本次绘制中被使用
+	 *
+	 * @param page
+	 */
+	public void touch(int page) {
+		if (page >= 0 && page < pages.size) {
+			pages.get(page).lastUsed = stamp;
+		}
+	}
+
+	/**
+	 * 获得已存在的文字,不存在则返回null
+	 *
+	 * @param ch
+	 * @return
+	 */
+	public Glyph find(char ch) {
+		return ch < 128 ? asciiGlyphs[ch] : glyphs.get(ch);
+	}
+
+	/**
+	 * 获得文字,不存在时绘制到纹理集中
+	 *
+	 * @param ch
+	 * @return
+	 */
+	public Glyph getGlyph(char ch) {
+		if (closed) {
+			return null;
+		}
+		Glyph glyph = find(ch);
+		if (glyph == null) {
+			glyph = addGlyph(ch);
+		}
+		if (glyph != null) {
+			pages.get(glyph.page).lastUsed = stamp;
+		}
+		return glyph;
+	}
+
+	/**
+	 * 预先绘制一组文字
+	 *
+	 * @param chars
+	 */
+	public void add(char[] chars) {
+		if (chars == null) {
+			return;
+		}
+		use();
+		for (int i = 0; i < chars.length; i++) {
+			getGlyph(chars[i]);
+		}
+	}
+
+	private Glyph addGlyph(char ch) {
+		TextLayout layout = font.getLayoutText(String.valueOf(ch));
+		int charWidth = layout.charWidth(ch);
+		if (charWidth <= 0) {
+			charWidth = 1;
+		}
+		int charHeight = layout.getHeight();
+		if (charHeight <= 0) {
+			charHeight = font.getSize();
+		} else if (StringUtils.isAlphabet(ch)) {
+			if (ch == 'i' && charHeight > 24) {
+				charHeight -= 4;
+			}
+		}
+		Glyph glyph = new Glyph(ch, charWidth, charHeight);
+		Page page = alloc(glyph);
+		if (page == null) {
+			return null;
+		}
+		page.chars.add(ch);
+		if (ch < 128) {
+			asciiGlyphs[ch] = glyph;
+		} else {
+			glyphs.put(ch, glyph);
+		}
+		if (charHeight > maxHeight) {
+			maxHeight = charHeight;
+		}
+		page.canvas.clearRect(glyph.x, glyph.y, glyph.width, glyph.height);
+		page.canvas.fillText(layout, glyph.x, glyph.y);
+		upload(page, glyph.x, glyph.y, glyph.width, glyph.height);
+		return glyph;
+	}
+
+	private Page alloc(Glyph glyph) {
+		for (int i = 0; i < pages.size; i++) {
+			Page page = pages.get(i);
+			if (page.alloc(glyph)) {
+				glyph.page = i;
+				return page;
+			}
+		}
+		// 所有纹理页都已装满,清空最久未使用的一页
+		int oldest = -1;
+		if (pages.size >= MAX_PAGES) {
+			for (int i = 0; i < pages.size; i++) {
+				Page page = pages.get(i);
+				if (page.lastUsed != stamp
+						&& (oldest == -1 || page.lastUsed < pages.get(oldest).lastUsed)) {
+					oldest = i;
+				}
+			}
+		}
+		if (oldest == -1) {
+			// 页数未到上限,或者全部纹理页都在本次使用中(清空会丢失正在绘制的文字),此时增加新的一页
+			Page page = newPage();
+			pages.add(page);
+			if (page.alloc(glyph)) {
+				glyph.page = pages.size - 1;
+				return page;
+			}
+			return null;
+		}
+		Page page = pages.get(oldest);
+		evict(page);
+		if (page.alloc(glyph)) {
+			glyph.page = oldest;
+			return page;
+		}
+		return null;
+	}
+
+	private void evict(Page page) {
+		final int[] list = page.chars.items;
+		for (int i = 0; i < page.chars.length; i++) {
+			int ch = list[i];
+			if (ch < 128) {
+				asciiGlyphs[ch] = null;
+			} else {
+				glyphs.remove(ch);
+			}
+		}
+		page.reset();
+		upload(page, 0, 0, pageSize, pageSize);
+		version++;
+	}
+
+	private Page newPage() {
+		Page page = new Page(pageSize);
+		page.canvas = LSystem.base().graphics()
+				.createCanvas(pageSize, pageSize);
+		page.canvas.setColor(LColor.white);
+		page.canvas.setFont(font);
+		// 纹理以画布图像作为来源,重新载入纹理时可以直接恢复全部文字
+		page.texture = page.canvas.image.createTexture(LTexture.Format.LINEAR);
+		page.batch = new LTextureBatch(page.texture);
+		page.batch.setBlendState(BlendState.AlphaBlend);
+		return page;
+	}
+
+	/**
+	 * 把画布中指定区域的像素(转换为预乘透明度的RGBA)上传到纹理的对应位置
+	 */
+	private void upload(Page page, int x, int y, int width, int height) {
+		final float scale = page.canvas.image.pixelWidth()
+				/ page.canvas.image.width();
+		final int maxWidth = page.canvas.image.pixelWidth();
+		final int maxHeight = page.canvas.image.pixelHeight();
+		final int px = MathUtils.min(MathUtils.floor(x * scale), maxWidth);
+		final int py = MathUtils.min(MathUtils.floor(y * scale), maxHeight);
+		final int pw = MathUtils.min(MathUtils.ceil((x + width) * scale),
+				maxWidth) - px;
+		final int ph = MathUtils.min(MathUtils.ceil((y + height) * scale),
+				maxHeight) - py;
+		if (pw <= 0 || ph <= 0) {
+			return;
+		}
+		final int[] pixels = page.canvas.image.getPixels(px, py, pw, ph);
+		final int bytes = pw * ph * 4;
+		if (uploadBuffer == null || uploadBuffer.capacity() < bytes) {
+			uploadBuffer = LSystem.base().support()
+					.newByteBuffer(MathUtils.max(bytes, 4096));
+		}
+		final ByteBuffer buffer = uploadBuffer;
+		buffer.clear();
+		for (int i = 0, size = pw * ph; i < size; i++) {
+			final int argb = pixels[i];
+			final int a = (argb >>> 24) & 0xFF;
+			buffer.put((byte) (((argb >> 16) & 0xFF) * a / 255));
+			buffer.put((byte) (((argb >> 8) & 0xFF) * a / 255));
+			buffer.put((byte) ((argb & 0xFF) * a / 255));
+			buffer.put((byte) a);
+		}
+		buffer.flip();
+		final GL20 gl = LSystem.base().graphics().gl;
+		GLUtils.bindTexture(gl, page.texture.getID());
+		gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, px, py, pw, ph,
+				GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE, buffer);
+		LTextureBatch.isBatchCacheDitry = true;
+	}
+
+	public void reference() {
+		refCount++;
+	}
+
+	/**
+	 * 释放一次引用,引用全部释放后关闭纹理集
+	 */
+	public void release() {
+		if (--refCount <= 0) {
+			close();
+		}
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		for (int i = 0; i < pages.size; i++) {
+			pages.get(i).close();
+		}
+		pages.clear();
+		glyphs.clear();
+		for (int i = 0; i < asciiGlyphs.length; i++) {
+			asciiGlyphs[i] = null;
+		}
+		uploadBuffer = null;
+		refCount = 0;
+		closed = true;
+	}
+
+}
@@ -75,6 +75,10 @@ public final class LSTRDictionary {
 	private final ObjectMap<LFont, Dict> englishFontList = new ObjectMap<LFont, Dict>(
 			20);
 
+	// 名称,样式,大小相同的字体共用一个文字纹理集
+	private final ObjectMap<String, LSTRAtlas> atlasList = new ObjectMap<String, LSTRAtlas>(
+			20);
+
 	// 每次渲染图像到纹理时，同时追加一些常用非中文标记上去，以避免LSTRFont反复重构纹理
 	private final static String ADDED = " 0123456789abcdefgABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz:.^,!?@#$%^&*(){}[]<>\"'\\/+-~～▼【】，。…？！";
 
@@ -237,7 +241,7 @@ public final class LSTRDictionary {
 			}
 			if (pDict == null) {
 				pDict = Dict.newDict();
-				pDict.font = new LSTRFont(font, ADDED, tmp_asyn);
+				pDict.font = new LSTRFont(getAtlas(font), ADDED, tmp_asyn);
 				englishFontList.put(font, pDict);
 			}
 			return (_lastDict = pDict);
@@ -259,8 +263,7 @@ public final class LSTRDictionary {
 					}
 				}
 			}
-			String fontFlag = font.getFontName() + "_" + font.getStyle() + "_"
-					+ font.getSize();
+			String fontFlag = makeFontFlag(font);
 			Dict pDict = fontList.get(fontFlag);
 			if (pDict != null && pDict.isClose()) {
 				fontList.remove(fontFlag);
@@ -286,23 +289,26 @@ public final class LSTRDictionary {
 						}
 					}
 					int newSize = charas.size;
-					// 如果旧有大小，不等于新的纹理字符大小，重新扩展LSTRFont纹理字符
+					// 出现新的文字时，只把新增的文字补充绘制到纹理集中，已有的LSTRFont继续使用
 					if (oldSize != newSize) {
-						if (pDict.font != null) {
-							pDict.font.close();
-							pDict.font = null;
-						}
 						if (tmpBuffer == null) {
 							tmpBuffer = new StringBuffer(newSize);
 						} else {
 							tmpBuffer.delete(0, tmpBuffer.length());
 						}
-						for (int i = 0; i < newSize; i++) {
-							tmpBuffer.append(charas.get(i));
+						if (pDict.font != null && !pDict.font.isClose()) {
+							for (int i = oldSize; i < newSize; i++) {
+								tmpBuffer.append(charas.get(i));
+							}
+							pDict.font.addChars(tmpBuffer.toString());
+						} else {
+							for (int i = 0; i < newSize; i++) {
+								tmpBuffer.append(charas.get(i));
+							}
+							// 个别浏览器纹理同步会卡出国，只能异步……
+							pDict.font = new LSTRFont(getAtlas(font),
+									tmpBuffer.toString(), tmp_asyn);
 						}
-						// 个别浏览器纹理同步会卡出国，只能异步……
-						pDict.font = new LSTRFont(font, tmpBuffer.toString(),
-								tmp_asyn);
 					}
 				}
 			}
@@ -311,6 +317,29 @@ public final class LSTRDictionary {
 		}
 	}
 
+	private final static String makeFontFlag(LFont font) {
+		return font.getFontName() + "_" + font.getStyle() + "_"
+				+ font.getSize();
+	}
+
+	/**
+	 * 获得指定字体共用的文字纹理集
+	 * 
+	 * @param font
+	 * @return
+	 */
+	public final LSTRAtlas getAtlas(LFont font) {
+		synchronized (atlasList) {
+			String fontFlag = makeFontFlag(font);
+			LSTRAtlas atlas = atlasList.get(fontFlag);
+			if (atlas == null || atlas.isClosed()) {
+				atlas = new LSTRAtlas(font);
+				atlasList.put(fontFlag, atlas);
+			}
+			return atlas;
+		}
+	}
+
 	public final void drawString(LFont font, String message, float x, float y,
 			float angle, LColor c) {
 		Dict pDict = bind(font, message);
@@ -411,6 +440,9 @@ public final class LSTRDictionary {
 		cacheList.clear();
 		clearStringLazy();
 		clearEnglishLazy();
+		synchronized (atlasList) {
+			atlasList.clear();
+		}
 	}
 
 }
@@ -25,19 +25,21 @@ import loon.LSystem;
 import loon.LTexture;
 import loon.LTextureBatch;
 import loon.LTextureBatch.Cache;
-import loon.canvas.Canvas;
 import loon.canvas.LColor;
 import loon.event.Updateable;
 import loon.font.LFont;
 import loon.font.TextLayout;
 import loon.geom.Affine2f;
+import loon.opengl.LSTRAtlas.Glyph;
 import loon.utils.CharArray;
 import loon.utils.GLUtils;
-import loon.utils.IntMap;
 import loon.utils.MathUtils;
 import loon.utils.ObjectMap;
 import loon.utils.StringUtils;
 
+/**
+ * 以纹理集(LSTRAtlas)绘制文字,构建时预先绘制指定的文字,绘制时遇到新文字只补充绘制新文字,已有文字与缓存不受影响.
+ */
 public class LSTRFont implements LRelease {
 
 	private class UpdateStringFont implements Updateable {
@@ -52,94 +54,30 @@ public class LSTRFont implements LRelease {
 		public void action(Object a) {
 			strfont.fontSize = (int) strfont.font.getSize();
 			strfont.ascent = strfont.font.getAscent();
-			if (strfont.additionalChars != null
-					&& strfont.additionalChars.length > strfont.totalCharSet) {
-				strfont.textureWidth *= 2;
+			if (!strfont.atlas.isClosed()) {
+				strfont.atlas.add(strfont.additionalChars);
+				strfont.fontBatch = strfont.atlas.getBatch(0);
+				strfont.cacheVersion = strfont.atlas.getVersion();
 			}
-			Canvas canvas = LSystem.base().graphics()
-					.createCanvas(strfont.textureWidth, strfont.textureHeight);
-			canvas.setColor(LColor.white);
-			canvas.setFont(strfont.font);
-			int rowHeight = 0;
-			int positionX = 0;
-			int positionY = 0;
-			int customCharsLength = (strfont.additionalChars != null) ? strfont.additionalChars.length
-					: 0;
-			strfont.totalCharSet = customCharsLength == 0 ? strfont.totalCharSet
-					: 0;
-			StringBuilder sbr = new StringBuilder(strfont.totalCharSet);
-
-			for (int i = 0, size = strfont.totalCharSet + customCharsLength; i < size; i++) {
-				char ch = (i < strfont.totalCharSet) ? (char) i
-						: strfont.additionalChars[i - strfont.totalCharSet];
-
-				TextLayout layout = strfont.font.getLayoutText(String
-						.valueOf(ch));
-
-				int charwidth = layout.charWidth(ch);
-
-				if (charwidth <= 0) {
-					charwidth = 1;
-				}
-
-				int charheight = (int) layout.getHeight();
-				if (charheight <= 0) {
-					charheight = strfont.fontSize;
-				} else if (StringUtils.isAlphabet(ch)) {
-					if (ch == 'i' && charheight > 24) {
-						charheight -= 4;
-					}
-				}
-
-				IntObject newIntObject = new IntObject();
-
-				newIntObject.width = charwidth;
-				newIntObject.height = charheight;
-
-				if (positionX + newIntObject.width >= strfont.textureWidth) {
-					layout = strfont.font.getLayoutText(sbr.toString());
-					canvas.fillText(layout, 0, positionY);
-					sbr.delete(0, sbr.length());
-					positionX = 0;
-					positionY += rowHeight;
-					rowHeight = 0;
-				}
+			strfont._initChars = true;
+			strfont.isDrawing = false;
+		}
 
-				newIntObject.storedX = positionX;
-				newIntObject.storedY = positionY;
+	}
 
-				if (newIntObject.height > strfont.fontHeight) {
-					strfont.fontHeight = newIntObject.height;
-				}
+	private static class Display {
 
-				if (newIntObject.height > rowHeight) {
-					rowHeight = newIntObject.height;
-				}
+		LTextureBatch batch;
 
-				sbr.append(ch);
+		Cache cache;
 
-				positionX += newIntObject.width;
+		// 缓存的顶点所在的纹理页
+		int page;
 
-				if (i < strfont.totalCharSet) {
-					strfont.charArray[i] = newIntObject;
-				} else {
-					strfont.customChars.put(ch, newIntObject);
-				}
-			}
-			if (sbr.length() > 0) {
-				TextLayout layout = strfont.font.getLayoutText(sbr.toString());
-				canvas.fillText(layout, 0, positionY);
-				sbr = null;
-			}
-			LTextureBatch tmpbatch = strfont.fontBatch;
-			strfont.fontBatch = new LTextureBatch(
-					strfont.texture = canvas.toTexture());
-			strfont.fontBatch.setBlendState(BlendState.AlphaBlend);
-			if (tmpbatch != null) {
-				tmpbatch.close();
-			}
-			strfont._initChars = true;
-			strfont.isDrawing = false;
+		Display(LTextureBatch batch, Cache cache, int page) {
+			this.batch = batch;
+			this.cache = cache;
+			this.page = page;
 		}
 
 	}
@@ -152,27 +90,21 @@ public class LSTRFont implements LRelease {
 
 	private char newLineFlag = '\n';
 
-	private LTexture texture;
-
-	private boolean useCache, isDrawing, isasyn;
+	private boolean useCache, isDrawing, isasyn, charDrawing;
 
 	private float offsetX = 1, offsetY = 1;
 
-	private ObjectMap<String, Cache> displays;
-
-	private int totalCharSet = 256;
+	private ObjectMap<String, Display> displays;
 
-	private IntMap<IntObject> customChars = new IntMap<IntObject>();
-
-	private IntObject[] charArray = new IntObject[totalCharSet];
+	private int cacheVersion;
 
 	private LColor[] colors = null;
 
 	private LFont font;
 
-	private IntObject intObject;
+	private LSTRAtlas atlas;
 
-	private Cache display;
+	private Glyph glyph;
 
 	private float ascent;
 
@@ -180,28 +112,10 @@ public class LSTRFont implements LRelease {
 
 	private int totalWidth = 0, totalHeight = 0;
 
-	private int textureWidth = 512;
-
-	private int textureHeight = 512;
-
 	private int fontSize = 0;
 
-	private int fontHeight = 0;
-
 	private LTextureBatch fontBatch;
 
-	private class IntObject {
-
-		public int width;
-
-		public int height;
-
-		public int storedX;
-
-		public int storedY;
-
-	}
-
 	private boolean _initChars = false;
 
 	private char[] additionalChars = null;
@@ -230,23 +144,35 @@ public class LSTRFont implements LRelease {
 		this(font, StringUtils.unificationStrings(strings).toCharArray(), asyn);
 	}
 
+	public LSTRFont(LFont font, char[] chs, boolean asyn) {
+		this(new LSTRAtlas(font), chs, asyn);
+	}
+
+	public LSTRFont(LSTRAtlas atlas, String strings, boolean asyn) {
+		this(atlas, strings.toCharArray(), asyn);
+	}
+
 	private String text;
 
 	public String getText() {
 		return text;
 	}
 
-	public LSTRFont(LFont font, char[] chs, boolean asyn) {
-		this.displays = new ObjectMap<String, Cache>(totalCharSet);
+	/**
+	 * 使用指定的纹理集构建LSTRFont,使用同一纹理集的LSTRFont共享已绘制的文字
+	 *
+	 * @param atlas
+	 * @param chs
+	 * @param asyn
+	 */
+	public LSTRFont(LSTRAtlas atlas, char[] chs, boolean asyn) {
+		this.displays = new ObjectMap<String, Display>(256);
 		this.useCache = true;
-		this.font = font;
+		this.atlas = atlas;
+		this.font = atlas.getFont();
 		this.isasyn = asyn;
 		this.fontSize = font.getSize();
-		this.fontHeight = font.getHeight();
 		this.ascent = font.getAscent();
-		int customCharsLength = (additionalChars != null) ? additionalChars.length
-				: 0;
-		this.totalCharSet = customCharsLength == 0 ? totalCharSet : 0;
 		if (chs != null && chs.length > 0) {
 			int size = chs.length;
 			CharArray chars = new CharArray();
@@ -258,13 +184,10 @@ public class LSTRFont implements LRelease {
 			if (chs.length == chars.length) {
 				this.additionalChars = chs;
 			} else {
-				this.additionalChars = chars.items;
+				this.additionalChars = chars.toArray();
 			}
 			this.text = new String(additionalChars);
-			if (additionalChars != null
-					&& additionalChars.length > totalCharSet) {
-				textureWidth *= 2;
-			}
+			atlas.reference();
 			this.make(asyn);
 			chars = null;
 		}
@@ -299,8 +222,24 @@ public class LSTRFont implements LRelease {
 		}
 	}
 
+	/**
+	 * 预先把指定文字绘制到纹理集中(绘制时缺少的文字也会自动补充)
+	 *
+	 * @param chars
+	 */
+	public void addChars(String chars) {
+		if (_isClose || processing() || StringUtils.isEmpty(chars)) {
+			return;
+		}
+		atlas.add(chars.toCharArray());
+	}
+
+	public LSTRAtlas getAtlas() {
+		return atlas;
+	}
+
 	public LTexture getTexture() {
-		return texture;
+		return atlas.getTexture(0);
 	}
 
 	public void drawString(String chars, float x, float y) {
@@ -329,6 +268,79 @@ public class LSTRFont implements LRelease {
 				chars.length() - 1);
 	}
 
+	/**
+	 * 准备字符串中的全部文字,若全部位于同一纹理页则返回该页序号,否则返回-1
+	 */
+	private int prepareGlyphs(String chars) {
+		atlas.use();
+		int page = -2;
+		for (int i = 0, size = chars.length(); i < size; i++) {
+			char ch = chars.charAt(i);
+			if (ch == newLineFlag) {
+				continue;
+			}
+			Glyph g = atlas.getGlyph(ch);
+			if (g != null) {
+				if (page == -2) {
+					page = g.getPage();
+				} else if (page != g.getPage()) {
+					page = -1;
+				}
+			}
+		}
+		checkVersion();
+		return page == -2 ? 0 : page;
+	}
+
+	/**
+	 * 纹理集有纹理页被清空时,已缓存的顶点不再有效
+	 */
+	private void checkVersion() {
+		if (cacheVersion != atlas.getVersion()) {
+			clearDisplays();
+			cacheVersion = atlas.getVersion();
+		}
+	}
+
+	private void clearDisplays() {
+		synchronized (displays) {
+			for (Display d : displays.values()) {
+				if (d != null && d.cache != null) {
+					d.cache.close();
+				}
+			}
+			displays.clear();
+		}
+	}
+
+	private void drawGlyphs(LTextureBatch batch, int page, String chars,
+			int startIndex, int endIndex) {
+		this.glyph = null;
+		this.totalWidth = 0;
+		this.totalHeight = 0;
+		for (int i = 0, size = chars.length(); i < size; i++) {
+			charCurrent = chars.charAt(i);
+			if (charCurrent == newLineFlag) {
+				totalHeight += fontSize;
+				totalWidth = 0;
+				continue;
+			}
+			glyph = atlas.find((char) charCurrent);
+			if (glyph != null) {
+				if (glyph.getPage() == page
+						&& ((i >= startIndex) || (i <= endIndex))) {
+					batch.drawQuad(totalWidth, totalHeight,
+							(totalWidth + glyph.width) - offsetX,
+							(totalHeight + glyph.height) - offsetY,
+							glyph.getX(), glyph.getY(), glyph.getX()
+									+ glyph.width - offsetX, glyph.getY()
+									+ glyph.height - offsetY);
+				}
+				totalWidth += glyph.width;
+			}
+		}
+	}
+
 	private void drawString(float x, float y, float sx, float sy, float ax,
 			float ay, float rotation, String chars, LColor c, int startIndex,
 			int endIndex) {
@@ -342,105 +354,54 @@ public class LSTRFont implements LRelease {
 		if (processing()) {
 			return;
 		}
-		if (StringUtils.isEmpty(chars)) {
-			return;
-		}
 		if (_initDraw < 1) {
 			_initDraw++;
 			return;
 		}
-		if (texture.isClose()) {
-			return;
-		}
 		if (displays.size > LSystem.DEFAULT_MAX_CACHE_SIZE) {
-			synchronized (displays) {
-				for (Cache cache : displays.values()) {
-					if (cache != null) {
-						cache.close();
-						cache = null;
-					}
-				}
-			}
-			displays.clear();
+			clearDisplays();
 		}
-
-		this.intObject = null;
-		this.charCurrent = 0;
-		this.totalWidth = 0;
-		this.totalHeight = 0;
 		if (rotation != 0 && (ax == 0 && ay == 0)) {
 			TextLayout layout = font.getLayoutText(chars);
 			ax = layout.bounds.width / 2;
 			ay = layout.bounds.height;
 		}
-		if (useCache) {
-			display = displays.get(chars);
-			if (display == null) {
-				fontBatch.begin();
-				float old = fontBatch.getFloatColor();
-				fontBatch.setColor(c);
-				char[] charList = chars.toCharArray();
-				for (int i = 0; i < charList.length; i++) {
-					charCurrent = charList[i];
-					if (charCurrent < totalCharSet) {
-						intObject = charArray[charCurrent];
-					} else {
-						intObject = customChars.get(charCurrent);
-					}
-					if (charCurrent == newLineFlag) {
-						totalHeight += fontSize;
-						totalWidth = 0;
-					}
-					if (intObject != null) {
-						if ((i >= startIndex) || (i <= endIndex)) {
-							fontBatch.drawQuad(totalWidth, totalHeight,
-									(totalWidth + intObject.width) - offsetX,
-									(totalHeight + intObject.height) - offsetY,
-									intObject.storedX, intObject.storedY,
-									intObject.storedX + intObject.width
-											- offsetX, intObject.storedY
-											+ intObject.height - offsetY);
-						}
-						totalWidth += intObject.width;
-					}
+		checkVersion();
+		Display display = useCache ? displays.get(chars) : null;
+		if (display != null) {
+			atlas.use();
+			// 缓存绘制不经过getGlyph,需要另外标记纹理页正在使用,以免被当作最久未使用的页清空
+			atlas.touch(display.page);
+			display.batch.postCache(display.cache, c, x, y, sx, sy, ax, ay,
+					rotation);
+			return;
+		}
+		final int page = prepareGlyphs(chars);
+		if (page >= 0) {
+			LTextureBatch batch = atlas.getBatch(page);
+			batch.begin();
+			float old = batch.getFloatColor();
+			batch.setColor(c);
+			drawGlyphs(batch, page, chars, startIndex, endIndex);
+			batch.commit(x, y, sx, sy, ax, ay, rotation);
+			batch.setColor(old);
+			if (useCache) {
+				Cache cache = batch.newCache();
+				if (cache != null) {
+					displays.put(chars, new Display(batch, cache, page));
 				}
-				fontBatch.commit(x, y, sx, sy, ax, ay, rotation);
-				fontBatch.setColor(old);
-				displays.put(chars, display = fontBatch.newCache());
-			} else if (display != null && fontBatch != null
-					&& fontBatch.toTexture() != null) {
-				fontBatch.postCache(display, c, x, y, sx, sy, ax, ay, rotation);
 			}
 		} else {
-			fontBatch.begin();
-			float old = fontBatch.getFloatColor();
-			fontBatch.setColor(c);
-			char[] charList = chars.toCharArray();
-			for (int i = 0; i < charList.length; i++) {
-				charCurrent = charList[i];
-				if (charCurrent < totalCharSet) {
-					intObject = charArray[charCurrent];
-				} else {
-					intObject = customChars.get(charCurrent);
-				}
-				if (charCurrent == newLineFlag) {
-					totalHeight += fontSize;
-					totalWidth = 0;
-				}
-				if (intObject != null) {
-					if ((i >= startIndex) || (i <= endIndex)) {
-						fontBatch.drawQuad(totalWidth, totalHeight,
-								(totalWidth + intObject.width) - offsetX,
-								(totalHeight + intObject.height) - offsetY,
-								intObject.storedX, intObject.storedY,
-								intObject.storedX + intObject.width - offsetX,
-								intObject.storedY + intObject.height - offsetY);
-					}
-					totalWidth += intObject.width;
-				}
+			// 文字分布在多个纹理页时逐页绘制,不做缓存
+			for (int i = 0, size = atlas.getPageCount(); i < size; i++) {
+				LTextureBatch batch = atlas.getBatch(i);
+				batch.begin();
+				float old = batch.getFloatColor();
+				batch.setColor(c);
+				drawGlyphs(batch, i, chars, startIndex, endIndex);
+				batch.commit(x, y, sx, sy, ax, ay, rotation);
+				batch.setColor(old);
 			}
-			fontBatch.setColor(old);
-			fontBatch.commit(x, y, sx, sy, ax, ay, rotation);
 		}
 	}
 
@@ -492,23 +453,16 @@ public class LSTRFont implements LRelease {
 		if (processing()) {
 			return;
 		}
-		if (StringUtils.isEmpty(chars)) {
-			return;
-		}
 		if (_initDraw < 1) {
 			_initDraw++;
 			return;
 		}
-		if (texture.isClose()) {
-			return;
-		}
-		this.intObject = null;
+		prepareGlyphs(chars);
+		this.glyph = null;
 		this.charCurrent = 0;
 		this.totalWidth = 0;
 		this.totalHeight = 0;
-		final LTexture texture = fontBatch.toTexture();
 		int old = gl.color();
-		char[] charList = chars.toCharArray();
 		final boolean anchor = ax != 0 || ay != 0;
 		final boolean scale = sx != 1f || sy != 1f;
 		final boolean angle = rotation != 0;
@@ -536,31 +490,27 @@ public class LSTRFont implements LRelease {
 					xf.translate(ax, ay);
 				}
 			}
-			for (int i = 0; i < charList.length; i++) {
-				charCurrent = charList[i];
-				if (charCurrent < totalCharSet) {
-					intObject = charArray[charCurrent];
-				} else {
-					intObject = customChars.get(charCurrent);
-				}
+			for (int i = 0, size = chars.length(); i < size; i++) {
+				charCurrent = chars.charAt(i);
 				if (charCurrent == newLineFlag) {
 					totalHeight += fontSize;
 					totalWidth = 0;
+					continue;
 				}
-
-				if (intObject != null) {
+				glyph = atlas.find((char) charCurrent);
+				if (glyph != null) {
 					if ((i >= startIndex) || (i <= endIndex)) {
-						gl.draw(texture,
+						gl.draw(atlas.getTexture(glyph.getPage()),
 								x + totalWidth,
 								y + totalHeight,
-								intObject.width * sx,
-								intObject.height * sy,
-								StringUtils.isChinese((char) charCurrent) ? intObject.storedX
-										- updateX
-										: intObject.storedX, intObject.storedY,
-								intObject.width, intObject.height - updateY, c);
+								glyph.width * sx,
+								glyph.height * sy,
+								StringUtils.isChinese((char) charCurrent) ? glyph
+										.getX() - updateX : glyph.getX(),
+								glyph.getY(), glyph.width, glyph.height
+										- updateY, c);
 					}
-					totalWidth += intObject.width;
+					totalWidth += glyph.width;
 				}
 			}
 		} finally {
@@ -591,38 +541,41 @@ public class LSTRFont implements LRelease {
 			_initDraw++;
 			return;
 		}
-		if (texture.isClose()) {
-			return;
-		}
 		this.charCurrent = c;
-		if (charCurrent < totalCharSet) {
-			intObject = charArray[charCurrent];
-		} else {
-			intObject = customChars.get(charCurrent);
-		}
-		if (intObject != null) {
+		glyph = atlas.getGlyph(c);
+		if (glyph != null) {
+			LTextureBatch batch = atlas.getBatch(glyph.getPage());
+			// 文字位于其他纹理页时,先提交当前页再切换
+			if (batch != fontBatch) {
+				if (charDrawing) {
+					endCharBatch();
+					fontBatch = batch;
+					fontBatch.begin();
+					charDrawing = true;
+				} else {
+					fontBatch = batch;
+				}
+			}
 			if (color != null) {
 				setImageColor(color);
 			}
 			if (c == newLineFlag) {
-				fontBatch.draw(colors, x, y + fontSize, intObject.width
-						- offsetX, intObject.height - offsetY,
-						intObject.storedX, intObject.storedY, intObject.storedX
-								+ intObject.width - offsetX, intObject.storedY
-								+ intObject.height - offsetY);
+				fontBatch.draw(colors, x, y + fontSize, glyph.width - offsetX,
+						glyph.height - offsetY, glyph.getX(), glyph.getY(),
+						glyph.getX() + glyph.width - offsetX, glyph.getY()
+								+ glyph.height - offsetY);
 			} else {
-				fontBatch.draw(colors, x, y, intObject.width - offsetX,
-						intObject.height - offsetY, intObject.storedX,
-						intObject.storedY, intObject.storedX + intObject.width
-								- offsetX, intObject.storedY + intObject.height
-								- offsetY);
+				fontBatch.draw(colors, x, y, glyph.width - offsetX,
+						glyph.height - offsetY, glyph.getX(), glyph.getY(),
+						glyph.getX() + glyph.width - offsetX, glyph.getY()
+								+ glyph.height - offsetY);
 			}
 			if (colors != null) {
 				colors = null;
 			}
 		}
 	}
-	
+
 	public void startChar() {
 		if (_isClose) {
 			return;
@@ -635,10 +588,10 @@ public class LSTRFont implements LRelease {
 			_initDraw++;
 			return;
 		}
-		if (texture.isClose()) {
-			return;
-		}
+		atlas.use();
+		checkVersion();
 		fontBatch.begin();
+		charDrawing = true;
 	}
 
 	public void stopChar() {
@@ -653,9 +606,12 @@ public class LSTRFont implements LRelease {
 		if (processing()) {
 			return;
 		}
-		if (texture.isClose()) {
-			return;
+		if (charDrawing) {
+			endCharBatch();
 		}
+	}
+
+	private void endCharBatch() {
 		GL20 g = LSystem.base().graphics().gl;
 		if (g != null) {
 			int old = GLUtils.getBlendMode();
@@ -663,10 +619,11 @@ public class LSTRFont implements LRelease {
 			fontBatch.end();
 			GLUtils.setBlendMode(g, old);
 		}
+		charDrawing = false;
 	}
 
 	private boolean processing() {
-		return fontBatch == null || isDrawing;
+		return fontBatch == null || isDrawing || atlas.isClosed();
 	}
 
 	public void postCharCache() {
@@ -677,9 +634,6 @@ public class LSTRFont implements LRelease {
 		if (processing()) {
 			return;
 		}
-		if (texture.isClose()) {
-			return;
-		}
 		GL20 g = LSystem.base().graphics().gl;
 		if (g != null) {
 			int old = GLUtils.getBlendMode();
@@ -697,9 +651,6 @@ public class LSTRFont implements LRelease {
 		if (processing()) {
 			return null;
 		}
-		if (texture.isClose()) {
-			return null;
-		}
 		fontBatch.disposeLastCache();
 		return fontBatch.newCache();
 	}
@@ -744,16 +695,9 @@ public class LSTRFont implements LRelease {
 		if (processing()) {
 			return font.charWidth(c);
 		}
-		if (texture.isClose()) {
-			return 0;
-		}
-		if (c < totalCharSet) {
-			intObject = charArray[c];
-		} else {
-			intObject = customChars.get((int) c);
-		}
-		if (intObject != null) {
-			return intObject.width;
+		Glyph g = atlas.find(c);
+		if (g != null) {
+			return g.width;
 		}
 		return font.charWidth(c);
 	}
@@ -766,28 +710,17 @@ public class LSTRFont implements LRelease {
 		if (processing()) {
 			return font.stringWidth(s);
 		}
-		if (texture.isClose()) {
-			return 0;
-		}
 		int totalWidth = 0;
-		IntObject intObject = null;
-		int currentChar = 0;
-		char[] charList = s.toCharArray();
 		int maxWidth = 0;
-		for (int i = 0; i < charList.length; i++) {
-			currentChar = charList[i];
-			if (currentChar < totalCharSet) {
-				intObject = charArray[currentChar];
-			} else {
-				intObject = customChars.get(currentChar);
-			}
-			if (intObject != null) {
-				if (currentChar == newLineFlag) {
-					maxWidth = MathUtils.max(maxWidth, totalWidth);
-					totalWidth = 0;
-				}
-				totalWidth += intObject.width;
+		for (int i = 0, size = s.length(); i < size; i++) {
+			char currentChar = s.charAt(i);
+			if (currentChar == newLineFlag) {
+				maxWidth = MathUtils.max(maxWidth, totalWidth);
+				totalWidth = 0;
+				continue;
 			}
+			Glyph g = atlas.find(currentChar);
+			totalWidth += (g != null) ? g.width : font.charWidth(currentChar);
 		}
 		return MathUtils.max(maxWidth, totalWidth);
 	}
@@ -800,35 +733,26 @@ public class LSTRFont implements LRelease {
 		if (processing()) {
 			return font.stringHeight(s);
 		}
-		if (texture.isClose()) {
-			return 0;
-		}
-		int currentChar = 0;
-		char[] charList = s.toCharArray();
 		int lines = 0;
 		int height = 0;
 		int maxHeight = 0;
-		for (int i = 0; i < charList.length; i++) {
-			currentChar = charList[i];
-			if (currentChar < totalCharSet) {
-				intObject = charArray[currentChar];
-			} else {
-				intObject = customChars.get(currentChar);
-			}
-			if (intObject != null) {
-				maxHeight = MathUtils.max(maxHeight, intObject.height);
-				height = maxHeight;
-			}
+		for (int i = 0, size = s.length(); i < size; i++) {
+			char currentChar = s.charAt(i);
 			if (currentChar == newLineFlag) {
 				lines++;
 				height = 0;
+				continue;
 			}
+			Glyph g = atlas.find(currentChar);
+			maxHeight = MathUtils.max(maxHeight,
+					(g != null) ? g.height : font.getHeight());
+			height = maxHeight;
 		}
 		return lines * getLineHeight() + height;
 	}
 
 	public int getHeight() {
-		return fontHeight;
+		return atlas.getMaxHeight();
 	}
 
 	public int getSize() {
@@ -836,7 +760,7 @@ public class LSTRFont implements LRelease {
 	}
 
 	public int getLineHeight() {
-		return fontHeight;
+		return atlas.getMaxHeight();
 	}
 
 	public float getAscent() {
@@ -847,8 +771,13 @@ public class LSTRFont implements LRelease {
 		return font;
 	}
 
+	/**
+	 * 构建时预先绘制的文字数量
+	 *
+	 * @return
+	 */
 	public int getTotalCharSet() {
-		return totalCharSet;
+		return additionalChars == null ? 0 : additionalChars.length;
 	}
 
 	public boolean isUseCache() {
@@ -900,22 +829,16 @@ public class LSTRFont implements LRelease {
 		if (_isClose) {
 			return;
 		}
-		for (Cache c : displays.values()) {
-			if (c != null) {
-				c.close();
-			}
-		}
-		displays.clear();
+		clearDisplays();
 		if (fontBatch != null) {
-			fontBatch.close();
 			LTextureBatch.isBatchCacheDitry = true;
 			LTextureBatch.clearBatchCaches();
 		}
-		if (texture != null) {
-			texture.close(true);
-		}
+		// 纹理集可能被其他LSTRFont共用,引用全部释放后才会关闭
+		atlas.release();
 		fontBatch = null;
 		isDrawing = false;
+		charDrawing = false;
 		_initChars = false;
 		_initDraw = -1;
 		_isClose = true;
@@ -21,7 +21,9 @@
 package loon.opengl;
 
 import loon.LTexture;
+import loon.LTextures;
 import loon.utils.GLUtils;
+import loon.utils.timer.FrameProfiler;
 
 public class LTextureBind extends GLBase {
 
@@ -65,20 +67,106 @@ public class LTextureBind extends GLBase {
 				+ "#define mediump\n" + "#define highp\n" + "#endif\n";
 	}
 
+	// 渲染提交(flush)的原因
+	public static final int FLUSH_OTHER = 0;
+
+	public static final int FLUSH_TEXTURE = 1;
+
+	public static final int FLUSH_BLEND = 2;
+
+	public static final int FLUSH_SHADER = 3;
+
+	public static final int FLUSH_OVERFLOW = 4;
+
+	private static final int FLUSH_REASONS = 5;
+
 	public final GL20 gl;
 	protected int curTexId;
 
+	private int flushReason = FLUSH_OTHER;
+	private int drawCalls, lastDrawCalls;
+	private final int[] flushCounts = new int[FLUSH_REASONS];
+	private final int[] lastFlushCounts = new int[FLUSH_REASONS];
+
 	public void setTexture(final LTexture texture) {
 		final int id = texture.getID();
 		if (!texture.isLoaded()) {
 			texture.loadTexture();
 		}
+		LTextures.touch(texture);
 		if (curTexId != 0 && curTexId != id) {
-			flush();
+			flush(FLUSH_TEXTURE);
 		}
 		this.curTexId = id;
 	}
 
+	/**
+	 * 以指定原因提交当前缓存的渲染数据(用于统计每帧的提交原因)
+	 * 
+	 * @param reason
+	 */
+	public void flush(int reason) {
+		final int old = flushReason;
+		flushReason = reason;
+		try {
+			flush();
+		} finally {
+			flushReason = old;
+		}
+	}
+
+	/**
+	 * 子类每次实际提交绘图指令时调用,记录一次draw call以及本次提交的原因
+	 */
+	protected final void countDrawCall() {
+		drawCalls++;
+		flushCounts[flushReason]++;
+		FrameProfiler.drawCall();
+	}
+
+	/**
+	 * 将本帧统计转为上一帧记录,并开始新一帧的统计(GLEx在每帧begin时调用)
+	 */
+	public void nextFrameStats() {
+		lastDrawCalls = drawCalls;
+		drawCalls = 0;
+		for (int i = 0; i < FLUSH_REASONS; i++) {
+			lastFlushCounts[i] = flushCounts[i];
+			flushCounts[i] = 0;
+		}
+	}
+
+	/**
+	 * 上一帧的draw call数量
+	 * 
+	 * @return
+	 */
+	public int getDrawCalls() {
+		return lastDrawCalls;
+	}
+
+	/**
+	 * 上一帧中因指定原因产生的提交次数
+	 * 
+	 * @param reason
+	 * @return
+	 */
+	public int getFlushCount(int reason) {
+		if (reason < 0 || reason >= FLUSH_REASONS) {
+			return 0;
+		}
+		return lastFlushCounts[reason];
+	}
+
+	public String getFlushStats() {
+		return "draw:" + lastDrawCalls + " texture:"
+				+ lastFlushCounts[FLUSH_TEXTURE] + " blend:"
+				+ lastFlushCounts[FLUSH_BLEND] + " shader:"
+				+ lastFlushCounts[FLUSH_SHADER] + " overflow:"
+				+ lastFlushCounts[FLUSH_OVERFLOW] + " other:"
+				+ lastFlushCounts[FLUSH_OTHER];
+	}
+
 	@Override
 	public void end() {
 		super.end();
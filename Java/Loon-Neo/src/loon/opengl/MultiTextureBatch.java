@@ -0,0 +1,236 @@
+/**
+ * Copyright 2008 - 2015 The Loon Game Engine Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.opengl;
+
+import loon.LTexture;
+import loon.utils.GLUtils;
+import loon.utils.MathUtils;
+import static loon.opengl.GL20.*;
+
+/**
+ * 多纹理渲染器,同时把最多N张纹理绑定到不同的纹理单元,并在每个顶点中记录所用的纹理单元,
+ * 因此不同纹理的绘制可以合并为一次glDrawElements,只有纹理单元全部占满时才会提交.
+ *
+ * 顶点格式为x,y,u,v,color,unit共6个float.
+ */
+public class MultiTextureBatch extends CompactBatch {
+
+	public static final int DEFAULT_MAX_TEXTURES = 8;
+
+	public static class Source extends CompactBatch.Source {
+
+		public static final String VERT_TEXATTRS = "attribute float a_TexIndex;\n";
+
+		public static final String VERT_TEXVARS = "varying float v_TexIndex;\n";
+
+		public static final String VERT_SETTEXINDEX = "v_TexIndex = a_TexIndex;\n";
+
+		protected final int maxTextures;
+
+		public Source(int maxTextures) {
+			this.maxTextures = maxTextures;
+		}
+
+		public int maxTextures() {
+			return maxTextures;
+		}
+
+		@Override
+		public String vertex() {
+			return (VERT_UNIFS + VERT_ATTRS + VERT_TEXATTRS + VERT_VARS
+					+ VERT_TEXVARS + "void main(void) {\n" + VERT_SETPOS
+					+ VERT_SETTEX + VERT_SETCOLOR + VERT_SETTEXINDEX + "}");
+		}
+
+		@Override
+		protected String textureUniforms() {
+			StringBuilder str = new StringBuilder();
+			for (int i = 0; i < maxTextures; i++) {
+				str.append("uniform lowp sampler2D u_Texture").append(i)
+						.append(";\n");
+			}
+			return str.toString();
+		}
+
+		@Override
+		protected String textureVaryings() {
+			return super.textureVaryings() + "varying mediump float v_TexIndex;\n";
+		}
+
+		@Override
+		protected String textureColor() {
+			// GLSL ES 2.0中sampler只能用常量下标访问,所以展开为判断
+			StringBuilder str = new StringBuilder("  vec4 textureColor;\n");
+			for (int i = 0; i < maxTextures; i++) {
+				if (i > 0) {
+					str.append("  else ");
+				} else {
+					str.append("  ");
+				}
+				if (i < maxTextures - 1) {
+					str.append("if (v_TexIndex < ").append(i).append(".5) ");
+				}
+				str.append("textureColor = texture2D(u_Texture").append(i)
+						.append(", v_TexCoord);\n");
+			}
+			return str.toString();
+		}
+	}
+
+	protected int aTexIndex;
+	protected int[] uTextures;
+	protected int[] unitTexIds;
+	protected int[] boundTexIds;
+	protected int unitCount;
+	protected float texIndex;
+
+	public MultiTextureBatch(GL20 gl) {
+		this(gl, DEFAULT_MAX_TEXTURES);
+	}
+
+	public MultiTextureBatch(GL20 gl, int maxTextures) {
+		this(gl, new Source(usableMaxTextures(gl, maxTextures)));
+	}
+
+	public MultiTextureBatch(GL20 gl, Source source) {
+		super(gl, source);
+	}
+
+	/**
+	 * 当前环境可用的纹理单元数量(不超过给出的最大值)
+	 *
+	 * @param gl
+	 * @param maxTextures
+	 * @return
+	 */
+	public static int usableMaxTextures(GL20 gl, int maxTextures) {
+		int units = gl.glGetInteger(GL_MAX_TEXTURE_IMAGE_UNITS);
+		return MathUtils.max(1, MathUtils.min(units, maxTextures));
+	}
+
+	@Override
+	public void init() {
+		super.init();
+		int max = maxTextures();
+		aTexIndex = program.getAttribLocation("a_TexIndex");
+		uTextures = new int[max];
+		for (int i = 0; i < max; i++) {
+			uTextures[i] = program.getUniformLocation("u_Texture" + i);
+		}
+		unitTexIds = new int[max];
+		boundTexIds = new int[max];
+		unitCount = 0;
+	}
+
+	public int maxTextures() {
+		return ((Source) source).maxTextures();
+	}
+
+	@Override
+	public void setTexture(final LTexture texture) {
+		if (!texture.isLoaded()) {
+			texture.loadTexture();
+		}
+		final int id = texture.getID();
+		if (curTexId == id && unitCount > 0) {
+			return;
+		}
+		int unit = -1;
+		for (int i = 0; i < unitCount; i++) {
+			if (unitTexIds[i] == id) {
+				unit = i;
+				break;
+			}
+		}
+		if (unit == -1) {
+			if (unitCount == unitTexIds.length) {
+				flush(FLUSH_TEXTURE);
+				unitCount = 0;
+			}
+			unit = unitCount++;
+			unitTexIds[unit] = id;
+		}
+		curTexId = id;
+		texIndex = unit;
+	}
+
+	@Override
+	protected void bindTexture() {
+		for (int i = unitCount - 1; i > 0; i--) {
+			if (boundTexIds[i] != unitTexIds[i]) {
+				gl.glActiveTexture(GL_TEXTURE0 + i);
+				gl.glBindTexture(GL_TEXTURE_2D, unitTexIds[i]);
+				boundTexIds[i] = unitTexIds[i];
+			}
+		}
+		gl.glActiveTexture(GL_TEXTURE0);
+		if (unitCount > 0) {
+			GLUtils.bindTexture(gl, unitTexIds[0]);
+		}
+	}
+
+	@Override
+	public void begin(float fbufWidth, float fbufHeight, boolean flip) {
+		super.begin(fbufWidth, fbufHeight, flip);
+		for (int i = 0; i < uTextures.length; i++) {
+			gl.glUniform1i(uTextures[i], i);
+			boundTexIds[i] = 0;
+		}
+	}
+
+	@Override
+	protected void bindVertAttribs(int base) {
+		super.bindVertAttribs(base);
+		glBindVertAttrib(aTexIndex, 1, GL_FLOAT, false, vertexSize() * 4,
+				base + 20);
+	}
+
+	@Override
+	public void end() {
+		super.end();
+		gl.glDisableVertexAttribArray(aTexIndex);
+		unitCount = 0;
+	}
+
+	@Override
+	protected int vertexSize() {
+		return VERTEX_SIZE + 1;
+	}
+
+	@Override
+	protected int add(float[] into, int offset, float x, float y, float sx,
+			float sy) {
+		into[offset++] = m00 * x + m10 * y + tx;
+		into[offset++] = m01 * x + m11 * y + ty;
+		into[offset++] = sx;
+		into[offset++] = sy;
+		into[offset++] = color;
+		into[offset++] = texIndex;
+		return offset;
+	}
+
+	@Override
+	public String toString() {
+		return "multitex" + maxTextures() + "/"
+				+ (elements.length / QUAD_INDICES.length);
+	}
+
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2008 - 2015 The Loon Game Engine Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.opengl;
+
+import loon.LRelease;
+
+import static loon.opengl.GL20.*;
+
+/**
+ * 环形的流式缓冲区,预先分配一块较大的显存,每次提交数据时以glBufferSubData写入到当前偏移位置并推进偏移,
+ * 直到写满才重新分配(orphan)缓冲区并从头写起,避免每次flush都重新分配整个缓冲区.
+ */
+public class StreamBuffer implements LRelease {
+
+	public static final int DEFAULT_CAPACITY = 1024 * 1024;
+
+	private final GL20 gl;
+	private final int target;
+	private final int bufferId;
+
+	private int capacity;
+	private int position;
+	private int wrapCount;
+
+	public StreamBuffer(GL20 gl, int target) {
+		this(gl, target, DEFAULT_CAPACITY);
+	}
+
+	public StreamBuffer(GL20 gl, int target, int capacity) {
+		this.gl = gl;
+		this.target = target;
+		this.capacity = capacity;
+		this.bufferId = gl.glGenBuffer();
+		gl.glBindBuffer(target, bufferId);
+		gl.glBufferData(target, capacity, null, GL_STREAM_DRAW);
+	}
+
+	/**
+	 * 绑定当前缓冲区
+	 */
+	public void bind() {
+		gl.glBindBuffer(target, bufferId);
+	}
+
+	/**
+	 * 写入float数据,返回数据所在的字节偏移
+	 *
+	 * @param data
+	 * @param length
+	 * @return
+	 */
+	public int put(float[] data, int length) {
+		int bytes = length * 4;
+		int offset = reserve(bytes);
+		gl.bufs.setFloatBuffer(data, 0, length);
+		gl.glBufferSubData(target, offset, bytes, gl.bufs.floatBuffer);
+		return offset;
+	}
+
+	/**
+	 * 写入short数据,返回数据所在的字节偏移
+	 *
+	 * @param data
+	 * @param length
+	 * @return
+	 */
+	public int put(short[] data, int length) {
+		int bytes = length * 2;
+		int offset = reserve(bytes);
+		gl.bufs.setShortBuffer(data, 0, length);
+		gl.glBufferSubData(target, offset, bytes, gl.bufs.shortBuffer);
+		return offset;
+	}
+
+	private int reserve(int bytes) {
+		bind();
+		if (bytes > capacity) {
+			while (capacity < bytes) {
+				capacity *= 2;
+			}
+			orphan();
+		} else if (position + bytes > capacity) {
+			orphan();
+		}
+		int offset = position;
+		// 保持4字节对齐
+		position += (bytes + 3) & ~3;
+		return offset;
+	}
+
+	private void orphan() {
+		gl.glBufferData(target, capacity, null, GL_STREAM_DRAW);
+		position = 0;
+		wrapCount++;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int getPosition() {
+		return position;
+	}
+
+	public int getWrapCount() {
+		return wrapCount;
+	}
+
+	public int getBufferId() {
+		return bufferId;
+	}
+
+	@Override
+	public void close() {
+		gl.glDeleteBuffer(bufferId);
+	}
+
+}
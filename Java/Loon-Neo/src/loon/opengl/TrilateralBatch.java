@@ -23,6 +23,7 @@ package loon.opengl;
 import loon.LTexture;
 import loon.geom.Affine2f;
 import loon.opengl.ShaderProgram.Mini;
+import loon.utils.timer.FrameProfiler;
 import static loon.opengl.GL20.*;
 
 public class TrilateralBatch extends BaseBatch {
@@ -89,6 +90,7 @@ public class TrilateralBatch extends BaseBatch {
 	protected float[] vertices;
 	protected short[] elements;
 	protected int vertPos, elemPos;
+	protected boolean quadOnly = true;
 
 	private Source source;
 
@@ -180,6 +182,7 @@ public class TrilateralBatch extends BaseBatch {
 					/ th);
 		}
 		vertPos = offset;
+		quadOnly = false;
 
 		addElems(vertIdx, indices, indicesOffset, indicesLen, indexBase);
 	}
@@ -193,6 +196,7 @@ public class TrilateralBatch extends BaseBatch {
 					xys[ii + 1], sxys[ii], sxys[ii + 1]);
 		}
 		vertPos = offset;
+		quadOnly = false;
 
 		addElems(vertIdx, indices, indicesOffset, indicesLen, indexBase);
 	}
@@ -206,6 +210,7 @@ public class TrilateralBatch extends BaseBatch {
 					xys[ii + 1], sxys[ii], sxys[ii + 1]);
 		}
 		vertPos = offset;
+		quadOnly = false;
 
 		addElems(vertIdx, indices, indicesOffset, indicesLen, indexBase);
 	}
@@ -242,37 +247,75 @@ public class TrilateralBatch extends BaseBatch {
 
 	private void bindAttribsBufs() {
 		gl.glBindBuffer(GL_ARRAY_BUFFER, verticesId);
-		int stride = vertexStride();
-		glBindVertAttrib(aMatrix, 4, GL_FLOAT, stride, 0);
-		glBindVertAttrib(aTranslation, 2, GL_FLOAT, stride, 16);
-		glBindVertAttrib(aColor, 2, GL_FLOAT, stride, 24);
-		int offset = stableAttrsSize() * FLOAT_SIZE_BYTES;
-		glBindVertAttrib(aPosition, 2, GL_FLOAT, stride, offset);
-		glBindVertAttrib(aTexCoord, 2, GL_FLOAT, stride, offset + 8);
+		bindVertAttribs(0);
 		gl.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, elementsId);
 		gl.glActiveTexture(GL_TEXTURE0);
 		gl.glUniform1i(uTexture, 0);
 
 	}
 
+	private void bindVertAttribs(int base) {
+		int stride = vertexStride();
+		glBindVertAttrib(aMatrix, 4, GL_FLOAT, stride, base);
+		glBindVertAttrib(aTranslation, 2, GL_FLOAT, stride, base + 16);
+		glBindVertAttrib(aColor, 2, GL_FLOAT, stride, base + 24);
+		int offset = base + stableAttrsSize() * FLOAT_SIZE_BYTES;
+		glBindVertAttrib(aPosition, 2, GL_FLOAT, stride, offset);
+		glBindVertAttrib(aTexCoord, 2, GL_FLOAT, stride, offset + 8);
+	}
+
 	@Override
 	public void flush() {
 		super.flush();
 		if (vertPos > 0) {
-			bindTexture();
-			if (delayedBinding) {
-				bindAttribsBufs();
-			}
-			gl.bufs.setFloatBuffer(vertices, 0, vertPos);
-			gl.glBufferData(GL_ARRAY_BUFFER, vertPos * 4, gl.bufs.floatBuffer,
-					GL_STREAM_DRAW);
-			gl.bufs.setShortBuffer(elements, 0, elemPos);
-			gl.glBufferData(GL_ELEMENT_ARRAY_BUFFER, elemPos * 2,
-					gl.bufs.shortBuffer, GL_STREAM_DRAW);
+			FrameProfiler.begin(FrameProfiler.BATCH_FLUSH);
+			submit();
+			FrameProfiler.end(FrameProfiler.BATCH_FLUSH);
+		}
+	}
+
+	private void submit() {
+		bindTexture();
+		if (delayedBinding) {
+			bindAttribsBufs();
+		}
+		if (streaming) {
+			flushStream();
+			return;
+		}
+		gl.bufs.setFloatBuffer(vertices, 0, vertPos);
+		gl.glBufferData(GL_ARRAY_BUFFER, vertPos * 4, gl.bufs.floatBuffer,
+				GL_STREAM_DRAW);
+		gl.bufs.setShortBuffer(elements, 0, elemPos);
+		gl.glBufferData(GL_ELEMENT_ARRAY_BUFFER, elemPos * 2,
+				gl.bufs.shortBuffer, GL_STREAM_DRAW);
+		gl.glDrawElements(GL_TRIANGLES, elemPos, GL_UNSIGNED_SHORT, 0);
+		countDrawCall();
+		vertPos = 0;
+		elemPos = 0;
+		quadOnly = true;
+	}
+
+	private void flushStream() {
+		int base = vertexStream().put(vertices, vertPos);
+		bindVertAttribs(base);
+		if (quadOnly) {
+			bindQuadElements(elemPos / QUAD_INDICES.length);
 			gl.glDrawElements(GL_TRIANGLES, elemPos, GL_UNSIGNED_SHORT, 0);
-			vertPos = 0;
-			elemPos = 0;
+		} else {
+			int offset = elementStream().put(elements, elemPos);
+			gl.glDrawElements(GL_TRIANGLES, elemPos, GL_UNSIGNED_SHORT,
+					offset);
 		}
+		countDrawCall();
+		vertPos = 0;
+		elemPos = 0;
+		quadOnly = true;
+	}
+
+	@Override
+	protected boolean supportsStreaming() {
+		return true;
 	}
 
 	@Override
@@ -322,7 +365,7 @@ public class TrilateralBatch extends BaseBatch {
 		if (verts <= availVerts && elems <= availElems) {
 			return vertIdx;
 		}
-		flush();
+		flush(FLUSH_OVERFLOW);
 		if (verts > availVerts) {
 			expandVerts(verts);
 		}
@@ -413,6 +456,7 @@ public class TrilateralBatch extends BaseBatch {
 		}
 		this.elements = indices;
 		this.elemPos = pos;
+		this.quadOnly = false;
 	}
 
 }
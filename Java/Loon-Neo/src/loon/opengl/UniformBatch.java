@@ -193,7 +193,7 @@ public class UniformBatch extends BaseBatch {
 		quadCounter++;
 
 		if (quadCounter >= maxQuads) {
-			flush();
+			flush(FLUSH_OVERFLOW);
 		}
 	}
 
@@ -219,6 +219,7 @@ public class UniformBatch extends BaseBatch {
 			gl.glUniform4fv(uData, quadCounter * BASE_VEC4S_PER_QUAD, data, 0);
 			gl.glDrawElements(GL_TRIANGLES, quadCounter * ELEMENTS_PER_QUAD,
 					GL_UNSIGNED_SHORT, 0);
+			countDrawCall();
 			quadCounter = 0;
 		}
 	}
@@ -83,16 +83,16 @@ public class D3DMdLoader {
 	}
 
 	private void readData(ArrayByte is, byte[] arg) {
-		for (int i = 0; i < arg.length; i++) {
-			arg[i] = (byte) is.read();
-		}
+		is.read(arg, 0, arg.length);
 		readCount += arg.length;
 	}
 
 	private void skip(ArrayByte is, int count) {
-		for (int i = 0; i < count; i++) {
-			readData(is, read8);
+		if (count <= 0) {
+			return;
 		}
+		is.setPosition(is.position() + count);
+		readCount += count;
 	}
 
 	private void loadHeader(ArrayByte input, D3DIMdLoaderAdapter md3loader) {
@@ -1,19 +1,19 @@
 /**
- * 
+ *
  * Copyright 2014
- * 
+ *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not
  * use this file except in compliance with the License. You may obtain a copy of
  * the License at
- * 
+ *
  * http://www.apache.org/licenses/LICENSE-2.0
- * 
+ *
  * Unless required by applicable law or agreed to in writing, software
  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
  * License for the specific language governing permissions and limitations under
  * the License.
- * 
+ *
  * @project loon
  * @author cping
  * @email：javachenpeng@yahoo.com
@@ -23,211 +23,528 @@ package loon.opengl.parse;
 
 import loon.BaseIO;
 import loon.utils.ArrayByte;
-import loon.utils.ArrayByteReader;
-import loon.utils.StringUtils;
-import loon.utils.TArray;
+import loon.utils.FloatArray;
+import loon.utils.IntArray;
 
+/**
+ * OBJ模型读取器.
+ *
+ * 直接在字节数据上逐字符解析,顶点,法线,贴图坐标与面数据都写入基本类型数组,解析过程中不产生字符串与临时数组.
+ * 解析结果可以用toCache导出为二进制网格缓存(带文件头,版本与校验值),保存为源文件名+CACHE_SUFFIX后,
+ * 再次调用loadFromFile(String)时会直接读取缓存而不必重新解析文本.
+ */
 public class D3DObjLoader {
 
+	/**
+	 * 二进制网格缓存的文件后缀
+	 */
+	public static final String CACHE_SUFFIX = ".lmesh";
+
+	// 'L','M','S','H'
+	private static final int CACHE_MAGIC = 0x4C4D5348;
+
+	private static final int CACHE_VERSION = 1;
+
+	// 每个输出顶点的数据:位置3,法线3,贴图坐标2
+	private static final int VERTEX_SIZE = 8;
+
 	D3DIObjLoaderAdapter mObjLoaderAdapter = new D3DObjLoaderAdapter();
-	TArray<float[]> vertices = new TArray<float[]>();
-	TArray<float[]> normals = new TArray<float[]>();
-	TArray<float[]> texcoords = new TArray<float[]>();
+
+	final FloatArray vertices = new FloatArray(1024);
+	final FloatArray normals = new FloatArray(1024);
+	final FloatArray texcoords = new FloatArray(1024);
+
+	// 面的每个角依次保存顶点,贴图坐标,法线的下标(-1表示不存在)
+	final IntArray corners = new IntArray(1024);
+	// 每个面的角数
+	final IntArray faceSizes = new IntArray(256);
+
 	char vertCounter = 0;
 
-	public D3DObjLoader(D3DIObjLoaderAdapter objloader) {
-		mObjLoaderAdapter = objloader;
-	}
+	private float[] meshVertices;
 
-	private void addVertexData(String vertexDesc) {
-		String tokens[] = vertexDesc.split("/");
-		int vIndice = Integer.parseInt(tokens[0]) - 1;
-		int tIndice = Integer.parseInt(tokens[1]) - 1;
-		int nIndice = Integer.parseInt(tokens[2]) - 1;
+	private int[] meshIndices;
 
-		float vert[] = vertices.get(vIndice);
-		mObjLoaderAdapter.addVertex(vert[0], vert[1], vert[2]);
-		float norm[] = normals.get(nIndice);
-		mObjLoaderAdapter.addNormal(norm[0], norm[1], norm[2]);
-		float text[] = texcoords.get(tIndice);
-		mObjLoaderAdapter.addTexCoords(text[0], 1.0f - text[1]);
-		vertCounter++;
-	}
+	private int meshVertexCount, meshFaceCount;
 
-	private void addfaceData(int vertCount) {
-		if (vertCount == 4) {
-			mObjLoaderAdapter.addFace((char) (vertCounter - 2),
-					(char) (vertCounter - 3), (char) (vertCounter - 4));
-			mObjLoaderAdapter.addFace((char) (vertCounter - 1),
-					(char) (vertCounter - 2), (char) (vertCounter - 4));
-		} else if (vertCount == 3) {
-			mObjLoaderAdapter.addFace((char) (vertCounter - 1),
-					(char) (vertCounter - 2), (char) (vertCounter - 3));
-		}
+	private int sourceLength, sourceChecksum;
+
+	private int pos, end;
+
+	private byte[] data;
+
+	public D3DObjLoader(D3DIObjLoaderAdapter objloader) {
+		mObjLoaderAdapter = objloader;
 	}
 
 	public void forwardCountFromStream(ArrayByte is) {
+		data = is.getData();
+		pos = is.position();
+		end = is.length();
 		int faceCounter = 0;
 		int vertexCounter = 0;
-		try {
-			ArrayByteReader reader = new ArrayByteReader(is);
-			String line = null;
-			while ((line = reader.readLine()) != null) {
-				String tokens[] = line.split(" ");
-				if (tokens.length > 0) {
-					if (tokens[0].equals("f")) {
-						if (tokens.length == 5) {
-							vertexCounter += 4;
-							faceCounter += 2;
-						} else if (tokens.length == 4) {
-							vertexCounter += 3;
-							faceCounter += 1;
-						}
+		while (pos < end) {
+			skipSpaces();
+			if (pos + 1 < end && data[pos] == 'f' && isSpace(data[pos + 1])) {
+				pos++;
+				int count = 0;
+				for (;;) {
+					skipSpaces();
+					if (pos >= end || isLineEnd(data[pos])) {
+						break;
 					}
+					while (pos < end && !isSpace(data[pos])
+							&& !isLineEnd(data[pos])) {
+						pos++;
+					}
+					count++;
+				}
+				if (count >= 3) {
+					vertexCounter += count;
+					faceCounter += count - 2;
 				}
 			}
-			reader.close();
-		} catch (Exception e) {
-			e.printStackTrace();
+			nextLine();
 		}
-
+		data = null;
 		mObjLoaderAdapter.setVertexNumber(vertexCounter);
 		mObjLoaderAdapter.setFaceNumber(faceCounter);
 	}
 
 	public void loadFromFile(ArrayByte is) {
-		forwardCountFromStream(is);
-		is.setPosition(0);
 		try {
-			ArrayByteReader reader = new ArrayByteReader(is);
-			String line = null;
-			while ((line = reader.readLine()) != null) {
-				String tokens[] = StringUtils.split(line, " ");
-				if (tokens.length > 0) {
-					if ((tokens[0].length() > 0) && tokens[0].charAt(0) == 'v') {
-						float v[] = new float[3];
-						v[0] = Float.parseFloat(tokens[1]);
-						v[1] = Float.parseFloat(tokens[2]);
-						v[2] = Float.parseFloat(tokens[3]);
-						vertices.add(v);
-					}
+			parse(is.getData(), is.position(), is.length());
+			build();
+			emit();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
 
-					if (tokens[0].equals("vn")) {
-						float v[] = new float[3];
-						v[0] = Float.parseFloat(tokens[1]);
-						v[1] = Float.parseFloat(tokens[2]);
-						v[2] = Float.parseFloat(tokens[3]);
-						normals.add(v);
-					}
+	/**
+	 * 读取OBJ文件,存在有效的网格缓存(源文件名+CACHE_SUFFIX,且与当前源文件一致)时直接读取缓存
+	 *
+	 * @param file
+	 */
+	public void loadFromFile(String file) {
+		try {
+			byte[] source = BaseIO.loadBytes(file);
+			if (source == null) {
+				return;
+			}
+			byte[] cache = BaseIO.loadBytes(file + CACHE_SUFFIX);
+			if (cache != null
+					&& readCache(new ArrayByte(cache), source.length,
+							checksum(source, 0, source.length))) {
+				emit();
+				return;
+			}
+			parse(source, 0, source.length);
+			build();
+			emit();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
 
-					if (tokens[0].equals("vt")) {
-						float v[] = new float[2];
-						v[0] = Float.parseFloat(tokens[1]);
-						v[1] = Float.parseFloat(tokens[2]);
-						texcoords.add(v);
-					}
+	/**
+	 * 从二进制网格缓存读取模型,缓存损坏或版本不符时返回false
+	 *
+	 * @param cache
+	 * @return
+	 */
+	public boolean loadFromCache(ArrayByte cache) {
+		if (readCache(cache, -1, 0)) {
+			emit();
+			return true;
+		}
+		return false;
+	}
 
-					if (tokens[0].equals("f")) {
-						if (tokens.length == 5) {
-							addVertexData(tokens[1]);
-							addVertexData(tokens[2]);
-							addVertexData(tokens[3]);
-							addVertexData(tokens[4]);
-							addfaceData(4);
-						} else if (tokens.length == 4) {
-							addVertexData(tokens[1]);
-							addVertexData(tokens[2]);
-							addVertexData(tokens[3]);
-							addfaceData(3);
-						}
-					}
+	/**
+	 * 导出最近一次解析结果的二进制网格缓存,由调用方保存到源文件名+CACHE_SUFFIX的位置
+	 *
+	 * @return 没有解析结果时返回null
+	 */
+	public ArrayByte toCache() {
+		if (meshVertices == null) {
+			return null;
+		}
+		final int size = 4 * 7 + meshVertexCount * VERTEX_SIZE * 4
+				+ meshFaceCount * 3 * 2 + 4;
+		ArrayByte out = new ArrayByte(size);
+		out.writeInt(CACHE_MAGIC);
+		out.writeInt(CACHE_VERSION);
+		out.writeInt(sourceLength);
+		out.writeInt(sourceChecksum);
+		out.writeInt(meshVertexCount);
+		out.writeInt(meshFaceCount);
+		out.writeInt(VERTEX_SIZE);
+		for (int i = 0, n = meshVertexCount * VERTEX_SIZE; i < n; i++) {
+			out.writeFloat(meshVertices[i]);
+		}
+		for (int i = 0, n = meshFaceCount * 3; i < n; i++) {
+			out.writeShort(meshIndices[i]);
+		}
+		out.writeInt(checksum(out.getData(), 0, out.position()));
+		out.setPosition(0);
+		return out;
+	}
+
+	private boolean readCache(ArrayByte in, int length, int checksum) {
+		try {
+			final byte[] bytes = in.getData();
+			final int start = in.position();
+			final int total = in.length() - start;
+			if (total < 4 * 8) {
+				return false;
+			}
+			if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) {
+				return false;
+			}
+			final int srcLength = in.readInt();
+			final int srcChecksum = in.readInt();
+			if (length >= 0 && (srcLength != length || srcChecksum != checksum)) {
+				return false;
+			}
+			final int vertexCount = in.readInt();
+			final int faceCount = in.readInt();
+			if (in.readInt() != VERTEX_SIZE || vertexCount < 0 || faceCount < 0) {
+				return false;
+			}
+			final int bodySize = 4 * 7 + vertexCount * VERTEX_SIZE * 4
+					+ faceCount * 3 * 2;
+			if (total != bodySize + 4) {
+				return false;
+			}
+			in.setPosition(start + bodySize);
+			if (in.readInt() != checksum(bytes, start, bodySize)) {
+				return false;
+			}
+			in.setPosition(start + 4 * 7);
+			float[] verts = new float[vertexCount * VERTEX_SIZE];
+			for (int i = 0; i < verts.length; i++) {
+				verts[i] = in.readFloat();
+			}
+			int[] indices = new int[faceCount * 3];
+			for (int i = 0; i < indices.length; i++) {
+				indices[i] = in.readShort() & 0xFFFF;
+			}
+			this.meshVertices = verts;
+			this.meshIndices = indices;
+			this.meshVertexCount = vertexCount;
+			this.meshFaceCount = faceCount;
+			this.sourceLength = srcLength;
+			this.sourceChecksum = srcChecksum;
+			return true;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Adler-32校验
+	 */
+	private static int checksum(byte[] bytes, int offset, int length) {
+		int a = 1, b = 0;
+		for (int i = offset, n = offset + length; i < n;) {
+			int block = n - i < 3800 ? n - i : 3800;
+			for (int j = 0; j < block; j++) {
+				a += bytes[i++] & 0xFF;
+				b += a;
+			}
+			a %= 65521;
+			b %= 65521;
+		}
+		return (b << 16) | a;
+	}
+
+	private void parse(byte[] bytes, int offset, int length) {
+		vertices.clear();
+		normals.clear();
+		texcoords.clear();
+		corners.clear();
+		faceSizes.clear();
+		data = bytes;
+		pos = offset;
+		end = length;
+		sourceLength = length - offset;
+		sourceChecksum = checksum(bytes, offset, sourceLength);
+		while (pos < end) {
+			skipSpaces();
+			if (pos >= end) {
+				break;
+			}
+			final byte c = data[pos];
+			final byte c1 = pos + 1 < end ? data[pos + 1] : (byte) '\n';
+			if (c == 'v') {
+				if (isSpace(c1)) {
+					pos++;
+					vertices.add(parseFloat());
+					vertices.add(parseFloat());
+					vertices.add(parseFloat());
+				} else if (c1 == 'n') {
+					pos += 2;
+					normals.add(parseFloat());
+					normals.add(parseFloat());
+					normals.add(parseFloat());
+				} else if (c1 == 't') {
+					pos += 2;
+					texcoords.add(parseFloat());
+					texcoords.add(parseFloat());
 				}
+			} else if (c == 'f' && isSpace(c1)) {
+				pos++;
+				parseFace();
 			}
-			reader.close();
+			nextLine();
+		}
+		data = null;
+	}
 
-		} catch (Exception e) {
-			e.printStackTrace();
+	private void parseFace() {
+		final int vertexCount = vertices.length / 3;
+		final int texCount = texcoords.length / 2;
+		final int normalCount = normals.length / 3;
+		int count = 0;
+		for (;;) {
+			skipSpaces();
+			if (pos >= end || isLineEnd(data[pos])) {
+				break;
+			}
+			int v = index(parseInt(), vertexCount);
+			int t = -1;
+			int n = -1;
+			if (pos < end && data[pos] == '/') {
+				pos++;
+				if (pos < end && data[pos] != '/') {
+					t = index(parseInt(), texCount);
+				}
+				if (pos < end && data[pos] == '/') {
+					pos++;
+					n = index(parseInt(), normalCount);
+				}
+			}
+			while (pos < end && !isSpace(data[pos]) && !isLineEnd(data[pos])) {
+				pos++;
+			}
+			corners.add(v);
+			corners.add(t);
+			corners.add(n);
+			count++;
+		}
+		if (count < 3) {
+			corners.truncate(corners.length - count * 3);
+		} else {
+			faceSizes.add(count);
 		}
 	}
 
-	private void forwardCount(String file) {
+	private static int index(int value, int count) {
+		if (value > 0) {
+			return value - 1;
+		} else if (value < 0) {
+			return count + value;
+		}
+		return -1;
+	}
 
-		int faceCounter = 0;
-		int vertexCounter = 0;
-		try {
-			String[] lines = StringUtils.split(BaseIO.loadText(file), '\n');
-			for (String line : lines) {
-				String tokens[] = line.split(" ");
-				if (tokens.length > 0) {
-					if (tokens[0].equals("f")) {
-						if (tokens.length == 5) {
-							vertexCounter += 4;
-							faceCounter += 2;
-						} else if (tokens.length == 4) {
-							vertexCounter += 3;
-							faceCounter += 1;
-						}
-					}
+	/**
+	 * 把面数据展开为输出顶点与三角形(多边形按扇形拆分,三角形与四边形的顶点顺序与旧版一致)
+	 */
+	private void build() {
+		int totalCorners = 0;
+		int totalFaces = 0;
+		for (int i = 0; i < faceSizes.length; i++) {
+			totalCorners += faceSizes.get(i);
+			totalFaces += faceSizes.get(i) - 2;
+		}
+		final float[] vs = vertices.items;
+		final float[] ns = normals.items;
+		final float[] ts = texcoords.items;
+		final int[] cs = corners.items;
+		float[] verts = new float[totalCorners * VERTEX_SIZE];
+		int[] indices = new int[totalFaces * 3];
+		int corner = 0;
+		int index = 0;
+		vertCounter = 0;
+		for (int i = 0; i < faceSizes.length; i++) {
+			final int size = faceSizes.get(i);
+			final char base = vertCounter;
+			for (int j = 0; j < size; j++, corner++) {
+				final int off = corner * VERTEX_SIZE;
+				final int v = cs[corner * 3];
+				final int t = cs[corner * 3 + 1];
+				final int n = cs[corner * 3 + 2];
+				if (v >= 0 && v * 3 + 2 < vertices.length) {
+					verts[off] = vs[v * 3];
+					verts[off + 1] = vs[v * 3 + 1];
+					verts[off + 2] = vs[v * 3 + 2];
+				}
+				if (n >= 0 && n * 3 + 2 < normals.length) {
+					verts[off + 3] = ns[n * 3];
+					verts[off + 4] = ns[n * 3 + 1];
+					verts[off + 5] = ns[n * 3 + 2];
 				}
+				if (t >= 0 && t * 2 + 1 < texcoords.length) {
+					verts[off + 6] = ts[t * 2];
+					verts[off + 7] = 1.0f - ts[t * 2 + 1];
+				} else {
+					verts[off + 7] = 1.0f;
+				}
+				vertCounter++;
+			}
+			for (int k = 1; k < size - 1; k++) {
+				indices[index++] = (char) (base + k + 1);
+				indices[index++] = (char) (base + k);
+				indices[index++] = base;
 			}
-		} catch (Exception e) {
-			e.printStackTrace();
 		}
+		this.meshVertices = verts;
+		this.meshIndices = indices;
+		this.meshVertexCount = totalCorners;
+		this.meshFaceCount = totalFaces;
+	}
 
-		mObjLoaderAdapter.setVertexNumber(vertexCounter);
-		mObjLoaderAdapter.setFaceNumber(faceCounter);
+	private void emit() {
+		final D3DIObjLoaderAdapter adapter = mObjLoaderAdapter;
+		final float[] verts = meshVertices;
+		final int[] indices = meshIndices;
+		adapter.setVertexNumber(meshVertexCount);
+		adapter.setFaceNumber(meshFaceCount);
+		for (int i = 0, n = meshVertexCount * VERTEX_SIZE; i < n; i += VERTEX_SIZE) {
+			adapter.addVertex(verts[i], verts[i + 1], verts[i + 2]);
+			adapter.addNormal(verts[i + 3], verts[i + 4], verts[i + 5]);
+			adapter.addTexCoords(verts[i + 6], verts[i + 7]);
+		}
+		for (int i = 0, n = meshFaceCount * 3; i < n; i += 3) {
+			adapter.addFace((char) indices[i], (char) indices[i + 1],
+					(char) indices[i + 2]);
+		}
+		vertCounter = (char) meshVertexCount;
+	}
 
+	private static boolean isSpace(byte c) {
+		return c == ' ' || c == '\t';
 	}
 
-	public void loadFromFile(String file) {
-		forwardCount(file);
-		try {
-			String[] lines = StringUtils.split(BaseIO.loadText(file), '\n');
-			for (String line : lines) {
-				String tokens[] = StringUtils.split(line, " ");
-				if (tokens.length > 0) {
-					if (tokens[0].charAt(0) == 'v') {
-						float v[] = new float[3];
-						v[0] = Float.parseFloat(tokens[1]);
-						v[1] = Float.parseFloat(tokens[2]);
-						v[2] = Float.parseFloat(tokens[3]);
-						vertices.add(v);
-					}
+	private static boolean isLineEnd(byte c) {
+		return c == '\n' || c == '\r';
+	}
 
-					if (tokens[0].equals("vn")) {
-						float v[] = new float[3];
-						v[0] = Float.parseFloat(tokens[1]);
-						v[1] = Float.parseFloat(tokens[2]);
-						v[2] = Float.parseFloat(tokens[3]);
-						vertices.add(v);
-					}
+	private void skipSpaces() {
+		while (pos < end && isSpace(data[pos])) {
+			pos++;
+		}
+	}
 
-					if (tokens[0].equals("vt")) {
-						float v[] = new float[3];
-						v[0] = Float.parseFloat(tokens[1]);
-						v[1] = Float.parseFloat(tokens[2]);
-						texcoords.add(v);
-					}
+	private void nextLine() {
+		while (pos < end && data[pos] != '\n') {
+			pos++;
+		}
+		pos++;
+	}
 
-					if (tokens[0].equals("f")) {
-						if (tokens.length == 5) {
-							addVertexData(tokens[1]);
-							addVertexData(tokens[2]);
-							addVertexData(tokens[3]);
-							addVertexData(tokens[4]);
-							addfaceData(4);
-						} else if (tokens.length == 4) {
-							addVertexData(tokens[1]);
-							addVertexData(tokens[2]);
-							addVertexData(tokens[3]);
-							addfaceData(3);
-						}
-					}
+	private int parseInt() {
+		boolean negative = false;
+		if (pos < end && (data[pos] == '-' || data[pos] == '+')) {
+			negative = data[pos] == '-';
+			pos++;
+		}
+		int value = 0;
+		while (pos < end) {
+			int d = data[pos] - '0';
+			if (d < 0 || d > 9) {
+				break;
+			}
+			value = value * 10 + d;
+			pos++;
+		}
+		return negative ? -value : value;
+	}
+
+	private static final double[] POWERS = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5,
+			1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+			1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * 解析一个浮点数,常见的十进制写法直接按位计算,其余写法(例如过长的有效数字,nan,inf)交给Float.parseFloat
+	 */
+	private float parseFloat() {
+		skipSpaces();
+		final int start = pos;
+		boolean negative = false;
+		if (pos < end && (data[pos] == '-' || data[pos] == '+')) {
+			negative = data[pos] == '-';
+			pos++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean any = false;
+		while (pos < end) {
+			int d = data[pos] - '0';
+			if (d < 0 || d > 9) {
+				break;
+			}
+			if (mantissa != 0 || d != 0) {
+				digits++;
+			}
+			mantissa = mantissa * 10 + d;
+			any = true;
+			pos++;
+		}
+		if (pos < end && data[pos] == '.') {
+			pos++;
+			while (pos < end) {
+				int d = data[pos] - '0';
+				if (d < 0 || d > 9) {
+					break;
+				}
+				if (mantissa != 0 || d != 0) {
+					digits++;
 				}
+				mantissa = mantissa * 10 + d;
+				scale--;
+				any = true;
+				pos++;
+			}
+		}
+		if (any && pos < end && (data[pos] == 'e' || data[pos] == 'E')) {
+			pos++;
+			scale += parseInt();
+		}
+		if (!any || digits > 15 || (pos < end && !isSpace(data[pos])
+				&& !isLineEnd(data[pos]) && data[pos] != '/')) {
+			return slowFloat(start);
+		}
+		double value = mantissa;
+		if (scale < 0) {
+			if (-scale >= POWERS.length) {
+				return slowFloat(start);
 			}
+			value /= POWERS[-scale];
+		} else if (scale > 0) {
+			if (scale >= POWERS.length) {
+				return slowFloat(start);
+			}
+			value *= POWERS[scale];
+		}
+		return (float) (negative ? -value : value);
+	}
 
-		} catch (Exception e) {
-			e.printStackTrace();
+	private float slowFloat(int start) {
+		pos = start;
+		while (pos < end && !isSpace(data[pos]) && !isLineEnd(data[pos])) {
+			pos++;
+		}
+		if (pos == start) {
+			return 0f;
+		}
+		StringBuilder sbr = new StringBuilder(pos - start);
+		for (int i = start; i < pos; i++) {
+			sbr.append((char) data[i]);
 		}
+		return Float.parseFloat(sbr.toString());
 	}
 }
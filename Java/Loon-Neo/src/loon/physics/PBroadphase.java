@@ -0,0 +1,48 @@
+/**
+ * Copyright 2013 The Loon Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package loon.physics;
+
+/**
+ * 物理世界的粗略碰撞检测(broadphase)接口,负责找出包围盒可能重叠的形状对,
+ * 交由PPhysWorld做精确的碰撞检测.
+ * 
+ * 默认实现为增量式的PSweepAndPrune,形状大小相近且数量很多时可改用PUniformGrid.
+ */
+public interface PBroadphase {
+
+	public void addShape(PShape s);
+
+	public void removeShape(PShape s);
+
+	/**
+	 * 根据形状当前的包围盒更新可能碰撞的形状对
+	 * 
+	 * @return 形状对的数量
+	 */
+	public int updatePairs();
+
+	/**
+	 * 可能碰撞的形状对,按[s1,s2,s1,s2...]依次排列,长度以updatePairs的返回值为准
+	 * 
+	 * @return
+	 */
+	public PShape[] getPairs();
+
+	public int size();
+
+	public void clear();
+
+}
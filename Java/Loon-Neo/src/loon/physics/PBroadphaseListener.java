@@ -0,0 +1,27 @@
+/**
+ * Copyright 2013 The Loon Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package loon.physics;
+
+/**
+ * 监听broadphase中形状对的加入与移除(包围盒开始重叠与不再重叠)
+ */
+public interface PBroadphaseListener {
+
+	public void pairAdded(PShape s1, PShape s2);
+
+	public void pairRemoved(PShape s1, PShape s2);
+
+}
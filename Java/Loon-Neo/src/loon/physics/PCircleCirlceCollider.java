@@ -15,7 +15,7 @@
  */
 package loon.physics;
 
-import loon.geom.Vector2f;
+import loon.utils.MathUtils;
 
 public class PCircleCirlceCollider implements PCollider {
 
@@ -29,17 +29,20 @@ public class PCircleCirlceCollider implements PCollider {
 		}
 		PCircleShape c1 = (PCircleShape) s1;
 		PCircleShape c2 = (PCircleShape) s2;
-		Vector2f normal = c2._pos.sub(c1._pos);
+		float nx = c2._pos.x - c1._pos.x;
+		float ny = c2._pos.y - c1._pos.y;
 		float rad = c1.rad + c2.rad;
-		float length = normal.length();
+		float length = MathUtils.sqrt(nx * nx + ny * ny);
 		if (length < rad) {
-			PContact c = new PContact();
+			PContact c = PContact.obtain(cs, 0);
 			c.overlap = length - rad;
-			normal.normalize();
-			c.pos.set(c1._pos.x + normal.x * c1.rad, c1._pos.y + normal.y
-					* c1.rad);
-			c.normal.set(-normal.x, -normal.y);
-			cs[0] = c;
+			if (length >= MathUtils.EPSILON) {
+				float invLength = 1.0f / length;
+				nx *= invLength;
+				ny *= invLength;
+			}
+			c.pos.set(c1._pos.x + nx * c1.rad, c1._pos.y + ny * c1.rad);
+			c.normal.set(-nx, -ny);
 			return 1;
 		} else {
 			return 0;
@@ -20,6 +20,14 @@ import loon.utils.MathUtils;
 
 public class PCirclePolygonCollider implements PCollider {
 
+	private final Vector2f normal = new Vector2f();
+
+	private final Vector2f edgeNormal = new Vector2f();
+
+	private final Vector2f a = new Vector2f();
+
+	private final Vector2f b = new Vector2f();
+
 	public PCirclePolygonCollider() {
 	}
 
@@ -35,22 +43,17 @@ public class PCirclePolygonCollider implements PCollider {
 		int edgeNumber = -1;
 		Vector2f vers[] = p1.vers;
 		int numVers = p1.numVertices;
-		Vector2f normal = new Vector2f();
-		Vector2f edgeNormal = new Vector2f();
-		Vector2f a = new Vector2f();
-		Vector2f b = new Vector2f();
 		int num = 0;
 		for (int i = 0; i < numVers; i++) {
 			a.set(c1._pos.x - vers[i].x, c1._pos.y - vers[i].y);
 			distance = a.length();
 			distance -= c1.rad;
 			if (distance <= 0.0F) {
-				PContact c = new PContact();
+				PContact c = PContact.obtain(cs, num);
 				c.overlap = distance;
 				a.normalize();
 				c.normal.set(a.x, a.y);
 				c.pos.set(vers[i].x, vers[i].y);
-				cs[num] = c;
 				if (++num == 2) {
 					return num;
 				}
@@ -86,11 +89,11 @@ public class PCirclePolygonCollider implements PCollider {
 		}
 
 		if (edgeNumber > -1) {
-			PContact c = new PContact();
+			PContact c = PContact.obtain(cs, 0);
 			c.overlap = distance;
-			c.normal = normal;
-			c.pos = c1._pos.sub(normal.mul(c1.rad));
-			cs[0] = c;
+			c.normal.set(normal.x, normal.y);
+			c.pos.set(c1._pos.x - normal.x * c1.rad, c1._pos.y - normal.y
+					* c1.rad);
 			return 1;
 		}
 		boolean hit = true;
@@ -110,13 +113,13 @@ public class PCirclePolygonCollider implements PCollider {
 
 		if (hit) {
 			distance = 1.0F;
-			normal = new Vector2f();
+			normal.set(0.0F, 0.0F);
 			for (int i = 0; i < numVers; i++) {
 				Vector2f ver = vers[i];
 				Vector2f nextVer = vers[(i + 1) % numVers];
 				a.set(nextVer.x - ver.x, nextVer.y - ver.y);
 				a.normalize();
-				float d = c1._pos.sub(ver).cross(a);
+				float d = (c1._pos.x - ver.x) * a.y - (c1._pos.y - ver.y) * a.x;
 				if (d < 0.0F && (distance == 1.0F || distance < d)) {
 					distance = d;
 					normal.set(a.y, -a.x);
@@ -124,11 +127,10 @@ public class PCirclePolygonCollider implements PCollider {
 			}
 
 			if (distance != 1.0F) {
-				PContact c = new PContact();
+				PContact c = PContact.obtain(cs, 0);
 				c.normal.set(normal.x, normal.y);
 				c.pos.set(c1._pos.x, c1._pos.y);
 				c.overlap = distance;
-				cs[0] = c;
 				return 1;
 			}
 		}
@@ -50,6 +50,44 @@ public class PContact {
 		data = new PContactData();
 	}
 
+	/**
+	 * 取出数组中指定位置的碰撞点,已存在时清空后复用,不存在时才创建
+	 * 
+	 * @param cs
+	 * @param index
+	 * @return
+	 */
+	static PContact obtain(PContact[] cs, int index) {
+		PContact c = cs[index];
+		if (c == null) {
+			c = new PContact();
+			cs[index] = c;
+		} else {
+			c.reset();
+		}
+		return c;
+	}
+
+	void reset() {
+		corI = 0.0F;
+		massN = 0.0F;
+		massT = 0.0F;
+		norI = 0.0F;
+		overlap = 0.0F;
+		tanI = 0.0F;
+		targetVelocity = 0.0F;
+		rel1.set(0.0F, 0.0F);
+		rel2.set(0.0F, 0.0F);
+		localRel1.set(0.0F, 0.0F);
+		localRel2.set(0.0F, 0.0F);
+		pos.set(0.0F, 0.0F);
+		normal.set(0.0F, 0.0F);
+		tangent.set(0.0F, 0.0F);
+		relVel.set(0.0F, 0.0F);
+		relPosVel.set(0.0F, 0.0F);
+		data.set(0, false);
+	}
+
 	public Vector2f getNormal() {
 		return normal.cpy();
 	}
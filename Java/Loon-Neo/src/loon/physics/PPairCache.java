@@ -0,0 +1,214 @@
+/**
+ * Copyright 2013 The Loon Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package loon.physics;
+
+/**
+ * 保存形状对的集合,形状对按(_id小,_id大)的顺序存放在连续数组中便于遍历,
+ * 并以开放寻址散列表索引,加入,查找与移除均为常数时间.
+ */
+class PPairCache {
+
+	private PShape[] pairs;
+	private int[] slots;
+	private int mask;
+	private int size;
+
+	public PPairCache() {
+		this(256);
+	}
+
+	public PPairCache(int capacity) {
+		int cap = 16;
+		while (cap < capacity * 2) {
+			cap <<= 1;
+		}
+		pairs = new PShape[cap];
+		slots = new int[cap];
+		mask = cap - 1;
+	}
+
+	private static int hash(int id1, int id2) {
+		int h = id1 * 0x9E3779B1 + id2;
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		return h;
+	}
+
+	private int find(PShape a, PShape b) {
+		for (int i = hash(a._id, b._id) & mask;; i = (i + 1) & mask) {
+			int index = slots[i] - 1;
+			if (index == -1) {
+				return -1;
+			}
+			if (pairs[index * 2] == a && pairs[index * 2 + 1] == b) {
+				return i;
+			}
+		}
+	}
+
+	public boolean contains(PShape s1, PShape s2) {
+		if (s1._id > s2._id) {
+			return find(s2, s1) != -1;
+		}
+		return find(s1, s2) != -1;
+	}
+
+	/**
+	 * 加入形状对,已存在时返回false
+	 * 
+	 * @param s1
+	 * @param s2
+	 * @return
+	 */
+	public boolean add(PShape s1, PShape s2) {
+		PShape a = s1, b = s2;
+		if (a._id > b._id) {
+			a = s2;
+			b = s1;
+		}
+		if (find(a, b) != -1) {
+			return false;
+		}
+		if ((size + 1) * 2 > slots.length) {
+			grow();
+		}
+		pairs[size * 2] = a;
+		pairs[size * 2 + 1] = b;
+		size++;
+		insertSlot(size - 1);
+		return true;
+	}
+
+	private void insertSlot(int index) {
+		int i = hash(pairs[index * 2]._id, pairs[index * 2 + 1]._id) & mask;
+		for (; slots[i] != 0; i = (i + 1) & mask) {
+		}
+		slots[i] = index + 1;
+	}
+
+	/**
+	 * 移除形状对,不存在时返回false
+	 * 
+	 * @param s1
+	 * @param s2
+	 * @return
+	 */
+	public boolean remove(PShape s1, PShape s2) {
+		PShape a = s1, b = s2;
+		if (a._id > b._id) {
+			a = s2;
+			b = s1;
+		}
+		int slot = find(a, b);
+		if (slot == -1) {
+			return false;
+		}
+		removeAt(slot);
+		return true;
+	}
+
+	private void removeAt(int slot) {
+		int index = slots[slot] - 1;
+		deleteSlot(slot);
+		int last = size - 1;
+		if (index != last) {
+			// 把最后一对移到空出的位置,并修正其索引
+			int moved = findSlot(last);
+			pairs[index * 2] = pairs[last * 2];
+			pairs[index * 2 + 1] = pairs[last * 2 + 1];
+			slots[moved] = index + 1;
+		}
+		pairs[last * 2] = null;
+		pairs[last * 2 + 1] = null;
+		size--;
+	}
+
+	private int findSlot(int index) {
+		int i = hash(pairs[index * 2]._id, pairs[index * 2 + 1]._id) & mask;
+		for (; slots[i] != index + 1; i = (i + 1) & mask) {
+		}
+		return i;
+	}
+
+	private void deleteSlot(int slot) {
+		int hole = slot;
+		for (int j = (slot + 1) & mask; slots[j] != 0; j = (j + 1) & mask) {
+			int index = slots[j] - 1;
+			int home = hash(pairs[index * 2]._id, pairs[index * 2 + 1]._id)
+					& mask;
+			if (((j - home) & mask) >= ((j - hole) & mask)) {
+				slots[hole] = slots[j];
+				hole = j;
+			}
+		}
+		slots[hole] = 0;
+	}
+
+	/**
+	 * 移除所有包含已被删除形状的形状对
+	 * 
+	 * @param listener
+	 * @return
+	 */
+	public int removeDead(PBroadphaseListener listener) {
+		int count = 0;
+		for (int i = size - 1; i >= 0; i--) {
+			PShape a = pairs[i * 2];
+			PShape b = pairs[i * 2 + 1];
+			if (a._sapAABB.set && b._sapAABB.set) {
+				continue;
+			}
+			removeAt(findSlot(i));
+			count++;
+			if (listener != null) {
+				listener.pairRemoved(a, b);
+			}
+		}
+		return count;
+	}
+
+	private void grow() {
+		int cap = slots.length << 1;
+		PShape[] old = pairs;
+		pairs = new PShape[cap];
+		System.arraycopy(old, 0, pairs, 0, size * 2);
+		slots = new int[cap];
+		mask = cap - 1;
+		for (int i = 0; i < size; i++) {
+			insertSlot(i);
+		}
+	}
+
+	public PShape[] pairs() {
+		return pairs;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		for (int i = 0; i < size * 2; i++) {
+			pairs[i] = null;
+		}
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = 0;
+		}
+		size = 0;
+	}
+
+}
@@ -18,11 +18,15 @@ package loon.physics;
 import loon.geom.Vector2f;
 import loon.utils.CollectionUtils;
 import loon.utils.TimeUtils;
+import loon.utils.timer.FrameProfiler;
 
 public class PPhysWorld {
 
 	private PBody[] bodies;
 	private long collisionDetectionTime;
+	private long broadphaseTime;
+	private long narrowphaseTime;
+	private int numPairs;
 	private long collisionSolveTime;
 	private Vector2f gravity;
 	private int iterations;
@@ -32,19 +36,34 @@ public class PPhysWorld {
 	private int numShapes;
 	private int numSolvers;
 	private long positionUpdateTime;
-	private PSweepAndPrune sap;
+	private PBroadphase broadphase;
 	private PShape[] shapes;
 	private PSolver[] solvers;
+	private PSolverCache solverCache;
+	private PSolver[] solverPool;
+	private int numSolverPool;
+	private PContact[][] contactPool;
+	private int numContactPool;
+	private PContact[] contactBuffer;
+	private int shapeIds;
 	private long totalStepTime;
 
 	public PPhysWorld() {
+		this(new PSweepAndPrune());
+	}
+
+	public PPhysWorld(PBroadphase broadphase) {
 		this.iterations = 10;
 		this.gravity = new Vector2f(0.0F, 9.80665F);
 		this.bodies = new PBody[1024];
 		this.joints = new PJoint[1024];
 		this.shapes = new PShape[1024];
 		this.solvers = new PSolver[1024];
-		this.sap = new PSweepAndPrune();
+		this.solverCache = new PSolverCache(1024);
+		this.solverPool = new PSolver[64];
+		this.contactPool = new PContact[64][];
+		this.contactBuffer = obtainContacts();
+		this.broadphase = broadphase;
 	}
 
 	public boolean removeBody(PBody b) {
@@ -106,7 +125,8 @@ public class PPhysWorld {
 					shapes.length * 2);
 		}
 		shapes[numShapes] = s;
-		s._sapAABB.set(sap, s, s._aabb);
+		s._id = ++shapeIds;
+		broadphase.addShape(s);
 		numShapes++;
 	}
 
@@ -122,78 +142,103 @@ public class PPhysWorld {
 	private PCollisionChooser cc = new PCollisionChooser();
 
 	private void collide(long st) {
-		PSortableObject obj[] = sap.sort();
-		if (sap.checkX) {
-			for (int i = 0; i < sap.numObject; i++)
-				if (obj[i].begin) {
-					PSortableObject end = obj[i].aabb.endX;
-					PShape s1 = obj[i].parent;
-					int j = i;
-					do {
-						j++;
-						if (obj[j].begin) {
-							PShape s2 = obj[j].parent;
-							if ((!s1._parent.fix || !s2._parent.fix)
-									&& s1._parent != s2._parent
-									&& s1._aabb.isHit(s2._aabb))
-								collisionShape(s1, s2, cc);
-						}
-					} while (obj[j] != end && j < sap.numObject);
-				}
-
-		} else {
-			for (int i = 0; i < sap.numObject; i++)
-				if (obj[i].begin) {
-					PSortableObject end = obj[i].aabb.endY;
-					PShape s1 = obj[i].parent;
-					int j = i;
-					do {
-						j++;
-						if (obj[j].begin) {
-							PShape s2 = obj[j].parent;
-							if ((!s1._parent.fix || !s2._parent.fix)
-									&& s1._parent != s2._parent
-									&& s1._aabb.isHit(s2._aabb))
-								collisionShape(s1, s2, cc);
-						}
-					} while (obj[j] != end && j < sap.numObject);
-				}
+		numPairs = broadphase.updatePairs();
+		PShape[] pairs = broadphase.getPairs();
+		long mid = nanoTime();
+		broadphaseTime = mid - st;
+		for (int i = 0; i < numPairs; i++) {
+			PShape s1 = pairs[i * 2];
+			PShape s2 = pairs[i * 2 + 1];
+			if ((!s1._parent.fix || !s2._parent.fix)
+					&& s1._parent != s2._parent && s1._aabb.isHit(s2._aabb)) {
+				collisionShape(s1, s2, cc);
+			}
 		}
-
 		long en = nanoTime();
+		narrowphaseTime = en - mid;
 		collisionDetectionTime = en - st;
-		for (int i = 0; i < numSolvers; i++) {
-			if (solvers[i].rem) {
-				removeSolver(i);
-				i--;
-			}
-		}
+		removeSolvers();
 	}
-	
+
 	private final static long nanoTime(){
 		return TimeUtils.nanoTime();
 	}
 
 	private void collisionShape(PShape s1, PShape s2, PCollisionChooser cc) {
-		PContact cs[] = new PContact[2];
+		PContact cs[] = contactBuffer;
 		int num = cc.collide(s1, s2, cs);
 		if (num == 0) {
 			return;
 		}
-		boolean found = false;
-		for (int f = 0; f < numSolvers; f++) {
-			if (s1 != solvers[f].s1 || s2 != solvers[f].s2) {
-				continue;
-			}
-			solvers[f].update(cs, num);
-			found = true;
-			break;
+		PSolver solver = solverCache.get(s1, s2);
+		if (solver != null) {
+			contactBuffer = solver.update(cs, num);
+		} else {
+			solver = obtainSolver(s1, s2, cs, num);
+			solverCache.put(solver);
+			addSolver(solver);
+			contactBuffer = obtainContacts();
 		}
+	}
 
-		if (!found) {
-			PSolver solver = new PSolver(s1, s2, cs, num);
-			addSolver(solver);
+	private PSolver obtainSolver(PShape s1, PShape s2, PContact[] cs, int num) {
+		if (numSolverPool > 0) {
+			PSolver solver = solverPool[--numSolverPool];
+			solverPool[numSolverPool] = null;
+			solver.set(s1, s2, cs, num);
+			return solver;
+		}
+		return new PSolver(s1, s2, cs, num);
+	}
+
+	private void freeSolver(PSolver solver) {
+		solverCache.remove(solver);
+		freeContacts(solver.free());
+		if (numSolverPool == solverPool.length) {
+			solverPool = CollectionUtils.copyOf(solverPool,
+					solverPool.length * 2);
+		}
+		solverPool[numSolverPool++] = solver;
+	}
+
+	private PContact[] obtainContacts() {
+		if (numContactPool > 0) {
+			PContact[] cs = contactPool[--numContactPool];
+			contactPool[numContactPool] = null;
+			return cs;
+		}
+		return new PContact[2];
+	}
+
+	private void freeContacts(PContact[] cs) {
+		if (cs == null) {
+			return;
+		}
+		if (numContactPool == contactPool.length) {
+			PContact[][] tmp = new PContact[contactPool.length * 2][];
+			System.arraycopy(contactPool, 0, tmp, 0, numContactPool);
+			contactPool = tmp;
+		}
+		contactPool[numContactPool++] = cs;
+	}
+
+	/**
+	 * 一次遍历移除所有失效的求解器(保持其余求解器的顺序),并放回对象池
+	 */
+	private void removeSolvers() {
+		int alive = 0;
+		for (int i = 0; i < numSolvers; i++) {
+			PSolver solver = solvers[i];
+			if (solver.rem) {
+				freeSolver(solver);
+			} else {
+				solvers[alive++] = solver;
+			}
+		}
+		for (int i = alive; i < numSolvers; i++) {
+			solvers[i] = null;
 		}
+		numSolvers = alive;
 	}
 
 	public PBody[] getBodies() {
@@ -212,6 +257,53 @@ public class PPhysWorld {
 		return collisionDetectionTime;
 	}
 
+	/**
+	 * 上一步中broadphase(找出可能碰撞的形状对)所用的时间
+	 * 
+	 * @return
+	 */
+	public long getBroadphaseTime() {
+		return broadphaseTime;
+	}
+
+	/**
+	 * 上一步中对形状对做精确碰撞检测所用的时间
+	 * 
+	 * @return
+	 */
+	public long getNarrowphaseTime() {
+		return narrowphaseTime;
+	}
+
+	/**
+	 * 上一步中broadphase给出的形状对数量
+	 * 
+	 * @return
+	 */
+	public int getBroadphasePairs() {
+		return numPairs;
+	}
+
+	public PBroadphase getBroadphase() {
+		return broadphase;
+	}
+
+	/**
+	 * 更换broadphase实现,已有的形状会全部转移到新的broadphase中
+	 * 
+	 * @param b
+	 */
+	public void setBroadphase(PBroadphase b) {
+		if (b == null || b == broadphase) {
+			return;
+		}
+		broadphase.clear();
+		for (int i = 0; i < numShapes; i++) {
+			b.addShape(shapes[i]);
+		}
+		broadphase = b;
+	}
+
 	public long getCollisionSolveTime() {
 		return collisionSolveTime;
 	}
@@ -278,7 +370,7 @@ public class PPhysWorld {
 				c.convexes[i]._rem = true;
 			}
 		}
-		shapes[index]._sapAABB.remove();
+		broadphase.removeShape(shapes[index]);
 		if (index != numShapes - 1) {
 			System.arraycopy(shapes, index + 1, shapes, index, numShapes
 					- index - 1);
@@ -286,14 +378,6 @@ public class PPhysWorld {
 		numShapes--;
 	}
 
-	private void removeSolver(int index) {
-		if (index != numSolvers - 1) {
-			System.arraycopy(solvers, index + 1, solvers, index, numSolvers
-					- index - 1);
-		}
-		numSolvers--;
-	}
-
 	public void setGravity(float gx, float gy) {
 		gravity.set(gx, gy);
 	}
@@ -366,6 +450,7 @@ public class PPhysWorld {
 	}
 
 	public void step(float dt) {
+		FrameProfiler.begin(FrameProfiler.PHYSICS);
 		long st = nanoTime();
 		for (int i = 0; i < numBodies; i++)
 			if (bodies[i].rem) {
@@ -400,6 +485,7 @@ public class PPhysWorld {
 		solve(dt);
 		long totalEn = nanoTime();
 		totalStepTime = totalEn - st;
+		FrameProfiler.end(FrameProfiler.PHYSICS);
 	}
 
 	public void update() {
@@ -50,37 +50,50 @@ public class PPolygonPolygonCollider implements PCollider {
 		}
 	}
 
+	private final PWDistanceData dis1 = new PWDistanceData();
+
+	private final PWDistanceData dis2 = new PWDistanceData();
+
+	private final PWContactedVertex[] edge = { new PWContactedVertex(),
+			new PWContactedVertex() };
+
+	private final PWContactedVertex[] clip = { new PWContactedVertex(),
+			new PWContactedVertex() };
+
 	public PPolygonPolygonCollider() {
 	}
 
-	private PWContactedVertex[] clipEdge(PWContactedVertex clips[],
-			Vector2f normal, float dist) {
-		PWContactedVertex line[] = new PWContactedVertex[2];
+	private static void copy(PWContactedVertex src, PWContactedVertex dst) {
+		dst.v.set(src.v.x, src.v.y);
+		dst.data.set(src.data.id, src.data.flip);
+	}
+
+	private boolean clipEdge(PWContactedVertex clips[],
+			PWContactedVertex line[], float nx, float ny, float dist) {
 		int numClips = 0;
-		float dist0 = normal.dot(clips[0].v) - dist;
-		float dist1 = normal.dot(clips[1].v) - dist;
+		float dist0 = nx * clips[0].v.x + ny * clips[0].v.y - dist;
+		float dist1 = nx * clips[1].v.x + ny * clips[1].v.y - dist;
 		if (dist0 < 0.0F) {
-			line[numClips] = clips[0];
+			copy(clips[0], line[numClips]);
 			numClips++;
 		}
 		if (dist1 < 0.0F) {
-			line[numClips] = clips[1];
+			copy(clips[1], line[numClips]);
 			numClips++;
 		}
 		if (numClips == 0)
-			return null;
+			return false;
 		if (numClips == 2)
-			return line;
+			return true;
 		int c = 0;
 		if (dist0 < 0.0F && dist1 > 0.0F)
 			c = 1;
 		float d = dist0 / (dist0 - dist1);
-		line[1] = new PWContactedVertex();
-		line[1].v = clips[1].v.sub(clips[0].v);
-		line[1].v.mulLocal(d);
-		line[1].v.addSelf(clips[0].v);
-		line[1].data = clips[c].data;
-		return line;
+		Vector2f v0 = clips[0].v;
+		Vector2f v1 = clips[1].v;
+		line[1].v.set((v1.x - v0.x) * d + v0.x, (v1.y - v0.y) * d + v0.y);
+		line[1].data.set(clips[c].data.id, clips[c].data.flip);
+		return true;
 	}
 
 	public int collide(PShape s1, PShape s2, PContact cs[]) {
@@ -92,10 +105,10 @@ public class PPolygonPolygonCollider implements PCollider {
 		}
 		PConvexPolygonShape p1 = (PConvexPolygonShape) s1;
 		PConvexPolygonShape p2 = (PConvexPolygonShape) s2;
-		PWDistanceData dis1 = getDistance(p1, p2);
+		getDistance(p1, p2, dis1);
 		if (dis1.dist > 0.0F)
 			return 0;
-		PWDistanceData dis2 = getDistance(p2, p1);
+		getDistance(p2, p1, dis2);
 		if (dis2.dist > 0.0F)
 			return 0;
 		float error = 0.008F;
@@ -115,29 +128,26 @@ public class PPolygonPolygonCollider implements PCollider {
 			flip = true;
 		}
 		Vector2f normal = pa.nors[edgeA];
-		Vector2f tangent = new Vector2f(-normal.y, normal.x);
-		Vector2f paVers[] = pa.vers;
-		PWContactedVertex cv[] = getEdgeOfPotentialCollision(pa, pb, edgeA,
-				flip);
-		cv = clipEdge(cv, tangent.negate(), -tangent.dot(paVers[edgeA]));
-		if (cv == null)
+		float tx = -normal.y;
+		float ty = normal.x;
+		Vector2f va = pa.vers[edgeA];
+		Vector2f vb = pa.vers[(edgeA + 1) % pa.numVertices];
+		getEdgeOfPotentialCollision(pa, pb, edgeA, edge);
+		if (!clipEdge(edge, clip, -tx, -ty, -(tx * va.x + ty * va.y)))
 			return 0;
-		cv = clipEdge(cv, tangent,
-				tangent.dot(paVers[(edgeA + 1) % pa.numVertices]));
-		if (cv == null)
+		if (!clipEdge(clip, edge, tx, ty, tx * vb.x + ty * vb.y))
 			return 0;
-		Vector2f contactNormal = flip ? normal : normal.negate();
+		float cnx = flip ? normal.x : -normal.x;
+		float cny = flip ? normal.y : -normal.y;
 		int numContacts = 0;
 		for (int i = 0; i < 2; i++) {
-			float dist = normal.dot(cv[i].v) - normal.dot(paVers[edgeA]);
+			float dist = normal.dot(edge[i].v) - normal.dot(va);
 			if (dist < 0.0F) {
-				PContact c = new PContact();
-				c.normal.set(contactNormal.x, contactNormal.y);
-				c.pos.set(cv[i].v.x, cv[i].v.y);
+				PContact c = PContact.obtain(cs, numContacts);
+				c.normal.set(cnx, cny);
+				c.pos.set(edge[i].v.x, edge[i].v.y);
 				c.overlap = dist;
-				c.data = cv[i].data;
-				c.data.flip = flip;
-				cs[numContacts] = c;
+				c.data.set(edge[i].data.id, flip);
 				numContacts++;
 			}
 		}
@@ -146,13 +156,13 @@ public class PPolygonPolygonCollider implements PCollider {
 	}
 
 	private PWDistanceData getDistance(PConvexPolygonShape p1,
-			PConvexPolygonShape p2) {
-		PWDistanceData distance = new PWDistanceData();
-		Vector2f firstScan = p2._pos.sub(p1._pos);
+			PConvexPolygonShape p2, PWDistanceData distance) {
+		float scanX = p2._pos.x - p1._pos.x;
+		float scanY = p2._pos.y - p1._pos.y;
 		float dist = 1.0F;
 		int edgeNumber = -1;
 		for (int i = 0; i < p1.numVertices; i++) {
-			float dot = p1.nors[i].dot(firstScan);
+			float dot = p1.nors[i].x * scanX + p1.nors[i].y * scanY;
 			if (dot > dist || dist == 1.0F) {
 				dist = dot;
 				edgeNumber = i;
@@ -241,8 +251,7 @@ public class PPolygonPolygonCollider implements PCollider {
 
 	private PWContactedVertex[] getEdgeOfPotentialCollision(
 			PConvexPolygonShape p1, PConvexPolygonShape p2, int r1edge,
-			boolean flip) {
-		PWContactedVertex line[] = new PWContactedVertex[2];
+			PWContactedVertex line[]) {
 		Vector2f normal = p1.nors[r1edge];
 		float dist = 1.0F;
 		int ver = -1;
@@ -256,10 +265,8 @@ public class PPolygonPolygonCollider implements PCollider {
 			}
 		}
 
-		line[0] = new PWContactedVertex();
 		line[0].v.set(p2.vers[ver].x, p2.vers[ver].y);
 		line[0].data.set(r1edge + ver * 2 + ver * 4, false);
-		line[1] = new PWContactedVertex();
 		line[1].v.set(p2.vers[nextVer].x, p2.vers[nextVer].y);
 		line[1].data.set(r1edge + ver * 2 + nextVer * 4, false);
 		return line;
@@ -37,6 +37,7 @@ public abstract class PShape {
 	float _rest;
 	PSortableAABB _sapAABB;
 	PShapeType _type;
+	int _id;
 	LColor _color;
 	LColor _strokeColor;
 	private boolean _rnd;
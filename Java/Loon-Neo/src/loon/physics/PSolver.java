@@ -30,6 +30,10 @@ public class PSolver {
 	PShape s2;
 
 	public PSolver(PShape shape1, PShape shape2, PContact contacts[], int num) {
+		set(shape1, shape2, contacts, num);
+	}
+
+	void set(PShape shape1, PShape shape2, PContact contacts[], int num) {
 		s1 = shape1;
 		s2 = shape2;
 		b1 = s1._parent;
@@ -38,16 +42,17 @@ public class PSolver {
 		rest = MathUtils.sqrt(s1._rest * s2._rest);
 		cs = contacts;
 		numContacts = num;
+		rem = false;
 		for (int i = 0; i < numContacts; i++) {
 			PContact c = cs[i];
-			c.rel1 = c.pos.sub(b1.pos);
-			c.rel2 = c.pos.sub(b2.pos);
+			c.rel1.set(c.pos.x - b1.pos.x, c.pos.y - b1.pos.y);
+			c.rel2.set(c.pos.x - b2.pos.x, c.pos.y - b2.pos.y);
 			c.massN = PTransformer.calcEffectiveMass(b1, b2, c.rel1, c.rel2,
 					c.normal);
 			c.massT = PTransformer.calcEffectiveMass(b1, b2, c.rel1, c.rel2,
 					c.tangent);
-			c.relVel = PTransformer
-					.calcRelativeVelocity(b1, b2, c.rel1, c.rel2);
+			PTransformer.calcRelativeVelocity(b1, b2, c.rel1, c.rel2,
+					c.relVel);
 			float rvn = c.relVel.dot(c.normal);
 			if (rvn < -0.5F)
 				c.targetVelocity = MathUtils.max(rest * -rvn, 0.0F);
@@ -56,12 +61,28 @@ public class PSolver {
 			c.tangent.set(c.normal.y, -c.normal.x);
 			c.localRel1.set(c.rel1.x, c.rel1.y);
 			c.localRel2.set(c.rel2.x, c.rel2.y);
-			b1.mAng.transpose().mulEqual(c.localRel1);
-			b2.mAng.transpose().mulEqual(c.localRel2);
+			b1.mAng.mulTransposeEqual(c.localRel1);
+			b2.mAng.mulTransposeEqual(c.localRel2);
 		}
 
 	}
 
+	/**
+	 * 解除与形状的关联,以便放回对象池
+	 * 
+	 * @return 此前持有的碰撞点数组
+	 */
+	PContact[] free() {
+		PContact[] old = cs;
+		s1 = null;
+		s2 = null;
+		b1 = null;
+		b2 = null;
+		cs = null;
+		numContacts = 0;
+		return old;
+	}
+
 	private float clamp(float v, float min, float max) {
 		return v <= max ? v >= min ? v : min : max;
 	}
@@ -96,8 +117,8 @@ public class PSolver {
 	void solvePosition() {
 		for (int i = 0; i < numContacts; i++) {
 			PContact c = cs[i];
-			c.relPosVel = PTransformer.calcRelativeCorrectVelocity(b1, b2,
-					c.rel1, c.rel2);
+			PTransformer.calcRelativeCorrectVelocity(b1, b2, c.rel1, c.rel2,
+					c.relPosVel);
 			float rvn = c.normal.dot(c.relPosVel);
 			float subCorrectI = -c.massN * 0.2F * (rvn + c.overlap + 0.002F);
 			float newCorrectI = max(c.corI + subCorrectI, 0.0F);
@@ -114,8 +135,8 @@ public class PSolver {
 	void solveVelocity() {
 		for (int i = 0; i < numContacts; i++) {
 			PContact c = cs[i];
-			c.relVel = PTransformer
-					.calcRelativeVelocity(b1, b2, c.rel1, c.rel2);
+			PTransformer.calcRelativeVelocity(b1, b2, c.rel1, c.rel2,
+					c.relVel);
 			float rvn = c.normal.x * c.relVel.x + c.normal.y * c.relVel.y;
 			float subNormalI = -c.massN * (rvn - c.targetVelocity);
 			float newNormalI = max(c.norI + subNormalI, 0.0F);
@@ -129,8 +150,8 @@ public class PSolver {
 
 		for (int i = 0; i < numContacts; i++) {
 			PContact c = cs[i];
-			c.relVel = PTransformer
-					.calcRelativeVelocity(b1, b2, c.rel1, c.rel2);
+			PTransformer.calcRelativeVelocity(b1, b2, c.rel1, c.rel2,
+					c.relVel);
 			float rvt = c.tangent.x * c.relVel.x + c.tangent.y * c.relVel.y;
 			float maxFriction = c.norI * fric;
 			float subTangentI = c.massT * -rvt;
@@ -146,7 +167,14 @@ public class PSolver {
 
 	}
 
-	void update(PContact contacts[], int num) {
+	/**
+	 * 以新的碰撞点替换当前碰撞点(并继承相同位置碰撞点的冲量)
+	 * 
+	 * @param contacts
+	 * @param num
+	 * @return 被替换下来的碰撞点数组,可以再次用于碰撞检测
+	 */
+	PContact[] update(PContact contacts[], int num) {
 		PContact old[] = cs;
 		int oldNumContacts = numContacts;
 		fric = MathUtils.sqrt(s1._fric * s2._fric);
@@ -155,8 +183,8 @@ public class PSolver {
 		numContacts = num;
 		for (int i = 0; i < numContacts; i++) {
 			PContact c = cs[i];
-			c.rel1 = c.pos.sub(b1.pos);
-			c.rel2 = c.pos.sub(b2.pos);
+			c.rel1.set(c.pos.x - b1.pos.x, c.pos.y - b1.pos.y);
+			c.rel2.set(c.pos.x - b2.pos.x, c.pos.y - b2.pos.y);
 			c.massN = PTransformer.calcEffectiveMass(b1, b2, c.rel1, c.rel2,
 					c.normal);
 			c.massT = PTransformer.calcEffectiveMass(b1, b2, c.rel1, c.rel2,
@@ -164,8 +192,8 @@ public class PSolver {
 			c.tangent.set(c.normal.y, -c.normal.x);
 			c.localRel1.set(c.rel1.x, c.rel1.y);
 			c.localRel2.set(c.rel2.x, c.rel2.y);
-			b1.mAng.transpose().mulEqual(c.localRel1);
-			b2.mAng.transpose().mulEqual(c.localRel2);
+			b1.mAng.mulTransposeEqual(c.localRel1);
+			b2.mAng.mulTransposeEqual(c.localRel2);
 		}
 
 		for (int i = 0; i < oldNumContacts; i++) {
@@ -179,6 +207,7 @@ public class PSolver {
 		}
 
 		rem = false;
+		return old;
 	}
 
 }
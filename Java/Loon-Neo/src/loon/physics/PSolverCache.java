@@ -0,0 +1,139 @@
+/**
+ * Copyright 2013 The Loon Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package loon.physics;
+
+/**
+ * 以(shape1, shape2)为键保存PSolver的开放寻址散列表(线性探测),
+ * 用于在碰撞检测时以常数时间找到已存在的求解器.
+ */
+class PSolverCache {
+
+	private int[] keys1;
+	private int[] keys2;
+	private PSolver[] values;
+	private int mask;
+	private int size;
+
+	public PSolverCache() {
+		this(256);
+	}
+
+	public PSolverCache(int capacity) {
+		int cap = 16;
+		while (cap < capacity * 2) {
+			cap <<= 1;
+		}
+		alloc(cap);
+	}
+
+	private void alloc(int cap) {
+		keys1 = new int[cap];
+		keys2 = new int[cap];
+		values = new PSolver[cap];
+		mask = cap - 1;
+		size = 0;
+	}
+
+	private static int hash(int id1, int id2) {
+		int h = id1 * 0x9E3779B1 + id2;
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		return h;
+	}
+
+	public PSolver get(PShape s1, PShape s2) {
+		final int id1 = s1._id;
+		final int id2 = s2._id;
+		for (int i = hash(id1, id2) & mask;; i = (i + 1) & mask) {
+			PSolver v = values[i];
+			if (v == null) {
+				return null;
+			}
+			if (keys1[i] == id1 && keys2[i] == id2 && v.s1 == s1
+					&& v.s2 == s2) {
+				return v;
+			}
+		}
+	}
+
+	public void put(PSolver solver) {
+		if ((size + 1) * 2 > values.length) {
+			rehash(values.length << 1);
+		}
+		insert(solver);
+	}
+
+	private void insert(PSolver solver) {
+		final int id1 = solver.s1._id;
+		final int id2 = solver.s2._id;
+		int i = hash(id1, id2) & mask;
+		for (; values[i] != null; i = (i + 1) & mask) {
+			if (values[i] == solver) {
+				return;
+			}
+		}
+		keys1[i] = id1;
+		keys2[i] = id2;
+		values[i] = solver;
+		size++;
+	}
+
+	public boolean remove(PSolver solver) {
+		int i = hash(solver.s1._id, solver.s2._id) & mask;
+		for (; values[i] != solver; i = (i + 1) & mask) {
+			if (values[i] == null) {
+				return false;
+			}
+		}
+		// 删除后把同一探测链上的后续元素前移,保证查找不会中断
+		int hole = i;
+		for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+			int home = hash(keys1[j], keys2[j]) & mask;
+			if (((j - home) & mask) >= ((j - hole) & mask)) {
+				keys1[hole] = keys1[j];
+				keys2[hole] = keys2[j];
+				values[hole] = values[j];
+				hole = j;
+			}
+		}
+		values[hole] = null;
+		size--;
+		return true;
+	}
+
+	private void rehash(int cap) {
+		PSolver[] old = values;
+		alloc(cap);
+		for (int i = 0; i < old.length; i++) {
+			if (old[i] != null) {
+				insert(old[i]);
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = null;
+		}
+		size = 0;
+	}
+
+}
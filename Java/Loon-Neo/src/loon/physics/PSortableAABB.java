@@ -35,13 +35,20 @@ public class PSortableAABB {
 		if (!set) {
 			return;
 		} else {
-			sap.removeObject(beginX, beginY);
-			sap.removeObject(endX, endY);
+			set = false;
+			beginX.removed = true;
+			beginY.removed = true;
+			endX.removed = true;
+			endY.removed = true;
+			sap.removeObject(this);
 			return;
 		}
 	}
 
 	public void set(PSweepAndPrune sap, PShape s, AABB aabb) {
+		if (set) {
+			remove();
+		}
 		set = true;
 		this.sap = sap;
 		parent = s;
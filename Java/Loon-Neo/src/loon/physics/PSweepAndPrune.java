@@ -15,18 +15,45 @@
  */
 package loon.physics;
 
+import loon.geom.AABB;
 import loon.utils.CollectionUtils;
 
-public class PSweepAndPrune {
+/**
+ * 增量式的Sweep and Prune,两个坐标轴上的端点在帧与帧之间保持有序,
+ * 每次只用插入排序修正移动过的端点,并在端点交换时加入或移除形状对,
+ * 因此物体移动不大时更新的代价接近线性.
+ */
+public class PSweepAndPrune implements PBroadphase {
 
-	boolean checkX;
 	int numObject;
 	private PSortableObject[] objsX;
 	private PSortableObject[] objsY;
+	private int numRemoved;
+	private final PPairCache pairs;
+	private PBroadphaseListener listener;
 
 	public PSweepAndPrune() {
 		objsX = new PSortableObject[1024];
 		objsY = new PSortableObject[1024];
+		pairs = new PPairCache(1024);
+	}
+
+	public void setListener(PBroadphaseListener listener) {
+		this.listener = listener;
+	}
+
+	public PBroadphaseListener getListener() {
+		return listener;
+	}
+
+	@Override
+	public void addShape(PShape s) {
+		s._sapAABB.set(this, s, s._aabb);
+	}
+
+	@Override
+	public void removeShape(PShape s) {
+		s._sapAABB.remove();
 	}
 
 	void addObject(PSortableObject ox, PSortableObject oy) {
@@ -41,56 +68,106 @@ public class PSweepAndPrune {
 		numObject++;
 	}
 
-	void removeObject(PSortableObject ox, PSortableObject oy) {
-		int indexX = -1;
-		int indexY = -1;
+	/**
+	 * 端点已被标记为删除,在下次updatePairs时一次性移出数组
+	 * 
+	 * @param aabb
+	 */
+	void removeObject(PSortableAABB aabb) {
+		numRemoved++;
+	}
+
+	private void compact() {
+		int count = 0;
 		for (int i = 0; i < numObject; i++) {
-			if (objsX[i] != ox)
-				continue;
-			indexX = i;
-			break;
+			if (!objsX[i].removed) {
+				objsX[count++] = objsX[i];
+			}
 		}
-
-		if (indexX != -1 && indexX != numObject - 1)
-			System.arraycopy(objsX, indexX + 1, objsX, indexX, numObject
-					- indexX - 1);
+		for (int i = count; i < numObject; i++) {
+			objsX[i] = null;
+		}
+		count = 0;
 		for (int i = 0; i < numObject; i++) {
-			if (objsY[i] != oy)
-				continue;
-			indexY = i;
-			break;
+			if (!objsY[i].removed) {
+				objsY[count++] = objsY[i];
+			}
 		}
+		for (int i = count; i < numObject; i++) {
+			objsY[i] = null;
+		}
+		numObject = count;
+		numRemoved = 0;
+		pairs.removeDead(listener);
+	}
 
-		if (indexY != -1 && indexY != numObject - 1)
-			System.arraycopy(objsY, indexY + 1, objsY, indexY, numObject
-					- indexY - 1);
-		numObject--;
+	@Override
+	public int updatePairs() {
+		if (numRemoved > 0) {
+			compact();
+		}
+		sort(objsX);
+		sort(objsY);
+		return pairs.size();
 	}
 
-	PSortableObject[] sort() {
-		PInsertionSorter.sort(objsX, numObject);
-		PInsertionSorter.sort(objsY, numObject);
-		int stack = 0;
-		int overlapX = 0;
-		int overlapY = 0;
-		for (int i = 0; i < numObject; i++)
-			if (objsX[i].begin) {
-				stack++;
-				overlapX += stack;
-			} else {
-				stack--;
+	private void sort(PSortableObject[] objs) {
+		final int num = numObject;
+		for (int i = 1; i < num; i++) {
+			PSortableObject s = objs[i];
+			float value = s.value;
+			int j = i;
+			for (; j > 0 && objs[j - 1].value > value; j--) {
+				PSortableObject o = objs[j - 1];
+				if (s.begin != o.begin && s.parent != o.parent) {
+					if (s.begin) {
+						// 起点越过了另一形状的终点,两者可能开始重叠
+						if (overlap(s.aabb.aabb, o.aabb.aabb)
+								&& pairs.add(s.parent, o.parent)
+								&& listener != null) {
+							listener.pairAdded(s.parent, o.parent);
+						}
+					} else if (pairs.remove(s.parent, o.parent)
+							&& listener != null) {
+						// 终点越过了另一形状的起点,两者在此轴上分离
+						listener.pairRemoved(s.parent, o.parent);
+					}
+				}
+				objs[j] = o;
 			}
+			objs[j] = s;
+		}
+	}
 
-		stack = 0;
-		for (int i = 0; i < numObject; i++)
-			if (objsY[i].begin) {
-				stack++;
-				overlapY += stack;
-			} else {
-				stack--;
-			}
+	private static boolean overlap(AABB a, AABB b) {
+		return a.minX <= b.maxX && b.minX <= a.maxX && a.minY <= b.maxY
+				&& b.minY <= a.maxY;
+	}
 
-		return (checkX = overlapX < overlapY) ? objsX : objsY;
+	@Override
+	public PShape[] getPairs() {
+		return pairs.pairs();
+	}
+
+	public int getPairCount() {
+		return pairs.size();
+	}
+
+	@Override
+	public int size() {
+		return numObject / 2;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < numObject; i++) {
+			objsX[i].aabb.set = false;
+			objsX[i] = null;
+			objsY[i] = null;
+		}
+		numObject = 0;
+		numRemoved = 0;
+		pairs.clear();
 	}
 
 }
@@ -94,6 +94,15 @@ public class PTransformer {
 		v.set(e00 * v.x + e10 * v.y, e01 * v.x + e11 * v.y);
 	}
 
+	/**
+	 * 等同于transpose().mulEqual(v),但不产生新的矩阵
+	 * 
+	 * @param v
+	 */
+	public void mulTransposeEqual(Vector2f v) {
+		v.set(e00 * v.x + e01 * v.y, e10 * v.x + e11 * v.y);
+	}
+
 	public void set(float e00, float e01, float e10, float e11) {
 		this.e00 = e00;
 		this.e01 = e01;
@@ -159,7 +168,12 @@ public class PTransformer {
 
 	public static Vector2f calcRelativeCorrectVelocity(PBody b1, PBody b2,
 			Vector2f r1, Vector2f r2) {
-		Vector2f relVel = b1.correctVel.cpy();
+		return calcRelativeCorrectVelocity(b1, b2, r1, r2, new Vector2f());
+	}
+
+	public static Vector2f calcRelativeCorrectVelocity(PBody b1, PBody b2,
+			Vector2f r1, Vector2f r2, Vector2f relVel) {
+		relVel.set(b1.correctVel.x, b1.correctVel.y);
 		relVel.x -= b2.correctVel.x;
 		relVel.y -= b2.correctVel.y;
 		relVel.x += -b1.correctAngVel * r1.y;
@@ -171,7 +185,12 @@ public class PTransformer {
 
 	public static Vector2f calcRelativeVelocity(PBody b1, PBody b2,
 			Vector2f r1, Vector2f r2) {
-		Vector2f relVel = b1.vel.cpy();
+		return calcRelativeVelocity(b1, b2, r1, r2, new Vector2f());
+	}
+
+	public static Vector2f calcRelativeVelocity(PBody b1, PBody b2,
+			Vector2f r1, Vector2f r2, Vector2f relVel) {
+		relVel.set(b1.vel.x, b1.vel.y);
 		relVel.x -= b2.vel.x;
 		relVel.y -= b2.vel.y;
 		relVel.x += -b1.angVel * r1.y;
@@ -0,0 +1,242 @@
+/**
+ * Copyright 2013 The Loon Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package loon.physics;
+
+import loon.geom.AABB;
+import loon.utils.CollectionUtils;
+import loon.utils.MathUtils;
+
+/**
+ * 均匀网格(空间散列)方式的broadphase,每帧把形状按包围盒放入固定大小的格子,
+ * 只检查同一格子内的形状. 适合大量尺寸相近的物体,格子大小应与常见物体的尺寸接近.
+ * 
+ * 覆盖格子过多的大形状(比如地面)不放入网格,而是单独与所有形状比较.
+ */
+public class PUniformGrid implements PBroadphase {
+
+	public static final int MAX_CELLS = 64;
+
+	private float cellSize;
+	private float invCellSize;
+
+	private PShape[] shapes;
+	private int numShapes;
+	private int[] minCellX;
+	private int[] minCellY;
+	private boolean[] large;
+	private int[] larges;
+	private int numLarges;
+
+	private int[] heads;
+	private int mask;
+	private int[] next;
+	private int[] entryShape;
+	private int[] entryX;
+	private int[] entryY;
+	private int numEntries;
+
+	private PShape[] pairs;
+	private int numPairs;
+
+	public PUniformGrid(float cellSize) {
+		setCellSize(cellSize);
+		this.shapes = new PShape[256];
+		this.minCellX = new int[256];
+		this.minCellY = new int[256];
+		this.large = new boolean[256];
+		this.larges = new int[16];
+		this.heads = new int[1024];
+		this.mask = heads.length - 1;
+		this.next = new int[1024];
+		this.entryShape = new int[1024];
+		this.entryX = new int[1024];
+		this.entryY = new int[1024];
+		this.pairs = new PShape[1024];
+	}
+
+	public void setCellSize(float size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("cellSize must be > 0");
+		}
+		this.cellSize = size;
+		this.invCellSize = 1f / size;
+	}
+
+	public float getCellSize() {
+		return cellSize;
+	}
+
+	@Override
+	public void addShape(PShape s) {
+		if (numShapes == shapes.length) {
+			int size = shapes.length * 2;
+			shapes = CollectionUtils.copyOf(shapes, size);
+			minCellX = CollectionUtils.copyOf(minCellX, size);
+			minCellY = CollectionUtils.copyOf(minCellY, size);
+			large = new boolean[size];
+		}
+		shapes[numShapes++] = s;
+	}
+
+	@Override
+	public void removeShape(PShape s) {
+		for (int i = numShapes - 1; i >= 0; i--) {
+			if (shapes[i] == s) {
+				shapes[i] = shapes[--numShapes];
+				shapes[numShapes] = null;
+				return;
+			}
+		}
+	}
+
+	@Override
+	public int updatePairs() {
+		numEntries = 0;
+		numPairs = 0;
+		numLarges = 0;
+		for (int i = 0; i < numShapes; i++) {
+			AABB aabb = shapes[i]._aabb;
+			int x0 = MathUtils.floor(aabb.minX * invCellSize);
+			int y0 = MathUtils.floor(aabb.minY * invCellSize);
+			int x1 = MathUtils.floor(aabb.maxX * invCellSize);
+			int y1 = MathUtils.floor(aabb.maxY * invCellSize);
+			minCellX[i] = x0;
+			minCellY[i] = y0;
+			large[i] = (x1 - x0 + 1) * (y1 - y0 + 1) > MAX_CELLS;
+			if (large[i]) {
+				if (numLarges == larges.length) {
+					larges = CollectionUtils.copyOf(larges, numLarges * 2);
+				}
+				larges[numLarges++] = i;
+				continue;
+			}
+			for (int y = y0; y <= y1; y++) {
+				for (int x = x0; x <= x1; x++) {
+					addEntry(i, x, y);
+				}
+			}
+		}
+		buildBuckets();
+		for (int b = 0; b <= mask; b++) {
+			for (int i = heads[b]; i != -1; i = next[i]) {
+				int cx = entryX[i];
+				int cy = entryY[i];
+				int si = entryShape[i];
+				for (int j = next[i]; j != -1; j = next[j]) {
+					if (entryX[j] != cx || entryY[j] != cy) {
+						continue;
+					}
+					int sj = entryShape[j];
+					// 只在两者包围盒交集左上角所在的格子里报告一次
+					if (MathUtils.max(minCellX[si], minCellX[sj]) == cx
+							&& MathUtils.max(minCellY[si], minCellY[sj]) == cy
+							&& overlap(shapes[si]._aabb, shapes[sj]._aabb)) {
+						addPair(shapes[si], shapes[sj]);
+					}
+				}
+			}
+		}
+		for (int n = 0; n < numLarges; n++) {
+			int li = larges[n];
+			AABB aabb = shapes[li]._aabb;
+			for (int i = 0; i < numShapes; i++) {
+				if (i == li || (large[i] && i < li)) {
+					continue;
+				}
+				if (overlap(aabb, shapes[i]._aabb)) {
+					addPair(shapes[li], shapes[i]);
+				}
+			}
+		}
+		return numPairs;
+	}
+
+	private void addEntry(int shape, int x, int y) {
+		if (numEntries == entryShape.length) {
+			int size = numEntries * 2;
+			next = CollectionUtils.copyOf(next, size);
+			entryShape = CollectionUtils.copyOf(entryShape, size);
+			entryX = CollectionUtils.copyOf(entryX, size);
+			entryY = CollectionUtils.copyOf(entryY, size);
+		}
+		entryShape[numEntries] = shape;
+		entryX[numEntries] = x;
+		entryY[numEntries] = y;
+		numEntries++;
+	}
+
+	private void buildBuckets() {
+		int cap = heads.length;
+		while (cap < numEntries * 2) {
+			cap <<= 1;
+		}
+		if (cap != heads.length) {
+			heads = new int[cap];
+			mask = cap - 1;
+		}
+		for (int i = 0; i < cap; i++) {
+			heads[i] = -1;
+		}
+		for (int i = 0; i < numEntries; i++) {
+			int b = ((entryX[i] * 73856093) ^ (entryY[i] * 19349663)) & mask;
+			next[i] = heads[b];
+			heads[b] = i;
+		}
+	}
+
+	private void addPair(PShape a, PShape b) {
+		if ((numPairs + 1) * 2 > pairs.length) {
+			pairs = CollectionUtils.copyOf(pairs, pairs.length * 2);
+		}
+		if (a._id > b._id) {
+			PShape t = a;
+			a = b;
+			b = t;
+		}
+		pairs[numPairs * 2] = a;
+		pairs[numPairs * 2 + 1] = b;
+		numPairs++;
+	}
+
+	private static boolean overlap(AABB a, AABB b) {
+		return a.minX <= b.maxX && b.minX <= a.maxX && a.minY <= b.maxY
+				&& b.minY <= a.maxY;
+	}
+
+	@Override
+	public PShape[] getPairs() {
+		return pairs;
+	}
+
+	@Override
+	public int size() {
+		return numShapes;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < numShapes; i++) {
+			shapes[i] = null;
+		}
+		for (int i = 0; i < numPairs * 2; i++) {
+			pairs[i] = null;
+		}
+		numShapes = 0;
+		numPairs = 0;
+		numEntries = 0;
+	}
+
+}
@@ -4,6 +4,7 @@ import java.nio.ByteBuffer;
 
 import loon.LSystem;
 import loon.LTexture;
+import loon.LTextures;
 import loon.Support;
 import loon.canvas.LColor;
 import loon.canvas.Pixmap;
@@ -78,10 +79,29 @@ public class GLUtils {
 
 	private static int currentBlendMode = -1;
 
+	// 渲染到纹理时需要同时写入alpha通道,否则纹理会是全透明的
+	private static boolean writeAlpha = false;
+
 	public static final int getBlendMode() {
 		return currentBlendMode;
 	}
 
+	/**
+	 * 设定混合时是否写入alpha通道(离屏渲染时使用),修改后下次设定混合模式时生效
+	 * 
+	 * @param write
+	 */
+	public static final void setWriteAlpha(boolean write) {
+		if (writeAlpha != write) {
+			writeAlpha = write;
+			currentBlendMode = -1;
+		}
+	}
+
+	public static final boolean isWriteAlpha() {
+		return writeAlpha;
+	}
+
 	public static final void setBlendMode(GL20 gl, int mode) {
 		if (currentBlendMode == mode) {
 			return;
@@ -92,7 +112,7 @@ public class GLUtils {
 		}
 		if (currentBlendMode == LSystem.MODE_NORMAL) {
 			GLUtils.enableBlend(gl);
-			gl.glColorMask(true, true, true, false);
+			gl.glColorMask(true, true, true, writeAlpha);
 			gl.glBlendFunc(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
 			return;
 		} else if (currentBlendMode == LSystem.MODE_SPEED) {
@@ -106,7 +126,7 @@ public class GLUtils {
 			return;
 		} else if (currentBlendMode == LSystem.MODE_ALPHA_BLEND) {
 			GLUtils.enableBlend(gl);
-			gl.glColorMask(true, true, true, false);
+			gl.glColorMask(true, true, true, writeAlpha);
 			gl.glBlendFunc(GL20.GL_DST_ALPHA, GL20.GL_ONE_MINUS_DST_ALPHA);
 			return;
 		} else if (currentBlendMode == LSystem.MODE_COLOR_MULTIPLY) {
@@ -151,7 +171,7 @@ public class GLUtils {
 			return;
 		} else if (currentBlendMode == LSystem.MODE_NONE) {
 			GLUtils.disableBlend(gl);
-			gl.glColorMask(true, true, true, false);
+			gl.glColorMask(true, true, true, writeAlpha);
 			return;
 		}
 		return;
@@ -167,6 +187,10 @@ public class GLUtils {
 		GLUtils.setClearColor(gl, c.r, c.g, c.b, c.a);
 	}
 
+	public static final boolean isScissorTest() {
+		return enablecissorTest;
+	}
+
 	public static void enablecissorTest(final GL20 gl) {
 		try {
 			if (!GLUtils.enablecissorTest) {
@@ -312,6 +336,7 @@ public class GLUtils {
 		if (!tex2d.isLoaded()) {
 			tex2d.loadTexture();
 		}
+		LTextures.touch(tex2d);
 		bindTexture(gl, tex2d.getID());
 	}
 
@@ -3,9 +3,8 @@ package loon.utils;
 import loon.BaseIO;
 import loon.LRelease;
 import loon.action.sprite.Animation;
-import loon.canvas.Canvas;
+import loon.action.sprite.GifStreamAnimation;
 import loon.canvas.Image;
-import loon.canvas.LColor;
 import loon.geom.Dimension;
 import loon.geom.RectBox;
 
@@ -114,6 +113,24 @@ public class GifDecoder implements LRelease {
 		return animation;
 	}
 
+	/**
+	 * 以流式方式播放gif,只在需要时解码帧并复用同一张纹理
+	 * 
+	 * @param path
+	 * @return
+	 */
+	public final static GifStreamAnimation getStreamAnimation(String path) {
+		return new GifStreamAnimation(path);
+	}
+
+	public final static GifStreamAnimation getStreamAnimation(ArrayByte bytes,
+			int lookAhead) {
+		GifStreamAnimation animation = new GifStreamAnimation(new GifStream(
+				bytes));
+		animation.getStream().setLookAhead(lookAhead);
+		return animation;
+	}
+
 	public int getDelay(int n) {
 		delay = -1;
 		if ((n >= 0) && (n < frameCount)) {
@@ -150,17 +167,18 @@ public class GifDecoder implements LRelease {
 				int[] prev = lastImage.getPixels();
 				System.arraycopy(prev, 0, dest, 0, width * height);
 				if (lastDispose == 2) {
-					Canvas g = image.getCanvas();
-					LColor c = null;
-					if (transparency) {
-						c = new LColor(0, 0, 0, 0);
-					} else {
-						c = new LColor(lastBgColor);
+					// 直接清除像素数组中上一帧的区域(绘制到image会被其后的setPixels覆盖)
+					int c = transparency ? 0 : lastBgColor;
+					int x1 = MathUtils.max(0, lastRect.x());
+					int y1 = MathUtils.max(0, lastRect.y());
+					int x2 = MathUtils.min(width, lastRect.x() + lastRect.width);
+					int y2 = MathUtils.min(height, lastRect.y() + lastRect.height);
+					for (int y = y1; y < y2; y++) {
+						int k = y * width;
+						for (int x = x1; x < x2; x++) {
+							dest[k + x] = c;
+						}
 					}
-					g.setColor(c);
-					g.fillRect(lastRect.x, lastRect.y, lastRect.width,
-							lastRect.height);
-					g.close();
 				}
 			}
 		}
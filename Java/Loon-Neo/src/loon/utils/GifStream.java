@@ -0,0 +1,833 @@
+/**
+ * Copyright 2008 - 2015 The Loon Game Engine Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.utils;
+
+import java.nio.ByteBuffer;
+
+import loon.BaseIO;
+import loon.Graphics;
+import loon.LGame;
+import loon.LRelease;
+import loon.LSystem;
+import loon.LTexture;
+import loon.LTextureBatch;
+import loon.LTextures;
+import loon.opengl.GL20;
+
+/**
+ * 流式gif播放器.
+ *
+ * 与GifDecoder一次解码全部帧不同,此类只在创建时扫描一遍数据并记录每帧的位置,播放时按需解码下一帧到一个重复使用的int[]画布中,
+ * 再以glTexSubImage2D把变化的区域上传到同一张纹理.可选在后台线程预先解码若干帧(平台不支持异步时自动关闭).
+ */
+public class GifStream implements LRelease {
+
+	private static final int MAX_STACK_SIZE = 4096;
+
+	private static final int DEFAULT_DELAY = 100;
+
+	private final byte[] data;
+
+	private final int length;
+
+	private int pos;
+
+	private int width, height, bgColor, loopCount;
+
+	private int[] gct;
+
+	// 帧索引
+	private int frameCount;
+	private int[] frameOffsets = new int[16];
+	private int[] frameDelays = new int[16];
+	private int[] frameDispose = new int[16];
+	private int[] frameTrans = new int[16];
+	private long totalDuration;
+
+	// 解码状态(启用预解码时只由后台线程使用)
+	private final int[] canvas;
+	private int[] restore;
+	private final int[] lct = new int[256];
+	private byte[] pixels;
+	private final short[] prefix = new short[MAX_STACK_SIZE];
+	private final byte[] suffix = new byte[MAX_STACK_SIZE];
+	private final byte[] pixelStack = new byte[MAX_STACK_SIZE + 1];
+	private final byte[] block = new byte[256];
+	private int blockSize;
+	private int decoded = -1;
+	private int lastDispose, lastX, lastY, lastW, lastH;
+	private boolean lastTransparent;
+	// 最近一次解码改变的区域(x1,y1,x2,y2)
+	private int dirtyX1, dirtyY1, dirtyX2, dirtyY2;
+
+	// 播放状态
+	private int current = -1;
+	private long elapsed;
+
+	private LTexture texture;
+	private ByteBuffer uploadBuffer;
+	// 纹理内容与画布不一致时(首次显示,跳转,切换预解码)需要整帧上传
+	private boolean fullUpload = true;
+
+	// 预解码缓存
+	private final Object lock = new Object();
+	private int lookAhead;
+	private int[][] cache;
+	private int[] cacheFrames;
+	private int[] cacheRects;
+	private int cacheHead, cacheCount, nextDecode, generation;
+	private boolean working, closed;
+	private Prefetch prefetch;
+
+	private class Prefetch implements Runnable {
+
+		@Override
+		public void run() {
+			for (;;) {
+				int frame, slot, gen;
+				int[][] buffers;
+				synchronized (lock) {
+					if (closed || cacheCount >= lookAhead) {
+						working = false;
+						return;
+					}
+					slot = (cacheHead + cacheCount) % lookAhead;
+					frame = nextDecode;
+					gen = generation;
+					buffers = cache;
+				}
+				gotoFrame(frame);
+				System.arraycopy(canvas, 0, buffers[slot], 0, canvas.length);
+				synchronized (lock) {
+					if (closed) {
+						working = false;
+						return;
+					}
+					if (gen != generation) {
+						// 解码期间发生了跳转,丢弃这一帧
+						continue;
+					}
+					cacheFrames[slot] = frame;
+					cacheRects[slot * 4] = dirtyX1;
+					cacheRects[slot * 4 + 1] = dirtyY1;
+					cacheRects[slot * 4 + 2] = dirtyX2;
+					cacheRects[slot * 4 + 3] = dirtyY2;
+					cacheCount++;
+					nextDecode = (frame + 1) % frameCount;
+				}
+			}
+		}
+	}
+
+	public GifStream(String path) {
+		this(BaseIO.loadArrayByte(path));
+	}
+
+	public GifStream(ArrayByte bytes) {
+		this(bytes.getData(), bytes.length());
+	}
+
+	public GifStream(byte[] data, int length) {
+		this.data = data;
+		this.length = MathUtils.min(length, data.length);
+		index();
+		this.canvas = new int[MathUtils.max(1, width * height)];
+	}
+
+	/**
+	 * 复制一个共享原始数据的独立播放器
+	 *
+	 * @return
+	 */
+	public GifStream cpy() {
+		return new GifStream(data, length);
+	}
+
+	private int read() {
+		return pos < length ? data[pos++] & 0xff : 0;
+	}
+
+	private int readShort() {
+		return read() | (read() << 8);
+	}
+
+	private int readBlock() {
+		blockSize = read();
+		int n = MathUtils.min(blockSize, length - pos);
+		if (n > 0) {
+			System.arraycopy(data, pos, block, 0, n);
+			pos += n;
+		}
+		return n;
+	}
+
+	private void skipBlocks() {
+		while (pos < length) {
+			int size = data[pos++] & 0xff;
+			if (size == 0) {
+				return;
+			}
+			pos += size;
+		}
+	}
+
+	private void readColorTable(int[] table, int ncolors) {
+		for (int i = 0; i < ncolors; i++) {
+			int r = read();
+			int g = read();
+			int b = read();
+			table[i] = 0xff000000 | (r << 16) | (g << 8) | b;
+		}
+	}
+
+	/**
+	 * 扫描数据,记录每帧的位置,延迟,清除方式与透明色
+	 */
+	private void index() {
+		pos = 0;
+		if (read() != 'G' || read() != 'I' || read() != 'F') {
+			return;
+		}
+		pos = 6;
+		width = readShort();
+		height = readShort();
+		int packed = read();
+		boolean gctFlag = (packed & 0x80) != 0;
+		int gctSize = 2 << (packed & 7);
+		int bgIndex = read();
+		read();
+		if (gctFlag) {
+			gct = new int[256];
+			readColorTable(gct, gctSize);
+			bgColor = gct[bgIndex];
+		}
+		int dispose = 1, delay = 0, trans = -1;
+		boolean done = false;
+		while (!done && pos < length) {
+			int code = read();
+			switch (code) {
+			case 0x2C:
+				int offset = pos;
+				pos += 8;
+				int flags = read();
+				if ((flags & 0x80) != 0) {
+					pos += 3 * (2 << (flags & 7));
+				}
+				pos++;
+				skipBlocks();
+				if (pos > length) {
+					// 数据不完整的帧不记录
+					done = true;
+					break;
+				}
+				if (!gctFlag && (flags & 0x80) == 0) {
+					break;
+				}
+				addFrame(offset, delay, dispose, trans);
+				dispose = 1;
+				delay = 0;
+				trans = -1;
+				break;
+			case 0x21:
+				code = read();
+				if (code == 0xf9) {
+					read();
+					int gce = read();
+					dispose = (gce & 0x1c) >> 2;
+					if (dispose == 0) {
+						dispose = 1;
+					}
+					delay = readShort() * 10;
+					int index = read();
+					trans = (gce & 1) != 0 ? index : -1;
+					read();
+				} else if (code == 0xff) {
+					readBlock();
+					boolean netscape = blockSize >= 11 && block[0] == 'N'
+							&& block[7] == '2' && block[9] == '0';
+					if (netscape) {
+						do {
+							readBlock();
+							if (blockSize >= 3 && block[0] == 1) {
+								loopCount = ((block[2] & 0xff) << 8)
+										| (block[1] & 0xff);
+							}
+						} while (blockSize > 0 && pos < length);
+					} else {
+						skipBlocks();
+					}
+				} else {
+					skipBlocks();
+				}
+				break;
+			case 0x3b:
+				done = true;
+				break;
+			case 0x00:
+				break;
+			default:
+				done = true;
+				break;
+			}
+		}
+	}
+
+	private void addFrame(int offset, int delay, int dispose, int trans) {
+		if (frameCount == frameOffsets.length) {
+			int size = frameCount * 2;
+			frameOffsets = CollectionUtils.copyOf(frameOffsets, size);
+			frameDelays = CollectionUtils.copyOf(frameDelays, size);
+			frameDispose = CollectionUtils.copyOf(frameDispose, size);
+			frameTrans = CollectionUtils.copyOf(frameTrans, size);
+		}
+		frameOffsets[frameCount] = offset;
+		frameDelays[frameCount] = delay <= 0 ? DEFAULT_DELAY : delay;
+		frameDispose[frameCount] = dispose;
+		frameTrans[frameCount] = trans;
+		totalDuration += frameDelays[frameCount];
+		frameCount++;
+	}
+
+	private void dirty(int x, int y, int w, int h) {
+		int x2 = MathUtils.min(x + w, width);
+		int y2 = MathUtils.min(y + h, height);
+		if (x >= x2 || y >= y2) {
+			return;
+		}
+		if (dirtyX1 >= dirtyX2) {
+			dirtyX1 = x;
+			dirtyY1 = y;
+			dirtyX2 = x2;
+			dirtyY2 = y2;
+		} else {
+			dirtyX1 = MathUtils.min(dirtyX1, x);
+			dirtyY1 = MathUtils.min(dirtyY1, y);
+			dirtyX2 = MathUtils.max(dirtyX2, x2);
+			dirtyY2 = MathUtils.max(dirtyY2, y2);
+		}
+	}
+
+	/**
+	 * 把画布解码到指定帧,改变的区域记录在dirty中
+	 */
+	private void gotoFrame(int n) {
+		dirtyX1 = dirtyY1 = dirtyX2 = dirtyY2 = 0;
+		if (n <= decoded) {
+			// 回到开头重新合成
+			for (int i = 0; i < canvas.length; i++) {
+				canvas[i] = 0;
+			}
+			decoded = -1;
+			dirty(0, 0, width, height);
+		}
+		while (decoded < n) {
+			decodeNext();
+		}
+	}
+
+	private void fillRect(int[] dst, int x, int y, int w, int h, int color) {
+		int x2 = MathUtils.min(x + w, width);
+		int y2 = MathUtils.min(y + h, height);
+		for (int row = y; row < y2; row++) {
+			int k = row * width;
+			for (int col = x; col < x2; col++) {
+				dst[k + col] = color;
+			}
+		}
+	}
+
+	private void copyRect(int[] src, int[] dst, int x, int y, int w, int h) {
+		int x2 = MathUtils.min(x + w, width);
+		int y2 = MathUtils.min(y + h, height);
+		if (x >= x2) {
+			return;
+		}
+		for (int row = y; row < y2; row++) {
+			int k = row * width + x;
+			System.arraycopy(src, k, dst, k, x2 - x);
+		}
+	}
+
+	private void decodeNext() {
+		final int n = decoded + 1;
+		// 先按上一帧的清除方式处理画布
+		if (decoded >= 0) {
+			if (lastDispose == 2) {
+				fillRect(canvas, lastX, lastY, lastW, lastH,
+						lastTransparent ? 0 : bgColor);
+				dirty(lastX, lastY, lastW, lastH);
+			} else if (lastDispose == 3 && restore != null) {
+				copyRect(restore, canvas, lastX, lastY, lastW, lastH);
+				dirty(lastX, lastY, lastW, lastH);
+			}
+		}
+		pos = frameOffsets[n];
+		final int ix = readShort();
+		final int iy = readShort();
+		final int iw = readShort();
+		final int ih = readShort();
+		final int packed = read();
+		final boolean interlace = (packed & 0x40) != 0;
+		int[] act = gct;
+		if ((packed & 0x80) != 0) {
+			readColorTable(lct, 2 << (packed & 7));
+			act = lct;
+		}
+		final int trans = frameTrans[n];
+		final int dispose = frameDispose[n];
+		if (dispose == 3) {
+			if (restore == null) {
+				restore = new int[canvas.length];
+			}
+			copyRect(canvas, restore, ix, iy, iw, ih);
+		}
+		decodeImageData(iw * ih);
+		for (int i = 0, pass = 1, inc = 8, iline = 0; i < ih; i++) {
+			int line = i;
+			if (interlace) {
+				if (iline >= ih) {
+					pass++;
+					switch (pass) {
+					case 2:
+						iline = 4;
+						break;
+					case 3:
+						iline = 2;
+						inc = 4;
+						break;
+					case 4:
+						iline = 1;
+						inc = 2;
+						break;
+					}
+				}
+				line = iline;
+				iline += inc;
+			}
+			line += iy;
+			if (line >= height || ix >= width) {
+				continue;
+			}
+			int k = line * width;
+			int dx = k + ix;
+			int dlim = MathUtils.min(dx + iw, k + width);
+			int sx = i * iw;
+			while (dx < dlim) {
+				int index = pixels[sx++] & 0xff;
+				if (index != trans) {
+					canvas[dx] = act[index];
+				}
+				dx++;
+			}
+		}
+		dirty(ix, iy, iw, ih);
+		lastDispose = dispose;
+		lastX = ix;
+		lastY = iy;
+		lastW = iw;
+		lastH = ih;
+		lastTransparent = trans >= 0;
+		decoded = n;
+	}
+
+	private void decodeImageData(int npix) {
+		final int nullCode = -1;
+		if (pixels == null || pixels.length < npix) {
+			pixels = new byte[npix];
+		}
+		final byte[] pixels = this.pixels;
+		final short[] prefix = this.prefix;
+		final byte[] suffix = this.suffix;
+		final byte[] pixelStack = this.pixelStack;
+		final byte[] block = this.block;
+		int dataSize = read();
+		if (dataSize > 11) {
+			dataSize = 11;
+		}
+		int clear = 1 << dataSize;
+		int endOfInformation = clear + 1;
+		int available = clear + 2;
+		int oldCode = nullCode;
+		int codeSize = dataSize + 1;
+		int codeMask = (1 << codeSize) - 1;
+		int code, inCode;
+		for (code = 0; code < clear; code++) {
+			prefix[code] = 0;
+			suffix[code] = (byte) code;
+		}
+		int datum = 0, bits = 0, count = 0, first = 0, top = 0, pi = 0, bi = 0;
+		for (int i = 0; i < npix;) {
+			if (top == 0) {
+				if (bits < codeSize) {
+					if (count == 0) {
+						count = readBlock();
+						if (count <= 0) {
+							break;
+						}
+						bi = 0;
+					}
+					datum += (block[bi] & 0xff) << bits;
+					bits += 8;
+					bi++;
+					count--;
+					continue;
+				}
+				code = datum & codeMask;
+				datum >>= codeSize;
+				bits -= codeSize;
+				if (code > available || code == endOfInformation) {
+					break;
+				}
+				if (code == clear) {
+					codeSize = dataSize + 1;
+					codeMask = (1 << codeSize) - 1;
+					available = clear + 2;
+					oldCode = nullCode;
+					continue;
+				}
+				if (oldCode == nullCode) {
+					pixelStack[top++] = suffix[code];
+					oldCode = code;
+					first = code;
+					continue;
+				}
+				inCode = code;
+				if (code == available) {
+					pixelStack[top++] = (byte) first;
+					code = oldCode;
+				}
+				while (code > clear) {
+					pixelStack[top++] = suffix[code];
+					code = prefix[code];
+				}
+				first = suffix[code] & 0xff;
+				if (available >= MAX_STACK_SIZE) {
+					break;
+				}
+				pixelStack[top++] = (byte) first;
+				prefix[available] = (short) oldCode;
+				suffix[available] = (byte) first;
+				available++;
+				if ((available & codeMask) == 0 && available < MAX_STACK_SIZE) {
+					codeSize++;
+					codeMask += available;
+				}
+				oldCode = inCode;
+			}
+			top--;
+			pixels[pi++] = pixelStack[top];
+			i++;
+		}
+		for (int i = pi; i < npix; i++) {
+			pixels[i] = 0;
+		}
+	}
+
+	/**
+	 * 设置后台预解码的帧数(0为关闭,平台不支持异步时无效).后台线程正在解码时不能修改,返回false
+	 *
+	 * @param frames
+	 * @return
+	 */
+	public boolean setLookAhead(int frames) {
+		synchronized (lock) {
+			if (working) {
+				return false;
+			}
+			LGame game = LSystem.base();
+			fullUpload = true;
+			if (frames <= 0 || frameCount < 2 || game == null
+					|| !game.isAsyncSupported()) {
+				lookAhead = 0;
+				cache = null;
+				return true;
+			}
+			lookAhead = MathUtils.min(frames, frameCount);
+			cache = new int[lookAhead][canvas.length];
+			cacheFrames = new int[lookAhead];
+			cacheRects = new int[lookAhead * 4];
+			cacheHead = cacheCount = 0;
+			generation++;
+			nextDecode = current < 0 ? 0 : (current + 1) % frameCount;
+			// 预解码期间画布归后台线程使用,纹理中的内容需要整帧重新上传
+			decoded = -1;
+			for (int i = 0; i < canvas.length; i++) {
+				canvas[i] = 0;
+			}
+			if (prefetch == null) {
+				prefetch = new Prefetch();
+			}
+		}
+		schedule();
+		return true;
+	}
+
+	public int getLookAhead() {
+		return lookAhead;
+	}
+
+	private void schedule() {
+		synchronized (lock) {
+			if (working || closed || lookAhead == 0 || cacheCount >= lookAhead) {
+				return;
+			}
+			working = true;
+		}
+		LSystem.base().invokeAsync(prefetch);
+	}
+
+	/**
+	 * 按经过的时间推进播放(单位与延迟相同,为毫秒)
+	 *
+	 * @param elapsedTime
+	 */
+	public void update(long elapsedTime) {
+		if (frameCount == 0 || closed) {
+			return;
+		}
+		if (current == -1) {
+			show(0);
+			return;
+		}
+		elapsed += elapsedTime;
+		if (elapsed >= totalDuration) {
+			elapsed %= totalDuration;
+		}
+		int target = current;
+		while (elapsed >= frameDelays[target]) {
+			elapsed -= frameDelays[target];
+			target = (target + 1) % frameCount;
+		}
+		if (target != current) {
+			show(target);
+		}
+	}
+
+	/**
+	 * 显示指定帧
+	 */
+	private void show(int target) {
+		if (!isTextureValid()) {
+			createTexture();
+			fullUpload = true;
+		}
+		if (lookAhead == 0) {
+			gotoFrame(target);
+			if (fullUpload) {
+				upload(canvas, 0, 0, width, height);
+				fullUpload = false;
+			} else {
+				upload(canvas, dirtyX1, dirtyY1, dirtyX2, dirtyY2);
+			}
+			current = target;
+			return;
+		}
+		// 从缓存中依次取出帧,合并变化区域后只上传目标帧(后台未能跟上时为已解码的最后一帧)
+		int x1 = 0, y1 = 0, x2 = 0, y2 = 0;
+		for (;;) {
+			int slot, cached, available;
+			synchronized (lock) {
+				available = cacheCount;
+				slot = cacheHead;
+				cached = cacheFrames[slot];
+			}
+			if (available == 0) {
+				break;
+			}
+			final int off = slot * 4;
+			if (x1 >= x2) {
+				x1 = cacheRects[off];
+				y1 = cacheRects[off + 1];
+				x2 = cacheRects[off + 2];
+				y2 = cacheRects[off + 3];
+			} else if (cacheRects[off] < cacheRects[off + 2]) {
+				x1 = MathUtils.min(x1, cacheRects[off]);
+				y1 = MathUtils.min(y1, cacheRects[off + 1]);
+				x2 = MathUtils.max(x2, cacheRects[off + 2]);
+				y2 = MathUtils.max(y2, cacheRects[off + 3]);
+			}
+			if (cached == target || available == 1) {
+				if (fullUpload) {
+					upload(cache[slot], 0, 0, width, height);
+					fullUpload = false;
+				} else {
+					upload(cache[slot], x1, y1, x2, y2);
+				}
+				current = cached;
+				release();
+				break;
+			}
+			release();
+		}
+		schedule();
+	}
+
+	private void release() {
+		synchronized (lock) {
+			cacheHead = (cacheHead + 1) % lookAhead;
+			cacheCount--;
+		}
+	}
+
+	/**
+	 * 纹理可能已被LTextures关闭或从纹理列表中删除(例如切换画面时统一释放),此时需要重新创建
+	 */
+	private boolean isTextureValid() {
+		return texture != null && !texture.isClose()
+				&& LTextures.containsValue(texture);
+	}
+
+	private void createTexture() {
+		Graphics gfx = LSystem.base().graphics();
+		Scale scale = gfx.scale();
+		texture = gfx.createTexture(scale.invScaled(width),
+				scale.invScaled(height), LTexture.Format.LINEAR);
+	}
+
+	/**
+	 * 以预乘alpha的RGBA格式上传画布中指定区域
+	 */
+	private void upload(int[] src, int x1, int y1, int x2, int y2) {
+		x2 = MathUtils.min(x2, texture.pixelWidth());
+		y2 = MathUtils.min(y2, texture.pixelHeight());
+		final int w = x2 - x1;
+		final int h = y2 - y1;
+		if (w <= 0 || h <= 0) {
+			return;
+		}
+		final int bytes = w * h * 4;
+		if (uploadBuffer == null || uploadBuffer.capacity() < bytes) {
+			uploadBuffer = LSystem.base().support()
+					.newByteBuffer(width * height * 4);
+		}
+		final ByteBuffer buffer = uploadBuffer;
+		buffer.clear();
+		for (int y = y1; y < y2; y++) {
+			for (int i = y * width + x1, end = i + w; i < end; i++) {
+				final int argb = src[i];
+				final int a = (argb >>> 24) & 0xFF;
+				buffer.put((byte) (((argb >> 16) & 0xFF) * a / 255));
+				buffer.put((byte) (((argb >> 8) & 0xFF) * a / 255));
+				buffer.put((byte) ((argb & 0xFF) * a / 255));
+				buffer.put((byte) a);
+			}
+		}
+		buffer.flip();
+		final GL20 gl = LSystem.base().graphics().gl;
+		LTextures.touch(texture);
+		GLUtils.bindTexture(gl, texture.getID());
+		gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, x1, y1, w, h, GL20.GL_RGBA,
+				GL20.GL_UNSIGNED_BYTE, buffer);
+		LTextureBatch.isBatchCacheDitry = true;
+	}
+
+	/**
+	 * 返回显示当前帧的纹理(首次调用时创建并显示第一帧)
+	 *
+	 * @return
+	 */
+	public LTexture getTexture() {
+		if (frameCount == 0 || closed) {
+			return null;
+		}
+		if (current == -1) {
+			show(0);
+		} else if (!isTextureValid()) {
+			// 重新创建纹理并整帧上传当前帧
+			setFrameIndex(current);
+		}
+		LTextures.touch(texture);
+		return texture;
+	}
+
+	/**
+	 * 跳转到指定帧
+	 *
+	 * @param index
+	 */
+	public void setFrameIndex(int index) {
+		if (frameCount == 0 || index < 0 || index >= frameCount) {
+			return;
+		}
+		elapsed = 0;
+		fullUpload = true;
+		if (lookAhead > 0) {
+			synchronized (lock) {
+				// 丢弃已预解码的帧,由后台从目标帧重新开始
+				cacheHead = cacheCount = 0;
+				nextDecode = index;
+				generation++;
+			}
+			schedule();
+		}
+		show(index);
+	}
+
+	public void reset() {
+		setFrameIndex(0);
+	}
+
+	public int getFrameIndex() {
+		return current < 0 ? 0 : current;
+	}
+
+	public int getFrameCount() {
+		return frameCount;
+	}
+
+	public int getDelay(int index) {
+		return index >= 0 && index < frameCount ? frameDelays[index] : -1;
+	}
+
+	public long getTotalDuration() {
+		return totalDuration;
+	}
+
+	public int getLoopCount() {
+		return loopCount;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public void close() {
+		synchronized (lock) {
+			closed = true;
+			cache = null;
+		}
+		if (texture != null) {
+			texture.close();
+			texture = null;
+		}
+		uploadBuffer = null;
+	}
+
+}
@@ -20,7 +20,10 @@
  */
 package loon.utils.json;
 
+import java.io.InputStream;
+
 import loon.Json;
+import loon.utils.ArrayByte;
 
 public class JsonImpl implements Json {
 
@@ -54,6 +57,26 @@ public class JsonImpl implements Json {
 		return JsonParser.array().from(json);
 	}
 
+	@Override
+	public Object parse(ArrayByte json) throws JsonParserException {
+		return JsonParser.object().from(json);
+	}
+
+	@Override
+	public Array parseArray(ArrayByte json) throws JsonParserException {
+		return JsonParser.array().from(json);
+	}
+
+	@Override
+	public Object parse(InputStream json) throws JsonParserException {
+		return JsonParser.object().from(json);
+	}
+
+	@Override
+	public Array parseArray(InputStream json) throws JsonParserException {
+		return JsonParser.array().from(json);
+	}
+
 	static void checkJsonType(java.lang.Object value) {
 		if (value == null || value instanceof String
 				|| value instanceof Json.Object || value instanceof Json.Array
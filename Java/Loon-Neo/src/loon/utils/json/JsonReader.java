@@ -0,0 +1,950 @@
+/**
+ * Copyright 2008 - 2015 The Loon Game Engine Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.utils.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+
+import loon.LRelease;
+import loon.utils.ArrayByte;
+import loon.utils.FloatArray;
+import loon.utils.IntArray;
+import loon.utils.MathUtils;
+
+/**
+ * 拉取式(pull)的JSON解析器,直接读取UTF-8字节(也可以读取字符串),不生成JsonObject与JsonArray.
+ *
+ * 数值在读取时直接计算,不经过字符串(超出精度的数值除外),字符串只在调用nextString或nextName时生成,
+ * 不需要的子树可以用skipValue整体跳过,数值数组可以直接读入FloatArray或IntArray.
+ *
+ * <pre>
+ * JsonReader reader = new JsonReader(bytes);
+ * reader.beginObject();
+ * while (reader.hasNext()) {
+ * 	String name = reader.nextName();
+ * 	if ("vertices".equals(name)) {
+ * 		reader.readFloats(vertices);
+ * 	} else {
+ * 		reader.skipValue();
+ * 	}
+ * }
+ * reader.endObject();
+ * </pre>
+ */
+public class JsonReader implements LRelease {
+
+	public static final int END = 0;
+
+	public static final int NULL = 1;
+
+	public static final int BOOLEAN = 2;
+
+	public static final int NUMBER = 3;
+
+	public static final int STRING = 4;
+
+	public static final int NAME = 5;
+
+	public static final int ARRAY_START = 6;
+
+	public static final int ARRAY_END = 7;
+
+	public static final int OBJECT_START = 8;
+
+	public static final int OBJECT_END = 9;
+
+	private static final int NONE = -1;
+
+	private static final String[] NAMES = { "EOF", "NULL", "BOOLEAN",
+			"NUMBER", "STRING", "NAME", "ARRAY_START", "ARRAY_END",
+			"OBJECT_START", "OBJECT_END" };
+
+	// 当前所在的结构
+	private static final int EMPTY_DOCUMENT = 0;
+	private static final int NONEMPTY_DOCUMENT = 1;
+	private static final int EMPTY_ARRAY = 2;
+	private static final int NONEMPTY_ARRAY = 3;
+	private static final int EMPTY_OBJECT = 4;
+	private static final int DANGLING_NAME = 5;
+	private static final int NONEMPTY_OBJECT = 6;
+
+	// 数值的类型,与JsonParser原有的返回类型一致
+	private static final int KIND_INT = 0;
+	private static final int KIND_LONG = 1;
+	private static final int KIND_DOUBLE = 2;
+	private static final int KIND_BIG = 3;
+
+	// 可以精确表示的10的幂,尾数不超过15位时乘除这些值的结果是正确舍入的
+	private static final double[] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5,
+			1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+			1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	private static final char[] TRUE = { 'r', 'u', 'e' };
+	private static final char[] FALSE = { 'a', 'l', 's', 'e' };
+	private static final char[] NULLS = { 'u', 'l', 'l' };
+
+	private InputStream in;
+
+	private byte[] buffer;
+
+	private String string;
+
+	private int pos, limit;
+
+	// buffer[0]在整个输入中的位置
+	private int base;
+
+	private int line = 1, lineStart;
+
+	private int tokenLine = 1, tokenChar, tokenOffset;
+
+	private int[] stack = new int[32];
+
+	private int stackSize;
+
+	private int peeked = NONE;
+
+	private boolean boolValue;
+
+	private int numberKind;
+
+	private long longValue;
+
+	private double doubleValue;
+
+	private char[] chars = new char[64];
+
+	private int charCount;
+
+	public JsonReader(byte[] data) {
+		this(data, 0, data.length);
+	}
+
+	public JsonReader(byte[] data, int offset, int length) {
+		this.buffer = data;
+		this.pos = offset;
+		this.limit = offset + length;
+		this.base = -offset;
+		this.lineStart = 0;
+		push(EMPTY_DOCUMENT);
+	}
+
+	/**
+	 * 读取ArrayByte中从当前位置到末尾的数据
+	 *
+	 * @param bytes
+	 */
+	public JsonReader(ArrayByte bytes) {
+		this(bytes.getData(), bytes.position(), bytes.available());
+	}
+
+	public JsonReader(InputStream in) {
+		this(in, 8192);
+	}
+
+	public JsonReader(InputStream in, int bufferSize) {
+		this.in = in;
+		this.buffer = new byte[MathUtils.max(16, bufferSize)];
+		push(EMPTY_DOCUMENT);
+	}
+
+	public JsonReader(String s) {
+		this.string = s;
+		this.limit = s.length();
+		push(EMPTY_DOCUMENT);
+	}
+
+	/**
+	 * 下一项的类型(END, NULL, BOOLEAN, NUMBER, STRING, NAME, ARRAY_START,
+	 * ARRAY_END, OBJECT_START, OBJECT_END之一)
+	 *
+	 * @return
+	 */
+	public int peek() {
+		if (peeked != NONE) {
+			return peeked;
+		}
+		final int scope = stack[stackSize - 1];
+		int c;
+		switch (scope) {
+		case EMPTY_ARRAY:
+			stack[stackSize - 1] = NONEMPTY_ARRAY;
+			c = nextNonWhitespace();
+			if (c == ']') {
+				return peeked = ARRAY_END;
+			}
+			return peekValue(c);
+		case NONEMPTY_ARRAY:
+			c = nextNonWhitespace();
+			if (c == ']') {
+				return peeked = ARRAY_END;
+			}
+			if (c != ',') {
+				throw syntaxError("Expected a comma or end of the array instead of "
+						+ describe(c));
+			}
+			c = nextNonWhitespace();
+			if (c == ']') {
+				throw syntaxError("Trailing comma found in array");
+			}
+			return peekValue(c);
+		case EMPTY_OBJECT:
+		case NONEMPTY_OBJECT:
+			c = nextNonWhitespace();
+			if (c == '}') {
+				return peeked = OBJECT_END;
+			}
+			if (scope == NONEMPTY_OBJECT) {
+				if (c != ',') {
+					throw syntaxError("Expected a comma or end of the object instead of "
+							+ describe(c));
+				}
+				c = nextNonWhitespace();
+				if (c == '}') {
+					throw syntaxError("Trailing comma found in object");
+				}
+			}
+			if (c != '"') {
+				throw syntaxError("Expected STRING, got " + describe(c));
+			}
+			stack[stackSize - 1] = DANGLING_NAME;
+			return peeked = NAME;
+		case DANGLING_NAME:
+			c = nextNonWhitespace();
+			if (c != ':') {
+				throw syntaxError("Expected COLON, got " + describe(c));
+			}
+			stack[stackSize - 1] = NONEMPTY_OBJECT;
+			return peekValue(nextNonWhitespace());
+		case EMPTY_DOCUMENT:
+			stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+			skipByteOrderMark();
+			return peekValue(nextNonWhitespace());
+		default:
+			c = nextNonWhitespace();
+			if (c != -1) {
+				throw syntaxError("Expected end of input, got " + describe(c));
+			}
+			return peeked = END;
+		}
+	}
+
+	public boolean hasNext() {
+		final int p = peek();
+		return p != ARRAY_END && p != OBJECT_END && p != END;
+	}
+
+	public void beginArray() {
+		expect(ARRAY_START);
+		push(EMPTY_ARRAY);
+		peeked = NONE;
+	}
+
+	public void endArray() {
+		expect(ARRAY_END);
+		stackSize--;
+		peeked = NONE;
+	}
+
+	public void beginObject() {
+		expect(OBJECT_START);
+		push(EMPTY_OBJECT);
+		peeked = NONE;
+	}
+
+	public void endObject() {
+		expect(OBJECT_END);
+		stackSize--;
+		peeked = NONE;
+	}
+
+	public String nextName() {
+		expect(NAME);
+		readString();
+		peeked = NONE;
+		return new String(chars, 0, charCount);
+	}
+
+	public String nextString() {
+		expect(STRING);
+		readString();
+		peeked = NONE;
+		return new String(chars, 0, charCount);
+	}
+
+	public boolean nextBoolean() {
+		expect(BOOLEAN);
+		peeked = NONE;
+		return boolValue;
+	}
+
+	public void nextNull() {
+		expect(NULL);
+		peeked = NONE;
+	}
+
+	public double nextDouble() {
+		expect(NUMBER);
+		peeked = NONE;
+		return numberValue();
+	}
+
+	public float nextFloat() {
+		expect(NUMBER);
+		peeked = NONE;
+		return (float) numberValue();
+	}
+
+	public long nextLong() {
+		expect(NUMBER);
+		peeked = NONE;
+		if (numberKind == KIND_INT || numberKind == KIND_LONG) {
+			return longValue;
+		}
+		final double d = numberValue();
+		final long v = (long) d;
+		if (v != d) {
+			throw syntaxError("Expected a long, got " + d);
+		}
+		return v;
+	}
+
+	public int nextInt() {
+		expect(NUMBER);
+		peeked = NONE;
+		if (numberKind == KIND_INT) {
+			return (int) longValue;
+		}
+		final double d = numberValue();
+		final int v = (int) d;
+		if (v != d) {
+			throw syntaxError("Expected an int, got " + d);
+		}
+		return v;
+	}
+
+	/**
+	 * 以Integer,Long,Double或BigInteger返回数值(与JsonObject中保存的类型一致)
+	 *
+	 * @return
+	 */
+	public Number nextNumber() {
+		expect(NUMBER);
+		peeked = NONE;
+		switch (numberKind) {
+		case KIND_INT:
+			return Integer.valueOf((int) longValue);
+		case KIND_LONG:
+			return Long.valueOf(longValue);
+		case KIND_DOUBLE:
+			return Double.valueOf(doubleValue);
+		default:
+			return new BigInteger(new String(chars, 0, charCount));
+		}
+	}
+
+	/**
+	 * 跳过下一个值(位于名称上时跳过名称与对应的值).跳过数组与对象时只匹配括号与字符串,不检查其中的语法
+	 */
+	public void skipValue() {
+		switch (peek()) {
+		case NAME:
+			skipString();
+			peeked = NONE;
+			skipValue();
+			return;
+		case STRING:
+			skipString();
+			break;
+		case ARRAY_START:
+		case OBJECT_START:
+			skipContainer();
+			break;
+		case ARRAY_END:
+		case OBJECT_END:
+		case END:
+			throw syntaxError("Expected JSON value, got " + NAMES[peeked]);
+		default:
+			break;
+		}
+		peeked = NONE;
+	}
+
+	/**
+	 * 把下一个数值数组读入out,返回读取的数量
+	 *
+	 * @param out
+	 * @return
+	 */
+	public int readFloats(FloatArray out) {
+		beginArray();
+		int count = 0;
+		while (hasNext()) {
+			out.add(nextFloat());
+			count++;
+		}
+		endArray();
+		return count;
+	}
+
+	/**
+	 * 把下一个整数数组读入out,返回读取的数量
+	 *
+	 * @param out
+	 * @return
+	 */
+	public int readInts(IntArray out) {
+		beginArray();
+		int count = 0;
+		while (hasNext()) {
+			out.add(nextInt());
+			count++;
+		}
+		endArray();
+		return count;
+	}
+
+	/**
+	 * 当前的嵌套深度
+	 *
+	 * @return
+	 */
+	public int getDepth() {
+		return stackSize - 1;
+	}
+
+	public int getLinePosition() {
+		return tokenLine;
+	}
+
+	public int getCharPosition() {
+		return tokenChar;
+	}
+
+	@Override
+	public void close() {
+		peeked = END;
+		stackSize = 1;
+		stack[0] = NONEMPTY_DOCUMENT;
+		if (in != null) {
+			try {
+				in.close();
+			} catch (IOException e) {
+			}
+			in = null;
+		}
+		pos = limit = 0;
+	}
+
+	private void push(int scope) {
+		if (stackSize == stack.length) {
+			int[] newStack = new int[stackSize * 2];
+			System.arraycopy(stack, 0, newStack, 0, stackSize);
+			stack = newStack;
+		}
+		stack[stackSize++] = scope;
+	}
+
+	private void expect(int type) {
+		final int p = peek();
+		if (p != type) {
+			throw syntaxError("Expected " + NAMES[type] + ", got " + NAMES[p]);
+		}
+	}
+
+	private int peekValue(int c) {
+		switch (c) {
+		case '[':
+			return peeked = ARRAY_START;
+		case '{':
+			return peeked = OBJECT_START;
+		case '"':
+			return peeked = STRING;
+		case 't':
+			consumeKeyword('t', TRUE);
+			boolValue = true;
+			return peeked = BOOLEAN;
+		case 'f':
+			consumeKeyword('f', FALSE);
+			boolValue = false;
+			return peeked = BOOLEAN;
+		case 'n':
+			consumeKeyword('n', NULLS);
+			return peeked = NULL;
+		case '-':
+		case '0':
+		case '1':
+		case '2':
+		case '3':
+		case '4':
+		case '5':
+		case '6':
+		case '7':
+		case '8':
+		case '9':
+			readNumber(c);
+			return peeked = NUMBER;
+		case '+':
+		case '.':
+			throw syntaxError("Numbers may not start with '" + (char) c + "'");
+		case -1:
+			throw syntaxError("Expected JSON value, got EOF");
+		default:
+		}
+		if (isAsciiLetter(c)) {
+			throw createHelpfulException((char) c, null, 0);
+		}
+		throw syntaxError("Unexpected character: " + (char) c);
+	}
+
+	private boolean fill() {
+		if (in == null) {
+			return false;
+		}
+		base += limit;
+		pos = limit = 0;
+		try {
+			int n;
+			do {
+				n = in.read(buffer, 0, buffer.length);
+			} while (n == 0);
+			if (n < 0) {
+				return false;
+			}
+			limit = n;
+			return true;
+		} catch (IOException e) {
+			throw new JsonParserException(e, "Failed to read the json: "
+					+ e.getMessage(), line, base - lineStart + 1, base);
+		}
+	}
+
+	private int read() {
+		if (pos >= limit && !fill()) {
+			return -1;
+		}
+		return string == null ? buffer[pos++] & 0xFF : string.charAt(pos++);
+	}
+
+	private int nextNonWhitespace() {
+		for (;;) {
+			if (pos >= limit && !fill()) {
+				tokenLine = line;
+				tokenOffset = base + pos;
+				tokenChar = tokenOffset - lineStart + 1;
+				return -1;
+			}
+			final int c = string == null ? buffer[pos++] & 0xFF : string
+					.charAt(pos++);
+			switch (c) {
+			case ' ':
+			case '\t':
+			case '\r':
+				continue;
+			case '\n':
+				line++;
+				lineStart = base + pos;
+				continue;
+			default:
+				tokenLine = line;
+				tokenOffset = base + pos - 1;
+				tokenChar = tokenOffset - lineStart + 1;
+				return c;
+			}
+		}
+	}
+
+	private void skipByteOrderMark() {
+		if (pos >= limit && !fill()) {
+			return;
+		}
+		if (string != null) {
+			if (string.charAt(pos) == '\uFEFF') {
+				pos++;
+				lineStart++;
+			}
+		} else if ((buffer[pos] & 0xFF) == 0xEF) {
+			pos++;
+			if (read() != 0xBB || read() != 0xBF) {
+				throw syntaxError("Unexpected character: 0xEF");
+			}
+			lineStart += 3;
+		}
+	}
+
+	private void consumeKeyword(char first, char[] expected) {
+		for (int i = 0; i < expected.length; i++) {
+			final int c = read();
+			if (c != expected[i]) {
+				if (c != -1) {
+					pos--;
+				}
+				throw createHelpfulException(first, expected, i);
+			}
+		}
+		final int c = read();
+		if (c != -1) {
+			pos--;
+		}
+		if (isAsciiLetter(c)) {
+			throw createHelpfulException(first, expected, expected.length);
+		}
+	}
+
+	private void appendChar(char c) {
+		if (charCount == chars.length) {
+			char[] newChars = new char[charCount * 2];
+			System.arraycopy(chars, 0, newChars, 0, charCount);
+			chars = newChars;
+		}
+		chars[charCount++] = c;
+	}
+
+	private static boolean isDigit(int c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private void readNumber(int c) {
+		charCount = 0;
+		boolean negative = false;
+		boolean isDouble = false;
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean exact = true;
+		if (c == '-') {
+			negative = true;
+			appendChar('-');
+			c = read();
+		}
+		final int intStart = charCount;
+		if (c == '0') {
+			appendChar('0');
+			c = read();
+			if (isDigit(c)) {
+				throw malformedNumber(c);
+			}
+		} else if (c >= '1' && c <= '9') {
+			do {
+				appendChar((char) c);
+				if (digits < 18) {
+					mantissa = mantissa * 10 + (c - '0');
+					digits++;
+				} else {
+					exact = false;
+				}
+				c = read();
+			} while (isDigit(c));
+		} else {
+			throw malformedNumber(c);
+		}
+		final int intLength = charCount - intStart;
+		if (c == '.') {
+			isDouble = true;
+			appendChar('.');
+			c = read();
+			// 与原有解析一致,允许"1."这样省略小数部分的写法,但不允许"0."
+			if (!isDigit(c) && mantissa == 0) {
+				throw malformedNumber(c);
+			}
+			while (isDigit(c)) {
+				appendChar((char) c);
+				if (mantissa == 0 && c == '0') {
+					exponent--;
+				} else if (digits < 18) {
+					mantissa = mantissa * 10 + (c - '0');
+					digits++;
+					exponent--;
+				} else {
+					exact = false;
+				}
+				c = read();
+			}
+		}
+		if (c == 'e' || c == 'E') {
+			isDouble = true;
+			appendChar((char) c);
+			c = read();
+			boolean negativeExp = false;
+			if (c == '+' || c == '-') {
+				negativeExp = c == '-';
+				appendChar((char) c);
+				c = read();
+			}
+			if (!isDigit(c)) {
+				throw malformedNumber(c);
+			}
+			int exp = 0;
+			do {
+				appendChar((char) c);
+				if (exp < 100000) {
+					exp = exp * 10 + (c - '0');
+				}
+				c = read();
+			} while (isDigit(c));
+			exponent += negativeExp ? -exp : exp;
+		}
+		if (c != -1) {
+			pos--;
+		}
+		if (!isDouble) {
+			if (negative && mantissa == 0) {
+				numberKind = KIND_DOUBLE;
+				doubleValue = -0.0;
+			} else if (intLength < 19) {
+				numberKind = intLength < 10 ? KIND_INT : KIND_LONG;
+				longValue = negative ? -mantissa : mantissa;
+			} else {
+				numberKind = KIND_BIG;
+			}
+			return;
+		}
+		numberKind = KIND_DOUBLE;
+		double d;
+		if (mantissa == 0) {
+			d = 0;
+		} else if (exact && digits <= 15 && exponent >= -22 && exponent <= 22) {
+			d = exponent < 0 ? mantissa / POW10[-exponent] : mantissa
+					* POW10[exponent];
+		} else {
+			// 超出快速计算的精度,交给Double.parseDouble保证正确舍入
+			doubleValue = Double.parseDouble(new String(chars, 0, charCount));
+			return;
+		}
+		doubleValue = negative ? -d : d;
+	}
+
+	private double numberValue() {
+		switch (numberKind) {
+		case KIND_INT:
+		case KIND_LONG:
+			return longValue;
+		case KIND_DOUBLE:
+			return doubleValue;
+		default:
+			return Double.parseDouble(new String(chars, 0, charCount));
+		}
+	}
+
+	private JsonParserException malformedNumber(int c) {
+		if (c != -1) {
+			appendChar((char) c);
+		}
+		return syntaxError("Malformed number: " + new String(chars, 0, charCount));
+	}
+
+	private void readString() {
+		charCount = 0;
+		for (;;) {
+			if (pos >= limit && !fill()) {
+				throw syntaxError("String was not terminated before end of input");
+			}
+			final int c = string == null ? buffer[pos++] & 0xFF : string
+					.charAt(pos++);
+			if (c == '"') {
+				return;
+			} else if (c == '\\') {
+				readEscape();
+			} else if (c < 32) {
+				throw createParseException(null,
+						"Strings may not contain control characters: 0x"
+								+ Integer.toString(c, 16), false);
+			} else if (c < 0x80 || string != null) {
+				appendChar((char) c);
+			} else {
+				readUTF8(c);
+			}
+		}
+	}
+
+	private void readEscape() {
+		final int escape = read();
+		switch (escape) {
+		case -1:
+			throw createParseException(null,
+					"EOF encountered in the middle of a string escape", false);
+		case 'b':
+			appendChar('\b');
+			break;
+		case 'f':
+			appendChar('\f');
+			break;
+		case 'n':
+			appendChar('\n');
+			break;
+		case 'r':
+			appendChar('\r');
+			break;
+		case 't':
+			appendChar('\t');
+			break;
+		case '"':
+		case '/':
+		case '\\':
+			appendChar((char) escape);
+			break;
+		case 'u':
+			appendChar((char) (hexChar() << 12 | hexChar() << 8
+					| hexChar() << 4 | hexChar()));
+			break;
+		default:
+			throw createParseException(null, "Invalid escape: \\"
+					+ (char) escape, false);
+		}
+	}
+
+	private int hexChar() {
+		final int c = read();
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		} else if (c >= 'a' && c <= 'f') {
+			return c - 'a' + 10;
+		} else if (c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		}
+		throw createParseException(null,
+				"Expected unicode hex escape character", false);
+	}
+
+	private void readUTF8(int c) {
+		int count;
+		int code;
+		if ((c & 0xE0) == 0xC0) {
+			count = 1;
+			code = c & 0x1F;
+		} else if ((c & 0xF0) == 0xE0) {
+			count = 2;
+			code = c & 0x0F;
+		} else if ((c & 0xF8) == 0xF0) {
+			count = 3;
+			code = c & 0x07;
+		} else {
+			throw createParseException(null, "Invalid UTF-8 byte: 0x"
+					+ Integer.toString(c, 16), false);
+		}
+		for (int i = 0; i < count; i++) {
+			final int b = read();
+			if ((b & 0xC0) != 0x80) {
+				throw createParseException(null,
+						"Invalid UTF-8 sequence in string", false);
+			}
+			code = (code << 6) | (b & 0x3F);
+		}
+		if (code >= 0x10000) {
+			code -= 0x10000;
+			appendChar((char) (0xD800 + (code >> 10)));
+			appendChar((char) (0xDC00 + (code & 0x3FF)));
+		} else {
+			appendChar((char) code);
+		}
+	}
+
+	private void skipString() {
+		for (;;) {
+			final int c = read();
+			if (c == '"') {
+				return;
+			} else if (c == '\\') {
+				read();
+			} else if (c == -1) {
+				throw syntaxError("String was not terminated before end of input");
+			}
+		}
+	}
+
+	private void skipContainer() {
+		int depth = 1;
+		for (;;) {
+			final int c = read();
+			switch (c) {
+			case -1:
+				throw syntaxError("Unexpected end of input in skipped value");
+			case '"':
+				skipString();
+				break;
+			case '[':
+			case '{':
+				depth++;
+				break;
+			case ']':
+			case '}':
+				if (--depth == 0) {
+					return;
+				}
+				break;
+			case '\n':
+				line++;
+				lineStart = base + pos;
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	private static String describe(int c) {
+		return c == -1 ? "EOF" : "'" + (char) c + "'";
+	}
+
+	private static boolean isAsciiLetter(int c) {
+		return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+	}
+
+	private JsonParserException createHelpfulException(char first,
+			char[] expected, int failurePosition) {
+		StringBuilder errorToken = new StringBuilder(first
+				+ (expected == null ? "" : new String(expected, 0,
+						failurePosition)));
+		for (int c = read(); isAsciiLetter(c) && errorToken.length() < 15; c = read()) {
+			errorToken.append((char) c);
+		}
+		return syntaxError("Unexpected token '"
+				+ errorToken
+				+ "'"
+				+ (expected == null ? "" : ". Did you mean '" + first
+						+ new String(expected) + "'?"));
+	}
+
+	/**
+	 * 以当前记号的位置生成异常
+	 *
+	 * @param message
+	 * @return
+	 */
+	JsonParserException syntaxError(String message) {
+		return createParseException(null, message, true);
+	}
+
+	private JsonParserException createParseException(Exception e,
+			String message, boolean tokenPos) {
+		if (tokenPos) {
+			return new JsonParserException(e, message + " on line "
+					+ tokenLine + ", char " + tokenChar, tokenLine, tokenChar,
+					tokenOffset);
+		}
+		final int offset = base + pos;
+		final int charPos = MathUtils.max(1, offset - lineStart);
+		return new JsonParserException(e, message + " on line " + line
+				+ ", char " + charPos, line, charPos, offset);
+	}
+
+}
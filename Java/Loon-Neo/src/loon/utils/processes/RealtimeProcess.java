@@ -40,6 +40,8 @@ public abstract class RealtimeProcess implements GameProcess, LRelease {
 
 	private SortedList<GameProcess> processesToFireWhenFinished;
 
+	RealtimeProcessManager.ProcessNode processNode;
+
 	public RealtimeProcess() {
 		this("Process" + System.currentTimeMillis());
 	}
@@ -80,10 +82,12 @@ public abstract class RealtimeProcess implements GameProcess, LRelease {
 
 	public void sleep(long delay) {
 		timer.setDelay(delay);
+		reschedule(true);
 	}
 
 	public void setDelay(long delay) {
 		timer.setDelay(delay);
+		reschedule(true);
 	}
 
 	public long getDelay() {
@@ -96,14 +100,17 @@ public abstract class RealtimeProcess implements GameProcess, LRelease {
 
 	public void interrupt() {
 		timer.stop();
+		reschedule(true);
 	}
 
 	public void stop() {
 		timer.stop();
+		reschedule(true);
 	}
 
 	public void start() {
 		timer.start();
+		reschedule(true);
 	}
 
 	public boolean isActive() {
@@ -112,9 +119,40 @@ public abstract class RealtimeProcess implements GameProcess, LRelease {
 
 	public abstract void run(LTimerContext time);
 
+	/**
+	 * 距离下次执行还需等待的时间(毫秒),计时器停止时返回-1
+	 * 
+	 * @return
+	 */
+	long remainingTime() {
+		if (!timer.isActive()) {
+			return -1;
+		}
+		long remaining = timer.getDelay() - timer.getCurrentTick();
+		return remaining < 0 ? 0 : remaining;
+	}
+
+	/**
+	 * 补足进程在时间轮中休眠时流逝的时间
+	 * 
+	 * @param elapsed
+	 */
+	void skipTime(long elapsed) {
+		if (timer.isActive()) {
+			timer.addPercentage(elapsed);
+		}
+	}
+
+	private void reschedule(boolean resetClock) {
+		if (processNode != null) {
+			processNode.reschedule(resetClock);
+		}
+	}
+
 	@Override
 	public void kill() {
 		this.isDead = true;
+		reschedule(false);
 	}
 
 	@Override
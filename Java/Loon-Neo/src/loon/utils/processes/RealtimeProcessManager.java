@@ -22,16 +22,151 @@
 package loon.utils.processes;
 
 import loon.LRelease;
-import loon.utils.LIterator;
-import loon.utils.SortedList;
 import loon.utils.TArray;
 import loon.utils.timer.LTimerContext;
 
+/**
+ * 进程管理器,内部使用分层时间轮(hierarchical timer wheel)调度进程:
+ * 
+ * 1.延迟为0(或非RealtimeProcess)的进程每帧执行一次.
+ * 
+ * 2.有延迟的RealtimeProcess按其剩余时间挂入时间轮,休眠期间不占用任何计算,到期时才会被调用tick,
+ * 并且会补足休眠期间流逝的时间,所以其计时结果与逐帧调用一致.
+ * 
+ * 3.计时器被stop的进程挂起,直到再次start才重新进入调度.
+ * 
+ * 每帧的开销只与到期的进程数量相关,与注册的进程总数无关,并且tick过程中不会分配新对象.
+ */
 public class RealtimeProcessManager implements RealtimeProcessEvent, LRelease {
 
+	// 时间轮每层64格,共4层,精度1毫秒,最大可直接挂入约4.6小时的延迟(超出部分到期后会再次挂入)
+	private static final int WHEEL_BITS = 6;
+
+	private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+	private static final int WHEEL_LEVELS = 4;
+
+	private static final long WHEEL_SPAN = 1L << (WHEEL_BITS * WHEEL_LEVELS);
+
+	static final int STATE_NONE = 0;
+
+	static final int STATE_FRAME = 1;
+
+	static final int STATE_WHEEL = 2;
+
+	static final int STATE_PARKED = 3;
+
+	static final int STATE_DUE = 4;
+
+	static final int STATE_REMOVED = 5;
+
+	/**
+	 * 进程在管理器中的调度节点(可复用)
+	 */
+	static final class ProcessNode {
+
+		RealtimeProcessManager manager;
+
+		GameProcess process;
+
+		RealtimeProcess timed;
+
+		long lastTime;
+
+		long due;
+
+		int state;
+
+		int slot = -1;
+
+		int allIndex = -1;
+
+		ProcessNode prev, next;
+
+		void reschedule(boolean resetClock) {
+			if (manager != null) {
+				manager.reschedule(this, resetClock);
+			}
+		}
+
+		void reset() {
+			if (timed != null && timed.processNode == this) {
+				timed.processNode = null;
+			}
+			manager = null;
+			process = null;
+			timed = null;
+			lastTime = 0;
+			due = 0;
+			state = STATE_NONE;
+			slot = -1;
+			allIndex = -1;
+			prev = null;
+			next = null;
+		}
+	}
+
+	/**
+	 * 调度节点的简单数组列表(直接访问数组以避免tick时产生额外开销)
+	 */
+	static final class NodeList {
+
+		ProcessNode[] items = new ProcessNode[16];
+
+		int size;
+
+		void add(ProcessNode node) {
+			if (size == items.length) {
+				ProcessNode[] newItems = new ProcessNode[size << 1];
+				System.arraycopy(items, 0, newItems, 0, size);
+				items = newItems;
+			}
+			items[size++] = node;
+		}
+
+		ProcessNode pop() {
+			ProcessNode node = items[--size];
+			items[size] = null;
+			return node;
+		}
+
+		void truncate(int newSize) {
+			for (int i = newSize; i < size; i++) {
+				items[i] = null;
+			}
+			size = newSize;
+		}
+
+		void clear() {
+			truncate(0);
+		}
+	}
+
 	private static RealtimeProcessManager instance;
 
-	private SortedList<GameProcess> processes;
+	private final TArray<GameProcess> pending;
+
+	private final TArray<GameProcess> adding;
+
+	private final NodeList all;
+
+	private final NodeList frames;
+
+	private final NodeList dues;
+
+	private final NodeList freeNodes;
+
+	private final ProcessNode[] wheel;
+
+	private long now;
+
+	private long current;
+
+	private int wheelCount;
+
+	private boolean ticking;
 
 	public static RealtimeProcessManager get() {
 		synchronized (RealtimeProcessManager.class) {
@@ -43,7 +178,13 @@ public class RealtimeProcessManager implements RealtimeProcessEvent, LRelease {
 	}
 
 	private RealtimeProcessManager() {
-		this.processes = new SortedList<GameProcess>();
+		this.pending = new TArray<GameProcess>();
+		this.adding = new TArray<GameProcess>();
+		this.all = new NodeList();
+		this.frames = new NodeList();
+		this.dues = new NodeList();
+		this.freeNodes = new NodeList();
+		this.wheel = new ProcessNode[WHEEL_SIZE * WHEEL_LEVELS];
 	}
 
 	public static RealtimeProcessManager newProcess() {
@@ -51,48 +192,353 @@ public class RealtimeProcessManager implements RealtimeProcessEvent, LRelease {
 	}
 
 	public void addProcess(GameProcess realtimeProcess) {
-		synchronized (this.processes) {
-			this.processes.add(realtimeProcess);
+		if (realtimeProcess == null) {
+			return;
+		}
+		synchronized (this.pending) {
+			this.pending.add(realtimeProcess);
 		}
 	}
 
 	public void tick(LTimerContext time) {
-		if (processes.size > 0) {
-			final SortedList<GameProcess> toBeUpdated;
-			synchronized (this.processes) {
-				toBeUpdated = new SortedList<GameProcess>(this.processes);
-			}
-			final SortedList<GameProcess> deadProcesses = new SortedList<GameProcess>();
-			for (LIterator<GameProcess> it = toBeUpdated.listIterator(); it
-					.hasNext();) {
-				GameProcess realtimeProcess = it.next();
-				realtimeProcess.tick(time);
-				if (realtimeProcess.isDead()) {
-					deadProcesses.add(realtimeProcess);
+		synchronized (this) {
+			ticking = true;
+			try {
+				now += time.timeSinceLastUpdate;
+				drainPending();
+				tickFrames(time);
+				advanceWheel();
+				tickDues(time);
+			} finally {
+				ticking = false;
+			}
+		}
+	}
+
+	/**
+	 * 当前注册的进程数量
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return all.size + pending.size;
+	}
+
+	/**
+	 * 当前每帧都需执行的进程数量
+	 * 
+	 * @return
+	 */
+	public int frameSize() {
+		return frames.size;
+	}
+
+	/**
+	 * 当前在时间轮中休眠的进程数量
+	 * 
+	 * @return
+	 */
+	public int sleepSize() {
+		return wheelCount;
+	}
+
+	private void drainPending() {
+		synchronized (this.pending) {
+			if (pending.size == 0) {
+				return;
+			}
+			adding.addAll(pending);
+			pending.clear();
+		}
+		for (int i = 0; i < adding.size; i++) {
+			register(adding.get(i));
+		}
+		adding.clear();
+	}
+
+	private void register(GameProcess process) {
+		RealtimeProcess timed = null;
+		if (process instanceof RealtimeProcess) {
+			timed = (RealtimeProcess) process;
+			ProcessNode old = timed.processNode;
+			if (old != null && old.manager == this
+					&& old.state != STATE_REMOVED) {
+				return;
+			}
+		}
+		ProcessNode node = freeNodes.size > 0 ? freeNodes.pop()
+				: new ProcessNode();
+		node.manager = this;
+		node.process = process;
+		node.timed = timed;
+		node.lastTime = now;
+		node.allIndex = all.size;
+		all.add(node);
+		if (timed != null) {
+			timed.processNode = node;
+		}
+		place(node);
+	}
+
+	private void tickFrames(LTimerContext time) {
+		final int count = frames.size;
+		if (count == 0) {
+			return;
+		}
+		int keep = 0;
+		for (int i = 0; i < count; i++) {
+			ProcessNode node = frames.items[i];
+			if (node.state == STATE_FRAME) {
+				runNode(node, time);
+			}
+			// 进程在tick中可能重新调度(frames.add会扩充数组),所以每次都重新读取frames.items
+			if (node.state == STATE_FRAME) {
+				frames.items[keep++] = node;
+			} else if (node.state == STATE_REMOVED) {
+				recycle(node);
+			}
+		}
+		// tick期间新加入每帧队列的节点位于count之后,需要前移
+		final ProcessNode[] items = frames.items;
+		for (int i = count; i < frames.size; i++) {
+			items[keep++] = items[i];
+		}
+		frames.truncate(keep);
+	}
+
+	private void advanceWheel() {
+		if (wheelCount == 0) {
+			current = now;
+			return;
+		}
+		while (current < now) {
+			long t = ++current;
+			int index = (int) (t & WHEEL_MASK);
+			if (index == 0) {
+				for (int level = 1; level < WHEEL_LEVELS; level++) {
+					int idx = (int) ((t >> (WHEEL_BITS * level)) & WHEEL_MASK);
+					cascade(level * WHEEL_SIZE + idx);
+					if (idx != 0) {
+						break;
+					}
 				}
 			}
-			if (deadProcesses.size > 0) {
-				for (LIterator<GameProcess> it = deadProcesses.listIterator(); it
-						.hasNext();) {
-					GameProcess realtimeProcess = it.next();
-					realtimeProcess.finish();
+			ProcessNode node = wheel[index];
+			wheel[index] = null;
+			for (; node != null;) {
+				ProcessNode next = node.next;
+				node.prev = node.next = null;
+				node.slot = -1;
+				node.state = STATE_DUE;
+				wheelCount--;
+				dues.add(node);
+				node = next;
+			}
+			if (wheelCount == 0) {
+				current = now;
+				return;
+			}
+		}
+	}
+
+	private void cascade(int slot) {
+		ProcessNode node = wheel[slot];
+		wheel[slot] = null;
+		for (; node != null;) {
+			ProcessNode next = node.next;
+			node.prev = node.next = null;
+			node.slot = -1;
+			wheelCount--;
+			insert(node);
+			node = next;
+		}
+	}
+
+	private void tickDues(LTimerContext time) {
+		if (dues.size == 0) {
+			return;
+		}
+		for (int i = 0; i < dues.size; i++) {
+			ProcessNode node = dues.items[i];
+			dues.items[i] = null;
+			if (node.state == STATE_DUE) {
+				runNode(node, time);
+				if (node.state == STATE_DUE) {
+					place(node);
 				}
-				synchronized (this.processes) {
-					this.processes.removeAll(deadProcesses);
+			}
+			if (node.state == STATE_REMOVED) {
+				recycle(node);
+			}
+		}
+		dues.size = 0;
+	}
+
+	private void runNode(ProcessNode node, LTimerContext time) {
+		GameProcess process = node.process;
+		RealtimeProcess timed = node.timed;
+		if (timed != null) {
+			// 补足休眠期间没有传递给计时器的时间
+			long skipped = (now - node.lastTime) - time.timeSinceLastUpdate;
+			if (skipped > 0) {
+				timed.skipTime(skipped);
+			}
+		}
+		node.lastTime = now;
+		final int state = node.state;
+		process.tick(time);
+		if (node.state == STATE_REMOVED) {
+			return;
+		}
+		if (process.isDead()) {
+			process.finish();
+			if (node.state != STATE_REMOVED) {
+				detach(node);
+			}
+			return;
+		}
+		if (state == STATE_FRAME && !isFrameNode(node)) {
+			node.state = STATE_NONE;
+			place(node);
+		}
+	}
+
+	private boolean isFrameNode(ProcessNode node) {
+		if (node.timed == null || node.process.isDead()) {
+			return true;
+		}
+		return node.timed.remainingTime() == 0;
+	}
+
+	private void place(ProcessNode node) {
+		if (isFrameNode(node)) {
+			node.state = STATE_FRAME;
+			frames.add(node);
+			return;
+		}
+		long remaining = node.timed.remainingTime();
+		if (remaining < 0) {
+			node.state = STATE_PARKED;
+			return;
+		}
+		node.due = node.lastTime + remaining;
+		if (node.due <= current) {
+			node.state = STATE_FRAME;
+			frames.add(node);
+			return;
+		}
+		node.state = STATE_WHEEL;
+		insert(node);
+	}
+
+	private void insert(ProcessNode node) {
+		long due = node.due;
+		long delta = due - current;
+		if (delta >= WHEEL_SPAN) {
+			due = current + WHEEL_SPAN - 1;
+			delta = WHEEL_SPAN - 1;
+		}
+		int slot;
+		if (delta < WHEEL_SIZE) {
+			slot = (int) (due & WHEEL_MASK);
+		} else {
+			int level = 1;
+			for (; level < WHEEL_LEVELS - 1; level++) {
+				if (delta < (1L << (WHEEL_BITS * (level + 1)))) {
+					break;
 				}
 			}
+			slot = level * WHEEL_SIZE
+					+ (int) ((due >> (WHEEL_BITS * level)) & WHEEL_MASK);
+		}
+		ProcessNode head = wheel[slot];
+		node.prev = null;
+		node.next = head;
+		if (head != null) {
+			head.prev = node;
+		}
+		wheel[slot] = node;
+		node.slot = slot;
+		wheelCount++;
+	}
+
+	private void unlink(ProcessNode node) {
+		if (node.slot == -1) {
+			return;
+		}
+		if (node.prev != null) {
+			node.prev.next = node.next;
+		} else {
+			wheel[node.slot] = node.next;
+		}
+		if (node.next != null) {
+			node.next.prev = node.prev;
+		}
+		node.prev = node.next = null;
+		node.slot = -1;
+		wheelCount--;
+	}
+
+	void reschedule(ProcessNode node, boolean resetClock) {
+		synchronized (this) {
+			if (resetClock) {
+				node.lastTime = now;
+			}
+			switch (node.state) {
+			case STATE_WHEEL:
+				unlink(node);
+				node.state = STATE_NONE;
+				place(node);
+				break;
+			case STATE_PARKED:
+				node.state = STATE_NONE;
+				place(node);
+				break;
+			default:
+				// 每帧队列中的节点会在下次tick后重新安置,到期队列中的节点在tick后安置
+				break;
+			}
 		}
 	}
 
+	/**
+	 * 从管理器中移除节点,位于每帧队列或到期队列中的节点由对应队列回收,其余立即回收
+	 * 
+	 * @param node
+	 */
+	private void detach(ProcessNode node) {
+		final int state = node.state;
+		unlink(node);
+		node.state = STATE_REMOVED;
+		if (node.timed != null && node.timed.processNode == node) {
+			node.timed.processNode = null;
+		}
+		int idx = node.allIndex;
+		if (idx >= 0 && idx < all.size && all.items[idx] == node) {
+			ProcessNode last = all.items[all.size - 1];
+			all.items[idx] = last;
+			last.allIndex = idx;
+			all.pop();
+		}
+		node.allIndex = -1;
+		if (state == STATE_WHEEL || state == STATE_PARKED
+				|| state == STATE_NONE) {
+			recycle(node);
+		}
+	}
+
+	private void recycle(ProcessNode node) {
+		node.reset();
+		freeNodes.add(node);
+	}
+
 	public GameProcess find(String id) {
-		if (processes != null && processes.size > 0) {
-			synchronized (this.processes) {
-				for (LIterator<GameProcess> it = processes.listIterator(); it
-						.hasNext();) {
-					GameProcess p = it.next();
-					if (p.getId() == id || p.getId().equals(id)) {
-						return p;
-					}
+		synchronized (this) {
+			drainPending();
+			for (int i = 0; i < all.size; i++) {
+				GameProcess p = all.items[i].process;
+				if (p.getId() == id || p.getId().equals(id)) {
+					return p;
 				}
 			}
 		}
@@ -100,54 +546,64 @@ public class RealtimeProcessManager implements RealtimeProcessEvent, LRelease {
 	}
 
 	public void delete(String id) {
-		if (processes != null && processes.size > 0) {
-			synchronized (this.processes) {
-				final TArray<GameProcess> ps = new TArray<GameProcess>(
-						processes);
-				for (int i = 0; i < ps.size; i++) {
-					GameProcess p = ps.get(i);
-					if (p.getId() == id || p.getId().equals(id)) {
-						p.kill();
-						processes.remove(p);
-					}
+		synchronized (this) {
+			drainPending();
+			for (int i = all.size - 1; i >= 0; i--) {
+				if (i >= all.size) {
+					continue;
+				}
+				ProcessNode node = all.items[i];
+				GameProcess p = node.process;
+				if (p.getId() == id || p.getId().equals(id)) {
+					detach(node);
+					p.kill();
 				}
 			}
 		}
 	}
 
 	public void deleteIndex(String id) {
-		if (processes != null && processes.size > 0) {
-			synchronized (this.processes) {
-				final TArray<GameProcess> ps = new TArray<GameProcess>(
-						processes);
-				for (int i = 0; i < ps.size; i++) {
-					GameProcess p = ps.get(i);
-					if (p.getId() == id || p.getId().indexOf(id) != -1) {
-						p.kill();
-						processes.remove(p);
-					}
+		synchronized (this) {
+			drainPending();
+			for (int i = all.size - 1; i >= 0; i--) {
+				if (i >= all.size) {
+					continue;
+				}
+				ProcessNode node = all.items[i];
+				GameProcess p = node.process;
+				if (p.getId() == id || p.getId().indexOf(id) != -1) {
+					detach(node);
+					p.kill();
 				}
 			}
 		}
 	}
-	
-	public void dispose(){
+
+	public void dispose() {
 		close();
 	}
 
 	@Override
 	public void close() {
-		if (processes != null && processes.size > 0) {
-			synchronized (this.processes) {
-				final TArray<GameProcess> ps = new TArray<GameProcess>(
-						processes);
-				for (int i = 0; i < ps.size; i++) {
-					GameProcess p = ps.get(i);
-					p.finish();
+		synchronized (this) {
+			drainPending();
+			for (; all.size > 0;) {
+				ProcessNode node = all.items[all.size - 1];
+				GameProcess p = node.process;
+				detach(node);
+				p.finish();
+			}
+			if (!ticking) {
+				for (int i = 0; i < frames.size; i++) {
+					recycle(frames.items[i]);
 				}
-				processes.clear();
+				frames.clear();
+			}
+			for (int i = 0; i < wheel.length; i++) {
+				wheel[i] = null;
 			}
+			wheelCount = 0;
 		}
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,428 @@
+/**
+ * Copyright 2008 - 2015 The Loon Game Engine Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loon
+ * @author cping
+ * @email：javachenpeng@yahoo.com
+ * @version 0.5
+ */
+package loon.utils.timer;
+
+import loon.utils.TimeUtils;
+
+/**
+ * 逐帧性能记录,按子系统(更新,绘制,动作,进程,物理,渲染提交)统计每帧耗时,draw call次数与分配的内存字节数.
+ *
+ * 计时与内存统计由Sampler提供,默认实现只有毫秒精度并且不统计内存,桌面环境会注入基于ThreadMXBean的实现.
+ * 子系统之间可以嵌套(比如渲染提交发生在绘制之中),每项数值都包含嵌套在内的部分.
+ * 最近的若干帧保存在环形缓存中,可以导出为CSV或JSON.
+ */
+public class FrameProfiler {
+
+	public static final int UPDATE = 0;
+
+	public static final int PAINT = 1;
+
+	public static final int ACTIONS = 2;
+
+	public static final int PROCESSES = 3;
+
+	public static final int PHYSICS = 4;
+
+	public static final int BATCH_FLUSH = 5;
+
+	public static final int SECTIONS = 6;
+
+	private static final String[] NAMES = { "update", "paint", "actions",
+			"processes", "physics", "flush" };
+
+	/**
+	 * 计时与内存分配数据的来源
+	 */
+	public static interface Sampler {
+
+		/**
+		 * 当前时间(纳秒)
+		 */
+		public long nanoTime();
+
+		/**
+		 * 当前线程累计分配的字节数(不支持时返回-1)
+		 */
+		public long allocatedBytes();
+
+	}
+
+	private static final class DefaultSampler implements Sampler {
+
+		@Override
+		public long nanoTime() {
+			return TimeUtils.nanoTime();
+		}
+
+		@Override
+		public long allocatedBytes() {
+			return -1;
+		}
+
+	}
+
+	private static Sampler sampler = new DefaultSampler();
+
+	private static boolean enabled;
+
+	// 累计的draw call次数(不论是否启用都会计数)
+	private static int drawCalls;
+
+	// 当前帧
+	private static final int[] depth = new int[SECTIONS];
+	private static final long[] startTime = new long[SECTIONS];
+	private static final long[] startBytes = new long[SECTIONS];
+	private static final int[] startDraws = new int[SECTIONS];
+	private static final long[] curTime = new long[SECTIONS];
+	private static final long[] curBytes = new long[SECTIONS];
+	private static final int[] curDraws = new int[SECTIONS];
+	private static long frameTime, frameBytes;
+	private static int frameDraws;
+	private static boolean frameStarted;
+
+	// 已完成的帧(环形缓存)
+	private static int capacity = 600;
+	private static long[] frames = new long[capacity];
+	private static long[] frameTimes = new long[capacity];
+	private static long[] frameAllocs = new long[capacity];
+	private static int[] frameDrawCalls = new int[capacity];
+	private static long[] sectionTimes = new long[capacity * SECTIONS];
+	private static long[] sectionAllocs = new long[capacity * SECTIONS];
+	private static int[] sectionDrawCalls = new int[capacity * SECTIONS];
+	private static int head, count;
+	private static long frameIndex;
+
+	public static void setSampler(Sampler s) {
+		sampler = s == null ? new DefaultSampler() : s;
+		frameStarted = false;
+	}
+
+	public static Sampler getSampler() {
+		return sampler;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean e) {
+		if (enabled != e) {
+			enabled = e;
+			frameStarted = false;
+			for (int i = 0; i < SECTIONS; i++) {
+				depth[i] = 0;
+			}
+		}
+	}
+
+	/**
+	 * 是否能统计内存分配
+	 *
+	 * @return
+	 */
+	public static boolean isAllocationSupported() {
+		return sampler.allocatedBytes() >= 0;
+	}
+
+	/**
+	 * 设置保存的帧数(会清空已有记录)
+	 *
+	 * @param frameCount
+	 */
+	public static void setCapacity(int frameCount) {
+		capacity = frameCount < 1 ? 1 : frameCount;
+		frames = new long[capacity];
+		frameTimes = new long[capacity];
+		frameAllocs = new long[capacity];
+		frameDrawCalls = new int[capacity];
+		sectionTimes = new long[capacity * SECTIONS];
+		sectionAllocs = new long[capacity * SECTIONS];
+		sectionDrawCalls = new int[capacity * SECTIONS];
+		head = count = 0;
+	}
+
+	public static int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * 记录一次draw call(由渲染器调用)
+	 */
+	public static void drawCall() {
+		drawCalls++;
+	}
+
+	public static int getTotalDrawCalls() {
+		return drawCalls;
+	}
+
+	public static void begin(int section) {
+		if (!enabled) {
+			return;
+		}
+		if (depth[section]++ == 0) {
+			startDraws[section] = drawCalls;
+			startBytes[section] = sampler.allocatedBytes();
+			startTime[section] = sampler.nanoTime();
+		}
+	}
+
+	public static void end(int section) {
+		if (!enabled || depth[section] == 0) {
+			return;
+		}
+		if (--depth[section] == 0) {
+			final long time = sampler.nanoTime();
+			curTime[section] += time - startTime[section];
+			curDraws[section] += drawCalls - startDraws[section];
+			final long bytes = sampler.allocatedBytes();
+			if (bytes >= 0 && startBytes[section] >= 0) {
+				curBytes[section] += bytes - startBytes[section];
+			}
+		}
+	}
+
+	/**
+	 * 结束当前帧并开始下一帧(Display在每帧绘制完成后调用)
+	 */
+	public static void frame() {
+		if (!enabled) {
+			return;
+		}
+		final long time = sampler.nanoTime();
+		final long bytes = sampler.allocatedBytes();
+		if (!frameStarted) {
+			frameStarted = true;
+			resetFrame(time, bytes);
+			return;
+		}
+		for (int i = 0; i < SECTIONS; i++) {
+			// 异常中断未能结束的项在此结束
+			if (depth[i] > 0) {
+				depth[i] = 1;
+				end(i);
+			}
+		}
+		final int index = (head + count) % capacity;
+		if (count < capacity) {
+			count++;
+		} else {
+			head = (head + 1) % capacity;
+		}
+		frames[index] = frameIndex++;
+		frameTimes[index] = time - frameTime;
+		frameAllocs[index] = bytes >= 0 && frameBytes >= 0 ? bytes
+				- frameBytes : -1;
+		frameDrawCalls[index] = drawCalls - frameDraws;
+		final int off = index * SECTIONS;
+		for (int i = 0; i < SECTIONS; i++) {
+			sectionTimes[off + i] = curTime[i];
+			sectionAllocs[off + i] = bytes >= 0 ? curBytes[i] : -1;
+			sectionDrawCalls[off + i] = curDraws[i];
+		}
+		resetFrame(time, bytes);
+	}
+
+	private static void resetFrame(long time, long bytes) {
+		for (int i = 0; i < SECTIONS; i++) {
+			curTime[i] = 0;
+			curBytes[i] = 0;
+			curDraws[i] = 0;
+		}
+		frameTime = time;
+		frameBytes = bytes;
+		frameDraws = drawCalls;
+	}
+
+	public static void clear() {
+		head = count = 0;
+		frameIndex = 0;
+		frameStarted = false;
+	}
+
+	/**
+	 * 已记录的帧数
+	 *
+	 * @return
+	 */
+	public static int getFrameCount() {
+		return count;
+	}
+
+	private static int slot(int frame) {
+		return (head + frame) % capacity;
+	}
+
+	private static int last() {
+		return count == 0 ? -1 : slot(count - 1);
+	}
+
+	/**
+	 * 上一帧耗时(纳秒)
+	 *
+	 * @return
+	 */
+	public static long getLastFrameTime() {
+		int i = last();
+		return i == -1 ? 0 : frameTimes[i];
+	}
+
+	/**
+	 * 上一帧分配的字节数(不支持时为-1)
+	 *
+	 * @return
+	 */
+	public static long getLastFrameBytes() {
+		int i = last();
+		return i == -1 ? -1 : frameAllocs[i];
+	}
+
+	public static int getLastFrameDrawCalls() {
+		int i = last();
+		return i == -1 ? 0 : frameDrawCalls[i];
+	}
+
+	public static long getLastSectionTime(int section) {
+		int i = last();
+		return i == -1 ? 0 : sectionTimes[i * SECTIONS + section];
+	}
+
+	public static long getLastSectionBytes(int section) {
+		int i = last();
+		return i == -1 ? -1 : sectionAllocs[i * SECTIONS + section];
+	}
+
+	public static int getLastSectionDrawCalls(int section) {
+		int i = last();
+		return i == -1 ? 0 : sectionDrawCalls[i * SECTIONS + section];
+	}
+
+	/**
+	 * 已记录各帧的平均耗时(纳秒)
+	 *
+	 * @return
+	 */
+	public static long getAverageFrameTime() {
+		if (count == 0) {
+			return 0;
+		}
+		long sum = 0;
+		for (int i = 0; i < count; i++) {
+			sum += frameTimes[slot(i)];
+		}
+		return sum / count;
+	}
+
+	/**
+	 * 已记录各帧平均分配的字节数(不支持时为-1)
+	 *
+	 * @return
+	 */
+	public static long getAverageFrameBytes() {
+		if (count == 0) {
+			return -1;
+		}
+		long sum = 0;
+		for (int i = 0; i < count; i++) {
+			long b = frameAllocs[slot(i)];
+			if (b < 0) {
+				return -1;
+			}
+			sum += b;
+		}
+		return sum / count;
+	}
+
+	public static String getSectionName(int section) {
+		return NAMES[section];
+	}
+
+	private static String millis(long nanos) {
+		return String.valueOf(nanos / 1000 / 1000f);
+	}
+
+	/**
+	 * 以CSV格式导出已记录的帧(时间单位为毫秒,内存单位为字节)
+	 *
+	 * @return
+	 */
+	public static String toCSV() {
+		StringBuilder sbr = new StringBuilder(128 + count * 128);
+		sbr.append("frame,frame_ms,frame_bytes,frame_draws");
+		for (int s = 0; s < SECTIONS; s++) {
+			sbr.append(',').append(NAMES[s]).append("_ms,");
+			sbr.append(NAMES[s]).append("_bytes,");
+			sbr.append(NAMES[s]).append("_draws");
+		}
+		sbr.append('\n');
+		for (int i = 0; i < count; i++) {
+			int idx = slot(i);
+			sbr.append(frames[idx]).append(',');
+			sbr.append(millis(frameTimes[idx])).append(',');
+			sbr.append(frameAllocs[idx]).append(',');
+			sbr.append(frameDrawCalls[idx]);
+			int off = idx * SECTIONS;
+			for (int s = 0; s < SECTIONS; s++) {
+				sbr.append(',').append(millis(sectionTimes[off + s]));
+				sbr.append(',').append(sectionAllocs[off + s]);
+				sbr.append(',').append(sectionDrawCalls[off + s]);
+			}
+			sbr.append('\n');
+		}
+		return sbr.toString();
+	}
+
+	/**
+	 * 以JSON格式导出已记录的帧(时间单位为毫秒,内存单位为字节)
+	 *
+	 * @return
+	 */
+	public static String toJSON() {
+		StringBuilder sbr = new StringBuilder(128 + count * 320);
+		sbr.append("{\"allocationSupported\":")
+				.append(isAllocationSupported()).append(",\"frames\":[");
+		for (int i = 0; i < count; i++) {
+			int idx = slot(i);
+			if (i > 0) {
+				sbr.append(',');
+			}
+			sbr.append("\n{\"frame\":").append(frames[idx]);
+			sbr.append(",\"ms\":").append(millis(frameTimes[idx]));
+			sbr.append(",\"bytes\":").append(frameAllocs[idx]);
+			sbr.append(",\"draws\":").append(frameDrawCalls[idx]);
+			sbr.append(",\"sections\":{");
+			int off = idx * SECTIONS;
+			for (int s = 0; s < SECTIONS; s++) {
+				if (s > 0) {
+					sbr.append(',');
+				}
+				sbr.append('"').append(NAMES[s]).append("\":{\"ms\":");
+				sbr.append(millis(sectionTimes[off + s]));
+				sbr.append(",\"bytes\":").append(sectionAllocs[off + s]);
+				sbr.append(",\"draws\":").append(sectionDrawCalls[off + s]);
+				sbr.append('}');
+			}
+			sbr.append("}}");
+		}
+		sbr.append("\n]}\n");
+		return sbr.toString();
+	}
+}
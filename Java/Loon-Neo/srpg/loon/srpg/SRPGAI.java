@@ -52,6 +52,10 @@ public class SRPGAI {
 
 	private SRPGActors actors;
 
+	private final SRPGAICache cache = new SRPGAICache();
+
+	private int[][] optimizes;
+
 	public SRPGAI(SRPGField field, SRPGActors actors, int i, int[] think) {
 		this.set(field, actors, i, think);
 	}
@@ -75,6 +79,7 @@ public class SRPGAI {
 	}
 
 	public void runThinking() {
+		cache.update(field);
 		for (int i = 0; i < think.length && !entryThinking(think[i]); i++) {
 			;
 		}
@@ -748,49 +753,53 @@ public class SRPGAI {
 		int clocation = -1;
 		int movePosX = 0;
 		int movePosY = 0;
+		// 到最近敌对角色的距离使用缓存的距离图,敌对角色位置不变时不再重复计算
+		cache.updateActors(actors);
+		final int width = cache.width;
+		final int[] cellActors = cache.cellActors;
+		final int[] distances = cache.distanceMap(actors, group);
 		for (int y = 0; y < field.getHeight(); y++) {
 			for (int x = 0; x < field.getWidth(); x++) {
 				if (moveArea[y][x] != 0) {
 					continue;
 				}
-				int index = actors.checkActor(x, y);
+				int index = cellActors[y * width + x];
 				if (index != -1 && index != number) {
 					continue;
 				}
-				int location = -1;
-				int mx = 0;
-				int my = 0;
-				for (int i = 0; i < actors.size(); i++) {
-					SRPGActor actorObject = actors.find(i);
-					if (!actorObject.isVisible()
-							|| actorObject.getActorStatus().group == group) {
-						continue;
-					}
-					int cx = x - actorObject.getPosX();
-					int cy = y - actorObject.getPosY();
-					if (cx < 0) {
-						cx *= -1;
-					}
-					if (cy < 0) {
-						cy *= -1;
-					}
-					if (cx + cy < location || location == -1) {
-						location = cx + cy;
-						mx = actorObject.getPosX();
-						my = actorObject.getPosY();
-					}
-				}
-
+				int location = distances[y * width + x];
 				if (clocation < location || clocation == -1 && location != -1) {
 					move_x = x;
 					move_y = y;
-					movePosX = mx;
-					movePosY = my;
 					clocation = location;
 				}
 			}
 
 		}
+		if (clocation != -1) {
+			// 只为最终选择的位置查找最近的敌对角色(距离相同时取序号较小者)
+			int location = -1;
+			for (int i = 0; i < actors.size(); i++) {
+				SRPGActor actorObject = actors.find(i);
+				if (!actorObject.isVisible()
+						|| actorObject.getActorStatus().group == group) {
+					continue;
+				}
+				int cx = move_x - actorObject.getPosX();
+				int cy = move_y - actorObject.getPosY();
+				if (cx < 0) {
+					cx *= -1;
+				}
+				if (cy < 0) {
+					cy *= -1;
+				}
+				if (cx + cy < location || location == -1) {
+					location = cx + cy;
+					movePosX = actorObject.getPosX();
+					movePosY = actorObject.getPosY();
+				}
+			}
+		}
 		if (clocation != -1) {
 			route = fieldmove.moveRoute(actor.getPosX(), actor.getPosY(),
 					move_x, move_y, actor.getActorStatus().move);
@@ -830,87 +839,90 @@ public class SRPGAI {
 		boolean flag1 = false;
 		pos[0] = moveX;
 		pos[1] = moveY;
-		boolean[][] trueRange = ability1.setTrueRange(field, mx, my);
-		int[][] targetRange = ability1.setTargetRange(field, moveX, moveY);
-		for (int y = 0; y < field.getHeight(); y++) {
-			for (int x = 0; x < field.getWidth(); x++) {
-				if (targetRange[y][x] == -1 || !trueRange[y][x]){
+		// 射程只与地形有关,使用缓存的结果;各格子上的角色按当前位置重新建立
+		cache.updateActors(actors);
+		final int width = cache.width;
+		final int[] cellActors = cache.cellActors;
+		final int range = ability1.getRange();
+		final int trueRange = cache.mark(
+				cache.range(mx, my, ability1.getMaxLength()),
+				ability1.getMinLength(), ability1.getMaxLength());
+		final SRPGAICache.Range targetRange = cache.range(moveX, moveY, range);
+		// 施放者位置固定时,对同一角色的效果预测不变
+		final int[][] optimizes = optimizeCache(actors.size());
+		for (int n = 0; n < targetRange.length; n++) {
+			final int cell = targetRange.cells[n];
+			if (!cache.isMarked(cell, trueRange)) {
+				continue;
+			}
+			final int x = cell % width;
+			final int y = cell / width;
+			if (ability1.getSelectNeed() == 0) {
+				int index = cellActors[cell];
+				if (index == -1
+						|| !ability1.filtedActor(actors.find(number),
+								actors.find(index))) {
 					continue;
 				}
-				if (ability1.getSelectNeed() == 0) {
-					int index = actors.checkActor(x, y);
-					if (index == -1
-							|| !ability1.filtedActor(actors.find(number),
-									actors.find(index))){
-						continue;
-					}
+			}
+			int posX = 0;
+			int posY = 0;
+			int count = 0;
+			int optimizeAllsize = 0;
+			SRPGAICache.Range targetRang = cache.range(x, y, range);
+			for (int k = 0; k < targetRang.length; k++) {
+				int index = cellActors[targetRang.cells[k]];
+				if (index == -1
+						|| !ability1.filtedActor(actors.find(i),
+								actors.find(index))) {
+					continue;
 				}
-				int posX = 0;
-				int posY = 0;
-				int count = 0;
-				int optimizeAllsize = 0;
-				int[][] targetRang = ability1.setTargetRange(field, x, y);
-				for (int ny = 0; ny < field.getHeight(); ny++) {
-					for (int nx = 0; nx < field.getWidth(); nx++) {
-						if (targetRang[ny][nx] == -1){
-							continue;
-						}
-						int index = actors.checkActor(nx, ny);
-						if (index == -1
-								|| !ability1.filtedActor(actors.find(i),
-										actors.find(index))){
-							continue;
-						}
-						int[] optimizeAll = ability1.getOptimizeAll(field, actors, i,
-								index);
-						posX += optimizeAll[0];
-						optimizeAllsize += optimizeAll[1];
-						if (optimizeAll[1] > 0){
-							posY++;
-						}
-						if (ability1.getGenre() == 0
-								&& actors.find(index).getActorStatus().hp - optimizeAll[0] <= 0
-								&& actors.find(index).getActorStatus().hp > 0){
-							count++;
-						}
-						flag1 = true;
-					}
-
+				int[] optimizeAll = optimizes[index];
+				if (optimizeAll == null) {
+					optimizeAll = ability1.getOptimizeAll(field, actors, i,
+							index);
+					optimizes[index] = optimizeAll;
+				}
+				posX += optimizeAll[0];
+				optimizeAllsize += optimizeAll[1];
+				if (optimizeAll[1] > 0) {
+					posY++;
+				}
+				if (ability1.getGenre() == 0
+						&& actors.find(index).getActorStatus().hp - optimizeAll[0] <= 0
+						&& actors.find(index).getActorStatus().hp > 0) {
+					count++;
 				}
+				flag1 = true;
+			}
 
-				boolean flag2 = false;
-				if (count > maxCount){
+			boolean flag2 = false;
+			if (count > maxCount) {
+				flag2 = true;
+			} else if (count == maxCount) {
+				if (posX > nPosX) {
 					flag2 = true;
-				}
-				else if (count == maxCount){
-					if (posX > nPosX){
+				} else if (posX == nPosX) {
+					if (posY > nPosY) {
 						flag2 = true;
-					}
-					else if (posX == nPosX){
-						if (posY > nPosY){
+					} else if (posY == nPosY) {
+						if (moveX == x && moveY == y) {
+							flag2 = true;
+						} else if (!flag && flag1) {
 							flag2 = true;
-						}
-						else if (posY == nPosY){
-							if (moveX == x && moveY == y){
-								flag2 = true;
-							}
-							else if (!flag && flag1){
-								flag2 = true;
-							}
 						}
 					}
 				}
-				if (flag2) {
-					pos[0] = x;
-					pos[1] = y;
-					maxCount = count;
-					nPosX = posX;
-					nPosY = posY;
-					optimizeAllCount = optimizeAllsize;
-					flag = true;
-				}
 			}
-
+			if (flag2) {
+				pos[0] = x;
+				pos[1] = y;
+				maxCount = count;
+				nPosX = posX;
+				nPosY = posY;
+				optimizeAllCount = optimizeAllsize;
+				flag = true;
+			}
 		}
 
 		if (!flag1 || !flag) {
@@ -925,6 +937,17 @@ public class SRPGAI {
 		}
 	}
 
+	private int[][] optimizeCache(int size) {
+		if (optimizes == null || optimizes.length < size) {
+			optimizes = new int[size][];
+		} else {
+			for (int i = 0; i < size; i++) {
+				optimizes[i] = null;
+			}
+		}
+		return optimizes;
+	}
+
 	public int getMoveX() {
 		return move_x;
 	}
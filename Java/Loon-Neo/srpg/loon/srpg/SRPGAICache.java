@@ -0,0 +1,359 @@
+/**
+ * Copyright 2008 - 2011
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @project loonframework
+ * @author chenpeng
+ * @email：ceponline@yahoo.com.cn
+ * @version 0.1
+ */
+package loon.srpg;
+
+import loon.srpg.actor.SRPGActor;
+import loon.srpg.actor.SRPGActors;
+import loon.srpg.field.SRPGField;
+import loon.srpg.field.SRPGFieldMove;
+import loon.utils.IntMap;
+import loon.utils.MathUtils;
+
+/**
+ * SRPG的AI运算缓存.
+ *
+ * 技能射程(地形类型19的移动力分布)只与地形有关,计算结果按(坐标,范围)保存为按行排列的稀疏格子列表,
+ * 同一回合中所有电脑角色共用,地形变化时自动失效;另外保存各格子上的角色与到最近敌对角色的距离图,
+ * 角色位置变化后重新建立.
+ */
+final class SRPGAICache {
+
+	/**
+	 * 一次射程计算的结果,cells为格子序号(y * width + x),values为对应的距离
+	 */
+	static final class Range {
+
+		int[] cells;
+
+		int[] values;
+
+		int length;
+
+	}
+
+	// 缓存的射程数量上限,超出后全部清空
+	private static final int MAX_RANGES = 8192;
+
+	private static final int FAR = Integer.MAX_VALUE / 2;
+
+	private final IntMap<Range> ranges = new IntMap<Range>();
+
+	private SRPGField field;
+
+	private int[][] moveSpace;
+
+	private SRPGFieldMove fieldMove;
+
+	int width, height;
+
+	// 每个格子上(按checkActor规则)最先找到的可见角色,没有则为-1
+	int[] cellActors;
+
+	// 每个格子到最近的敌对角色的距离,没有敌对角色时为-1
+	private int[] distances;
+
+	private int distanceGroup;
+
+	private int[] actorState;
+
+	private int actorCount;
+
+	private int[] marks;
+
+	private int markStamp;
+
+	/**
+	 * 刷新地形,地形与上次不同时清空射程缓存
+	 *
+	 * @param f
+	 */
+	void update(SRPGField f) {
+		int[][] space = f.getMoveSpace(19);
+		if (f == field && sameSpace(space)) {
+			return;
+		}
+		this.field = f;
+		this.moveSpace = space;
+		this.height = space.length;
+		this.width = height == 0 ? 0 : space[0].length;
+		this.fieldMove = new SRPGFieldMove(space);
+		this.ranges.clear();
+		final int cells = width * height;
+		if (cellActors == null || cellActors.length != cells) {
+			cellActors = new int[cells];
+			distances = new int[cells];
+			marks = new int[cells];
+			markStamp = 0;
+		}
+		this.actorState = null;
+	}
+
+	private boolean sameSpace(int[][] space) {
+		if (moveSpace == null || moveSpace.length != space.length) {
+			return false;
+		}
+		for (int y = 0; y < space.length; y++) {
+			int[] a = moveSpace[y];
+			int[] b = space[y];
+			if (a.length != b.length) {
+				return false;
+			}
+			for (int x = 0; x < b.length; x++) {
+				if (a[x] != b[x]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	void clear() {
+		this.field = null;
+		this.moveSpace = null;
+		this.fieldMove = null;
+		this.actorState = null;
+		this.ranges.clear();
+	}
+
+	/**
+	 * 获得以指定坐标为中心的射程,与SRPGFieldMove.getInstance(field.getMoveSpace(19)).movePower(x, y,
+	 * size)中不为-1的部分一致
+	 *
+	 * @param x
+	 * @param y
+	 * @param size
+	 * @return
+	 */
+	Range range(int x, int y, int size) {
+		final int cells = width * height;
+		final boolean cached = size >= 0 && size < 1024 && cells < (1 << 21);
+		final int key = (size << 21) | (y * width + x);
+		if (cached) {
+			Range range = ranges.get(key);
+			if (range != null) {
+				return range;
+			}
+		}
+		int[][] power = fieldMove.movePower(x, y, size);
+		int count = 0;
+		for (int j = 0; j < height; j++) {
+			for (int i = 0; i < width; i++) {
+				if (power[j][i] != -1) {
+					count++;
+				}
+			}
+		}
+		Range range = new Range();
+		range.cells = new int[count];
+		range.values = new int[count];
+		int index = 0;
+		for (int j = 0; j < height; j++) {
+			for (int i = 0; i < width; i++) {
+				if (power[j][i] != -1) {
+					range.cells[index] = j * width + i;
+					range.values[index] = power[j][i];
+					index++;
+				}
+			}
+		}
+		range.length = count;
+		if (cached) {
+			if (ranges.size >= MAX_RANGES) {
+				ranges.clear();
+			}
+			ranges.put(key, range);
+		}
+		return range;
+	}
+
+	/**
+	 * 标记射程中距离在[min, max]之间的格子,返回本次标记使用的编号
+	 *
+	 * @param range
+	 * @param min
+	 * @param max
+	 * @return
+	 */
+	int mark(Range range, int min, int max) {
+		if (++markStamp == Integer.MAX_VALUE) {
+			for (int i = 0; i < marks.length; i++) {
+				marks[i] = 0;
+			}
+			markStamp = 1;
+		}
+		for (int i = 0; i < range.length; i++) {
+			int v = range.values[i];
+			if (v >= min && v <= max) {
+				marks[range.cells[i]] = markStamp;
+			}
+		}
+		return markStamp;
+	}
+
+	boolean isMarked(int cell, int stamp) {
+		return marks[cell] == stamp;
+	}
+
+	/**
+	 * 重新建立每个格子上的角色(同一格子有多个可见角色时取序号最小者,与SRPGActors.checkActor一致)
+	 *
+	 * @param actors
+	 */
+	void updateActors(SRPGActors actors) {
+		final int[] list = cellActors;
+		for (int i = 0; i < list.length; i++) {
+			list[i] = -1;
+		}
+		for (int i = 0; i < actors.size(); i++) {
+			SRPGActor actor = actors.find(i);
+			int x = actor.getPosX();
+			int y = actor.getPosY();
+			if (!actor.isVisible() || x < 0 || y < 0 || x >= width
+					|| y >= height) {
+				continue;
+			}
+			int cell = y * width + x;
+			if (list[cell] == -1) {
+				list[cell] = i;
+			}
+		}
+	}
+
+	/**
+	 * 获得每个格子到不属于指定分组的最近可见角色的距离(曼哈顿距离),角色的位置与状态不变时直接返回上次的结果
+	 *
+	 * @param actors
+	 * @param group
+	 * @return
+	 */
+	int[] distanceMap(SRPGActors actors, int group) {
+		if (!sameActors(actors, group)) {
+			buildDistanceMap();
+		}
+		return distances;
+	}
+
+	private boolean sameActors(SRPGActors actors, int group) {
+		final int size = actors.size();
+		if (actorState == null || distanceGroup != group || actorCount != size) {
+			if (actorState == null || actorState.length < size * 3) {
+				actorState = new int[size * 3];
+			}
+			saveActors(actors, group);
+			return false;
+		}
+		boolean same = true;
+		for (int i = 0, n = 0; i < size; i++, n += 3) {
+			SRPGActor actor = actors.find(i);
+			int visible = actor.isVisible() && actor.getActorStatus().group != group ? 1
+					: 0;
+			if (actorState[n] != visible
+					|| visible == 1
+					&& (actorState[n + 1] != actor.getPosX() || actorState[n + 2] != actor
+							.getPosY())) {
+				same = false;
+				break;
+			}
+		}
+		if (!same) {
+			saveActors(actors, group);
+		}
+		return same;
+	}
+
+	private void saveActors(SRPGActors actors, int group) {
+		final int size = actors.size();
+		this.distanceGroup = group;
+		this.actorCount = size;
+		for (int i = 0, n = 0; i < size; i++, n += 3) {
+			SRPGActor actor = actors.find(i);
+			actorState[n] = actor.isVisible()
+					&& actor.getActorStatus().group != group ? 1 : 0;
+			actorState[n + 1] = actor.getPosX();
+			actorState[n + 2] = actor.getPosY();
+		}
+	}
+
+	/**
+	 * 以敌对角色为起点做两遍扫描的距离变换,无障碍网格上的结果即为到最近敌对角色的曼哈顿距离
+	 */
+	private void buildDistanceMap() {
+		final int[] dist = distances;
+		for (int i = 0; i < dist.length; i++) {
+			dist[i] = FAR;
+		}
+		boolean found = false;
+		for (int i = 0; i < actorCount; i++) {
+			if (actorState[i * 3] == 0) {
+				continue;
+			}
+			found = true;
+			int x = actorState[i * 3 + 1];
+			int y = actorState[i * 3 + 2];
+			if (x >= 0 && y >= 0 && x < width && y < height) {
+				dist[y * width + x] = 0;
+			} else {
+				// 位于地图之外的角色无法用扫描传播,直接计算
+				for (int j = 0; j < height; j++) {
+					for (int k = 0; k < width; k++) {
+						int d = MathUtils.abs(k - x) + MathUtils.abs(j - y);
+						if (d < dist[j * width + k]) {
+							dist[j * width + k] = d;
+						}
+					}
+				}
+			}
+		}
+		if (!found) {
+			for (int i = 0; i < dist.length; i++) {
+				dist[i] = -1;
+			}
+			return;
+		}
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int cell = y * width + x;
+				int d = dist[cell];
+				if (x > 0 && dist[cell - 1] + 1 < d) {
+					d = dist[cell - 1] + 1;
+				}
+				if (y > 0 && dist[cell - width] + 1 < d) {
+					d = dist[cell - width] + 1;
+				}
+				dist[cell] = d;
+			}
+		}
+		for (int y = height - 1; y >= 0; y--) {
+			for (int x = width - 1; x >= 0; x--) {
+				int cell = y * width + x;
+				int d = dist[cell];
+				if (x < width - 1 && dist[cell + 1] + 1 < d) {
+					d = dist[cell + 1] + 1;
+				}
+				if (y < height - 1 && dist[cell + width] + 1 < d) {
+					d = dist[cell + width] + 1;
+				}
+				dist[cell] = d;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,285 @@
+package loon.stg;
+
+import java.util.Iterator;
+
+import loon.utils.IntArray;
+import loon.utils.MathUtils;
+
+/**
+ * STG对象的碰撞数据.
+ *
+ * 每帧按对象表的遍历顺序把参与碰撞的对象写入平铺数组(中心点与碰撞大小只计算一次),并按属性把下标分别放入
+ * 主角子弹,敌人,敌人子弹,道具等数组中.敌人另外按均匀网格(空间哈希)分桶,主角子弹只检查自身覆盖的格子.
+ * 数组只会在容量不足时扩大,之后的每一帧都不会产生新对象.
+ */
+final class STGHitBuffer {
+
+	// 网格格子的初始大小(像素)
+	private static final int CELL_SIZE = 64;
+
+	// 网格最多使用的格子数量,范围过大时自动加大格子尺寸
+	private static final int MAX_CELLS = 4096;
+
+	// 敌人数量较少时直接遍历,不建立网格
+	private static final int MIN_GRID_ENEMIES = 16;
+
+	STGObject[] objects = new STGObject[128];
+
+	float[] centerX = new float[128];
+
+	float[] centerY = new float[128];
+
+	int[] hitW = new int[128];
+
+	int[] hitH = new int[128];
+
+	int size;
+
+	int hero = -1;
+
+	final IntArray heroShots = new IntArray(128);
+
+	final IntArray enemies = new IntArray(128);
+
+	final IntArray enemyShots = new IntArray(128);
+
+	final IntArray items = new IntArray();
+
+	final IntArray allHits = new IntArray();
+
+	private float gridSize;
+
+	private float gridX, gridY;
+
+	private int cols, rows;
+
+	private boolean gridBuilt;
+
+	private int[] cellStart = new int[1];
+
+	private int[] cellEntries = new int[128];
+
+	void build(STGScreen stg, STGObjects store) {
+		clear();
+		for (Iterator<STGObject> it = store.values(); it.hasNext();) {
+			STGObject o = it.next();
+			switch (o.attribute) {
+			case STGScreen.HERO:
+				if (hero == -1) {
+					hero = add(stg, o);
+				}
+				break;
+			case STGScreen.HERO_SHOT:
+				heroShots.add(add(stg, o));
+				break;
+			case STGScreen.ENEMY:
+				enemies.add(add(stg, o));
+				break;
+			case STGScreen.ENEMY_SHOT:
+				enemyShots.add(add(stg, o));
+				break;
+			case STGScreen.ITEM:
+				items.add(add(stg, o));
+				break;
+			case STGScreen.ALL_HIT:
+				allHits.add(add(stg, o));
+				break;
+			default:
+				break;
+			}
+		}
+		gridBuilt = enemies.length >= MIN_GRID_ENEMIES && heroShots.length > 0;
+		if (gridBuilt) {
+			buildGrid();
+		}
+	}
+
+	private int add(STGScreen stg, STGObject o) {
+		if (size == objects.length) {
+			int newSize = size * 2;
+			STGObject[] tmp = new STGObject[newSize];
+			System.arraycopy(objects, 0, tmp, 0, size);
+			objects = tmp;
+			centerX = copyOf(centerX, newSize);
+			centerY = copyOf(centerY, newSize);
+			hitW = copyOf(hitW, newSize);
+			hitH = copyOf(hitH, newSize);
+		}
+		final int w = o.getHitW();
+		final int h = o.getHitH();
+		objects[size] = o;
+		hitW[size] = w;
+		hitH[size] = h;
+		centerX[size] = stg.getPlanePosX(o.plnNo) + o.hitX + w / 2;
+		centerY[size] = stg.getPlanePosY(o.plnNo) + o.hitY + h / 2;
+		return size++;
+	}
+
+	private static float[] copyOf(float[] src, int newSize) {
+		float[] tmp = new float[newSize];
+		System.arraycopy(src, 0, tmp, 0, src.length);
+		return tmp;
+	}
+
+	private static int[] copyOf(int[] src, int newSize) {
+		int[] tmp = new int[newSize];
+		System.arraycopy(src, 0, tmp, 0, src.length);
+		return tmp;
+	}
+
+	/**
+	 * 两个对象的碰撞区域是否相交(与原有判定一致,使用整数除法计算半宽)
+	 */
+	boolean overlaps(int a, int b) {
+		return MathUtils.abs(centerX[a] - centerX[b]) < (hitW[a] + hitW[b]) / 2
+				&& MathUtils.abs(centerY[a] - centerY[b]) < (hitH[a] + hitH[b]) / 2;
+	}
+
+	/**
+	 * 按计数排序的方式把敌人放入所有与其相交的格子,同一格子中的下标保持递增
+	 */
+	private void buildGrid() {
+		final int[] list = enemies.items;
+		final int count = enemies.length;
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+		for (int i = 0; i < count; i++) {
+			int idx = list[i];
+			float hw = hitW[idx] / 2f;
+			float hh = hitH[idx] / 2f;
+			minX = MathUtils.min(minX, centerX[idx] - hw);
+			minY = MathUtils.min(minY, centerY[idx] - hh);
+			maxX = MathUtils.max(maxX, centerX[idx] + hw);
+			maxY = MathUtils.max(maxY, centerY[idx] + hh);
+		}
+		gridSize = CELL_SIZE;
+		for (;;) {
+			cols = (int) ((maxX - minX) / gridSize) + 1;
+			rows = (int) ((maxY - minY) / gridSize) + 1;
+			if (cols * rows <= MAX_CELLS) {
+				break;
+			}
+			gridSize *= 2;
+		}
+		gridX = minX;
+		gridY = minY;
+		final int cells = cols * rows;
+		if (cellStart.length < cells + 1) {
+			cellStart = new int[cells + 1];
+		}
+		for (int i = 0; i <= cells; i++) {
+			cellStart[i] = 0;
+		}
+		int total = 0;
+		for (int i = 0; i < count; i++) {
+			int idx = list[i];
+			int x1 = cellX(centerX[idx] - hitW[idx] / 2f);
+			int x2 = cellX(centerX[idx] + hitW[idx] / 2f);
+			int y1 = cellY(centerY[idx] - hitH[idx] / 2f);
+			int y2 = cellY(centerY[idx] + hitH[idx] / 2f);
+			for (int y = y1; y <= y2; y++) {
+				for (int x = x1; x <= x2; x++) {
+					cellStart[y * cols + x + 1]++;
+				}
+			}
+			total += (x2 - x1 + 1) * (y2 - y1 + 1);
+		}
+		for (int i = 0; i < cells; i++) {
+			cellStart[i + 1] += cellStart[i];
+		}
+		if (cellEntries.length < total) {
+			cellEntries = new int[MathUtils.max(total, cellEntries.length * 2)];
+		}
+		for (int i = 0; i < count; i++) {
+			int idx = list[i];
+			int x1 = cellX(centerX[idx] - hitW[idx] / 2f);
+			int x2 = cellX(centerX[idx] + hitW[idx] / 2f);
+			int y1 = cellY(centerY[idx] - hitH[idx] / 2f);
+			int y2 = cellY(centerY[idx] + hitH[idx] / 2f);
+			for (int y = y1; y <= y2; y++) {
+				for (int x = x1; x <= x2; x++) {
+					// 先以cellStart[cell]作为写入位置,填充完成后再恢复
+					cellEntries[cellStart[y * cols + x]++] = idx;
+				}
+			}
+		}
+		for (int i = cells; i > 0; i--) {
+			cellStart[i] = cellStart[i - 1];
+		}
+		cellStart[0] = 0;
+	}
+
+	private int cellX(float x) {
+		return MathUtils.clamp((int) ((x - gridX) / gridSize), 0, cols - 1);
+	}
+
+	private int cellY(float y) {
+		return MathUtils.clamp((int) ((y - gridY) / gridSize), 0, rows - 1);
+	}
+
+	/**
+	 * 查找与指定对象相交,并且当前属性仍为敌人的对象中遍历顺序最靠前的一个,没有则返回-1
+	 */
+	int findEnemy(int shot) {
+		if (!gridBuilt) {
+			return first(enemies, shot, STGScreen.ENEMY);
+		}
+		final float hw = hitW[shot] / 2f;
+		final float hh = hitH[shot] / 2f;
+		if (centerX[shot] + hw < gridX || centerY[shot] + hh < gridY
+				|| centerX[shot] - hw > gridX + cols * gridSize
+				|| centerY[shot] - hh > gridY + rows * gridSize) {
+			return -1;
+		}
+		final int x1 = cellX(centerX[shot] - hw);
+		final int x2 = cellX(centerX[shot] + hw);
+		final int y1 = cellY(centerY[shot] - hh);
+		final int y2 = cellY(centerY[shot] + hh);
+		int found = -1;
+		for (int y = y1; y <= y2; y++) {
+			for (int x = x1; x <= x2; x++) {
+				final int cell = y * cols + x;
+				for (int i = cellStart[cell], end = cellStart[cell + 1]; i < end; i++) {
+					int idx = cellEntries[i];
+					if (found != -1 && idx >= found) {
+						break;
+					}
+					if (objects[idx].attribute == STGScreen.ENEMY
+							&& overlaps(shot, idx)) {
+						found = idx;
+						break;
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * 在指定的下标数组中查找第一个与对象相交且属性仍为attribute的对象,没有则返回-1
+	 */
+	int first(IntArray list, int target, int attribute) {
+		final int[] values = list.items;
+		for (int i = 0, count = list.length; i < count; i++) {
+			int idx = values[i];
+			if (objects[idx].attribute == attribute && overlaps(target, idx)) {
+				return idx;
+			}
+		}
+		return -1;
+	}
+
+	void clear() {
+		for (int i = 0; i < size; i++) {
+			objects[i] = null;
+		}
+		size = 0;
+		hero = -1;
+		heroShots.clear();
+		enemies.clear();
+		enemyShots.clear();
+		items.clear();
+		allHits.clear();
+		gridBuilt = false;
+	}
+}
@@ -5,7 +5,6 @@ import java.util.Iterator;
 
 import loon.LRelease;
 import loon.stg.item.Item;
-import loon.utils.MathUtils;
 import loon.utils.ObjectMap;
 
 class STGObjects extends ObjectMap<Integer, STGObject> implements LRelease {
@@ -23,6 +22,8 @@ class STGObjects extends ObjectMap<Integer, STGObject> implements LRelease {
 
 	protected int score = 0;
 
+	private final STGHitBuffer hits = new STGHitBuffer();
+
 	STGObjects(STGScreen stg, int no) {
 		this.firstPlnNo = this.count = no;
 		this.heroPlnNo = this.firstPlnNo + 1000;
@@ -190,97 +191,84 @@ class STGObjects extends ObjectMap<Integer, STGObject> implements LRelease {
 	}
 
 	void hitCheckHeroShot() {
-		STGObject o = null;
-		Iterator<STGObject> e = this.values();
-		for (; e.hasNext();) {
-			STGObject shot = e.next();
-			if (shot.attribute == STGScreen.HERO_SHOT) {
-				o = shot;
-				Iterator<STGObject> enumeration = this.values();
-				while (enumeration.hasNext()) {
-					shot = enumeration.next();
-					if (shot.attribute == STGScreen.ENEMY
-							&& MathUtils.abs(this.stg.getPlanePosX(o.plnNo)
-									+ o.hitX + o.getHitW() / 2
-									- this.stg.getPlanePosX(shot.plnNo)
-									- shot.hitX - shot.getHitW() / 2) < (o
-									.getHitW() + shot.getHitW()) / 2
-							&& MathUtils.abs(this.stg.getPlanePosY(o.plnNo)
-									+ o.hitY + o.getHitH() / 2
-									- this.stg.getPlanePosY(shot.plnNo)
-									- shot.hitY - shot.getHitH() / 2) < (o
-									.getHitH() + shot.getHitH()) / 2) {
-						--o.hitPoint;
-						if (o.hitPoint == 0) {
-							this.delObj(o.plnNo);
-						}
-						--shot.hitPoint;
-						shot.hitFlag = true;
-						if (shot.hitPoint == 0) {
-							this.score += shot.scorePoint;
-							shot.attribute = STGScreen.ENEMY_SHOT;
-						}
-						break;
-					}
-				}
+		final STGHitBuffer hits = this.hits;
+		hits.build(this.stg, this);
+		final int[] shots = hits.heroShots.items;
+		for (int i = 0, size = hits.heroShots.length; i < size; i++) {
+			final int idx = shots[i];
+			final STGObject o = hits.objects[idx];
+			if (o.attribute != STGScreen.HERO_SHOT) {
+				continue;
+			}
+			final int target = hits.findEnemy(idx);
+			if (target == -1) {
+				continue;
+			}
+			final STGObject shot = hits.objects[target];
+			--o.hitPoint;
+			if (o.hitPoint == 0) {
+				this.delObj(o.plnNo);
+			}
+			--shot.hitPoint;
+			shot.hitFlag = true;
+			if (shot.hitPoint == 0) {
+				this.score += shot.scorePoint;
+				shot.attribute = STGScreen.ENEMY_SHOT;
 			}
 		}
-
+		hits.clear();
 	}
 
 	void hitCheckHero() {
-		STGObject o = null;
-		Iterator<STGObject> e = this.values();
-		STGObject shot;
-		for (; e.hasNext();) {
-			shot = e.next();
-			if (shot.attribute == STGScreen.HERO) {
-				o = shot;
-				break;
-			}
-		}
-		if (o != null) {
-			e = this.values();
-			for (; e.hasNext();) {
-				shot = e.next();
-				if ((shot.attribute == STGScreen.ENEMY
-						|| shot.attribute == STGScreen.ITEM
-						|| shot.attribute == STGScreen.ENEMY_SHOT || shot.attribute == STGScreen.ALL_HIT)
-						&& MathUtils.abs(this.stg.getPlanePosX(o.plnNo)
-								+ o.hitX + o.getHitW() / 2
-								- this.stg.getPlanePosX(shot.plnNo) - shot.hitX
-								- shot.getHitW() / 2) < (o.getHitW() + shot
-								.getHitW()) / 2
-						&& MathUtils.abs(this.stg.getPlanePosY(o.plnNo)
-								+ o.hitY + o.getHitH() / 2
-								- this.stg.getPlanePosY(shot.plnNo) - shot.hitY
-								- shot.getHitH() / 2) < (o.getHitH() + shot
-								.getHitH()) / 2) {
-					if (shot.attribute != STGScreen.ITEM) {
-						--shot.hitPoint;
-						shot.hitFlag = true;
-						if (shot.hitPoint == 0) {
-							this.score += shot.scorePoint;
-							shot.attribute = STGScreen.NO_HIT;
-							if (shot.attribute == STGScreen.ENEMY_SHOT) {
-								this.delObj(shot.plnNo);
-							}
+		final STGHitBuffer hits = this.hits;
+		hits.build(this.stg, this);
+		final int hero = hits.hero;
+		if (hero != -1) {
+			// 与原有的遍历顺序一致,取相交对象中最靠前的一个
+			int target = hits.first(hits.enemies, hero, STGScreen.ENEMY);
+			target = min(target,
+					hits.first(hits.items, hero, STGScreen.ITEM));
+			target = min(target,
+					hits.first(hits.enemyShots, hero, STGScreen.ENEMY_SHOT));
+			target = min(target,
+					hits.first(hits.allHits, hero, STGScreen.ALL_HIT));
+			if (target != -1) {
+				STGObject o = hits.objects[hero];
+				STGObject shot = hits.objects[target];
+				if (shot.attribute != STGScreen.ITEM) {
+					--shot.hitPoint;
+					shot.hitFlag = true;
+					if (shot.hitPoint == 0) {
+						this.score += shot.scorePoint;
+						shot.attribute = STGScreen.NO_HIT;
+						if (shot.attribute == STGScreen.ENEMY_SHOT) {
+							this.delObj(shot.plnNo);
 						}
-						o.attribute = STGScreen.NO_HIT;
-					} else {
-						Item i = (Item) shot;
-						i.giveHeroEvent((STGHero) o);
-						i.attribute = STGScreen.NO_HIT;
 					}
-					break;
+					o.attribute = STGScreen.NO_HIT;
+				} else {
+					Item i = (Item) shot;
+					i.giveHeroEvent((STGHero) o);
+					i.attribute = STGScreen.NO_HIT;
 				}
 			}
+		}
+		hits.clear();
+	}
 
+	private static int min(int a, int b) {
+		if (a == -1) {
+			return b;
+		}
+		if (b == -1) {
+			return a;
 		}
+		return a < b ? a : b;
 	}
 
 	@Override
 	public void close() {
+		hits.clear();
 		clear();
 	}
 
@@ -3,20 +3,27 @@ package org.test;
 import loon.LTransition;
 import loon.Screen;
 import loon.action.sprite.GifAnimation;
+import loon.action.sprite.GifStreamAnimation;
 import loon.event.GameTouch;
 import loon.font.LFont;
 import loon.opengl.GLEx;
+import loon.utils.GifDecoder;
 import loon.utils.timer.LTimerContext;
 
 public class GifTest extends Screen {
 
+	// 流式播放,只解码当前帧并复用同一张纹理
+	private GifStreamAnimation streamAnimation;
+
 	public LTransition onTransition() {
 		return LTransition.newEmpty();
 	}
 
 	@Override
 	public void draw(GLEx g) {
-
+		if (streamAnimation != null) {
+			g.draw(streamAnimation.getSpriteImage(), 240, 0);
+		}
 	}
 
 	@Override
@@ -28,12 +35,16 @@ public class GifTest extends Screen {
 		GifAnimation an = new GifAnimation("33.gif");
 		add(an);
 
+		streamAnimation = GifDecoder.getStreamAnimation("33.gif");
+
 		add(MultiScreenTest.getBackButton(this,0));
 	}
 
 	@Override
 	public void alter(LTimerContext timer) {
-
+		if (streamAnimation != null) {
+			streamAnimation.update(timer.getTimeSinceLastUpdate());
+		}
 	}
 
 	@Override
@@ -73,7 +84,9 @@ public class GifTest extends Screen {
 
 	@Override
 	public void close() {
-
+		if (streamAnimation != null) {
+			streamAnimation.close();
+		}
 	}
 
 }